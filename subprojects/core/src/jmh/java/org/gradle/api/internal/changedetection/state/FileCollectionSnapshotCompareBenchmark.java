@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.io.Files;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.changedetection.rules.TaskStateChange;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.hash.DefaultFileHasher;
+import org.gradle.api.tasks.util.internal.PatternSets;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.util.Iterator;
+
+/**
+ * Measures comparing the snapshot of a synthetic directory tree against the snapshot taken before a fraction of its files was changed,
+ * as done for every file property of a task during up-to-date checking.
+ */
+@State(Scope.Benchmark)
+public class FileCollectionSnapshotCompareBenchmark {
+    @Param({"1000", "10000"})
+    int fileCount;
+
+    @Param({"0", "0.01", "0.5"})
+    double changeRatio;
+
+    @Param({"ORDERED", "UNORDERED", "OUTPUT"})
+    TaskFilePropertyCompareStrategy compareStrategy;
+
+    private File workDir;
+    private FileCollectionSnapshot previous;
+    private FileCollectionSnapshot current;
+
+    @Setup
+    public void setup() throws Exception {
+        workDir = Files.createTempDir();
+        NativeServices.initialize(new File(workDir, "native"));
+        SyntheticFileTree tree = SyntheticFileTree.create(new File(workDir, "tree"), fileCount, 3);
+        FileCollection files = new SimpleFileCollection(tree.getRoot());
+
+        FileSystem fileSystem = FileSystems.getDefault();
+        DefaultFileSystemMirror fileSystemMirror = new DefaultFileSystemMirror();
+        DefaultGenericFileCollectionSnapshotter snapshotter = new DefaultGenericFileCollectionSnapshotter(new DefaultFileHasher(), new StringInterner(), fileSystem,
+            new DefaultDirectoryFileTreeFactory(PatternSets.getNonCachingPatternSetFactory(), fileSystem), fileSystemMirror);
+
+        previous = snapshotter.snapshot(files, compareStrategy, TaskFilePropertySnapshotNormalizationStrategy.RELATIVE);
+        tree.modify(changeRatio);
+        fileSystemMirror.beforeTaskOutputsGenerated();
+        current = snapshotter.snapshot(files, compareStrategy, TaskFilePropertySnapshotNormalizationStrategy.RELATIVE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        GFileUtils.deleteDirectory(workDir);
+    }
+
+    /**
+     * Finds the first change only, which is all that is needed to decide that a task is out of date.
+     */
+    @Benchmark
+    public boolean isUpToDate() {
+        return !current.iterateContentChangesSince(previous, "Input").hasNext();
+    }
+
+    /**
+     * Collects every change, as needed for incremental task inputs.
+     */
+    @Benchmark
+    public void collectChanges(Blackhole blackhole) {
+        Iterator<TaskStateChange> changes = current.iterateContentChangesSince(previous, "Input");
+        while (changes.hasNext()) {
+            blackhole.consume(changes.next());
+        }
+    }
+}
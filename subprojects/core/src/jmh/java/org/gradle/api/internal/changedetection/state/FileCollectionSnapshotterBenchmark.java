@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.io.Files;
+import org.gradle.api.file.FileCollection;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.api.internal.file.collections.DefaultDirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
+import org.gradle.api.internal.file.collections.SimpleFileCollection;
+import org.gradle.api.internal.hash.DefaultFileHasher;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.api.tasks.util.internal.PatternSets;
+import org.gradle.caching.internal.DefaultBuildCacheHasher;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+import org.gradle.internal.nativeintegration.services.FileSystems;
+import org.gradle.internal.nativeintegration.services.NativeServices;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GFileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+
+/**
+ * Measures snapshotting a synthetic directory tree with the generic and classpath snapshotters, and persisting the resulting snapshot.
+ *
+ * <p>The file system mirror is emptied before each cold snapshot, so that the tree is walked and every file is hashed, as happens for the
+ * first task that uses a tree in a build. Hashes are not cached across builds.</p>
+ */
+@State(Scope.Benchmark)
+public class FileCollectionSnapshotterBenchmark {
+    @Param({"1000", "10000"})
+    int fileCount;
+
+    @Param({"1", "5"})
+    int depth;
+
+    private File workDir;
+    private FileCollection files;
+    private DefaultFileSystemMirror fileSystemMirror;
+    private DefaultGenericFileCollectionSnapshotter genericSnapshotter;
+    private DefaultClasspathSnapshotter classpathSnapshotter;
+    private FileCollectionSnapshot snapshot;
+    private Serializer<DefaultFileCollectionSnapshot> serializer;
+    private byte[] serializedSnapshot;
+
+    @Setup
+    public void setup() throws Exception {
+        workDir = Files.createTempDir();
+        NativeServices.initialize(new File(workDir, "native"));
+        SyntheticFileTree tree = SyntheticFileTree.create(new File(workDir, "tree"), fileCount, depth);
+        files = new SimpleFileCollection(tree.getRoot());
+
+        StringInterner stringInterner = new StringInterner();
+        FileHasher hasher = new DefaultFileHasher();
+        FileSystem fileSystem = FileSystems.getDefault();
+        DirectoryFileTreeFactory directoryFileTreeFactory = new DefaultDirectoryFileTreeFactory(PatternSets.getNonCachingPatternSetFactory(), fileSystem);
+        fileSystemMirror = new DefaultFileSystemMirror();
+        genericSnapshotter = new DefaultGenericFileCollectionSnapshotter(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror);
+        classpathSnapshotter = new DefaultClasspathSnapshotter(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror, new DefaultClasspathEntryHasher(new DefaultClasspathContentHasher()));
+
+        snapshot = snapshotGenericFileCollection();
+        serializer = new DefaultFileCollectionSnapshot.SerializerImpl(stringInterner);
+        serializedSnapshot = write(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() {
+        GFileUtils.deleteDirectory(workDir);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshotGenericFileCollection() {
+        fileSystemMirror.beforeTaskOutputsGenerated();
+        return genericSnapshotter.snapshot(files, TaskFilePropertyCompareStrategy.UNORDERED, TaskFilePropertySnapshotNormalizationStrategy.RELATIVE);
+    }
+
+    /**
+     * Snapshots a tree that an earlier task in the same build has already snapshotted, so that the walk and hashes are reused from the file system mirror.
+     */
+    @Benchmark
+    public FileCollectionSnapshot snapshotGenericFileCollectionWithWarmMirror() {
+        return genericSnapshotter.snapshot(files, TaskFilePropertyCompareStrategy.UNORDERED, TaskFilePropertySnapshotNormalizationStrategy.RELATIVE);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot snapshotClasspath() {
+        fileSystemMirror.beforeTaskOutputsGenerated();
+        return classpathSnapshotter.snapshot(files, TaskFilePropertyCompareStrategy.ORDERED, ClasspathSnapshotNormalizationStrategy.INSTANCE);
+    }
+
+    @Benchmark
+    public Object hashForBuildCache() {
+        DefaultBuildCacheHasher hasher = new DefaultBuildCacheHasher();
+        snapshot.appendToHasher(hasher);
+        return hasher.hash();
+    }
+
+    @Benchmark
+    public byte[] persist() throws Exception {
+        return write(snapshot);
+    }
+
+    @Benchmark
+    public FileCollectionSnapshot load() throws Exception {
+        KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(serializedSnapshot));
+        return serializer.read(decoder);
+    }
+
+    private byte[] write(FileCollectionSnapshot snapshot) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, (DefaultFileCollectionSnapshot) snapshot);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+}
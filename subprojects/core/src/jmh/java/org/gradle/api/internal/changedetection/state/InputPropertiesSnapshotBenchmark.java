@@ -0,0 +1,142 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures snapshotting, comparing and persisting the input properties of a task with a mix of the value types commonly found in builds.
+ */
+@State(Scope.Benchmark)
+public class InputPropertiesSnapshotBenchmark {
+    private static final HashCode CLASS_LOADER_HASH = Hashing.md5().hashString(InputPropertiesSnapshotBenchmark.class.getName(), Charsets.UTF_8);
+
+    @Param({"10", "100"})
+    int propertyCount;
+
+    private ValueSnapshotter valueSnapshotter;
+    private InputPropertiesSerializer serializer;
+    private Map<String, Object> properties;
+    private ImmutableSortedMap<String, ValueSnapshot> previous;
+    private byte[] serializedProperties;
+
+    @Setup
+    public void setup() throws Exception {
+        valueSnapshotter = new ValueSnapshotter(new ClassLoaderHierarchyHasher() {
+            @Override
+            public HashCode getClassLoaderHash(ClassLoader classLoader) {
+                return CLASS_LOADER_HASH;
+            }
+        });
+        serializer = new InputPropertiesSerializer();
+        ImmutableSortedMap.Builder<String, Object> builder = ImmutableSortedMap.naturalOrder();
+        for (int i = 0; i < propertyCount; i++) {
+            builder.put("property" + i, value(i));
+        }
+        properties = builder.build();
+        previous = snapshot();
+        serializedProperties = persist();
+    }
+
+    private static Object value(int i) {
+        switch (i % 8) {
+            case 0:
+                return "value" + i;
+            case 1:
+                return i;
+            case 2:
+                return i % 3 == 0;
+            case 3:
+                return new File("src/main/resources/file" + i + ".txt");
+            case 4:
+                return ImmutableList.of("-Xlint:all", "-Werror", "-parameters", "arg" + i);
+            case 5:
+                return ImmutableMap.of("key" + i, "value" + i, "version", "1.0." + i);
+            case 6:
+                return TimeUnit.values()[i % TimeUnit.values().length];
+            default:
+                return new Options("options" + i, i, ImmutableList.of("a", "b", "c"));
+        }
+    }
+
+    @Benchmark
+    public ImmutableSortedMap<String, ValueSnapshot> snapshot() {
+        ImmutableSortedMap.Builder<String, ValueSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            builder.put(entry.getKey(), valueSnapshotter.snapshot(entry.getValue()));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Snapshots the properties of a task whose inputs have not changed since the previous execution, which allows the previous snapshots to be reused.
+     */
+    @Benchmark
+    public ImmutableSortedMap<String, ValueSnapshot> snapshotUnchanged() {
+        ImmutableSortedMap.Builder<String, ValueSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            builder.put(entry.getKey(), valueSnapshotter.snapshot(entry.getValue(), previous.get(entry.getKey())));
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public byte[] persist() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        serializer.write(encoder, previous);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public ImmutableMap<String, ValueSnapshot> load() throws Exception {
+        return serializer.read(new KryoBackedDecoder(new ByteArrayInputStream(serializedProperties)));
+    }
+
+    private static class Options implements Serializable {
+        private final String name;
+        private final int level;
+        private final ImmutableList<String> flags;
+
+        Options(String name, int level, ImmutableList<String> flags) {
+            this.name = name;
+            this.level = level;
+            this.flags = flags;
+        }
+    }
+}
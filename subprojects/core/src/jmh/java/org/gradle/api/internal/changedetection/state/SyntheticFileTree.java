@@ -0,0 +1,101 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A reproducible tree of small files used as input for the snapshotting benchmarks.
+ */
+class SyntheticFileTree {
+    private static final int FILES_PER_DIRECTORY = 50;
+    private static final int FAN_OUT = 4;
+    private static final int FILE_SIZE = 512;
+
+    private final File root;
+    private final List<File> files;
+    private final Random random = new Random(42L);
+
+    private SyntheticFileTree(File root, List<File> files) {
+        this.root = root;
+        this.files = files;
+    }
+
+    /**
+     * Creates {@code fileCount} files below {@code root}. Files are spread over leaf directories that are {@code depth} levels below the root.
+     */
+    static SyntheticFileTree create(File root, int fileCount, int depth) throws IOException {
+        List<File> files = Lists.newArrayListWithCapacity(fileCount);
+        SyntheticFileTree tree = new SyntheticFileTree(root, files);
+        int leafCount = (fileCount + FILES_PER_DIRECTORY - 1) / FILES_PER_DIRECTORY;
+        for (int leaf = 0; leaf < leafCount; leaf++) {
+            File dir = leafDirectory(root, leaf, depth);
+            if (!dir.mkdirs() && !dir.isDirectory()) {
+                throw new IOException("Could not create directory " + dir);
+            }
+            for (int i = leaf * FILES_PER_DIRECTORY; i < Math.min(fileCount, (leaf + 1) * FILES_PER_DIRECTORY); i++) {
+                File file = new File(dir, "File" + i + ".class");
+                tree.write(file);
+                files.add(file);
+            }
+        }
+        return tree;
+    }
+
+    private static File leafDirectory(File root, int leaf, int depth) {
+        File dir = root;
+        int bucket = 1;
+        for (int level = 1; level < depth; level++) {
+            bucket *= FAN_OUT;
+            dir = new File(dir, "dir" + (leaf % bucket));
+        }
+        return new File(dir, "leaf" + leaf);
+    }
+
+    File getRoot() {
+        return root;
+    }
+
+    List<File> getFiles() {
+        return files;
+    }
+
+    /**
+     * Rewrites the content of the given fraction of files, picked at random.
+     */
+    void modify(double changeRatio) throws IOException {
+        List<File> shuffled = Lists.newArrayList(files);
+        Collections.shuffle(shuffled, random);
+        int changeCount = (int) Math.round(files.size() * changeRatio);
+        for (File file : shuffled.subList(0, changeCount)) {
+            write(file);
+        }
+    }
+
+    private void write(File file) throws IOException {
+        byte[] content = new byte[FILE_SIZE];
+        random.nextBytes(content);
+        Files.write(content, file);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.metaobject;
+
+import groovy.lang.GroovySystem;
+import groovy.lang.MetaClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the dynamic property and method dispatch performed for build script DSL calls, compared with the equivalent lookups on the meta-class.
+ */
+@State(Scope.Benchmark)
+public class BeanDynamicObjectBenchmark {
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final Object[] STRING_ARG = new Object[]{"value"};
+
+    private Bean bean;
+    private MetaClass metaClass;
+    private BeanDynamicObject dynamicObject;
+
+    @Setup
+    public void setup() {
+        bean = new Bean();
+        metaClass = GroovySystem.getMetaClassRegistry().getMetaClass(Bean.class);
+        dynamicObject = new BeanDynamicObject(bean);
+    }
+
+    @Benchmark
+    public void metaClassGetProperty(Blackhole bh) {
+        bh.consume(metaClass.getMetaProperty("prop").getProperty(bean));
+    }
+
+    @Benchmark
+    public void getProperty(Blackhole bh) {
+        bh.consume(dynamicObject.getProperty("prop"));
+    }
+
+    @Benchmark
+    public void hasMissingProperty(Blackhole bh) {
+        bh.consume(dynamicObject.hasProperty("missing"));
+    }
+
+    @Benchmark
+    public void setProperty() {
+        dynamicObject.setProperty("prop", "value");
+    }
+
+    @Benchmark
+    public void metaClassInvokeMethod(Blackhole bh) {
+        bh.consume(metaClass.getMetaMethod("method", new Class[]{String.class}).doMethodInvoke(bean, STRING_ARG));
+    }
+
+    @Benchmark
+    public void invokeMethod(Blackhole bh) {
+        bh.consume(dynamicObject.invokeMethod("method", STRING_ARG));
+    }
+
+    @Benchmark
+    public void invokeMethodWithNoArguments(Blackhole bh) {
+        bh.consume(dynamicObject.invokeMethod("method", NO_ARGS));
+    }
+
+    @Benchmark
+    public void hasMissingMethod(Blackhole bh) {
+        bh.consume(dynamicObject.hasMethod("missing", STRING_ARG));
+    }
+
+    public static class Bean {
+        private String prop = "value";
+
+        public String getProp() {
+            return prop;
+        }
+
+        public void setProp(String prop) {
+            this.prop = prop;
+        }
+
+        public String method() {
+            return prop;
+        }
+
+        public String method(String value) {
+            return value;
+        }
+    }
+}
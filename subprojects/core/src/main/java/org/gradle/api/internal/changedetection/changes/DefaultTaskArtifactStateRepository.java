@@ -17,6 +17,7 @@
 package org.gradle.api.internal.changedetection.changes;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.TaskExecutionHistory;
 import org.gradle.api.internal.TaskInternal;
@@ -126,7 +127,11 @@ public class DefaultTaskArtifactStateRepository implements TaskArtifactStateRepo
         public TaskOutputCachingBuildCacheKey calculateCacheKey() {
             // Ensure that states are created
             getStates();
-            return cacheKeyCalculator.calculate(history.getCurrentExecution());
+            TaskExecution currentExecution = history.getCurrentExecution();
+            TaskOutputCachingBuildCacheKey cacheKey = cacheKeyCalculator.calculate(currentExecution, history.getPreviousExecution());
+            // Keep the input hashes with the execution history, so that the next build only needs to hash the inputs that changed
+            currentExecution.setInputHashes(ImmutableSortedMap.copyOf(cacheKey.getInputs().getInputHashes()));
+            return cacheKey;
         }
 
         public FileCollection getOutputFiles() {
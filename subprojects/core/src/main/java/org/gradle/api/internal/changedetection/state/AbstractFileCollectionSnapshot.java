@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import org.gradle.api.internal.changedetection.rules.TaskStateChange;
+import org.gradle.caching.internal.BuildCacheHasher;
+
+import java.util.Iterator;
+
+abstract class AbstractFileCollectionSnapshot implements FileCollectionSnapshot {
+    private final TaskFilePropertyCompareStrategy compareStrategy;
+    private final boolean pathIsAbsolute;
+
+    AbstractFileCollectionSnapshot(TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute) {
+        this.compareStrategy = compareStrategy;
+        this.pathIsAbsolute = pathIsAbsolute;
+    }
+
+    TaskFilePropertyCompareStrategy getCompareStrategy() {
+        return compareStrategy;
+    }
+
+    boolean isPathAbsolute() {
+        return pathIsAbsolute;
+    }
+
+    @Override
+    public Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, String fileType) {
+        return compareStrategy.iterateContentChangesSince(getSnapshots(), oldSnapshot.getSnapshots(), fileType, pathIsAbsolute);
+    }
+
+    @Override
+    public boolean isUnchangedSince(FileCollectionSnapshot oldSnapshot) {
+        if (!(oldSnapshot instanceof AbstractFileCollectionSnapshot)) {
+            return false;
+        }
+        AbstractFileCollectionSnapshot other = (AbstractFileCollectionSnapshot) oldSnapshot;
+        return compareStrategy == other.compareStrategy
+            && pathIsAbsolute == other.pathIsAbsolute
+            && !iterateContentChangesSince(oldSnapshot, "File").hasNext();
+    }
+
+    @Override
+    public void appendToHasher(BuildCacheHasher hasher) {
+        compareStrategy.appendToHasher(hasher, getSnapshots());
+    }
+}
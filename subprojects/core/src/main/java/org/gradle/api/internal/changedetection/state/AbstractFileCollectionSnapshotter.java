@@ -19,11 +19,14 @@ package org.gradle.api.internal.changedetection.state;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import org.gradle.api.Nullable;
+import org.gradle.api.Transformer;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
+import org.gradle.api.file.ReproducibleFileVisitor;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.FileCollectionInternal;
 import org.gradle.api.internal.file.FileCollectionVisitor;
@@ -31,13 +34,18 @@ import org.gradle.api.internal.file.FileTreeInternal;
 import org.gradle.api.internal.file.collections.DirectoryFileTree;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.nativeintegration.filesystem.FileMetadataSnapshot;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 import org.gradle.internal.serialize.SerializerRegistry;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static org.gradle.internal.nativeintegration.filesystem.FileType.*;
 
@@ -45,22 +53,36 @@ import static org.gradle.internal.nativeintegration.filesystem.FileType.*;
  * Responsible for calculating a {@link FileCollectionSnapshot} for a particular {@link FileCollection}.
  */
 public abstract class AbstractFileCollectionSnapshotter implements FileCollectionSnapshotter {
+    // The number of elements hashed by a single job, and the minimum number of elements that are hashed concurrently
+    private static final int ELEMENTS_PER_OPERATION = 100;
+
     private final FileHasher hasher;
     private final StringInterner stringInterner;
     private final FileSystem fileSystem;
     private final DirectoryFileTreeFactory directoryFileTreeFactory;
     private final FileSystemMirror fileSystemMirror;
+    private final ExecutorService hashingExecutor;
 
     public AbstractFileCollectionSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
+        this(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror, null);
+    }
+
+    /**
+     * @param hashingExecutor used to hash the files of large collections and directory trees concurrently, or {@code null} to hash all files on the calling thread.
+     * Snapshots are taken from build operations, so this must not be the build operation processor, whose workers would otherwise wait on each other.
+     */
+    public AbstractFileCollectionSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror, @Nullable ExecutorService hashingExecutor) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.fileSystem = fileSystem;
         this.directoryFileTreeFactory = directoryFileTreeFactory;
         this.fileSystemMirror = fileSystemMirror;
+        this.hashingExecutor = hashingExecutor;
     }
 
     public void registerSerializers(SerializerRegistry registry) {
         registry.register(DefaultFileCollectionSnapshot.class, new DefaultFileCollectionSnapshot.SerializerImpl(stringInterner));
+        registry.register(CompactFileCollectionSnapshot.class, new CompactFileCollectionSnapshot.SerializerImpl(stringInterner));
     }
 
     @Override
@@ -107,6 +129,42 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
         return stringInterner.intern(file.getAbsolutePath());
     }
 
+    /**
+     * Transforms the given elements into file details, hashing the files concurrently when there are enough of them. The result has the same order as the elements.
+     */
+    private <T> List<FileDetails> collectDetails(List<T> elements, Transformer<FileDetails, T> transformer) {
+        FileDetails[] details = new FileDetails[elements.size()];
+        if (hashingExecutor == null || elements.size() < 2 * ELEMENTS_PER_OPERATION) {
+            new CollectDetailsOperation<T>(elements, transformer, details, 0, elements.size()).run();
+            return Arrays.asList(details);
+        }
+
+        // The calling thread hashes the first batch itself, and then waits for the others
+        List<Future<?>> batches = Lists.newArrayList();
+        for (int start = ELEMENTS_PER_OPERATION; start < elements.size(); start += ELEMENTS_PER_OPERATION) {
+            batches.add(hashingExecutor.submit(new CollectDetailsOperation<T>(elements, transformer, details, start, Math.min(start + ELEMENTS_PER_OPERATION, elements.size()))));
+        }
+        new CollectDetailsOperation<T>(elements, transformer, details, 0, ELEMENTS_PER_OPERATION).run();
+        for (Future<?> batch : batches) {
+            try {
+                batch.get();
+            } catch (ExecutionException e) {
+                throw UncheckedException.throwAsUncheckedException(e.getCause());
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+        return Arrays.asList(details);
+    }
+
+    private FileDetails dirDetails(FileVisitDetails dirDetails) {
+        return new DefaultFileDetails(getPath(dirDetails.getFile()), dirDetails.getRelativePath(), Directory, false, dirSnapshot());
+    }
+
+    private FileDetails fileDetails(FileVisitDetails fileDetails) {
+        return new DefaultFileDetails(getPath(fileDetails.getFile()), fileDetails.getRelativePath(), RegularFile, false, fileSnapshot(fileDetails));
+    }
+
     /**
      * Normalises the elements of a directory tree. Does not include the root directory.
      */
@@ -130,12 +188,20 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
 
         @Override
         public void visitCollection(FileCollectionInternal fileCollection) {
-            for (File file : fileCollection) {
-                FileDetails details = fileSystemMirror.getFile(file.getPath());
-                if (details == null) {
-                    details = calculateDetails(file);
-                    fileSystemMirror.putFile(details);
+            List<File> files = Lists.newArrayList(fileCollection);
+            List<FileDetails> roots = collectDetails(files, new Transformer<FileDetails, File>() {
+                @Override
+                public FileDetails transform(File file) {
+                    FileDetails details = fileSystemMirror.getFile(file.getPath());
+                    if (details == null) {
+                        details = calculateDetails(file);
+                        fileSystemMirror.putFile(details);
+                    }
+                    return details;
                 }
+            });
+            for (int i = 0; i < files.size(); i++) {
+                FileDetails details = roots.get(i);
                 switch (details.getType()) {
                     case Missing:
                         fileTreeElements.add(details);
@@ -146,7 +212,7 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
                     case Directory:
                         // Visit the directory itself, then its contents
                         fileTreeElements.add(details);
-                        visitDirectoryTree(directoryFileTreeFactory.create(file));
+                        visitDirectoryTree(directoryFileTreeFactory.create(files.get(i)));
                         break;
                     default:
                         throw new AssertionError();
@@ -182,8 +248,7 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
             List<FileDetails> elements;
             if (!directoryTree.getPatterns().isEmpty()) {
                 // Currently handle only those trees where we want everything from a directory
-                elements = Lists.newArrayList();
-                directoryTree.visit(new FileVisitorImpl(elements));
+                elements = visitDirectoryTreeElements(directoryTree);
             } else {
                 DirectoryTreeDetails treeDetails = fileSystemMirror.getDirectoryTree(directoryTree.getDir().getAbsolutePath());
                 if (treeDetails != null) {
@@ -192,8 +257,7 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
                 } else {
                     // Scan the directory
                     String path = getPath(directoryTree.getDir());
-                    elements = Lists.newArrayList();
-                    directoryTree.visit(new FileVisitorImpl(elements));
+                    elements = visitDirectoryTreeElements(directoryTree);
                     DirectoryTreeDetails details = new DirectoryTreeDetails(path, ImmutableList.copyOf(elements));
                     fileSystemMirror.putDirectory(details);
                 }
@@ -202,6 +266,59 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
             elements = normaliseTreeElements(elements);
             fileTreeElements.addAll(elements);
         }
+
+        /**
+         * Walks the tree first and then hashes its files, so that the files can be hashed concurrently.
+         */
+        private List<FileDetails> visitDirectoryTreeElements(DirectoryFileTree directoryTree) {
+            final List<FileVisitDetails> elements = Lists.newArrayList();
+            directoryTree.visit(new ReproducibleFileVisitor() {
+                @Override
+                public void visitDir(FileVisitDetails dirDetails) {
+                    elements.add(dirDetails);
+                }
+
+                @Override
+                public void visitFile(FileVisitDetails fileDetails) {
+                    elements.add(fileDetails);
+                }
+
+                @Override
+                public boolean isReproducibleFileOrder() {
+                    // The tree is walked concurrently when a reproducible order is requested
+                    return true;
+                }
+            });
+            return collectDetails(elements, new Transformer<FileDetails, FileVisitDetails>() {
+                @Override
+                public FileDetails transform(FileVisitDetails details) {
+                    return details.isDirectory() ? dirDetails(details) : fileDetails(details);
+                }
+            });
+        }
+    }
+
+    private static class CollectDetailsOperation<T> implements Runnable {
+        private final List<T> elements;
+        private final Transformer<FileDetails, T> transformer;
+        private final FileDetails[] details;
+        private final int start;
+        private final int end;
+
+        CollectDetailsOperation(List<T> elements, Transformer<FileDetails, T> transformer, FileDetails[] details, int start, int end) {
+            this.elements = elements;
+            this.transformer = transformer;
+            this.details = details;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            for (int i = start; i < end; i++) {
+                details[i] = transformer.transform(elements.get(i));
+            }
+        }
     }
 
     private class FileVisitorImpl implements FileVisitor {
@@ -213,12 +330,12 @@ public abstract class AbstractFileCollectionSnapshotter implements FileCollectio
 
         @Override
         public void visitDir(FileVisitDetails dirDetails) {
-            fileTreeElements.add(new DefaultFileDetails(getPath(dirDetails.getFile()), dirDetails.getRelativePath(), Directory, false, dirSnapshot()));
+            fileTreeElements.add(dirDetails(dirDetails));
         }
 
         @Override
         public void visitFile(FileVisitDetails fileDetails) {
-            fileTreeElements.add(new DefaultFileDetails(getPath(fileDetails.getFile()), fileDetails.getRelativePath(), RegularFile, false, fileSnapshot(fileDetails)));
+            fileTreeElements.add(fileDetails(fileDetails));
         }
     }
 }
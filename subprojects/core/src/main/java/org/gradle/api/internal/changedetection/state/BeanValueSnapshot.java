@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.base.Objects;
+import com.google.common.hash.HashCode;
+import org.gradle.caching.internal.BuildCacheHasher;
+
+import java.util.Arrays;
+
+/**
+ * A structural snapshot of a serializable bean, made up of a snapshot of each of the fields that Java serialization would write for the bean.
+ */
+public class BeanValueSnapshot implements ValueSnapshot {
+    private final String className;
+    private final HashCode implementationHash;
+    private final String[] fieldNames;
+    private final ValueSnapshot[] fieldValues;
+
+    public BeanValueSnapshot(String className, HashCode implementationHash, String[] fieldNames, ValueSnapshot[] fieldValues) {
+        this.className = className;
+        this.implementationHash = implementationHash;
+        this.fieldNames = fieldNames;
+        this.fieldValues = fieldValues;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public HashCode getImplementationHash() {
+        return implementationHash;
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    public ValueSnapshot[] getFieldValues() {
+        return fieldValues;
+    }
+
+    @Override
+    public void appendToHasher(BuildCacheHasher hasher) {
+        hasher.putString(className);
+        if (implementationHash == null) {
+            hasher.putNull();
+        } else {
+            hasher.putBytes(implementationHash.asBytes());
+        }
+        hasher.putInt(fieldNames.length);
+        for (int i = 0; i < fieldNames.length; i++) {
+            hasher.putString(fieldNames[i]);
+            fieldValues[i].appendToHasher(hasher);
+        }
+    }
+
+    @Override
+    public ValueSnapshot snapshot(Object value, ValueSnapshotter snapshotter) {
+        ValueSnapshot newSnapshot = snapshotter.snapshot(value);
+        if (equals(newSnapshot)) {
+            return this;
+        }
+        return newSnapshot;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        BeanValueSnapshot other = (BeanValueSnapshot) obj;
+        return className.equals(other.className)
+            && Objects.equal(implementationHash, other.implementationHash)
+            && Arrays.equals(fieldNames, other.fieldNames)
+            && Arrays.equals(fieldValues, other.fieldValues);
+    }
+
+    @Override
+    public int hashCode() {
+        return className.hashCode() ^ Arrays.hashCode(fieldValues);
+    }
+}
@@ -85,19 +85,19 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 if (currentExecution.inputFilesSnapshotIds == null && currentExecution.inputFilesSnapshot != null) {
                     ImmutableSortedMap.Builder<String, Long> builder = ImmutableSortedMap.naturalOrder();
                     for (Map.Entry<String, FileCollectionSnapshot> entry : currentExecution.inputFilesSnapshot.entrySet()) {
-                        builder.put(entry.getKey(), snapshotRepository.add(entry.getValue()));
+                        builder.put(entry.getKey(), snapshotRepository.add(compact(entry.getValue())));
                     }
                     currentExecution.inputFilesSnapshotIds = builder.build();
                 }
                 if (currentExecution.outputFilesSnapshotIds == null && currentExecution.outputFilesSnapshot != null) {
                     ImmutableSortedMap.Builder<String, Long> builder = ImmutableSortedMap.naturalOrder();
                     for (Map.Entry<String, FileCollectionSnapshot> entry : currentExecution.outputFilesSnapshot.entrySet()) {
-                        builder.put(entry.getKey(), snapshotRepository.add(entry.getValue()));
+                        builder.put(entry.getKey(), snapshotRepository.add(compact(entry.getValue())));
                     }
                     currentExecution.outputFilesSnapshotIds = builder.build();
                 }
                 if (currentExecution.discoveredFilesSnapshotId == null && currentExecution.discoveredFilesSnapshot != null) {
-                    currentExecution.discoveredFilesSnapshotId = snapshotRepository.add(currentExecution.discoveredFilesSnapshot);
+                    currentExecution.discoveredFilesSnapshotId = snapshotRepository.add(compact(currentExecution.discoveredFilesSnapshot));
                 }
                 while (previousExecutions.executions.size() > MAX_HISTORY_ENTRIES) {
                     LazyTaskExecution execution = previousExecutions.executions.removeLast();
@@ -120,6 +120,13 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
         };
     }
 
+    /**
+     * Snapshots added to the repository are kept in memory by the in-memory cache, so convert them to the compact form first.
+     */
+    private FileCollectionSnapshot compact(FileCollectionSnapshot snapshot) {
+        return CompactFileCollectionSnapshot.of(snapshot, stringInterner);
+    }
+
     private TaskExecutionList loadPreviousExecutions(final TaskInternal task) {
         List<TaskExecutionSnapshot> history = taskHistoryCache.get(task.getPath());
         TaskExecutionList result = new TaskExecutionList();
@@ -248,6 +255,7 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
             setInputProperties(taskExecutionSnapshot.getInputProperties());
             setOutputPropertyNamesForCacheKey(taskExecutionSnapshot.getCacheableOutputProperties());
             setDeclaredOutputFilePaths(taskExecutionSnapshot.getDeclaredOutputFilePaths());
+            setInputHashes(taskExecutionSnapshot.getInputHashes());
             inputFilesSnapshotIds = taskExecutionSnapshot.getInputFilesSnapshotIds();
             outputFilesSnapshotIds = taskExecutionSnapshot.getOutputFilesSnapshotIds();
             discoveredFilesSnapshotId = taskExecutionSnapshot.getDiscoveredFilesSnapshotId();
@@ -317,7 +325,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                 getInputProperties(),
                 inputFilesSnapshotIds,
                 discoveredFilesSnapshotId,
-                outputFilesSnapshotIds);
+                outputFilesSnapshotIds,
+                getInputHashes());
         }
 
         static class TaskExecutionSnapshotSerializer implements Serializer<TaskExecutionSnapshot> {
@@ -367,6 +376,16 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
 
                 ImmutableSortedMap<String, ValueSnapshot> inputProperties = inputPropertiesSerializer.read(decoder);
 
+                ImmutableSortedMap<String, HashCode> inputHashes = null;
+                if (decoder.readBoolean()) {
+                    int inputHashesCount = decoder.readSmallInt();
+                    ImmutableSortedMap.Builder<String, HashCode> inputHashesBuilder = ImmutableSortedMap.naturalOrder();
+                    for (int j = 0; j < inputHashesCount; j++) {
+                        inputHashesBuilder.put(decoder.readString(), HashCode.fromBytes(decoder.readBinary()));
+                    }
+                    inputHashes = inputHashesBuilder.build();
+                }
+
                 return new TaskExecutionSnapshot(
                     taskClass,
                     cacheableOutputProperties,
@@ -376,7 +395,8 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     inputProperties,
                     inputFilesSnapshotIds,
                     discoveredFilesSnapshotId,
-                    outputFilesSnapshotIds
+                    outputFilesSnapshotIds,
+                    inputHashes
                 );
             }
 
@@ -410,6 +430,17 @@ public class CacheBackedTaskHistoryRepository implements TaskHistoryRepository {
                     encoder.writeString(outputFile);
                 }
                 inputPropertiesSerializer.write(encoder, execution.getInputProperties());
+                ImmutableSortedMap<String, HashCode> inputHashes = execution.getInputHashes();
+                if (inputHashes == null) {
+                    encoder.writeBoolean(false);
+                } else {
+                    encoder.writeBoolean(true);
+                    encoder.writeSmallInt(inputHashes.size());
+                    for (Map.Entry<String, HashCode> entry : inputHashes.entrySet()) {
+                        encoder.writeString(entry.getKey());
+                        encoder.writeBinary(entry.getValue().asBytes());
+                    }
+                }
             }
 
             private static ImmutableSortedMap<String, Long> readSnapshotIds(Decoder decoder) throws IOException {
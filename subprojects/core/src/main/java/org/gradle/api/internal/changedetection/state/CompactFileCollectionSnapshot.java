@@ -0,0 +1,385 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.cache.StringInterner;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link FileCollectionSnapshot} that keeps its entries in a compact form. Used for the snapshots that are held on to by the task history.
+ *
+ * <p>Paths are stored as the nodes of a prefix tree, where each node holds an interned path segment and the index of its parent node, so that
+ * the entries of a directory share the nodes for the path of that directory. File types, normalizations and content hashes are stored in
+ * parallel arrays. The {@link NormalizedFileSnapshot} instances are only created when requested, and are not retained.</p>
+ */
+class CompactFileCollectionSnapshot extends AbstractFileCollectionSnapshot {
+    private static final int HASH_LENGTH = 16;
+
+    private static final byte DIR_SNAPSHOT = 1;
+    private static final byte MISSING_FILE_SNAPSHOT = 2;
+    private static final byte REGULAR_FILE_SNAPSHOT = 3;
+
+    private static final byte NO_NORMALIZATION = 1;
+    private static final byte DEFAULT_NORMALIZATION = 2;
+    private static final byte INDEXED_NORMALIZATION = 3;
+    private static final byte IGNORED_PATH_NORMALIZATION = 4;
+
+    // The path prefix tree. A parent node always has a lower index than its children.
+    private final int[] parents;
+    private final String[] segments;
+
+    // The entries, in snapshot order
+    private final int[] paths;
+    private final byte[] fileTypes;
+    private final byte[] normalizations;
+    // The node of the normalized path for default normalization, the index of the normalized path for indexed normalization
+    private final int[] normalizationData;
+    private final byte[] hashes;
+
+    private CompactFileCollectionSnapshot(TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute, int[] parents, String[] segments, int[] paths, byte[] fileTypes, byte[] normalizations, int[] normalizationData, byte[] hashes) {
+        super(compareStrategy, pathIsAbsolute);
+        this.parents = parents;
+        this.segments = segments;
+        this.paths = paths;
+        this.fileTypes = fileTypes;
+        this.normalizations = normalizations;
+        this.normalizationData = normalizationData;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Returns a compact copy of the given snapshot, or the snapshot itself when it cannot be represented in compact form.
+     */
+    public static FileCollectionSnapshot of(FileCollectionSnapshot snapshot, StringInterner stringInterner) {
+        if (!(snapshot instanceof DefaultFileCollectionSnapshot)) {
+            return snapshot;
+        }
+        DefaultFileCollectionSnapshot defaultSnapshot = (DefaultFileCollectionSnapshot) snapshot;
+        Map<String, NormalizedFileSnapshot> snapshots = defaultSnapshot.getSnapshots();
+        Builder builder = new Builder(snapshots.size(), stringInterner);
+        for (Map.Entry<String, NormalizedFileSnapshot> entry : snapshots.entrySet()) {
+            if (!builder.add(entry.getKey(), entry.getValue())) {
+                return snapshot;
+            }
+        }
+        return builder.build(defaultSnapshot.getCompareStrategy(), defaultSnapshot.isPathAbsolute());
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return paths.length == 0;
+    }
+
+    @Override
+    public List<File> getElements() {
+        List<File> files = Lists.newArrayListWithCapacity(paths.length);
+        for (int path : paths) {
+            files.add(new File(path(path)));
+        }
+        return files;
+    }
+
+    @Override
+    public List<File> getFiles() {
+        List<File> files = Lists.newArrayList();
+        for (int i = 0; i < paths.length; i++) {
+            if (fileTypes[i] == REGULAR_FILE_SNAPSHOT) {
+                files.add(new File(path(paths[i])));
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Returns the entries of this snapshot. The map is created on each call, so callers should hold on to it only while they compare or hash the snapshot.
+     */
+    @Override
+    public Map<String, NormalizedFileSnapshot> getSnapshots() {
+        String[] nodePaths = nodePaths();
+        Map<String, NormalizedFileSnapshot> snapshots = new LinkedHashMap<String, NormalizedFileSnapshot>(paths.length);
+        for (int i = 0; i < paths.length; i++) {
+            String absolutePath = nodePaths[paths[i]];
+            snapshots.put(absolutePath, normalizedSnapshot(i, absolutePath, nodePaths));
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * Returns the path of the given node, without creating the paths of its parent nodes.
+     */
+    private String path(int node) {
+        int length = 0;
+        for (int current = node; current >= 0; current = parents[current]) {
+            length += segments[current].length();
+        }
+        char[] chars = new char[length];
+        for (int current = node; current >= 0; current = parents[current]) {
+            String segment = segments[current];
+            length -= segment.length();
+            segment.getChars(0, segment.length(), chars, length);
+        }
+        return new String(chars);
+    }
+
+    private String[] nodePaths() {
+        String[] nodePaths = new String[parents.length];
+        for (int i = 0; i < parents.length; i++) {
+            int parent = parents[i];
+            nodePaths[i] = parent < 0 ? segments[i] : nodePaths[parent].concat(segments[i]);
+        }
+        return nodePaths;
+    }
+
+    private NormalizedFileSnapshot normalizedSnapshot(int entry, String absolutePath, String[] nodePaths) {
+        IncrementalFileSnapshot snapshot;
+        switch (fileTypes[entry]) {
+            case DIR_SNAPSHOT:
+                snapshot = DirSnapshot.getInstance();
+                break;
+            case MISSING_FILE_SNAPSHOT:
+                snapshot = MissingFileSnapshot.getInstance();
+                break;
+            case REGULAR_FILE_SNAPSHOT:
+                snapshot = new FileHashSnapshot(HashCode.fromBytes(Arrays.copyOfRange(hashes, entry * HASH_LENGTH, (entry + 1) * HASH_LENGTH)));
+                break;
+            default:
+                throw new AssertionError();
+        }
+        switch (normalizations[entry]) {
+            case NO_NORMALIZATION:
+                return new NonNormalizedFileSnapshot(absolutePath, snapshot);
+            case DEFAULT_NORMALIZATION:
+                return new DefaultNormalizedFileSnapshot(nodePaths[normalizationData[entry]], snapshot);
+            case INDEXED_NORMALIZATION:
+                return new IndexedNormalizedFileSnapshot(absolutePath, normalizationData[entry], snapshot);
+            case IGNORED_PATH_NORMALIZATION:
+                return new IgnoredPathFileSnapshot(snapshot);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static class Builder {
+        private final StringInterner stringInterner;
+        private final Map<String, Integer> nodesByPath = new HashMap<String, Integer>();
+        private int[] parents;
+        private String[] segments;
+        private int nodeCount;
+        private final int[] paths;
+        private final byte[] fileTypes;
+        private final byte[] normalizations;
+        private final int[] normalizationData;
+        private final byte[] hashes;
+        private int entryCount;
+
+        Builder(int entries, StringInterner stringInterner) {
+            this.stringInterner = stringInterner;
+            parents = new int[Math.max(entries, 8)];
+            segments = new String[parents.length];
+            paths = new int[entries];
+            fileTypes = new byte[entries];
+            normalizations = new byte[entries];
+            normalizationData = new int[entries];
+            hashes = new byte[entries * HASH_LENGTH];
+        }
+
+        /**
+         * Adds an entry, returning false when the entry cannot be represented in compact form.
+         */
+        boolean add(String absolutePath, NormalizedFileSnapshot normalizedSnapshot) {
+            int entry = entryCount;
+            IncrementalFileSnapshot snapshot = normalizedSnapshot.getSnapshot();
+            if (snapshot instanceof DirSnapshot) {
+                fileTypes[entry] = DIR_SNAPSHOT;
+            } else if (snapshot instanceof MissingFileSnapshot) {
+                fileTypes[entry] = MISSING_FILE_SNAPSHOT;
+            } else if (snapshot instanceof FileHashSnapshot) {
+                byte[] hash = snapshot.getContentMd5().asBytes();
+                if (hash.length != HASH_LENGTH) {
+                    return false;
+                }
+                fileTypes[entry] = REGULAR_FILE_SNAPSHOT;
+                System.arraycopy(hash, 0, hashes, entry * HASH_LENGTH, HASH_LENGTH);
+            } else {
+                return false;
+            }
+
+            if (normalizedSnapshot instanceof NonNormalizedFileSnapshot) {
+                normalizations[entry] = NO_NORMALIZATION;
+            } else if (normalizedSnapshot instanceof DefaultNormalizedFileSnapshot) {
+                normalizations[entry] = DEFAULT_NORMALIZATION;
+                normalizationData[entry] = node(normalizedSnapshot.getNormalizedPath());
+            } else if (normalizedSnapshot instanceof IndexedNormalizedFileSnapshot) {
+                normalizations[entry] = INDEXED_NORMALIZATION;
+                normalizationData[entry] = ((IndexedNormalizedFileSnapshot) normalizedSnapshot).getIndex();
+            } else if (normalizedSnapshot instanceof IgnoredPathFileSnapshot) {
+                normalizations[entry] = IGNORED_PATH_NORMALIZATION;
+            } else {
+                return false;
+            }
+            paths[entry] = node(absolutePath);
+            entryCount++;
+            return true;
+        }
+
+        /**
+         * Returns the node for the given path, adding nodes for the path and any of its missing prefixes. Paths are split after each separator.
+         */
+        private int node(String path) {
+            Integer existing = nodesByPath.get(path);
+            if (existing != null) {
+                return existing;
+            }
+            int parent = -1;
+            int start = 0;
+            while (start < path.length()) {
+                int end = start;
+                while (end < path.length() && !isSeparator(path.charAt(end))) {
+                    end++;
+                }
+                end = Math.min(end + 1, path.length());
+                String prefix = end == path.length() ? path : path.substring(0, end);
+                Integer node = nodesByPath.get(prefix);
+                if (node == null) {
+                    node = addNode(parent, path.substring(start, end));
+                    nodesByPath.put(prefix, node);
+                }
+                parent = node;
+                start = end;
+            }
+            if (parent < 0) {
+                // The empty path
+                parent = addNode(-1, "");
+                nodesByPath.put(path, parent);
+            }
+            return parent;
+        }
+
+        private static boolean isSeparator(char ch) {
+            return ch == '/' || ch == File.separatorChar;
+        }
+
+        private int addNode(int parent, String segment) {
+            if (nodeCount == parents.length) {
+                parents = Arrays.copyOf(parents, nodeCount * 2);
+                segments = Arrays.copyOf(segments, nodeCount * 2);
+            }
+            parents[nodeCount] = parent;
+            segments[nodeCount] = stringInterner.intern(segment);
+            return nodeCount++;
+        }
+
+        CompactFileCollectionSnapshot build(TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute) {
+            return new CompactFileCollectionSnapshot(compareStrategy, pathIsAbsolute, Arrays.copyOf(parents, nodeCount), Arrays.copyOf(segments, nodeCount), paths, fileTypes, normalizations, normalizationData, hashes);
+        }
+    }
+
+    public static class SerializerImpl extends AbstractSerializer<CompactFileCollectionSnapshot> {
+        private final StringInterner stringInterner;
+
+        public SerializerImpl(StringInterner stringInterner) {
+            this.stringInterner = stringInterner;
+        }
+
+        public CompactFileCollectionSnapshot read(Decoder decoder) throws Exception {
+            TaskFilePropertyCompareStrategy compareStrategy = TaskFilePropertyCompareStrategy.values()[decoder.readSmallInt()];
+            boolean pathIsAbsolute = decoder.readBoolean();
+
+            int nodeCount = decoder.readSmallInt();
+            int[] parents = new int[nodeCount];
+            String[] segments = new String[nodeCount];
+            for (int i = 0; i < nodeCount; i++) {
+                parents[i] = decoder.readSmallInt() - 1;
+                segments[i] = stringInterner.intern(decoder.readString());
+            }
+
+            int entryCount = decoder.readSmallInt();
+            int[] paths = new int[entryCount];
+            byte[] fileTypes = new byte[entryCount];
+            byte[] normalizations = new byte[entryCount];
+            int[] normalizationData = new int[entryCount];
+            byte[] hashes = new byte[entryCount * HASH_LENGTH];
+            for (int i = 0; i < entryCount; i++) {
+                paths[i] = decoder.readSmallInt();
+                byte fileType = decoder.readByte();
+                switch (fileType) {
+                    case REGULAR_FILE_SNAPSHOT:
+                        decoder.readBytes(hashes, i * HASH_LENGTH, HASH_LENGTH);
+                        break;
+                    case DIR_SNAPSHOT:
+                    case MISSING_FILE_SNAPSHOT:
+                        break;
+                    default:
+                        throw new RuntimeException("Unable to read serialized file snapshot. Unrecognized value found in the data stream.");
+                }
+                fileTypes[i] = fileType;
+                byte normalization = decoder.readByte();
+                switch (normalization) {
+                    case DEFAULT_NORMALIZATION:
+                    case INDEXED_NORMALIZATION:
+                        normalizationData[i] = decoder.readSmallInt();
+                        break;
+                    case NO_NORMALIZATION:
+                    case IGNORED_PATH_NORMALIZATION:
+                        break;
+                    default:
+                        throw new RuntimeException("Unable to read serialized file snapshot. Unrecognized value found in the data stream.");
+                }
+                normalizations[i] = normalization;
+            }
+            return new CompactFileCollectionSnapshot(compareStrategy, pathIsAbsolute, parents, segments, paths, fileTypes, normalizations, normalizationData, hashes);
+        }
+
+        public void write(Encoder encoder, CompactFileCollectionSnapshot value) throws Exception {
+            encoder.writeSmallInt(value.getCompareStrategy().ordinal());
+            encoder.writeBoolean(value.isPathAbsolute());
+
+            encoder.writeSmallInt(value.parents.length);
+            for (int i = 0; i < value.parents.length; i++) {
+                encoder.writeSmallInt(value.parents[i] + 1);
+                encoder.writeString(value.segments[i]);
+            }
+
+            encoder.writeSmallInt(value.paths.length);
+            for (int i = 0; i < value.paths.length; i++) {
+                encoder.writeSmallInt(value.paths[i]);
+                byte fileType = value.fileTypes[i];
+                encoder.writeByte(fileType);
+                if (fileType == REGULAR_FILE_SNAPSHOT) {
+                    encoder.writeBytes(value.hashes, i * HASH_LENGTH, HASH_LENGTH);
+                }
+                byte normalization = value.normalizations[i];
+                encoder.writeByte(normalization);
+                if (normalization == DEFAULT_NORMALIZATION || normalization == INDEXED_NORMALIZATION) {
+                    encoder.writeSmallInt(value.normalizationData[i]);
+                }
+            }
+        }
+    }
+}
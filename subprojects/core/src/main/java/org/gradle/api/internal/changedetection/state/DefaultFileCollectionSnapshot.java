@@ -19,8 +19,6 @@ package org.gradle.api.internal.changedetection.state;
 import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 import org.gradle.api.internal.cache.StringInterner;
-import org.gradle.api.internal.changedetection.rules.TaskStateChange;
-import org.gradle.caching.internal.BuildCacheHasher;
 import org.gradle.internal.Factories;
 import org.gradle.internal.Factory;
 import org.gradle.internal.serialize.AbstractSerializer;
@@ -28,14 +26,11 @@ import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 
 import java.io.File;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
-class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
+class DefaultFileCollectionSnapshot extends AbstractFileCollectionSnapshot {
     private final Map<String, NormalizedFileSnapshot> snapshots;
-    private final TaskFilePropertyCompareStrategy compareStrategy;
-    private final boolean pathIsAbsolute;
     private final Factory<List<File>> cachedElementsFactory = Factories.softReferenceCache(new Factory<List<File>>() {
         @Override
         public List<File> create() {
@@ -50,9 +45,8 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
     });
 
     public DefaultFileCollectionSnapshot(Map<String, NormalizedFileSnapshot> snapshots, TaskFilePropertyCompareStrategy compareStrategy, boolean pathIsAbsolute) {
+        super(compareStrategy, pathIsAbsolute);
         this.snapshots = snapshots;
-        this.compareStrategy = compareStrategy;
-        this.pathIsAbsolute = pathIsAbsolute;
     }
 
     @Override
@@ -65,16 +59,6 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
         return snapshots.isEmpty();
     }
 
-    @Override
-    public Iterator<TaskStateChange> iterateContentChangesSince(FileCollectionSnapshot oldSnapshot, String fileType) {
-        return compareStrategy.iterateContentChangesSince(snapshots, oldSnapshot.getSnapshots(), fileType, pathIsAbsolute);
-    }
-
-    @Override
-    public void appendToHasher(BuildCacheHasher hasher) {
-        compareStrategy.appendToHasher(hasher, snapshots);
-    }
-
     @Override
     public List<File> getElements() {
         return cachedElementsFactory.create();
@@ -118,9 +102,9 @@ class DefaultFileCollectionSnapshot implements FileCollectionSnapshot {
         }
 
         public void write(Encoder encoder, DefaultFileCollectionSnapshot value) throws Exception {
-            encoder.writeSmallInt(value.compareStrategy.ordinal());
+            encoder.writeSmallInt(value.getCompareStrategy().ordinal());
             snapshotMapSerializer.write(encoder, value.snapshots);
-            encoder.writeBoolean(value.pathIsAbsolute);
+            encoder.writeBoolean(value.isPathAbsolute());
         }
 
         @Override
@@ -19,11 +19,31 @@ package org.gradle.api.internal.changedetection.state;
 import org.gradle.api.internal.cache.StringInterner;
 import org.gradle.api.internal.file.collections.DirectoryFileTreeFactory;
 import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
-public class DefaultGenericFileCollectionSnapshotter extends AbstractFileCollectionSnapshotter implements GenericFileCollectionSnapshotter {
+public class DefaultGenericFileCollectionSnapshotter extends AbstractFileCollectionSnapshotter implements GenericFileCollectionSnapshotter, Stoppable {
+    private final StoppableExecutor hashingExecutor;
+
     public DefaultGenericFileCollectionSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror) {
         super(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror);
+        this.hashingExecutor = null;
+    }
+
+    /**
+     * @param hashingExecutor used to hash the files of large collections concurrently. It is stopped along with this snapshotter.
+     */
+    public DefaultGenericFileCollectionSnapshotter(FileHasher hasher, StringInterner stringInterner, FileSystem fileSystem, DirectoryFileTreeFactory directoryFileTreeFactory, FileSystemMirror fileSystemMirror, StoppableExecutor hashingExecutor) {
+        super(hasher, stringInterner, fileSystem, directoryFileTreeFactory, fileSystemMirror, hashingExecutor);
+        this.hashingExecutor = hashingExecutor;
+    }
+
+    @Override
+    public void stop() {
+        if (hashingExecutor != null) {
+            hashingExecutor.stop();
+        }
     }
 
     @Override
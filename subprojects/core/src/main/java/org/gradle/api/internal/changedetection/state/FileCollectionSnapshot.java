@@ -52,5 +52,11 @@ public interface FileCollectionSnapshot {
 
     Map<String, NormalizedFileSnapshot> getSnapshots();
 
+    /**
+     * Returns true when there are no changes to file contents since the given snapshot and both snapshots use the same compare strategy,
+     * so that both snapshots append the same values in {@link #appendToHasher(BuildCacheHasher)}.
+     */
+    boolean isUnchangedSince(FileCollectionSnapshot oldSnapshot);
+
     void appendToHasher(BuildCacheHasher hasher);
 }
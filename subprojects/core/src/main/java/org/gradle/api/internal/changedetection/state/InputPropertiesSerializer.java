@@ -19,6 +19,7 @@ package org.gradle.api.internal.changedetection.state;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.hash.HashCode;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
@@ -44,6 +45,7 @@ class InputPropertiesSerializer implements Serializer<ImmutableMap<String, Value
     private static final int SET_SNAPSHOT = 13;
     private static final int MAP_SNAPSHOT = 14;
     private static final int DEFAULT_SNAPSHOT = 15;
+    private static final int BEAN_SNAPSHOT = 16;
 
     private final HashCodeSerializer serializer = new HashCodeSerializer();
 
@@ -120,6 +122,17 @@ class InputPropertiesSerializer implements Serializer<ImmutableMap<String, Value
                 return new MapValueSnapshot(mapBuilder.build());
             case DEFAULT_SNAPSHOT:
                 return new SerializedValueSnapshot(decoder.readBoolean() ? serializer.read(decoder) : null, decoder.readBinary());
+            case BEAN_SNAPSHOT:
+                String className = decoder.readString();
+                HashCode implementationHash = decoder.readBoolean() ? serializer.read(decoder) : null;
+                size = decoder.readSmallInt();
+                String[] fieldNames = new String[size];
+                elements = new ValueSnapshot[size];
+                for (int i = 0; i < size; i++) {
+                    fieldNames[i] = decoder.readString();
+                    elements[i] = readSnapshot(decoder);
+                }
+                return new BeanValueSnapshot(className, implementationHash, fieldNames, elements);
             default:
                 throw new IllegalArgumentException("Don't know how to deserialize a snapshot with type tag " + type);
         }
@@ -193,6 +206,23 @@ class InputPropertiesSerializer implements Serializer<ImmutableMap<String, Value
                 serializer.write(encoder, valueSnapshot.getImplementationHash());
             }
             encoder.writeBinary(valueSnapshot.getValue());
+        } else if (snapshot instanceof BeanValueSnapshot) {
+            BeanValueSnapshot beanSnapshot = (BeanValueSnapshot) snapshot;
+            encoder.writeSmallInt(BEAN_SNAPSHOT);
+            encoder.writeString(beanSnapshot.getClassName());
+            if (beanSnapshot.getImplementationHash() == null) {
+                encoder.writeBoolean(false);
+            } else {
+                encoder.writeBoolean(true);
+                serializer.write(encoder, beanSnapshot.getImplementationHash());
+            }
+            String[] fieldNames = beanSnapshot.getFieldNames();
+            ValueSnapshot[] fieldValues = beanSnapshot.getFieldValues();
+            encoder.writeSmallInt(fieldNames.length);
+            for (int i = 0; i < fieldNames.length; i++) {
+                encoder.writeString(fieldNames[i]);
+                writeEntry(encoder, fieldValues[i]);
+            }
         } else if (snapshot instanceof MapValueSnapshot) {
             MapValueSnapshot mapSnapshot = (MapValueSnapshot) snapshot;
             encoder.writeSmallInt(MAP_SNAPSHOT);
@@ -34,9 +34,9 @@ public class OutputFilesSnapshotter {
         FileCollectionSnapshot afterExecution
     ) {
         FileCollectionSnapshot filesSnapshot;
+        Map<String, NormalizedFileSnapshot> beforeSnapshots = beforeExecution.getSnapshots();
         Map<String, NormalizedFileSnapshot> afterSnapshots = afterExecution.getSnapshots();
-        if (!beforeExecution.getSnapshots().isEmpty() && !afterSnapshots.isEmpty()) {
-            Map<String, NormalizedFileSnapshot> beforeSnapshots = beforeExecution.getSnapshots();
+        if (!beforeSnapshots.isEmpty() && !afterSnapshots.isEmpty()) {
             Map<String, NormalizedFileSnapshot> afterPreviousSnapshots = afterPreviousExecution != null ? afterPreviousExecution.getSnapshots() : new HashMap<String, NormalizedFileSnapshot>();
             int newEntryCount = 0;
             ImmutableMap.Builder<String, NormalizedFileSnapshot> outputEntries = ImmutableMap.builder();
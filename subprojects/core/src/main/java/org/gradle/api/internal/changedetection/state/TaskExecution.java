@@ -32,6 +32,7 @@ public abstract class TaskExecution {
     private ImmutableSortedMap<String, ValueSnapshot> inputProperties;
     private Iterable<String> outputPropertyNamesForCacheKey;
     private ImmutableSet<String> declaredOutputFilePaths;
+    private ImmutableSortedMap<String, HashCode> inputHashes;
 
     /**
      * Returns the names of all cacheable output property names that have a value set.
@@ -92,6 +93,19 @@ public abstract class TaskExecution {
         this.inputProperties = inputProperties;
     }
 
+    /**
+     * Returns the hashes of the input properties and input file properties that went into the build cache key of this execution.
+     *
+     * @return May return null, when no build cache key was calculated.
+     */
+    public ImmutableSortedMap<String, HashCode> getInputHashes() {
+        return inputHashes;
+    }
+
+    public void setInputHashes(ImmutableSortedMap<String, HashCode> inputHashes) {
+        this.inputHashes = inputHashes;
+    }
+
     /**
      * @return May return null.
      */
@@ -36,8 +36,9 @@ public class TaskExecutionSnapshot {
     private final ImmutableSortedMap<String, Long> inputFilesSnapshotIds;
     private final ImmutableSortedMap<String, Long> outputFilesSnapshotIds;
     private final Long discoveredFilesSnapshotId;
+    private final ImmutableSortedMap<String, HashCode> inputHashes;
 
-    public TaskExecutionSnapshot(String taskClass, ImmutableSortedSet<String> cacheableOutputProperties, ImmutableSet<String> declaredOutputFilePaths, HashCode taskClassLoaderHash, List<HashCode> taskActionsClassLoaderHashes, ImmutableSortedMap<String, ValueSnapshot> inputProperties, ImmutableSortedMap<String, Long> inputFilesSnapshotIds, Long discoveredFilesSnapshotId, ImmutableSortedMap<String, Long> outputFilesSnapshotIds) {
+    public TaskExecutionSnapshot(String taskClass, ImmutableSortedSet<String> cacheableOutputProperties, ImmutableSet<String> declaredOutputFilePaths, HashCode taskClassLoaderHash, List<HashCode> taskActionsClassLoaderHashes, ImmutableSortedMap<String, ValueSnapshot> inputProperties, ImmutableSortedMap<String, Long> inputFilesSnapshotIds, Long discoveredFilesSnapshotId, ImmutableSortedMap<String, Long> outputFilesSnapshotIds, ImmutableSortedMap<String, HashCode> inputHashes) {
         this.taskClass = taskClass;
         this.cacheableOutputProperties = cacheableOutputProperties;
         this.declaredOutputFilePaths = declaredOutputFilePaths;
@@ -47,6 +48,7 @@ public class TaskExecutionSnapshot {
         this.inputFilesSnapshotIds = inputFilesSnapshotIds;
         this.discoveredFilesSnapshotId = discoveredFilesSnapshotId;
         this.outputFilesSnapshotIds = outputFilesSnapshotIds;
+        this.inputHashes = inputHashes;
     }
 
     public ImmutableSortedSet<String> getCacheableOutputProperties() {
@@ -65,6 +67,10 @@ public class TaskExecutionSnapshot {
         return inputFilesSnapshotIds;
     }
 
+    public ImmutableSortedMap<String, HashCode> getInputHashes() {
+        return inputHashes;
+    }
+
     public ImmutableSortedMap<String, ValueSnapshot> getInputProperties() {
         return inputProperties;
     }
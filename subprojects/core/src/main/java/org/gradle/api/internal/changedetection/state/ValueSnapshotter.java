@@ -16,22 +16,48 @@
 
 package org.gradle.api.internal.changedetection.state;
 
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.classloader.ClassLoaderHierarchyHasher;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Externalizable;
 import java.io.File;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class ValueSnapshotter {
     private final ClassLoaderHierarchyHasher classLoaderHasher;
+    // Soft values, as the fields reference the bean type and would otherwise prevent the weak key from being collected
+    private final LoadingCache<Class<?>, Optional<BeanFields>> beanFields = CacheBuilder.newBuilder()
+        .weakKeys()
+        .softValues()
+        .build(new CacheLoader<Class<?>, Optional<BeanFields>>() {
+            @Override
+            public Optional<BeanFields> load(Class<?> type) {
+                return Optional.fromNullable(BeanFields.inspect(type));
+            }
+        });
 
     public ValueSnapshotter(ClassLoaderHierarchyHasher classLoaderHasher) {
         this.classLoaderHasher = classLoaderHasher;
@@ -43,6 +69,10 @@ public class ValueSnapshotter {
      * @throws UncheckedIOException On failure to snapshot the value.
      */
     public ValueSnapshot snapshot(Object value) throws UncheckedIOException {
+        return snapshot(value, (Set<Object>) null);
+    }
+
+    private ValueSnapshot snapshot(Object value, Set<Object> visiting) {
         if (value == null) {
             return NullValueSnapshot.INSTANCE;
         }
@@ -60,7 +90,7 @@ public class ValueSnapshotter {
             ValueSnapshot[] elements = new ValueSnapshot[list.size()];
             for (int i = 0; i < list.size(); i++) {
                 Object element = list.get(i);
-                elements[i] = snapshot(element);
+                elements[i] = snapshot(element, visiting);
             }
             return new ListValueSnapshot(elements);
         }
@@ -86,7 +116,7 @@ public class ValueSnapshotter {
             Set<?> set = (Set<?>) value;
             ImmutableSet.Builder<ValueSnapshot> builder = ImmutableSet.builder();
             for (Object element : set) {
-                builder.add(snapshot(element));
+                builder.add(snapshot(element, visiting));
             }
             return new SetValueSnapshot(builder.build());
         }
@@ -94,7 +124,7 @@ public class ValueSnapshotter {
             Map<?, ?> map = (Map<?, ?>) value;
             ImmutableMap.Builder<ValueSnapshot, ValueSnapshot> builder = new ImmutableMap.Builder<ValueSnapshot, ValueSnapshot>();
             for (Map.Entry<?, ?> entry : map.entrySet()) {
-                builder.put(snapshot(entry.getKey()), snapshot(entry.getValue()));
+                builder.put(snapshot(entry.getKey(), visiting), snapshot(entry.getValue(), visiting));
             }
             return new MapValueSnapshot(builder.build());
         }
@@ -106,15 +136,79 @@ public class ValueSnapshotter {
             ValueSnapshot[] elements = new ValueSnapshot[length];
             for (int i = 0; i < length; i++) {
                 Object element = Array.get(value, i);
-                elements[i] = snapshot(element);
+                elements[i] = snapshot(element, visiting);
             }
             return new ArrayValueSnapshot(elements);
         }
 
+        if (value instanceof Serializable) {
+            BeanFields fields = beanFields.getUnchecked(value.getClass()).orNull();
+            if (fields != null) {
+                if (visiting != null) {
+                    return snapshotBean(value, fields, visiting);
+                }
+                try {
+                    return snapshotBean(value, fields, Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>()));
+                } catch (CyclicValueException e) {
+                    // Let serialization deal with the back references
+                    return serialize(value);
+                }
+            }
+        }
+
         // Fall back to serialization
         return serialize(value);
     }
 
+    private BeanValueSnapshot snapshotBean(Object value, BeanFields fields, Set<Object> visiting) {
+        if (!visiting.add(value)) {
+            throw CyclicValueException.INSTANCE;
+        }
+        ValueSnapshot[] fieldValues = new ValueSnapshot[fields.fields.length];
+        try {
+            for (int i = 0; i < fields.fields.length; i++) {
+                Field field = fields.fields[i];
+                Object fieldValue = field.get(value);
+                fieldValues[i] = field.getType().isPrimitive() ? primitive(fieldValue) : snapshot(fieldValue, visiting);
+            }
+        } catch (IllegalAccessException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        visiting.remove(value);
+        return new BeanValueSnapshot(value.getClass().getName(), classLoaderHasher.getClassLoaderHash(value.getClass().getClassLoader()), fields.names, fieldValues);
+    }
+
+    /**
+     * Snapshots the (boxed) value of a primitive field. The field type is fixed by the bean's implementation, so only the bits need to be retained.
+     */
+    private static ValueSnapshot primitive(Object value) {
+        if (value instanceof Boolean) {
+            return value.equals(Boolean.TRUE) ? BooleanValueSnapshot.TRUE : BooleanValueSnapshot.FALSE;
+        }
+        if (value instanceof Integer) {
+            return new IntegerValueSnapshot((Integer) value);
+        }
+        if (value instanceof Long) {
+            return new LongValueSnapshot((Long) value);
+        }
+        if (value instanceof Short) {
+            return new ShortValueSnapshot((Short) value);
+        }
+        if (value instanceof Byte) {
+            return new IntegerValueSnapshot(((Byte) value).intValue());
+        }
+        if (value instanceof Character) {
+            return new IntegerValueSnapshot((int) ((Character) value).charValue());
+        }
+        if (value instanceof Float) {
+            return new IntegerValueSnapshot(Float.floatToIntBits((Float) value));
+        }
+        if (value instanceof Double) {
+            return new LongValueSnapshot(Double.doubleToLongBits((Double) value));
+        }
+        throw new IllegalArgumentException("Unexpected primitive value " + value);
+    }
+
     private SerializedValueSnapshot serialize(Object value) {
         ByteArrayOutputStream outputStream;
         try {
@@ -135,4 +229,99 @@ public class ValueSnapshotter {
     public ValueSnapshot snapshot(Object value, ValueSnapshot candidate) {
         return candidate.snapshot(value, this);
     }
+
+    /**
+     * The fields of a bean type that would be written by default Java serialization, for those types whose serialized form is fully described by these fields.
+     */
+    private static class BeanFields {
+        private final Field[] fields;
+        private final String[] names;
+
+        private BeanFields(Field[] fields, String[] names) {
+            this.fields = fields;
+            this.names = names;
+        }
+
+        /**
+         * Returns null when the type needs to be snapshot using Java serialization.
+         */
+        static BeanFields inspect(Class<?> type) {
+            if (type.getClassLoader() == null || Externalizable.class.isAssignableFrom(type) || Proxy.isProxyClass(type) || type.isAnonymousClass()) {
+                // JVM types, and types that control their own serialized form
+                return null;
+            }
+            List<Field> fields = new ArrayList<Field>();
+            for (Class<?> current = type; current != null && Serializable.class.isAssignableFrom(current); current = current.getSuperclass()) {
+                if (current.getClassLoader() == null || hasCustomSerialization(current)) {
+                    return null;
+                }
+                List<Field> declaredFields = new ArrayList<Field>();
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                        continue;
+                    }
+                    declaredFields.add(field);
+                }
+                Collections.sort(declaredFields, new Comparator<Field>() {
+                    @Override
+                    public int compare(Field o1, Field o2) {
+                        return o1.getName().compareTo(o2.getName());
+                    }
+                });
+                // Super type fields first
+                fields.addAll(0, declaredFields);
+            }
+
+            Set<String> seen = new HashSet<String>();
+            Field[] fieldArray = new Field[fields.size()];
+            String[] names = new String[fields.size()];
+            for (int i = 0; i < fieldArray.length; i++) {
+                Field field = fields.get(i);
+                try {
+                    field.setAccessible(true);
+                } catch (RuntimeException e) {
+                    return null;
+                }
+                fieldArray[i] = field;
+                // Qualify fields hidden by a subtype field
+                names[i] = seen.add(field.getName()) ? field.getName() : field.getDeclaringClass().getName() + "." + field.getName();
+            }
+            return new BeanFields(fieldArray, names);
+        }
+
+        private static boolean hasCustomSerialization(Class<?> type) {
+            for (String methodName : new String[]{"writeObject", "writeReplace", "readResolve"}) {
+                if (hasDeclaredMethod(type, methodName)) {
+                    return true;
+                }
+            }
+            return hasDeclaredField(type, "serialPersistentFields");
+        }
+
+        private static boolean hasDeclaredMethod(Class<?> type, String name) {
+            for (Method method : type.getDeclaredMethods()) {
+                if (method.getName().equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean hasDeclaredField(Class<?> type, String name) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class CyclicValueException extends RuntimeException {
+        static final CyclicValueException INSTANCE = new CyclicValueException();
+
+        private CyclicValueException() {
+            super(null, null, false, false);
+        }
+    }
 }
@@ -0,0 +1,29 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file;
+
+import org.gradle.api.specs.Spec;
+
+/**
+ * A spec that can tell whether any descendant of a directory may satisfy it, so that directory walkers can skip subtrees that can never match.
+ */
+public interface DescendantAwareSpec<T> extends Spec<T> {
+    /**
+     * Returns false when no descendant of the given directory can satisfy this spec. Returns true when some descendant may satisfy this spec.
+     */
+    boolean mayMatchDescendants(T directory);
+}
@@ -18,8 +18,9 @@ package org.gradle.api.internal.file;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.Cast;
 
-public class RelativePathSpec implements Spec<FileTreeElement> {
+public class RelativePathSpec implements DescendantAwareSpec<FileTreeElement> {
     private final Spec<? super RelativePath> pathSpec;
 
     public RelativePathSpec(Spec<? super RelativePath> pathSpec) {
@@ -29,4 +30,13 @@ public class RelativePathSpec implements Spec<FileTreeElement> {
     public boolean isSatisfiedBy(FileTreeElement element) {
         return pathSpec.isSatisfiedBy(element.getRelativePath());
     }
+
+    @Override
+    public boolean mayMatchDescendants(FileTreeElement directory) {
+        if (pathSpec instanceof DescendantAwareSpec) {
+            DescendantAwareSpec<RelativePath> descendantAwareSpec = Cast.uncheckedCast(pathSpec);
+            return descendantAwareSpec.mayMatchDescendants(directory.getRelativePath());
+        }
+        return true;
+    }
 }
@@ -65,12 +65,17 @@ public abstract class AbstractDirectoryWalker implements DirectoryWalker {
         // now handle dirs
         for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
             FileVisitDetails dir = dirs.get(i);
+            boolean walkChildren = DirectoryTrees.mayMatchDescendants(dir, spec);
             if (postfix) {
-                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                if (walkChildren) {
+                    walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                }
                 visitor.visitDir(dir);
             } else {
                 visitor.visitDir(dir);
-                walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                if (walkChildren) {
+                    walkDir(dir.getFile(), dir.getRelativePath(), visitor, spec, stopFlag, postfix);
+                }
             }
         }
     }
@@ -51,7 +51,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class DirectoryFileTree implements MinimalFileTree, PatternFilterableFileTree, RandomAccessFileCollection, LocalFileTree, DirectoryTree {
     private static final Logger LOGGER = Logging.getLogger(DirectoryFileTree.class);
     private static final Factory<DirectoryWalker> DEFAULT_DIRECTORY_WALKER_FACTORY = new DefaultDirectoryWalkerFactory();
-    private static final DirectoryWalker REPRODUCIBLE_DIRECTORY_WALKER = new ReproducibleDirectoryWalker(FileSystems.getDefault());
+    private static final DirectoryWalker REPRODUCIBLE_DIRECTORY_WALKER = new ParallelDirectoryWalker(FileSystems.getDefault());
 
     private final File dir;
     private final PatternSet patternSet;
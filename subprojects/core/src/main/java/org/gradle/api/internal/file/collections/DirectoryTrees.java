@@ -17,8 +17,12 @@
 package org.gradle.api.internal.file.collections;
 
 import org.gradle.api.file.DirectoryTree;
+import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.DefaultFileTreeElement;
+import org.gradle.api.internal.file.DescendantAwareSpec;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.Cast;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
 
 import java.io.File;
@@ -37,4 +41,15 @@ public abstract class DirectoryTrees {
         return tree.getPatterns().getAsSpec().isSatisfiedBy(new DefaultFileTreeElement(file, path, fileSystem, fileSystem));
     }
 
+    /**
+     * Returns false when no descendant of the given directory can satisfy the given spec, so that the directory does not need to be walked.
+     */
+    public static boolean mayMatchDescendants(FileTreeElement directory, Spec<? super FileTreeElement> spec) {
+        if (spec instanceof DescendantAwareSpec) {
+            DescendantAwareSpec<FileTreeElement> descendantAwareSpec = Cast.uncheckedCast(spec);
+            return descendantAwareSpec.mayMatchDescendants(directory);
+        }
+        return true;
+    }
+
 }
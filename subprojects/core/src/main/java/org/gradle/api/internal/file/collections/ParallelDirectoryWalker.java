@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections;
+
+import org.gradle.api.GradleException;
+import org.gradle.api.file.FileTreeElement;
+import org.gradle.api.file.FileVisitDetails;
+import org.gradle.api.file.FileVisitor;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.specs.Spec;
+import org.gradle.internal.nativeintegration.filesystem.FileSystem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A directory walker that lists directories and reads the metadata of their children concurrently, using a fork-join pool.
+ *
+ * <p>The visitor and the spec are only called from the thread that walks the tree, in the same order as {@link ReproducibleDirectoryWalker}.
+ * When a directory is visited, the listings of all its subdirectories that need to be walked are started, so that they are
+ * available by the time the walk reaches them.</p>
+ */
+public class ParallelDirectoryWalker implements DirectoryWalker {
+    private final FileSystem fileSystem;
+    private final ForkJoinPool pool;
+
+    public ParallelDirectoryWalker(FileSystem fileSystem) {
+        this(fileSystem, DefaultPool.INSTANCE);
+    }
+
+    public ParallelDirectoryWalker(FileSystem fileSystem, ForkJoinPool pool) {
+        this.fileSystem = fileSystem;
+        this.pool = pool;
+    }
+
+    @Override
+    public void walkDir(File file, RelativePath path, FileVisitor visitor, Spec<? super FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        walkDir(file, path, pool.submit(new ListDirectory(file)), visitor, spec, stopFlag, postfix);
+    }
+
+    private void walkDir(File file, RelativePath path, ForkJoinTask<Child[]> listing, FileVisitor visitor, Spec<? super FileTreeElement> spec, AtomicBoolean stopFlag, boolean postfix) {
+        Child[] children = listing.join();
+        if (children == null) {
+            if (file.isDirectory() && !file.canRead()) {
+                throw new GradleException(String.format("Could not list contents of directory '%s' as it is not readable.", file));
+            }
+            // else, might be a link which points to nothing, or has been removed while we're visiting, or ...
+            throw new GradleException(String.format("Could not list contents of '%s'.", file));
+        }
+        List<FileVisitDetails> dirs = new ArrayList<FileVisitDetails>();
+        List<ForkJoinTask<Child[]>> dirListings = new ArrayList<ForkJoinTask<Child[]>>();
+        try {
+            for (int i = 0; !stopFlag.get() && i < children.length; i++) {
+                Child child = children[i];
+                RelativePath childPath = path.append(child.isFile, child.file.getName());
+                FileVisitDetails details = new DefaultFileVisitDetails(child.file, childPath, stopFlag, fileSystem, fileSystem, !child.isFile, child.lastModified, child.size);
+                if (DirectoryFileTree.isAllowed(details, spec)) {
+                    if (child.isFile) {
+                        visitor.visitFile(details);
+                    } else {
+                        dirs.add(details);
+                        dirListings.add(DirectoryTrees.mayMatchDescendants(details, spec) ? pool.submit(new ListDirectory(child.file)) : null);
+                    }
+                }
+            }
+
+            // now handle dirs
+            for (int i = 0; !stopFlag.get() && i < dirs.size(); i++) {
+                FileVisitDetails dir = dirs.get(i);
+                ForkJoinTask<Child[]> dirListing = dirListings.get(i);
+                if (postfix) {
+                    if (dirListing != null) {
+                        walkDir(dir.getFile(), dir.getRelativePath(), dirListing, visitor, spec, stopFlag, postfix);
+                    }
+                    visitor.visitDir(dir);
+                } else {
+                    visitor.visitDir(dir);
+                    if (dirListing != null) {
+                        walkDir(dir.getFile(), dir.getRelativePath(), dirListing, visitor, spec, stopFlag, postfix);
+                    }
+                }
+            }
+        } finally {
+            // Listings of directories that have not been walked when stopping or failing are no longer needed
+            for (ForkJoinTask<Child[]> dirListing : dirListings) {
+                if (dirListing != null && !dirListing.isDone()) {
+                    dirListing.cancel(false);
+                }
+            }
+        }
+    }
+
+    private static class Child {
+        private final File file;
+        private final boolean isFile;
+        private final long lastModified;
+        private final long size;
+
+        Child(File file) {
+            this.file = file;
+            this.isFile = file.isFile();
+            this.lastModified = file.lastModified();
+            this.size = file.length();
+        }
+    }
+
+    private static class ListDirectory extends RecursiveTask<Child[]> {
+        private final File dir;
+
+        ListDirectory(File dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected Child[] compute() {
+            File[] files = dir.listFiles();
+            if (files == null) {
+                return null;
+            }
+            Arrays.sort(files);
+            Child[] children = new Child[files.length];
+            for (int i = 0; i < files.length; i++) {
+                children[i] = new Child(files[i]);
+            }
+            return children;
+        }
+    }
+
+    private static class DefaultPool {
+        // Listing directories is bound by the latency of the file system rather than by the CPU, so use more threads than processors
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(2 * Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -22,6 +22,7 @@ import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.file.DefaultFileVisitDetails;
+import org.gradle.api.internal.file.collections.DirectoryTrees;
 import org.gradle.api.internal.file.collections.DirectoryWalker;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -60,6 +61,11 @@ public class Jdk7DirectoryWalker implements DirectoryWalker {
                 public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
                     FileVisitDetails details = getFileVisitDetails(dir, attrs, true);
                     if (directoryDetailsHolder.size()==0 || isAllowed(details, spec)) {
+                        if (directoryDetailsHolder.size() > 0 && !DirectoryTrees.mayMatchDescendants(details, spec)) {
+                            // None of the contents of the directory can match, so visit the directory without walking it
+                            visitor.visitDir(details);
+                            return stopFlag.get() ? FileVisitResult.TERMINATE : FileVisitResult.SKIP_SUBTREE;
+                        }
                         directoryDetailsHolder.push(details);
                         if (directoryDetailsHolder.size() > 1 && !postfix) {
                             visitor.visitDir(details);
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern;
+
+import org.apache.commons.lang.StringUtils;
+import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DescendantAwareSpec;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches relative paths against a set of Ant-style patterns in a single pass over the segments of the path.
+ *
+ * <p>The patterns are merged into a tree of steps, where patterns with a common prefix share the steps of that prefix. A path is matched by tracking the set of
+ * steps reached after each segment, so that each segment is compared at most once with each step of the tree, regardless of the number of patterns. Segments
+ * are looked up by name for steps that do not contain wildcards.</p>
+ *
+ * <p>Matches the same paths as the union of the matchers created by {@link PatternMatcherFactory#getPatternMatcher(boolean, boolean, String)} for each pattern.</p>
+ */
+public class CompiledPatternMatcher implements DescendantAwareSpec<RelativePath> {
+    private static final String PATH_SEPARATORS = "\\/";
+
+    private final boolean partialMatchDirs;
+    private final boolean caseSensitive;
+    private final Node root;
+    private final String patterns;
+    private int nodeCount;
+
+    public CompiledPatternMatcher(boolean partialMatchDirs, boolean caseSensitive, Collection<String> patterns) {
+        this.partialMatchDirs = partialMatchDirs;
+        this.caseSensitive = caseSensitive;
+        this.root = newNode(false, null);
+        for (String pattern : patterns) {
+            add(pattern);
+        }
+        this.patterns = patterns.toString();
+    }
+
+    private void add(String pattern) {
+        if (pattern.length() == 0) {
+            root.terminal = true;
+            return;
+        }
+
+        // trailing / or \ assumes **
+        if (pattern.endsWith("/") || pattern.endsWith("\\")) {
+            pattern = pattern + "**";
+        }
+        Node node = root;
+        for (String part : StringUtils.split(pattern, PATH_SEPARATORS)) {
+            if (part.equals("**")) {
+                if (!node.greedy) {
+                    if (node.greedyChild == null) {
+                        node.greedyChild = newNode(true, null);
+                    }
+                    node = node.greedyChild;
+                }
+            } else if (part.indexOf('*') < 0 && part.indexOf('?') < 0) {
+                String key = caseSensitive ? part : fold(part);
+                if (node.fixedChildren == null) {
+                    node.fixedChildren = new HashMap<String, Node>();
+                }
+                Node child = node.fixedChildren.get(key);
+                if (child == null) {
+                    child = newNode(false, null);
+                    node.fixedChildren.put(key, child);
+                }
+                node = child;
+            } else {
+                Node child = null;
+                for (Node candidate : node.wildcardChildren) {
+                    if (candidate.source.equals(part)) {
+                        child = candidate;
+                        break;
+                    }
+                }
+                if (child == null) {
+                    child = newNode(false, part);
+                    node.wildcardChildren.add(child);
+                }
+                node = child;
+            }
+        }
+        node.terminal = true;
+    }
+
+    private Node newNode(boolean greedy, String source) {
+        return new Node(nodeCount++, greedy, source, source == null ? null : PatternStepFactory.getStep(source, caseSensitive));
+    }
+
+    @Override
+    public String toString() {
+        return "{compiled: " + patterns + "}";
+    }
+
+    @Override
+    public boolean isSatisfiedBy(RelativePath element) {
+        if (element.isFile() || !partialMatchDirs) {
+            return matches(element.getSegments());
+        } else {
+            return isPrefix(element.getSegments());
+        }
+    }
+
+    @Override
+    public boolean mayMatchDescendants(RelativePath directory) {
+        for (Node node : walk(directory.getSegments())) {
+            if (node.hasTransitions()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given path satisfies any of the patterns.
+     */
+    public boolean matches(String[] segments) {
+        for (Node node : walk(segments)) {
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the given path could satisfy any of the patterns if it contained additional segments at the end.
+     */
+    public boolean isPrefix(String[] segments) {
+        if (segments.length == 0) {
+            // Empty path, might match when more elements added to any non-empty pattern
+            return root.hasTransitions();
+        }
+        return !walk(segments).isEmpty();
+    }
+
+    private List<Node> walk(String[] segments) {
+        List<Node> current = new ArrayList<Node>();
+        BitSet reached = new BitSet(nodeCount);
+        reach(root, current, reached);
+        for (int i = 0; i < segments.length && !current.isEmpty(); i++) {
+            String segment = segments[i];
+            String key = caseSensitive ? segment : fold(segment);
+            List<Node> next = new ArrayList<Node>(current.size());
+            reached.clear();
+            for (Node node : current) {
+                if (node.greedy) {
+                    reach(node, next, reached);
+                }
+                if (node.fixedChildren != null) {
+                    Node child = node.fixedChildren.get(key);
+                    if (child != null) {
+                        reach(child, next, reached);
+                    }
+                }
+                for (Node child : node.wildcardChildren) {
+                    if (!reached.get(child.id) && child.step.matches(segment)) {
+                        reach(child, next, reached);
+                    }
+                }
+            }
+            current = next;
+        }
+        return current;
+    }
+
+    private static void reach(Node node, List<Node> nodes, BitSet reached) {
+        if (!reached.get(node.id)) {
+            reached.set(node.id);
+            nodes.add(node);
+            // A '**' step may match zero segments
+            if (node.greedyChild != null) {
+                reach(node.greedyChild, nodes, reached);
+            }
+        }
+    }
+
+    /**
+     * Folds the case of the given string, so that two strings fold to the same value when {@link String#equalsIgnoreCase(String)} is true for them.
+     */
+    private static String fold(String value) {
+        char[] chars = new char[value.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        return new String(chars);
+    }
+
+    private static class Node {
+        private final int id;
+        private final boolean greedy;
+        private final String source;
+        private final PatternStep step;
+        private final List<Node> wildcardChildren = new ArrayList<Node>(0);
+        private Map<String, Node> fixedChildren;
+        private Node greedyChild;
+        private boolean terminal;
+
+        Node(int id, boolean greedy, String source, PatternStep step) {
+            this.id = id;
+            this.greedy = greedy;
+            this.source = source;
+            this.step = step;
+        }
+
+        boolean hasTransitions() {
+            return greedy || greedyChild != null || fixedChildren != null || !wildcardChildren.isEmpty();
+        }
+    }
+}
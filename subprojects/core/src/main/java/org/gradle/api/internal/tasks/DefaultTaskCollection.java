@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks;
 
+import com.google.common.collect.Lists;
 import groovy.lang.Closure;
 import org.gradle.api.Action;
 import org.gradle.api.Task;
@@ -28,6 +29,8 @@ import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.TaskCollection;
 import org.gradle.internal.reflect.Instantiator;
 
+import java.util.List;
+
 public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObjectSet<T> implements TaskCollection<T> {
     private static final Task.Namer NAMER = new Task.Namer();
 
@@ -62,6 +65,16 @@ public class DefaultTaskCollection<T extends Task> extends DefaultNamedDomainObj
         return matching(Specs.<T>convertClosureToSpec(spec));
     }
 
+    @Override
+    public void all(Action<? super T> action) {
+        // Query the tasks before registering the action, as this may create deferred tasks, which would otherwise be passed to the action twice
+        List<T> tasks = Lists.newArrayList(this);
+        action = whenObjectAdded(action);
+        for (T task : tasks) {
+            action.execute(task);
+        }
+    }
+
     public Action<? super T> whenTaskAdded(Action<? super T> action) {
         return whenObjectAdded(action);
     }
@@ -15,6 +15,8 @@
  */
 package org.gradle.api.internal.tasks;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import groovy.lang.Closure;
 import org.apache.commons.lang.StringUtils;
@@ -26,6 +28,8 @@ import org.gradle.api.Task;
 import org.gradle.api.UnknownTaskException;
 import org.gradle.api.internal.NamedDomainObjectContainerConfigureDelegate;
 import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.collections.CollectionFilter;
+import org.gradle.api.internal.collections.FilteredSet;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.api.internal.project.taskfactory.ITaskFactory;
 import org.gradle.api.tasks.TaskCollection;
@@ -46,10 +50,13 @@ import org.gradle.model.internal.type.ModelType;
 import org.gradle.util.ConfigureUtil;
 import org.gradle.util.GUtil;
 
+import java.util.AbstractSet;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.SortedSet;
 
 public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements TaskContainerInternal {
@@ -57,6 +64,7 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
     private final ITaskFactory taskFactory;
     private final ProjectAccessListener projectAccessListener;
     private final Set<String> placeholders = Sets.newHashSet();
+    private final Map<String, Class<? extends Task>> deferredTasks = Maps.newLinkedHashMap();
     private final NamedEntityInstantiator<Task> instantiator;
 
     public DefaultTaskContainer(MutableModelNode modelNode, ProjectInternal project, Instantiator instantiator, ITaskFactory taskFactory, ProjectAccessListener projectAccessListener) {
@@ -80,6 +88,15 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
             modelNode.removeLink(name);
         }
 
+        if (deferredTasks.containsKey(name)) {
+            if (!replace) {
+                throw new InvalidUserDataException(String.format(
+                    "Cannot add %s as a task with that name already exists.", task));
+            }
+            deferredTasks.remove(name);
+            modelNode.removeLink(name);
+        }
+
         Task existing = findByNameWithoutRules(name);
         if (existing != null) {
             if (replace) {
@@ -143,6 +160,19 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return task;
     }
 
+    @Override
+    public <T extends Task> void createLater(String name, Class<T> type, Action<? super T> configuration) throws InvalidUserDataException {
+        if (findByNameWithoutRules(name) != null || deferredTasks.containsKey(name)) {
+            throw new InvalidUserDataException(String.format(
+                "Cannot add task '%s' as a task with that name already exists.", name));
+        }
+        if (placeholders.remove(name)) {
+            modelNode.removeLink(name);
+        }
+        deferredTasks.put(name, type);
+        addTaskCreator(name, type, configuration, true, "tasks.createLater(" + name + ")");
+    }
+
     public <T extends Task> T replace(String name, Class<T> type) {
         return type.cast(create(GUtil.map(Task.TASK_NAME, name, Task.TASK_TYPE, type, Task.TASK_OVERWRITE, true)));
     }
@@ -209,6 +239,59 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         return Sets.newTreeSet(modelNode.getLinkNames());
     }
 
+    @Override
+    public Iterator<Task> iterator() {
+        realizeDeferredTasks();
+        return super.iterator();
+    }
+
+    @Override
+    public int size() {
+        realizeDeferredTasks();
+        return super.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        realizeDeferredTasks();
+        return super.isEmpty();
+    }
+
+    @Override
+    public SortedMap<String, Task> getAsMap() {
+        realizeDeferredTasks();
+        return super.getAsMap();
+    }
+
+    @Override
+    public void all(Action<? super Task> action) {
+        // Deferred tasks are passed to the action once they are created, so there is no need to create them here
+        action = whenObjectAdded(action);
+        for (Task task : Lists.newArrayList(super.iterator())) {
+            action.execute(task);
+        }
+    }
+
+    @Override
+    protected <S extends Task> Set<S> filteredStore(CollectionFilter<S> filter) {
+        return new FilteredSet<Task, S>(new DeferredTasksOfType(filter.getType()), filter);
+    }
+
+    private void realizeDeferredTasks() {
+        realizeDeferredTasks(Task.class);
+    }
+
+    private void realizeDeferredTasks(Class<?> type) {
+        if (deferredTasks.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Class<? extends Task>> entry : Lists.newArrayList(deferredTasks.entrySet())) {
+            if (type.isAssignableFrom(entry.getValue())) {
+                realizeTask(MODEL_PATH.child(entry.getKey()), ModelNode.State.Initialized);
+            }
+        }
+    }
+
     public void realize() {
         project.getModelRegistry().realizeNode(modelNode.getPath());
     }
@@ -256,21 +339,25 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
 
     public <T extends TaskInternal> void addPlaceholderAction(final String placeholderName, final Class<T> taskType, final Action<? super T> configure) {
         if (!modelNode.hasLink(placeholderName)) {
-            final ModelType<T> taskModelType = ModelType.of(taskType);
-            ModelPath path = MODEL_PATH.child(placeholderName);
-            modelNode.addLink(
-                ModelRegistrations.of(path)
-                    .action(ModelActionRole.Create, new TaskCreator<T>(placeholderName, taskType, configure, taskModelType))
-                    .withProjection(new UnmanagedModelProjection<T>(taskModelType))
-                    .descriptor(new SimpleModelRuleDescriptor("tasks.addPlaceholderAction(" + placeholderName + ")"))
-                    .build()
-            );
+            addTaskCreator(placeholderName, taskType, configure, false, "tasks.addPlaceholderAction(" + placeholderName + ")");
         }
-        if (findByNameWithoutRules(placeholderName) == null) {
+        if (findByNameWithoutRules(placeholderName) == null && !deferredTasks.containsKey(placeholderName)) {
             placeholders.add(placeholderName);
         }
     }
 
+    private <T extends Task> void addTaskCreator(String name, Class<T> taskType, Action<? super T> configure, boolean deferred, String descriptor) {
+        ModelType<T> taskModelType = ModelType.of(taskType);
+        ModelPath path = MODEL_PATH.child(name);
+        modelNode.addLink(
+            ModelRegistrations.of(path)
+                .action(ModelActionRole.Create, new TaskCreator<T>(name, taskType, configure, deferred, taskModelType))
+                .withProjection(new UnmanagedModelProjection<T>(taskModelType))
+                .descriptor(new SimpleModelRuleDescriptor(descriptor))
+                .build()
+        );
+    }
+
     public <U extends Task> NamedDomainObjectContainer<U> containerWithType(Class<U> type) {
         throw new UnsupportedOperationException();
     }
@@ -295,24 +382,65 @@ public class DefaultTaskContainer extends DefaultTaskCollection<Task> implements
         }
     }
 
-    private static class TaskCreator<T extends TaskInternal> implements Action<MutableModelNode> {
+    /**
+     * The tasks of this container, as seen by a collection filtered by type. Only the deferred tasks of that type are created when it is queried.
+     */
+    private class DeferredTasksOfType extends AbstractSet<Task> {
+        private final Class<?> type;
+
+        DeferredTasksOfType(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public Iterator<Task> iterator() {
+            realizeDeferredTasks(type);
+            return DefaultTaskContainer.super.iterator();
+        }
+
+        @Override
+        public int size() {
+            realizeDeferredTasks(type);
+            return DefaultTaskContainer.super.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            realizeDeferredTasks(type);
+            return DefaultTaskContainer.super.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return DefaultTaskContainer.this.contains(o);
+        }
+    }
+
+    private static class TaskCreator<T extends Task> implements Action<MutableModelNode> {
         private final String placeholderName;
         private final Class<T> taskType;
         private final Action<? super T> configure;
+        private final boolean deferred;
         private final ModelType<T> taskModelType;
 
-        public TaskCreator(String placeholderName, Class<T> taskType, Action<? super T> configure, ModelType<T> taskModelType) {
+        public TaskCreator(String placeholderName, Class<T> taskType, Action<? super T> configure, boolean deferred, ModelType<T> taskModelType) {
             this.placeholderName = placeholderName;
             this.taskType = taskType;
             this.configure = configure;
+            this.deferred = deferred;
             this.taskModelType = taskModelType;
         }
 
         @Override
         public void execute(final MutableModelNode mutableModelNode) {
             DefaultTaskContainer taskContainer = mutableModelNode.getParent().getPrivateData(ModelType.of(DefaultTaskContainer.class));
-            T task = taskContainer.taskFactory.create(placeholderName, taskType);
+            if (!deferred && (taskContainer.deferredTasks.containsKey(placeholderName) || taskContainer.findByNameWithoutRules(placeholderName) != null)) {
+                // The rule of a placeholder replaced by a deferred task is still bound to the node of that task, so leave the creation to the deferred task
+                return;
+            }
+            T task = taskContainer.instantiator.create(placeholderName, taskType);
             configure.execute(task);
+            taskContainer.deferredTasks.remove(placeholderName);
             taskContainer.add(task);
             mutableModelNode.setPrivateData(taskModelType, task);
         }
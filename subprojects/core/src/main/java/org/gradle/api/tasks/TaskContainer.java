@@ -161,6 +161,23 @@ public interface TaskContainer extends TaskCollection<Task>, PolymorphicDomainOb
      */
     <T extends Task> T create(String name, Class<T> type, Action<? super T> configuration) throws InvalidUserDataException;
 
+    /**
+     * <p>Defines a {@link Task} with the given name and type, which is created and configured with the given action only when it is required.</p>
+     *
+     * <p>The task is required when it is located by name or path, when it is added to the task graph, when it is needed to
+     * resolve a task dependency or when the tasks of this container are queried. A collection returned by {@link #withType(Class)}
+     * only creates the deferred tasks of that type, which includes {@link #withType(Class, Action)}. Actions registered using
+     * {@link #all(Action)} or {@link #whenTaskAdded(Action)} are applied to the task when it is created.</p>
+     *
+     * @param name The name of the task to be created.
+     * @param type The type of task to create.
+     * @param configuration The action to configure the task with.
+     * @throws InvalidUserDataException If a task with the given name already exists in this project.
+     * @since 3.6
+     */
+    @Incubating
+    <T extends Task> void createLater(String name, Class<T> type, Action<? super T> configuration) throws InvalidUserDataException;
+
     /**
      * <p>Creates a {@link Task} with the given name and adds it to this container, replacing any existing task with the
      * same name.</p>
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import org.gradle.api.file.FileTreeElement;
 import org.gradle.api.file.RelativePath;
 import org.gradle.api.internal.cache.HeapProportionalCacheSizer;
+import org.gradle.api.internal.file.DescendantAwareSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
@@ -59,7 +60,7 @@ public class CachingPatternSpecFactory extends PatternSpecFactory {
         }
     }
 
-    private class CachingSpec implements Spec<FileTreeElement> {
+    private class CachingSpec implements DescendantAwareSpec<FileTreeElement> {
         private final SpecKey key;
         private final Spec<FileTreeElement> spec;
 
@@ -83,6 +84,11 @@ public class CachingPatternSpecFactory extends PatternSpecFactory {
             }
         }
 
+        @Override
+        public boolean mayMatchDescendants(FileTreeElement directory) {
+            return !(spec instanceof DescendantAwareSpec) || ((DescendantAwareSpec<FileTreeElement>) spec).mayMatchDescendants(directory);
+        }
+
         @Override
         public String toString() {
             return Objects.toStringHelper(this)
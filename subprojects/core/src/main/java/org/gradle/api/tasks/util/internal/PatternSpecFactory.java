@@ -18,9 +18,10 @@ package org.gradle.api.tasks.util.internal;
 
 import org.apache.tools.ant.DirectoryScanner;
 import org.gradle.api.file.FileTreeElement;
-import org.gradle.api.file.RelativePath;
+import org.gradle.api.internal.file.DescendantAwareSpec;
 import org.gradle.api.internal.file.RelativePathSpec;
-import org.gradle.api.internal.file.pattern.PatternMatcherFactory;
+import org.gradle.api.internal.file.pattern.CompiledPatternMatcher;
+import org.gradle.api.specs.AndSpec;
 import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.api.tasks.util.PatternSet;
@@ -34,7 +35,12 @@ public class PatternSpecFactory {
     public static final PatternSpecFactory INSTANCE = new PatternSpecFactory();
 
     public Spec<FileTreeElement> createSpec(PatternSet patternSet) {
-        return Specs.intersect(createIncludeSpec(patternSet), Specs.negate(createExcludeSpec(patternSet)));
+        Spec<FileTreeElement> includeSpec = createIncludeSpec(patternSet);
+        Spec<FileTreeElement> excludeSpec = Specs.negate(createExcludeSpec(patternSet));
+        if (includeSpec instanceof DescendantAwareSpec) {
+            return new IncludePatternsAwareSpec((DescendantAwareSpec<FileTreeElement>) includeSpec, excludeSpec);
+        }
+        return Specs.intersect(includeSpec, excludeSpec);
     }
 
     public Spec<FileTreeElement> createIncludeSpec(PatternSet patternSet) {
@@ -50,15 +56,15 @@ public class PatternSpecFactory {
     }
 
     public Spec<FileTreeElement> createExcludeSpec(PatternSet patternSet) {
-        List<Spec<FileTreeElement>> allExcludeSpecs = new ArrayList<Spec<FileTreeElement>>(2 + patternSet.getExcludeSpecs().size());
-
-        if (!patternSet.getExcludes().isEmpty()) {
-            allExcludeSpecs.add(createSpec(patternSet.getExcludes(), false, patternSet.isCaseSensitive()));
-        }
+        List<Spec<FileTreeElement>> allExcludeSpecs = new ArrayList<Spec<FileTreeElement>>(1 + patternSet.getExcludeSpecs().size());
 
+        // Match the excludes and the default excludes with a single matcher
         List<String> defaultExcludes = Arrays.asList(DirectoryScanner.getDefaultExcludes());
-        if (!defaultExcludes.isEmpty()) {
-            allExcludeSpecs.add(createSpec(defaultExcludes, false, patternSet.isCaseSensitive()));
+        List<String> excludes = new ArrayList<String>(patternSet.getExcludes().size() + defaultExcludes.size());
+        excludes.addAll(patternSet.getExcludes());
+        excludes.addAll(defaultExcludes);
+        if (!excludes.isEmpty()) {
+            allExcludeSpecs.add(createSpec(excludes, false, patternSet.isCaseSensitive()));
         }
 
         allExcludeSpecs.addAll(patternSet.getExcludeSpecs());
@@ -75,12 +81,23 @@ public class PatternSpecFactory {
             return include ? Specs.<FileTreeElement>satisfyAll() : Specs.<FileTreeElement>satisfyNone();
         }
 
-        List<Spec<RelativePath>> matchers = new ArrayList<Spec<RelativePath>>(patterns.size());
-        for (String pattern : patterns) {
-            Spec<RelativePath> patternMatcher = PatternMatcherFactory.getPatternMatcher(include, caseSensitive, pattern);
-            matchers.add(patternMatcher);
+        return new RelativePathSpec(new CompiledPatternMatcher(include, caseSensitive, patterns));
+    }
+
+    /**
+     * Nothing below a directory can be included when no descendant of the directory matches the include patterns, regardless of the excludes.
+     */
+    private static class IncludePatternsAwareSpec extends AndSpec<FileTreeElement> implements DescendantAwareSpec<FileTreeElement> {
+        private final DescendantAwareSpec<FileTreeElement> includeSpec;
+
+        IncludePatternsAwareSpec(DescendantAwareSpec<FileTreeElement> includeSpec, Spec<FileTreeElement> excludeSpec) {
+            super(includeSpec, excludeSpec);
+            this.includeSpec = includeSpec;
         }
 
-        return new RelativePathSpec(Specs.union(matchers));
+        @Override
+        public boolean mayMatchDescendants(FileTreeElement directory) {
+            return includeSpec.mayMatchDescendants(directory);
+        }
     }
 }
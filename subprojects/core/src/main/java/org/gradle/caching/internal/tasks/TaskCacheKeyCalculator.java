@@ -17,6 +17,7 @@
 package org.gradle.caching.internal.tasks;
 
 import com.google.common.hash.HashCode;
+import org.gradle.api.Nullable;
 import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot;
 import org.gradle.api.internal.changedetection.state.TaskExecution;
 import org.gradle.api.internal.changedetection.state.ValueSnapshot;
@@ -30,6 +31,13 @@ import java.util.SortedSet;
 public class TaskCacheKeyCalculator {
 
     public TaskOutputCachingBuildCacheKey calculate(TaskExecution execution) {
+        return calculate(execution, null);
+    }
+
+    /**
+     * Calculates the cache key for the given execution, reusing the input hashes recorded for the previous execution for all inputs that did not change since.
+     */
+    public TaskOutputCachingBuildCacheKey calculate(TaskExecution execution, @Nullable TaskExecution previousExecution) {
         DefaultTaskOutputCachingBuildCacheKeyBuilder builder = new DefaultTaskOutputCachingBuildCacheKeyBuilder();
         HashCode taskClassLoaderHash = execution.getTaskClassLoaderHash();
         List<HashCode> taskActionsClassLoaderHashes = execution.getTaskActionsClassLoaderHashes();
@@ -38,21 +46,32 @@ public class TaskCacheKeyCalculator {
         builder.appendClassloaderHash(taskClassLoaderHash);
         builder.appendActionsClassloaderHashes(taskActionsClassLoaderHashes);
 
+        Map<String, HashCode> previousInputHashes = previousExecution == null ? null : previousExecution.getInputHashes();
+
         SortedMap<String, ValueSnapshot> inputProperties = execution.getInputProperties();
         for (Map.Entry<String, ValueSnapshot> entry : inputProperties.entrySet()) {
-            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
-            entry.getValue().appendToHasher(newHasher);
-            HashCode hash = newHasher.hash();
-            builder.appendInputPropertyHash(entry.getKey(), hash);
+            String propertyName = entry.getKey();
+            ValueSnapshot value = entry.getValue();
+            HashCode hash = previousInputHashes == null ? null : previousInputHashes.get(propertyName);
+            if (hash == null || !value.equals(previousExecution.getInputProperties().get(propertyName))) {
+                DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
+                value.appendToHasher(newHasher);
+                hash = newHasher.hash();
+            }
+            builder.appendInputPropertyHash(propertyName, hash);
         }
 
         SortedMap<String, FileCollectionSnapshot> inputFilesSnapshots = execution.getInputFilesSnapshot();
         for (Map.Entry<String, FileCollectionSnapshot> entry : inputFilesSnapshots.entrySet()) {
+            String propertyName = entry.getKey();
             FileCollectionSnapshot snapshot = entry.getValue();
-            DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
-            snapshot.appendToHasher(newHasher);
-            HashCode hash = newHasher.hash();
-            builder.appendInputPropertyHash(entry.getKey(), hash);
+            HashCode hash = previousInputHashes == null ? null : previousInputHashes.get(propertyName);
+            if (hash == null || !isUnchanged(snapshot, previousExecution.getInputFilesSnapshot().get(propertyName))) {
+                DefaultBuildCacheHasher newHasher = new DefaultBuildCacheHasher();
+                snapshot.appendToHasher(newHasher);
+                hash = newHasher.hash();
+            }
+            builder.appendInputPropertyHash(propertyName, hash);
         }
 
         SortedSet<String> outputPropertyNamesForCacheKey = execution.getOutputPropertyNamesForCacheKey();
@@ -62,4 +81,8 @@ public class TaskCacheKeyCalculator {
 
         return builder.build();
     }
+
+    private static boolean isUnchanged(FileCollectionSnapshot snapshot, @Nullable FileCollectionSnapshot previousSnapshot) {
+        return previousSnapshot != null && snapshot.isUnchangedSince(previousSnapshot);
+    }
 }
@@ -43,6 +43,8 @@ import org.gradle.internal.logging.LoggingManagerInternal;
 import org.gradle.internal.logging.progress.ProgressLoggerFactory;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
 import org.gradle.internal.progress.BuildOperationExecutor;
+import org.gradle.internal.progress.BuildOperationService;
+import org.gradle.internal.progress.BuildOperationTrace;
 import org.gradle.internal.progress.BuildProgressFilter;
 import org.gradle.internal.progress.BuildProgressLogger;
 import org.gradle.internal.progress.LoggerProvider;
@@ -59,6 +61,7 @@ import org.gradle.profile.ProfileEventAdapter;
 import org.gradle.profile.ReportGeneratingProfileListener;
 import org.gradle.util.DeprecationLogger;
 
+import java.io.File;
 import java.util.List;
 
 public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
@@ -153,6 +156,12 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         if (startParameter.isProfile()) {
             listenerManager.addListener(new ReportGeneratingProfileListener(serviceRegistry.get(StyledTextOutputFactory.class)));
         }
+        if (parent == null) {
+            BuildOperationTrace buildOperationTrace = createBuildOperationTrace(startParameter, serviceRegistry.get(BuildOperationService.class));
+            if (buildOperationTrace != null) {
+                servicesToStop = ImmutableList.builder().addAll(servicesToStop).add(buildOperationTrace).build();
+            }
+        }
         BuildScanRequest buildScanRequest = serviceRegistry.get(BuildScanRequest.class);
         if (startParameter.isBuildScan()) {
             if(!startParameter.getSystemPropertiesArgs().containsKey("scan")){
@@ -207,6 +216,21 @@ public class DefaultGradleLauncherFactory implements GradleLauncherFactory {
         return gradleLauncher;
     }
 
+    private static BuildOperationTrace createBuildOperationTrace(StartParameter startParameter, BuildOperationService buildOperationService) {
+        String basePath = startParameter.getSystemPropertiesArgs().get(BuildOperationTrace.SYSTEM_PROPERTY);
+        if (basePath == null) {
+            basePath = System.getProperty(BuildOperationTrace.SYSTEM_PROPERTY);
+        }
+        if (basePath == null || basePath.isEmpty()) {
+            return null;
+        }
+        File traceFile = new File(basePath);
+        if (!traceFile.isAbsolute()) {
+            traceFile = new File(startParameter.getCurrentDir(), basePath);
+        }
+        return new BuildOperationTrace(traceFile, buildOperationService);
+    }
+
     private class NestedBuildFactoryImpl implements NestedBuildFactory {
         private final BuildSessionScopeServices sessionScopeServices;
         private DefaultGradleLauncher parent;
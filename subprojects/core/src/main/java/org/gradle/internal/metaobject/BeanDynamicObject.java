@@ -15,6 +15,7 @@
  */
 package org.gradle.internal.metaobject;
 
+import com.google.common.base.Optional;
 import groovy.lang.GroovyObject;
 import groovy.lang.GroovySystem;
 import groovy.lang.MetaBeanProperty;
@@ -51,6 +52,8 @@ import java.util.Map;
  * <p>Uses some deep hacks to avoid some expensive reflections and the use of exceptions when a particular property or method cannot be found,
  * for example, when a decorated object is used as the delegate of a configuration closure. Also uses some hacks to insert some customised type
  * coercion and error reporting. Enjoy.
+ *
+ * <p>The properties and methods resolved for each meta-class are cached by {@link MetaClassLookupCache}.
  */
 public class BeanDynamicObject extends AbstractDynamicObject {
     private static final Method META_PROP_METHOD;
@@ -312,6 +315,21 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaProperty lookupProperty(MetaClass metaClass, String name) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache != null) {
+                Optional<MetaProperty> cached = cache.getProperty(name);
+                if (cached != null) {
+                    return cached.orNull();
+                }
+                MetaProperty property = findProperty(metaClass, name);
+                cache.putProperty(name, property);
+                return property;
+            }
+            return findProperty(metaClass, name);
+        }
+
+        @Nullable
+        private MetaProperty findProperty(MetaClass metaClass, String name) {
             if (metaClass instanceof MetaClassImpl) {
                 // MetaClass.getMetaProperty(name) is very expensive when the property is not known. Instead, reach into the meta class to call a much more efficient lookup method
                 try {
@@ -465,7 +483,7 @@ public class BeanDynamicObject extends AbstractDynamicObject {
                 return;
             }
 
-            List<MetaMethod> metaMethods = metaClass.respondsTo(bean, name);
+            List<MetaMethod> metaMethods = lookupMethods(metaClass, name);
             for (MetaMethod method : metaMethods) {
                 if (method.getParameterTypes().length != arguments.length) {
                     continue;
@@ -494,9 +512,33 @@ public class BeanDynamicObject extends AbstractDynamicObject {
 
         @Nullable
         protected MetaMethod lookupMethod(MetaClass metaClass, String name, Class[] arguments) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache != null) {
+                Optional<MetaMethod> cached = cache.getMethod(name, arguments);
+                if (cached != null) {
+                    return cached.orNull();
+                }
+                MetaMethod method = metaClass.getMetaMethod(name, arguments);
+                cache.putMethod(name, arguments, method);
+                return method;
+            }
             return metaClass.getMetaMethod(name, arguments);
         }
 
+        private List<MetaMethod> lookupMethods(MetaClass metaClass, String name) {
+            MetaClassLookupCache cache = MetaClassLookupCache.forMetaClass(metaClass);
+            if (cache != null) {
+                List<MetaMethod> cached = cache.getMethods(name);
+                if (cached != null) {
+                    return cached;
+                }
+                List<MetaMethod> methods = metaClass.respondsTo(bean, name);
+                cache.putMethods(name, methods);
+                return methods;
+            }
+            return metaClass.respondsTo(bean, name);
+        }
+
         protected void invokeOpaqueMethod(MetaClass metaClass, String name, Object[] arguments, InvokeMethodResult result) {
             MetaMethod methodMissingMethod = findMethodMissingMethod(metaClass);
             if (methodMissingMethod != null) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.metaobject;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import groovy.lang.MetaClass;
+import groovy.lang.MetaClassImpl;
+import groovy.lang.MetaMethod;
+import groovy.lang.MetaProperty;
+import org.gradle.api.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An inline cache of the properties and methods resolved for a meta-class, by name and argument types.
+ *
+ * <p>Only instances of {@link MetaClassImpl} itself are cached, as these cannot be modified once initialized. Sub-classes such as
+ * {@link groovy.lang.ExpandoMetaClass} can have methods and properties added at any time, so their lookups are not cached.
+ * The caches are weakly keyed by meta-class identity, so that they are discarded along with the meta-class.</p>
+ */
+class MetaClassLookupCache {
+    private static final LoadingCache<MetaClass, MetaClassLookupCache> CACHES = CacheBuilder.newBuilder().weakKeys().build(new CacheLoader<MetaClass, MetaClassLookupCache>() {
+        @Override
+        public MetaClassLookupCache load(MetaClass metaClass) {
+            return new MetaClassLookupCache();
+        }
+    });
+
+    private final ConcurrentMap<String, Optional<MetaProperty>> properties = new ConcurrentHashMap<String, Optional<MetaProperty>>();
+    private final ConcurrentMap<String, MethodsByArgumentTypes> methods = new ConcurrentHashMap<String, MethodsByArgumentTypes>();
+    private final ConcurrentMap<String, List<MetaMethod>> methodsByName = new ConcurrentHashMap<String, List<MetaMethod>>();
+
+    /**
+     * Returns the cache for the given meta-class, or null when lookups for the meta-class cannot be cached.
+     */
+    @Nullable
+    static MetaClassLookupCache forMetaClass(MetaClass metaClass) {
+        if (metaClass.getClass() != MetaClassImpl.class) {
+            return null;
+        }
+        return CACHES.getUnchecked(metaClass);
+    }
+
+    /**
+     * Returns the result of a previous lookup of the given property, or null when the property has not been looked up yet.
+     */
+    @Nullable
+    Optional<MetaProperty> getProperty(String name) {
+        return properties.get(name);
+    }
+
+    void putProperty(String name, @Nullable MetaProperty property) {
+        properties.putIfAbsent(name, Optional.fromNullable(property));
+    }
+
+    /**
+     * Returns the result of a previous lookup of the given method, or null when the method has not been looked up yet.
+     */
+    @Nullable
+    Optional<MetaMethod> getMethod(String name, Class[] argumentTypes) {
+        MethodsByArgumentTypes methodsByArgumentTypes = methods.get(name);
+        if (methodsByArgumentTypes == null) {
+            return null;
+        }
+        return methodsByArgumentTypes.get(argumentTypes);
+    }
+
+    void putMethod(String name, Class[] argumentTypes, @Nullable MetaMethod method) {
+        MethodsByArgumentTypes methodsByArgumentTypes = methods.get(name);
+        if (methodsByArgumentTypes == null) {
+            methodsByArgumentTypes = new MethodsByArgumentTypes();
+            MethodsByArgumentTypes existing = methods.putIfAbsent(name, methodsByArgumentTypes);
+            if (existing != null) {
+                methodsByArgumentTypes = existing;
+            }
+        }
+        methodsByArgumentTypes.put(argumentTypes, method);
+    }
+
+    @Nullable
+    List<MetaMethod> getMethods(String name) {
+        return methodsByName.get(name);
+    }
+
+    void putMethods(String name, List<MetaMethod> methods) {
+        methodsByName.putIfAbsent(name, methods);
+    }
+
+    /**
+     * The methods with a given name, keyed by argument types. As with {@link org.gradle.internal.reflect.ReflectionCache}, the argument types are weakly referenced,
+     * so that the cache does not retain classes that are loaded by other class loaders, such as those of build scripts.
+     */
+    private static class MethodsByArgumentTypes {
+        private final ArgumentTypeEntry root = new ArgumentTypeEntry();
+
+        @Nullable
+        synchronized Optional<MetaMethod> get(Class[] argumentTypes) {
+            ArgumentTypeEntry entry = root;
+            for (Class argumentType : argumentTypes) {
+                entry = entry.next.get(argumentType);
+                if (entry == null) {
+                    return null;
+                }
+            }
+            return entry.method;
+        }
+
+        synchronized void put(Class[] argumentTypes, @Nullable MetaMethod method) {
+            ArgumentTypeEntry entry = root;
+            for (Class argumentType : argumentTypes) {
+                ArgumentTypeEntry next = entry.next.get(argumentType);
+                if (next == null) {
+                    next = new ArgumentTypeEntry();
+                    entry.next.put(argumentType, next);
+                }
+                entry = next;
+            }
+            entry.method = Optional.fromNullable(method);
+        }
+    }
+
+    private static class ArgumentTypeEntry {
+        private final Map<Class, ArgumentTypeEntry> next = new WeakHashMap<Class, ArgumentTypeEntry>();
+        private Optional<MetaMethod> method;
+    }
+}
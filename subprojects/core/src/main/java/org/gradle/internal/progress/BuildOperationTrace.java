@@ -0,0 +1,318 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.progress;
+
+import org.gradle.api.Nullable;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes every build operation to a trace, as it happens.
+ *
+ * <p>Two files are written, given the base path {@code trace}:</p>
+ * <ul>
+ *     <li>{@code trace-log.txt}, with one line per operation start and finish. Each line is a JSON object holding the operation id, parent id,
+ *     display name, thread and timestamp, and for a finish the outcome, along with the CPU time and the bytes allocated by the thread that
+ *     ran the operation, where the JVM can measure them.</li>
+ *     <li>{@code trace.json}, in the Chrome trace event format, which can be loaded into {@code chrome://tracing}.</li>
+ * </ul>
+ *
+ * <p>CPU time and allocated bytes include those of any child operations run by the same thread.</p>
+ */
+public class BuildOperationTrace implements BuildOperationListener, Stoppable {
+    /**
+     * The base path of the trace files to write. When not set, no trace is written.
+     */
+    public static final String SYSTEM_PROPERTY = "org.gradle.internal.operations.trace";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final BuildOperationService buildOperationService;
+    private final ThreadMeter threadMeter = ThreadMeter.create();
+    private final Map<Object, StartedOperation> running = new ConcurrentHashMap<Object, StartedOperation>();
+    private final Set<Long> namedThreads = new HashSet<Long>();
+    private final long traceStartNanos = System.nanoTime();
+    private final Writer log;
+    private final Writer chromeTrace;
+    private boolean firstChromeEvent = true;
+
+    public BuildOperationTrace(File basePath, BuildOperationService buildOperationService) {
+        this.buildOperationService = buildOperationService;
+        File parent = basePath.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new UncheckedException(new IOException("Could not create directory " + parent));
+        }
+        try {
+            log = open(new File(parent, basePath.getName() + "-log.txt"));
+            chromeTrace = open(new File(parent, basePath.getName() + ".json"));
+            chromeTrace.write("[\n");
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        buildOperationService.addListener(this);
+    }
+
+    private static Writer open(File file) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8));
+    }
+
+    @Override
+    public void started(BuildOperationInternal buildOperation, OperationStartEvent startEvent) {
+        Thread thread = Thread.currentThread();
+        StartedOperation started = new StartedOperation(thread.getId(), System.nanoTime(), threadMeter.cpuTime(), threadMeter.allocatedBytes());
+        running.put(buildOperation.getId(), started);
+
+        StringBuilder line = new StringBuilder("{\"event\":\"start\"");
+        appendOperation(line, buildOperation, thread);
+        line.append(",\"time\":").append(startEvent.getStartTime()).append('}');
+        write(log, line);
+    }
+
+    @Override
+    public void finished(BuildOperationInternal buildOperation, OperationResult finishEvent) {
+        long endNanos = System.nanoTime();
+        Thread thread = Thread.currentThread();
+        StartedOperation started = running.remove(buildOperation.getId());
+        long cpuTime = -1;
+        long allocatedBytes = -1;
+        if (started != null && started.threadId == thread.getId()) {
+            cpuTime = delta(started.cpuTime, threadMeter.cpuTime());
+            allocatedBytes = delta(started.allocatedBytes, threadMeter.allocatedBytes());
+        }
+        Throwable failure = finishEvent.getFailure();
+
+        StringBuilder line = new StringBuilder("{\"event\":\"finish\"");
+        appendOperation(line, buildOperation, thread);
+        line.append(",\"startTime\":").append(finishEvent.getStartTime());
+        line.append(",\"endTime\":").append(finishEvent.getEndTime());
+        appendMeasurements(line, cpuTime, allocatedBytes);
+        if (failure != null) {
+            line.append(",\"failure\":");
+            appendString(line, String.valueOf(failure));
+        }
+        line.append('}');
+        write(log, line);
+
+        if (started != null) {
+            writeChromeEvent(buildOperation, thread, started, endNanos, cpuTime, allocatedBytes, failure);
+        }
+    }
+
+    private void writeChromeEvent(BuildOperationInternal buildOperation, Thread thread, StartedOperation started, long endNanos, long cpuTime, long allocatedBytes, @Nullable Throwable failure) {
+        StringBuilder event = new StringBuilder();
+        boolean newThread;
+        synchronized (namedThreads) {
+            newThread = namedThreads.add(started.threadId);
+        }
+        if (newThread) {
+            event.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":0,\"tid\":").append(started.threadId).append(",\"args\":{\"name\":");
+            appendString(event, thread.getName());
+            event.append("}},\n");
+        }
+        event.append("{\"name\":");
+        appendString(event, buildOperation.getDisplayName());
+        event.append(",\"cat\":\"operation\",\"ph\":\"X\",\"pid\":0,\"tid\":").append(started.threadId);
+        event.append(",\"ts\":").append((started.startNanos - traceStartNanos) / 1000);
+        event.append(",\"dur\":").append((endNanos - started.startNanos) / 1000);
+        event.append(",\"args\":{\"id\":");
+        appendString(event, String.valueOf(buildOperation.getId()));
+        if (buildOperation.getParentId() != null) {
+            event.append(",\"parentId\":");
+            appendString(event, String.valueOf(buildOperation.getParentId()));
+        }
+        appendMeasurements(event, cpuTime, allocatedBytes);
+        if (failure != null) {
+            event.append(",\"failure\":");
+            appendString(event, String.valueOf(failure));
+        }
+        event.append("}}");
+
+        synchronized (chromeTrace) {
+            try {
+                if (!firstChromeEvent) {
+                    chromeTrace.write(",\n");
+                }
+                firstChromeEvent = false;
+                chromeTrace.write(event.toString());
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    private static void appendOperation(StringBuilder builder, BuildOperationInternal buildOperation, Thread thread) {
+        builder.append(",\"id\":");
+        appendString(builder, String.valueOf(buildOperation.getId()));
+        if (buildOperation.getParentId() != null) {
+            builder.append(",\"parentId\":");
+            appendString(builder, String.valueOf(buildOperation.getParentId()));
+        }
+        builder.append(",\"displayName\":");
+        appendString(builder, buildOperation.getDisplayName());
+        builder.append(",\"thread\":");
+        appendString(builder, thread.getName());
+    }
+
+    private static void appendMeasurements(StringBuilder builder, long cpuTime, long allocatedBytes) {
+        if (cpuTime >= 0) {
+            builder.append(",\"cpuTimeNanos\":").append(cpuTime);
+        }
+        if (allocatedBytes >= 0) {
+            builder.append(",\"allocatedBytes\":").append(allocatedBytes);
+        }
+    }
+
+    static void appendString(StringBuilder builder, @Nullable String value) {
+        if (value == null) {
+            builder.append("null");
+            return;
+        }
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (ch < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) ch));
+                    } else {
+                        builder.append(ch);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    private static long delta(long start, long end) {
+        return start < 0 || end < 0 ? -1 : end - start;
+    }
+
+    private static void write(Writer writer, StringBuilder line) {
+        line.append('\n');
+        synchronized (writer) {
+            try {
+                writer.write(line.toString());
+            } catch (IOException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        buildOperationService.removeListener(this);
+        try {
+            synchronized (log) {
+                log.close();
+            }
+            synchronized (chromeTrace) {
+                chromeTrace.write("\n]\n");
+                chromeTrace.close();
+            }
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    private static class StartedOperation {
+        final long threadId;
+        final long startNanos;
+        final long cpuTime;
+        final long allocatedBytes;
+
+        StartedOperation(long threadId, long startNanos, long cpuTime, long allocatedBytes) {
+            this.threadId = threadId;
+            this.startNanos = startNanos;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+    }
+
+    /**
+     * Measures the current thread, returning -1 for anything the JVM cannot measure.
+     */
+    private static class ThreadMeter {
+        private final ThreadMXBean threadMXBean;
+        private final boolean cpuTime;
+        private final boolean allocatedBytes;
+
+        private ThreadMeter(ThreadMXBean threadMXBean, boolean cpuTime, boolean allocatedBytes) {
+            this.threadMXBean = threadMXBean;
+            this.cpuTime = cpuTime;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        static ThreadMeter create() {
+            ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            boolean cpuTime = threadMXBean.isCurrentThreadCpuTimeSupported();
+            if (cpuTime && !threadMXBean.isThreadCpuTimeEnabled()) {
+                threadMXBean.setThreadCpuTimeEnabled(true);
+            }
+            boolean allocatedBytes = false;
+            try {
+                if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean hotSpotThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+                    allocatedBytes = hotSpotThreadMXBean.isThreadAllocatedMemorySupported();
+                    if (allocatedBytes && !hotSpotThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+                        hotSpotThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                    }
+                }
+            } catch (LinkageError e) {
+                // Not a HotSpot JVM
+                allocatedBytes = false;
+            }
+            return new ThreadMeter(threadMXBean, cpuTime, allocatedBytes);
+        }
+
+        long cpuTime() {
+            return cpuTime ? threadMXBean.getCurrentThreadCpuTime() : -1;
+        }
+
+        long allocatedBytes() {
+            return allocatedBytes ? ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+        }
+    }
+}
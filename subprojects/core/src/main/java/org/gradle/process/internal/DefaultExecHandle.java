@@ -21,7 +21,7 @@ import net.rubygrapefruit.platform.ProcessLauncher;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.internal.UncheckedException;
-import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.concurrent.StoppableExecutor;
 import org.gradle.internal.event.ListenerBroadcast;
 import org.gradle.internal.nativeintegration.services.NativeServices;
@@ -79,7 +79,7 @@ public class DefaultExecHandle implements ExecHandle, ProcessSettings {
     private final StreamsHandler streamsHandler;
     private final boolean redirectErrorStream;
     private final ProcessLauncher processLauncher;
-    private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+    private final ExecutorFactory executorFactory = new SharedThreadsExecutorFactory();
     private int timeoutMillis;
     private boolean daemon;
 
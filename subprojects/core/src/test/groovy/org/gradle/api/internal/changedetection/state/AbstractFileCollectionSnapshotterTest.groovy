@@ -23,6 +23,7 @@ import org.gradle.api.internal.changedetection.rules.FileChange
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.SimpleFileCollection
 import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.test.fixtures.file.TestFile
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.ChangeListener
@@ -75,6 +76,28 @@ class AbstractFileCollectionSnapshotterTest extends Specification {
         snapshot.files == [file, file2, file3]
     }
 
+    def "hashes the files of large collections and directory trees concurrently and retains order"() {
+        def hashingExecutor = new DefaultExecutorFactory().create("test", 4)
+        def concurrentSnapshotter = new DefaultGenericFileCollectionSnapshotter(new DefaultFileHasher(), stringInterner, TestFiles.fileSystem(), TestFiles.directoryFileTreeFactory(), fileSystemMirror, hashingExecutor)
+
+        given:
+        def roots = (1..250).collect { tmpDir.file("roots/file$it").createFile() << "root $it" }
+        def dir = tmpDir.createDir("dir")
+        (1..250).each { dir.file("sub${it % 3}/file$it").createFile() << "file $it" }
+
+        when:
+        def snapshot = concurrentSnapshotter.snapshot(files(*roots, dir), ORDERED, ABSOLUTE)
+        def expected = snapshotter.snapshot(files(*roots, dir), ORDERED, ABSOLUTE)
+
+        then:
+        snapshot.elements == expected.elements
+        snapshot.snapshots == expected.snapshots
+        snapshot.elements.size() == 250 + 1 + 3 + 250
+
+        cleanup:
+        concurrentSnapshotter.stop()
+    }
+
     def getElementsReturnsAllFilesRegardlessOfWhetherTheyExistedOrNot() {
         given:
         TestFile file = tmpDir.createFile('file1')
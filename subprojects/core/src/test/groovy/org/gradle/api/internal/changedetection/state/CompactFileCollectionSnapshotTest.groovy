@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import com.google.common.base.Charsets
+import com.google.common.hash.HashCode
+import com.google.common.hash.Hashing
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.serialize.SerializerSpec
+
+import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.ORDERED
+import static org.gradle.api.internal.changedetection.state.TaskFilePropertyCompareStrategy.UNORDERED
+
+class CompactFileCollectionSnapshotTest extends SerializerSpec {
+    def stringInterner = new StringInterner()
+    def serializer = new CompactFileCollectionSnapshot.SerializerImpl(stringInterner)
+    def hash = Hashing.md5().hashString("foo", Charsets.UTF_8)
+
+    def "compact snapshot has the same entries as the original snapshot"() {
+        def original = new DefaultFileCollectionSnapshot([
+            "/root/dir": new DefaultNormalizedFileSnapshot("dir", DirSnapshot.getInstance()),
+            "/root/dir/a/file.txt": new IndexedNormalizedFileSnapshot("/root/dir/a/file.txt", 10, new FileHashSnapshot(hash)),
+            "/root/dir/a/missing.txt": new NonNormalizedFileSnapshot("/root/dir/a/missing.txt", MissingFileSnapshot.getInstance()),
+            "/root/dir/b/other.txt": new DefaultNormalizedFileSnapshot("b/other.txt", new FileHashSnapshot(hash)),
+            "/root/dir/ignored.txt": new IgnoredPathFileSnapshot(new FileHashSnapshot(hash)),
+            "/": new DefaultNormalizedFileSnapshot("", DirSnapshot.getInstance())
+        ], ORDERED, true)
+
+        when:
+        def compact = CompactFileCollectionSnapshot.of(original, stringInterner)
+
+        then:
+        compact instanceof CompactFileCollectionSnapshot
+        compact.snapshots == original.snapshots
+        compact.snapshots.keySet() as List == original.snapshots.keySet() as List
+        compact.snapshots.values()*.normalizedPath == original.snapshots.values()*.normalizedPath
+        compact.elements == original.elements
+        compact.files == original.files
+        !compact.empty
+        !compact.iterateContentChangesSince(original, "test").hasNext()
+        !original.iterateContentChangesSince(compact, "test").hasNext()
+    }
+
+    def "shares path segments between entries"() {
+        def original = new DefaultFileCollectionSnapshot([
+            "/root/dir/file1.txt": new NonNormalizedFileSnapshot("/root/dir/file1.txt", new FileHashSnapshot(hash)),
+            "/root/dir/file2.txt": new NonNormalizedFileSnapshot("/root/dir/file2.txt", new FileHashSnapshot(hash))
+        ], UNORDERED, true)
+
+        when:
+        def compact = CompactFileCollectionSnapshot.of(original, stringInterner)
+
+        then:
+        compact.segments as List == ["/", "root/", "dir/", "file1.txt", "file2.txt"]
+        compact.parents as List == [-1, 0, 1, 2, 2]
+    }
+
+    def "does not retain the entries of the snapshot"() {
+        def original = new DefaultFileCollectionSnapshot([
+            "/root/dir/file1.txt": new NonNormalizedFileSnapshot("/root/dir/file1.txt", new FileHashSnapshot(hash))
+        ], UNORDERED, true)
+
+        when:
+        def compact = CompactFileCollectionSnapshot.of(original, stringInterner)
+
+        then:
+        !compact.snapshots.is(compact.snapshots)
+        compact.snapshots == compact.snapshots
+        compact.elements == [new File("/root/dir/file1.txt")]
+        compact.files == [new File("/root/dir/file1.txt")]
+    }
+
+    def "keeps snapshot that cannot be represented in compact form"() {
+        def original = new DefaultFileCollectionSnapshot([
+            "/root/file.txt": new NonNormalizedFileSnapshot("/root/file.txt", new FileHashSnapshot(HashCode.fromInt(1)))
+        ], UNORDERED, true)
+
+        expect:
+        CompactFileCollectionSnapshot.of(original, stringInterner).is(original)
+    }
+
+    def "converts empty snapshot"() {
+        expect:
+        CompactFileCollectionSnapshot.of(FileCollectionSnapshot.EMPTY, stringInterner).empty
+    }
+
+    def "reads and writes the snapshot"() {
+        def original = new DefaultFileCollectionSnapshot([
+            "/3": new DefaultNormalizedFileSnapshot("3", new FileHashSnapshot(hash)),
+            "/2": new IndexedNormalizedFileSnapshot("/2", 1, MissingFileSnapshot.getInstance()),
+            "/1": new NonNormalizedFileSnapshot("/1", DirSnapshot.getInstance()),
+            "/0": new IgnoredPathFileSnapshot(DirSnapshot.getInstance())
+        ], ORDERED, false)
+
+        when:
+        CompactFileCollectionSnapshot out = serialize(CompactFileCollectionSnapshot.of(original, stringInterner), serializer)
+
+        then:
+        out.snapshots == original.snapshots
+        out.snapshots.keySet() as List == ['/3', '/2', '/1', '/0']
+        out.snapshots['/3'].snapshot.hash == hash
+        out.compareStrategy == ORDERED
+        !out.pathAbsolute
+    }
+}
@@ -47,7 +47,7 @@ class DefaultFileCollectionSnapshotSerializerTest extends SerializerSpec {
         out.snapshots['/3'].snapshot instanceof FileHashSnapshot
         out.snapshots['/3'].snapshot.hash == hash
         out.compareStrategy == UNORDERED
-        out.pathIsAbsolute
+        out.pathAbsolute
     }
 
     def "should retain order in serialization"() {
@@ -157,6 +157,15 @@ class InputPropertiesSerializerTest extends Specification {
         original == written
     }
 
+    def "serializes bean properties"() {
+        def original = [a: new BeanValueSnapshot("Bean", HashCode.fromInt(123), ["name", "values"] as String[], [string("123"), list(integer(1))] as ValueSnapshot[]),
+                        b: new BeanValueSnapshot("Bean", null, [] as String[], [] as ValueSnapshot[])]
+        write(original)
+
+        expect:
+        original == written
+    }
+
     private ArrayValueSnapshot array(ValueSnapshot... elements) {
         return new ArrayValueSnapshot(elements)
     }
@@ -171,17 +171,53 @@ class ValueSnapshotterTest extends Specification {
         snapshotter.snapshot(new TestFile("abc")) != snapshot
     }
 
-    def "creates snapshot for serializable type"() {
+    def "creates structural snapshot for serializable bean type"() {
         def value = new Bean()
 
         expect:
         def snapshot = snapshotter.snapshot(value)
-        snapshot instanceof SerializedValueSnapshot
+        snapshot instanceof BeanValueSnapshot
         snapshot == snapshotter.snapshot(value)
         snapshot == snapshotter.snapshot(new Bean())
         snapshot != snapshotter.snapshot(new Bean(prop: "value2"))
     }
 
+    def "creates structural snapshot for nested serializable bean types"() {
+        def value = new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")])
+
+        expect:
+        def snapshot = snapshotter.snapshot(value)
+        snapshot instanceof BeanValueSnapshot
+        snapshot == snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")]))
+        snapshot == snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")], cached: "ignored"))
+        snapshot != snapshotter.snapshot(new NestedBean(name: "a", count: 2, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")]))
+        snapshot != snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 2.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")]))
+        snapshot != snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'y' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value")]))
+        snapshot != snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value2"), beans: [new Bean(prop: "value")]))
+        snapshot != snapshotter.snapshot(new NestedBean(name: "a", count: 1, ratio: 1.5d, flag: 'x' as char, bean: new Bean(prop: "value"), beans: [new Bean(prop: "value2")]))
+    }
+
+    def "creates snapshot for bean with back references using serialization"() {
+        def value = new NestedBean(name: "a")
+        value.beans = [value]
+
+        expect:
+        def snapshot = snapshotter.snapshot(value)
+        snapshot instanceof SerializedValueSnapshot
+        snapshot == snapshotter.snapshot(value)
+    }
+
+    def "creates snapshot for serializable type with custom serialization"() {
+        def value = new CustomSerializationBean(prop: "value")
+
+        expect:
+        def snapshot = snapshotter.snapshot(value)
+        snapshot instanceof SerializedValueSnapshot
+        snapshot == snapshotter.snapshot(value)
+        snapshot == snapshotter.snapshot(new CustomSerializationBean(prop: "value"))
+        snapshot != snapshotter.snapshot(new CustomSerializationBean(prop: "value2"))
+    }
+
     def "creates snapshot for string from candidate"() {
         expect:
         def snapshot = snapshotter.snapshot("abc")
@@ -396,6 +432,25 @@ class ValueSnapshotterTest extends Specification {
         snapshotter.snapshot(map3, snapshot4) == snapshotter.snapshot(map3)
     }
 
+    def "creates snapshot for nested serializable bean type from candidate"() {
+        expect:
+        def snapshot = snapshotter.snapshot(new NestedBean(name: "a", bean: new Bean(prop: "value")))
+        snapshotter.snapshot(new NestedBean(name: "a", bean: new Bean(prop: "value")), snapshot).is(snapshot)
+
+        snapshotter.snapshot(new NestedBean(name: "a", bean: new Bean()), snapshot) != snapshot
+        snapshotter.snapshot(new NestedBean(name: "a", bean: new Bean()), snapshot) == snapshotter.snapshot(new NestedBean(name: "a", bean: new Bean()))
+        snapshotter.snapshot(new Bean(prop: "value"), snapshot) != snapshot
+    }
+
+    def "creates snapshot for custom serialization type from candidate"() {
+        expect:
+        def snapshot = snapshotter.snapshot(new CustomSerializationBean(prop: "value"))
+        snapshotter.snapshot(new CustomSerializationBean(prop: "value"), snapshot).is(snapshot)
+
+        snapshotter.snapshot(new CustomSerializationBean(), snapshot) != snapshot
+        snapshotter.snapshot(new CustomSerializationBean(), snapshot) == snapshotter.snapshot(new CustomSerializationBean())
+    }
+
     def "creates snapshot for serializable type from candidate"() {
         expect:
         def snapshot = snapshotter.snapshot(new Bean(prop: "value"))
@@ -422,4 +477,32 @@ class ValueSnapshotterTest extends Specification {
     static class Bean implements Serializable {
         String prop
     }
+
+    static class NestedBean implements Serializable {
+        String name
+        int count
+        double ratio
+        char flag
+        Bean bean
+        List<Object> beans
+        transient String cached
+    }
+
+    static class CustomSerializationBean implements Serializable {
+        String prop
+
+        private void writeObject(ObjectOutputStream outputStream) {
+            outputStream.defaultWriteObject()
+        }
+
+        @Override
+        boolean equals(Object obj) {
+            return obj instanceof CustomSerializationBean && obj.prop == prop
+        }
+
+        @Override
+        int hashCode() {
+            return prop == null ? 0 : prop.hashCode()
+        }
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.collections
+
+import org.gradle.api.file.FileVisitDetails
+import org.gradle.api.file.FileVisitor
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.Factory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Unroll
+
+import java.util.concurrent.ForkJoinPool
+
+@UsesNativeServices
+class ParallelDirectoryWalkerTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def pool = new ForkJoinPool(4)
+
+    def cleanup() {
+        pool.shutdown()
+    }
+
+    @Unroll
+    def "visits files and directories in the same order as the reproducible walker - postfix: #postfix"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateFilesAndSubDirectories(rootDir, 4, 3, 4, 1)
+        def patterns = new PatternSet()
+        patterns.exclude("**/dir1*/**")
+
+        when:
+        def visitedInParallel = walk(rootDir, patterns, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool), postfix)
+        def visitedReproducibly = walk(rootDir, patterns, new ReproducibleDirectoryWalker(TestFiles.fileSystem()), postfix)
+
+        then:
+        visitedInParallel.size() > 100
+        visitedInParallel*.relativePath*.pathString == visitedReproducibly*.relativePath*.pathString
+        visitedInParallel*.directory == visitedReproducibly*.directory
+        visitedInParallel*.lastModified == visitedReproducibly*.lastModified
+        visitedInParallel.findAll { !it.directory }*.size == visitedReproducibly.findAll { !it.directory }*.size
+
+        where:
+        postfix << [false, true]
+    }
+
+    def "does not walk directories whose contents cannot be included"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        rootDir.createFile("a/b/c/d.txt")
+        rootDir.createFile("a/e.txt")
+        def patterns = new PatternSet()
+        patterns.include("a/b", "a/*.txt")
+
+        expect:
+        walk(rootDir, patterns, new ParallelDirectoryWalker(TestFiles.fileSystem(), pool), false)*.relativePath*.pathString == ["a", "a/e.txt", "a/b"]
+    }
+
+    def "stops walking when the visitor requests it"() {
+        given:
+        def rootDir = tmpDir.createDir("root")
+        generateFilesAndSubDirectories(rootDir, 4, 3, 3, 1)
+        def walker = new ParallelDirectoryWalker(TestFiles.fileSystem(), pool)
+        def fileTree = new DirectoryFileTree(rootDir, new PatternSet(), { walker } as Factory, TestFiles.fileSystem(), false)
+        def visited = []
+        def visitClosure = { FileVisitDetails details ->
+            visited << details.relativePath.pathString
+            if (visited.size() == 10) {
+                details.stopVisiting()
+            }
+        }
+
+        when:
+        fileTree.visit([visitFile: visitClosure, visitDir: visitClosure] as FileVisitor)
+
+        then:
+        visited.size() == 10
+    }
+
+    private static List<FileVisitDetails> walk(TestFile rootDir, PatternSet patterns, DirectoryWalker walker, boolean postfix) {
+        def fileTree = new DirectoryFileTree(rootDir, patterns, { walker } as Factory, TestFiles.fileSystem(), postfix)
+        def visited = []
+        def visitClosure = { visited << it }
+        fileTree.visit([visitFile: visitClosure, visitDir: visitClosure] as FileVisitor)
+        return visited
+    }
+
+    private void generateFilesAndSubDirectories(TestFile parentDir, int fileCount, int dirCount, int maxDepth, int currentDepth) {
+        for (int i = 0; i < fileCount; i++) {
+            parentDir.createFile("file" + i) << ("x" * i)
+        }
+        if (currentDepth < maxDepth) {
+            for (int i = 0; i < dirCount; i++) {
+                generateFilesAndSubDirectories(parentDir.createDir("dir" + currentDepth + i), fileCount, dirCount, maxDepth, currentDepth + 1)
+            }
+        }
+    }
+}
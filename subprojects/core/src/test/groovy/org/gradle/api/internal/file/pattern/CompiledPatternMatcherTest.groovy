@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.file.pattern
+
+import org.apache.tools.ant.DirectoryScanner
+import org.gradle.api.file.RelativePath
+import org.gradle.api.specs.Specs
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class CompiledPatternMatcherTest extends Specification {
+    static final List<String> PATTERNS = [
+        "", "a", "a/b", "a/b/", "a\\b\\c", "a/*", "a/**", "**", "**/", "**/**/c", "**/b/**", "a/**/c", "**/*.java", "a/?/c",
+        "A/B", "*b*", "a*/b*", "a/**/**/b/*", "**/.git/**", "x/**/y/**/z"
+    ] + (DirectoryScanner.defaultExcludes as List)
+
+    static final List<String> PATHS = [
+        "", "a", "b", "A", "a/b", "a/B", "a/c", "a/b/c", "A/b/C", "a/x/c", "a/xy/c", "b/a/b", "a/b/c/d", "a/b/b/b", "c/d.java",
+        "a/b/c.java", "x/y/z", "x/1/y/2/z", "x/y", ".git", "a/.git/config", "c/CVS", "c/d~", "abc/bcd", "a/b/c/b/x"
+    ]
+
+    @Unroll
+    def "matches the same paths as the union of matchers for each pattern with partialMatchDirs #partialMatchDirs and caseSensitive #caseSensitive"() {
+        expect:
+        patternSets().each { patterns ->
+            def matcher = new CompiledPatternMatcher(partialMatchDirs, caseSensitive, patterns)
+            def union = Specs.union(patterns.collect { PatternMatcherFactory.getPatternMatcher(partialMatchDirs, caseSensitive, it) })
+            PATHS.each { path ->
+                [true, false].each { isFile ->
+                    def relativePath = relativePath(isFile, path)
+                    assert matcher.isSatisfiedBy(relativePath) == union.isSatisfiedBy(relativePath), "patterns: $patterns, path: $relativePath"
+                }
+            }
+        }
+
+        where:
+        partialMatchDirs | caseSensitive
+        true             | true
+        true             | false
+        false            | true
+        false            | false
+    }
+
+    def "determines whether descendants of a directory may match"() {
+        def matcher = new CompiledPatternMatcher(true, true, ["a/b", "c/**/*.java", "d/*"])
+
+        expect:
+        matcher.mayMatchDescendants(dir(""))
+        matcher.mayMatchDescendants(dir("a"))
+        !matcher.mayMatchDescendants(dir("a/b"))
+        !matcher.mayMatchDescendants(dir("a/c"))
+        matcher.mayMatchDescendants(dir("c"))
+        matcher.mayMatchDescendants(dir("c/x/y"))
+        matcher.mayMatchDescendants(dir("d"))
+        !matcher.mayMatchDescendants(dir("d/e"))
+        !matcher.mayMatchDescendants(dir("e"))
+    }
+
+    def "descendants of a directory that may match satisfy the matcher"() {
+        expect:
+        patternSets().each { patterns ->
+            def matcher = new CompiledPatternMatcher(true, true, patterns)
+            PATHS.each { path ->
+                def directory = dir(path)
+                if (!matcher.mayMatchDescendants(directory)) {
+                    PATHS.findAll { !it.empty && (path.empty || it.startsWith(path + "/")) }.each { descendant ->
+                        assert !matcher.isSatisfiedBy(relativePath(true, descendant)), "patterns: $patterns, path: $descendant"
+                        assert !matcher.isSatisfiedBy(relativePath(false, descendant)), "patterns: $patterns, path: $descendant"
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<List<String>> patternSets() {
+        List<List<String>> patternSets = PATTERNS.collect { [it] }
+        patternSets << PATTERNS
+        patternSets << PATTERNS.findAll { !it.empty }
+        patternSets << ["a/b", "a/b/c", "**/c", "a/*/c"]
+        return patternSets
+    }
+
+    private static RelativePath dir(String path) {
+        return relativePath(false, path)
+    }
+
+    private static RelativePath relativePath(boolean isFile, String path) {
+        return new RelativePath(isFile, path.empty ? new String[0] : path.split("/"))
+    }
+}
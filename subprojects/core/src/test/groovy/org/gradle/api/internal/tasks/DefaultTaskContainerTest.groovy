@@ -356,6 +356,141 @@ public class DefaultTaskContainerTest extends Specification {
         container.names == ['task1', 'task2'] as SortedSet
     }
 
+    void "deferred task is created and configured when located by name"() {
+        def action = Mock(Action)
+        def task = task("task", CustomTask)
+
+        when:
+        container.createLater("task", CustomTask, action)
+
+        then:
+        0 * taskFactory.create(_, _)
+        0 * action.execute(_)
+        container.names == ['task'] as SortedSet
+
+        when:
+        def result = container.getByName("task")
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        1 * action.execute(task)
+        result == task
+
+        when:
+        container.getByName("task")
+
+        then:
+        0 * taskFactory.create(_, _)
+        0 * action.execute(_)
+    }
+
+    void "deferred task is created when the tasks of the container are queried"() {
+        def task = task("task", CustomTask)
+        def other = addTask("other")
+
+        given:
+        container.createLater("task", CustomTask, Mock(Action))
+
+        when:
+        def tasks = container.toList()
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        tasks as Set == [task, other] as Set
+    }
+
+    void "actions for all tasks are applied to a deferred task when it is created"() {
+        def action = Mock(Action)
+        def task = task("task", CustomTask)
+        def other = addTask("other")
+
+        given:
+        container.createLater("task", CustomTask, Mock(Action))
+
+        when:
+        container.all(action)
+
+        then:
+        1 * action.execute(other)
+        0 * taskFactory.create(_, _)
+        0 * action.execute(_)
+
+        when:
+        container.getByName("task")
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        1 * action.execute(task)
+    }
+
+    void "only deferred tasks of the requested type are created when a typed collection is queried"() {
+        def action = Mock(Action)
+        def custom = task("custom", CustomTask)
+        def other = task("other", OtherTask)
+
+        given:
+        container.createLater("custom", CustomTask, Mock(Action))
+        container.createLater("other", OtherTask, Mock(Action))
+
+        when:
+        container.withType(CustomTask, action)
+
+        then:
+        1 * taskFactory.create("custom", CustomTask) >> custom
+        1 * action.execute(custom)
+        0 * taskFactory.create(_, _)
+        0 * action.execute(_)
+
+        when:
+        def tasks = container.withType(OtherTask).matching { true }.toList()
+
+        then:
+        1 * taskFactory.create("other", OtherTask) >> other
+        0 * taskFactory.create(_, _)
+        tasks == [other]
+    }
+
+    void "cannot define deferred task with the name of an existing task"() {
+        given:
+        addTask("task")
+
+        when:
+        container.createLater("task", CustomTask, Mock(Action))
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot add task 'task' as a task with that name already exists."
+    }
+
+    void "cannot create task with the name of a deferred task"() {
+        given:
+        container.createLater("task", CustomTask, Mock(Action))
+
+        when:
+        addTask("task")
+
+        then:
+        InvalidUserDataException e = thrown()
+        e.message == "Cannot add Mock for type 'TaskInternal' named '[task1]' as a task with that name already exists."
+    }
+
+    void "deferred task replaces placeholder action"() {
+        def action = Mock(Action)
+        def task = task("task", CustomTask)
+
+        given:
+        def placeholderAction = addPlaceholderTask("task")
+        container.createLater("task", CustomTask, action)
+
+        when:
+        container.getByName("task")
+
+        then:
+        1 * taskFactory.create("task", CustomTask) >> task
+        1 * action.execute(task)
+        0 * placeholderAction.execute(_)
+    }
+
     void "maybeCreate creates new task"() {
         given:
         def options = singletonMap(Task.TASK_NAME, "task")
@@ -446,4 +581,6 @@ public class DefaultTaskContainerTest extends Specification {
     }
 
     interface CustomTask extends TaskInternal {}
+
+    interface OtherTask extends TaskInternal {}
 }
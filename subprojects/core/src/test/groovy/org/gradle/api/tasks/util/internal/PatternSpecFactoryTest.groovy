@@ -18,6 +18,8 @@ package org.gradle.api.tasks.util.internal
 
 import org.gradle.api.file.FileTreeElement
 import org.gradle.api.file.RelativePath
+import org.gradle.api.internal.file.DescendantAwareSpec
+import org.gradle.api.specs.Spec
 import org.gradle.api.tasks.util.PatternSet
 import spock.lang.Specification
 
@@ -71,6 +73,34 @@ class PatternSpecFactoryTest extends Specification {
         !spec.isSatisfiedBy(element("/.git/refs"))
     }
 
+    def "spec for include patterns tells whether descendants of a directory may be included"() {
+        def source = new PatternSet()
+        source.include("a/b", "c/**/*.java")
+
+        expect:
+        def spec = factory.createSpec(source)
+        spec instanceof DescendantAwareSpec
+        spec.mayMatchDescendants(dir("a"))
+        spec.mayMatchDescendants(dir("c/d"))
+        !spec.mayMatchDescendants(dir("a/b"))
+        !spec.mayMatchDescendants(dir("d"))
+    }
+
+    def "spec for include specs cannot tell whether descendants of a directory may be included"() {
+        def source = new PatternSet()
+        source.include("a/b")
+        source.include({ true } as Spec)
+
+        expect:
+        !(factory.createSpec(source) instanceof DescendantAwareSpec)
+    }
+
+    FileTreeElement dir(String path) {
+        return Stub(FileTreeElement) {
+            getRelativePath() >> new RelativePath(false, path.split("/"))
+        }
+    }
+
     FileTreeElement element(String path) {
         return Stub(FileTreeElement) {
             getRelativePath() >> new RelativePath(true, path.split("/"))
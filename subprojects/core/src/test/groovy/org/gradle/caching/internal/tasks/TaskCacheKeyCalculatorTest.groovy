@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks
+
+import com.google.common.collect.ImmutableSortedMap
+import com.google.common.collect.ImmutableSortedSet
+import com.google.common.hash.HashCode
+import org.gradle.api.internal.changedetection.state.FileCollectionSnapshot
+import org.gradle.api.internal.changedetection.state.StringValueSnapshot
+import org.gradle.api.internal.changedetection.state.TaskExecution
+import org.gradle.caching.internal.BuildCacheHasher
+import spock.lang.Specification
+
+class TaskCacheKeyCalculatorTest extends Specification {
+    def calculator = new TaskCacheKeyCalculator()
+    def classLoaderHash = HashCode.fromInt(123)
+    def previousHash = HashCode.fromInt(456)
+
+    def "hashes all inputs when there is no previous execution"() {
+        def files = Mock(FileCollectionSnapshot)
+        def execution = execution([prop: new StringValueSnapshot("value")], [files: files])
+
+        when:
+        def key = calculator.calculate(execution, null)
+
+        then:
+        1 * files.appendToHasher(_ as BuildCacheHasher) >> { BuildCacheHasher hasher -> hasher.putString("content") }
+        key.hashCode != null
+        key.inputs.inputHashes.keySet() == ["files", "prop"] as Set
+    }
+
+    def "reuses the hashes of inputs that did not change since the previous execution"() {
+        def files = Mock(FileCollectionSnapshot)
+        def previousFiles = Mock(FileCollectionSnapshot)
+        def previous = execution([prop: new StringValueSnapshot("value")], [files: previousFiles])
+        previous.inputHashes = ImmutableSortedMap.of("files", previousHash, "prop", previousHash)
+        def execution = execution([prop: new StringValueSnapshot("value")], [files: files])
+
+        when:
+        def key = calculator.calculate(execution, previous)
+
+        then:
+        1 * files.isUnchangedSince(previousFiles) >> true
+        0 * files.appendToHasher(_)
+        key.inputs.inputHashes == [files: previousHash, prop: previousHash]
+    }
+
+    def "recalculates the hashes of inputs that changed since the previous execution"() {
+        def files = Mock(FileCollectionSnapshot)
+        def previousFiles = Mock(FileCollectionSnapshot)
+        def previous = execution([prop: new StringValueSnapshot("old")], [files: previousFiles])
+        previous.inputHashes = ImmutableSortedMap.of("files", previousHash, "prop", previousHash)
+        def execution = execution([prop: new StringValueSnapshot("new")], [files: files])
+
+        when:
+        def key = calculator.calculate(execution, previous)
+        def expected = calculator.calculate(execution, null)
+
+        then:
+        1 * files.isUnchangedSince(previousFiles) >> false
+        2 * files.appendToHasher(_ as BuildCacheHasher) >> { BuildCacheHasher hasher -> hasher.putString("content") }
+        key.inputs.inputHashes["files"] != previousHash
+        key.inputs.inputHashes["prop"] != previousHash
+        key.inputs.inputHashes == expected.inputs.inputHashes
+        key.hashCode == expected.hashCode
+    }
+
+    def "recalculates the hashes when the previous execution did not record any"() {
+        def files = Mock(FileCollectionSnapshot)
+        def previous = execution([prop: new StringValueSnapshot("value")], [files: Mock(FileCollectionSnapshot)])
+        def execution = execution([prop: new StringValueSnapshot("value")], [files: files])
+
+        when:
+        def key = calculator.calculate(execution, previous)
+
+        then:
+        0 * files.isUnchangedSince(_)
+        1 * files.appendToHasher(_ as BuildCacheHasher)
+        key.inputs.inputHashes["prop"] != previousHash
+    }
+
+    private TaskExecution execution(Map<String, StringValueSnapshot> inputProperties, Map<String, FileCollectionSnapshot> inputFiles) {
+        def execution = new TestTaskExecution(inputFilesSnapshot: ImmutableSortedMap.copyOf(inputFiles))
+        execution.taskClass = "TaskType"
+        execution.taskClassLoaderHash = classLoaderHash
+        execution.taskActionsClassLoaderHashes = [classLoaderHash]
+        execution.inputProperties = ImmutableSortedMap.copyOf(inputProperties)
+        execution.outputPropertyNamesForCacheKey = ImmutableSortedSet.of("out")
+        return execution
+    }
+
+    private static class TestTaskExecution extends TaskExecution {
+        ImmutableSortedMap<String, FileCollectionSnapshot> outputFilesSnapshot
+        ImmutableSortedMap<String, FileCollectionSnapshot> inputFilesSnapshot
+        FileCollectionSnapshot discoveredInputFilesSnapshot
+    }
+}
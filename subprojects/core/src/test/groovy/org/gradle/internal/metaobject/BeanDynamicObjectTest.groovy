@@ -699,6 +699,45 @@ class BeanDynamicObjectTest extends Specification {
         e.message == "Could not find method unknown() for arguments [] on object of type ${BeanWithMixInMethods.name}."
     }
 
+    def "reuses resolved methods and properties for objects of the same type"() {
+        def dynamicObject1 = new BeanDynamicObject(new Bean(prop: "one"))
+        def dynamicObject2 = new BeanDynamicObject(new Bean(prop: "two"))
+
+        expect:
+        dynamicObject1.getProperty("prop") == "one"
+        dynamicObject2.getProperty("prop") == "two"
+        !dynamicObject1.hasProperty("unknown")
+        !dynamicObject2.hasProperty("unknown")
+        dynamicObject1.invokeMethod("overlap", [Integer] as Object[]) == Class
+        dynamicObject2.invokeMethod("overlap", [0] as Object[]) == Number
+        dynamicObject1.invokeMethod("overlap", [0] as Object[]) == Number
+        dynamicObject2.invokeMethod("overlap", [Integer] as Object[]) == Class
+        !dynamicObject1.hasMethod("overlap", ["a"] as Object[])
+        !dynamicObject2.hasMethod("overlap", ["a"] as Object[])
+        dynamicObject1.hasMethod("methodWithValue", [null] as Object[])
+        dynamicObject2.hasMethod("methodWithValue", [null] as Object[])
+    }
+
+    def "does not cache methods and properties of a meta-class that can be modified"() {
+        def bean = new Bean()
+        def metaClass = new ExpandoMetaClass(Bean, false, true)
+        metaClass.initialize()
+        bean.metaClass = metaClass
+        def dynamicObject = new BeanDynamicObject(bean)
+
+        expect:
+        !dynamicObject.hasMethod("added", [] as Object[])
+        !dynamicObject.hasProperty("addedProp")
+
+        when:
+        metaClass.added = { -> "added" }
+        metaClass.getAddedProp = { -> "added prop" }
+
+        then:
+        dynamicObject.invokeMethod("added", [] as Object[]) == "added"
+        dynamicObject.getProperty("addedProp") == "added prop"
+    }
+
     def "includes toString() of bean in missing method error message when has custom implementation"() {
         def bean = new Bean() {
             @Override
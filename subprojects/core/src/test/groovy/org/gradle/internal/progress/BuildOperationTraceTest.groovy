@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.progress
+
+import groovy.json.JsonSlurper
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class BuildOperationTraceTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def buildOperationService = Mock(BuildOperationService)
+
+    def "writes log and chrome trace for operations"() {
+        def parent = new BuildOperationInternal(1, null, "parent", "Parent \"operation\"", null)
+        def child = new BuildOperationInternal(2, 1, "child", "Child operation", null)
+
+        when:
+        def trace = new BuildOperationTrace(tmpDir.file("build/trace"), buildOperationService)
+
+        then:
+        1 * buildOperationService.addListener(_ as BuildOperationTrace)
+
+        when:
+        trace.started(parent, new OperationStartEvent(100))
+        trace.started(child, new OperationStartEvent(110))
+        new byte[1024]
+        trace.finished(child, new OperationResult(110, 120, null))
+        trace.finished(parent, new OperationResult(100, 130, new RuntimeException("broken")))
+        trace.stop()
+
+        then:
+        1 * buildOperationService.removeListener(trace)
+
+        and:
+        def log = tmpDir.file("build/trace-log.txt").readLines().collect { new JsonSlurper().parseText(it) }
+        log*.event == ["start", "start", "finish", "finish"]
+        log*.id == ["1", "2", "2", "1"]
+        log*.parentId == [null, "1", "1", null]
+        log[0].displayName == 'Parent "operation"'
+        log[0].time == 100
+        log[0].thread == Thread.currentThread().name
+        log[2].startTime == 110
+        log[2].endTime == 120
+        log[2].failure == null
+        log[3].failure == "java.lang.RuntimeException: broken"
+
+        and:
+        def events = new JsonSlurper().parse(tmpDir.file("build/trace.json"))
+        events.findAll { it.ph == "M" }*.args.name == [Thread.currentThread().name]
+        def operations = events.findAll { it.ph == "X" }
+        operations*.name == ["Child operation", 'Parent "operation"']
+        operations*.tid == [Thread.currentThread().id] * 2
+        operations*.args.parentId == ["1", null]
+        operations[1].ts <= operations[0].ts
+        operations[1].dur >= operations[0].dur
+    }
+
+    def "escapes strings"() {
+        def builder = new StringBuilder()
+
+        when:
+        BuildOperationTrace.appendString(builder, "a\"b\\c\nd\u0001")
+
+        then:
+        builder.toString() == '"a\\"b\\\\c\\nd\\u0001"'
+    }
+}
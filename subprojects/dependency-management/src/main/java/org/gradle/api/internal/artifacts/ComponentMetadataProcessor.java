@@ -23,7 +23,17 @@ public interface ComponentMetadataProcessor {
         public ModuleComponentResolveMetadata processMetadata(ModuleComponentResolveMetadata metadata) {
             return metadata;
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     ModuleComponentResolveMetadata processMetadata(ModuleComponentResolveMetadata metadata);
+
+    /**
+     * Returns true when rules have been registered that may modify the metadata of a component.
+     */
+    boolean hasRules();
 }
@@ -24,7 +24,17 @@ public interface ComponentModuleMetadataProcessor {
         public ModuleReplacementsData getModuleReplacements() {
             return ModuleReplacementsData.NO_OP;
         }
+
+        @Override
+        public boolean hasRules() {
+            return false;
+        }
     };
 
     ModuleReplacementsData getModuleReplacements();
+
+    /**
+     * Returns true when any module replacements have been declared.
+     */
+    boolean hasRules();
 }
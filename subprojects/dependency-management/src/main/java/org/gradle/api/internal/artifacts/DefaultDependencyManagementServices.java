@@ -42,6 +42,7 @@ import org.gradle.api.internal.artifacts.ivyservice.DefaultConfigurationResolver
 import org.gradle.api.internal.artifacts.ivyservice.ErrorHandlingConfigurationResolver;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextManager;
 import org.gradle.api.internal.artifacts.ivyservice.IvyContextualArtifactPublisher;
+import org.gradle.api.internal.artifacts.ivyservice.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.ShortCircuitEmptyConfigurationResolver;
 import org.gradle.api.internal.artifacts.ivyservice.dependencysubstitution.DependencySubstitutionRules;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ResolveIvyFactory;
@@ -52,6 +53,7 @@ import org.gradle.api.internal.artifacts.ivyservice.publisher.DefaultIvyDependen
 import org.gradle.api.internal.artifacts.ivyservice.publisher.IvyBackedArtifactPublisher;
 import org.gradle.api.internal.artifacts.ivyservice.publisher.IvyXmlModuleDescriptorWriter;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.LocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.query.ArtifactResolutionQueryFactory;
@@ -224,7 +226,9 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                                        VariantTransformRegistry variantTransforms,
                                                        ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                                        ImmutableAttributesFactory attributesFactory,
-                                                       ModuleExclusions moduleExclusions) {
+                                                       ModuleExclusions moduleExclusions,
+                                                       ResolvedGraphCache graphCache,
+                                                       PersistentResolutionResultsCache resultsCache) {
             return new ErrorHandlingConfigurationResolver(
                     new ShortCircuitEmptyConfigurationResolver(
                         new DefaultConfigurationResolver(
@@ -242,7 +246,9 @@ public class DefaultDependencyManagementServices implements DependencyManagement
                                     attributesFactory)),
                             attributesFactory,
                             moduleIdentifierFactory,
-                            moduleExclusions),
+                            moduleExclusions,
+                            graphCache,
+                            resultsCache),
                         componentIdentifierFactory,
                         moduleIdentifierFactory));
         }
@@ -29,6 +29,15 @@ public class DefaultResolverResults implements ResolverResults {
     private ResolvedLocalComponentsResult resolvedLocalComponentsResult;
     private Object artifactResolveState;
     private VisitedArtifactSet visitedArtifacts;
+    private final boolean artifactResolutionRequested;
+
+    public DefaultResolverResults() {
+        this(true);
+    }
+
+    public DefaultResolverResults(boolean artifactResolutionRequested) {
+        this.artifactResolutionRequested = artifactResolutionRequested;
+    }
 
     @Override
     public boolean hasError() {
@@ -124,6 +133,11 @@ public class DefaultResolverResults implements ResolverResults {
         this.artifactResolveState = artifactResolveState;
     }
 
+    @Override
+    public boolean isArtifactResolutionRequested() {
+        return artifactResolutionRequested;
+    }
+
     @Override
     public Object getArtifactResolveState() {
         return artifactResolveState;
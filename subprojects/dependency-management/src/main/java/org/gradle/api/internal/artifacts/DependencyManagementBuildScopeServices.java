@@ -24,6 +24,7 @@ import org.gradle.api.internal.artifacts.component.DefaultComponentIdentifierFac
 import org.gradle.api.internal.artifacts.dsl.dependencies.DependencyFactory;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData;
 import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.ModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.dynamicversions.SingleFileBackedModuleVersionsCache;
 import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
@@ -54,6 +55,7 @@ import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectLocalCo
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.DefaultArtifactDependencyResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenFileLocations;
@@ -105,6 +107,10 @@ class DependencyManagementBuildScopeServices {
         return new InMemoryCachedRepositoryFactory();
     }
 
+    ResolvedGraphCache createResolvedGraphCache() {
+        return new ResolvedGraphCache();
+    }
+
     DependencyManagementServices createDependencyManagementServices(ServiceRegistry parent) {
         return new DefaultDependencyManagementServices(parent);
     }
@@ -284,6 +290,10 @@ class DependencyManagementBuildScopeServices {
         return new ResolutionResultsStoreFactory(temporaryFileProvider);
     }
 
+    PersistentResolutionResultsCache createPersistentResolutionResultsCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, ImmutableModuleIdentifierFactory moduleIdentifierFactory, StartParameter startParameter) {
+        return new PersistentResolutionResultsCache(cacheLockingManager, versionSelectorScheme, moduleIdentifierFactory, startParameter.isRefreshDependencies());
+    }
+
     ProjectPublicationRegistry createProjectPublicationRegistry() {
         return new DefaultProjectPublicationRegistry();
     }
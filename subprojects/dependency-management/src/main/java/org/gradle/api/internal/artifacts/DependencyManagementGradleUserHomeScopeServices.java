@@ -23,13 +23,14 @@ import org.gradle.api.internal.artifacts.transform.TransformedFileCache;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.CacheRepository;
 import org.gradle.cache.internal.CacheScopeMapping;
+import org.gradle.internal.event.ListenerManager;
 
 public class DependencyManagementGradleUserHomeScopeServices {
     DefaultArtifactCacheMetaData createArtifactCacheMetaData(CacheScopeMapping cacheScopeMapping) {
         return new DefaultArtifactCacheMetaData(cacheScopeMapping);
     }
 
-    TransformedFileCache createTransformedFileCache(ArtifactCacheMetaData artifactCacheMetaData, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory) {
-        return new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepository, cacheDecoratorFactory);
+    TransformedFileCache createTransformedFileCache(ArtifactCacheMetaData artifactCacheMetaData, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory, ListenerManager listenerManager) {
+        return new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepository, cacheDecoratorFactory, listenerManager);
     }
 }
@@ -61,6 +61,11 @@ public interface ResolverResults {
      */
     void retainState(Object artifactResolveState);
 
+    /**
+     * Returns true when the artifacts will be resolved using these results, in addition to the dependency graph.
+     */
+    boolean isArtifactResolutionRequested();
+
     /**
      * Returns the opaque state required to resolve the artifacts.
      */
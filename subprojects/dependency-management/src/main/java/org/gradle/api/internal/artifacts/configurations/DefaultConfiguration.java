@@ -466,7 +466,7 @@ public class DefaultConfiguration extends AbstractFileCollection implements Conf
 
                 ResolvableDependencies incoming = getIncoming();
                 performPreResolveActions(incoming);
-                cachedResolverResults = new DefaultResolverResults();
+                cachedResolverResults = new DefaultResolverResults(requestedState == ARTIFACTS_RESOLVED);
                 resolver.resolveGraph(DefaultConfiguration.this, cachedResolverResults);
                 dependenciesModified = false;
                 resolvedState = GRAPH_RESOLVED;
@@ -35,4 +35,8 @@ public class DefaultComponentModuleMetadataHandler implements ComponentModuleMet
     public ModuleReplacementsData getModuleReplacements() {
         return moduleMetadataContainer;
     }
+
+    public boolean hasRules() {
+        return moduleMetadataContainer.hasReplacements();
+    }
 }
@@ -17,8 +17,12 @@
 package org.gradle.api.internal.artifacts.ivyservice;
 
 import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.Dependency;
 import org.gradle.api.artifacts.ProjectDependency;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
 import org.gradle.api.artifacts.dsl.RepositoryHandler;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.artifacts.result.ResolvedArtifactResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.attributes.AttributesSchema;
 import org.gradle.api.internal.artifacts.ArtifactDependencyResolver;
@@ -28,9 +32,12 @@ import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
 import org.gradle.api.internal.artifacts.ResolverResults;
 import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
 import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ArtifactVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.BuildDependenciesOnlyVisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DefaultResolvedArtifactsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.DependencyArtifactsVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.SelectedArtifactSet;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactSet;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedArtifactsResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.VisitedFileDependencyResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
@@ -43,13 +50,16 @@ import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.Reso
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsBuilder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.TransientConfigurationResultsLoader;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResult;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.projectresult.ResolvedLocalComponentsResultGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.FileDependencyCollectingGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.PersistentResolutionResultsCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.ResolutionResultsStoreFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.store.StoreSet;
 import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
 import org.gradle.api.internal.artifacts.transform.ArtifactTransforms;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
 import org.gradle.api.internal.attributes.ImmutableAttributesFactory;
 import org.gradle.api.internal.cache.BinaryStore;
 import org.gradle.api.internal.cache.Store;
@@ -61,6 +71,8 @@ import org.gradle.internal.component.model.DependencyMetadata;
 import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.util.CollectionUtils;
 
+import java.io.File;
+import java.util.Collection;
 import java.util.List;
 
 public class DefaultConfigurationResolver implements ConfigurationResolver {
@@ -81,13 +93,15 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
     private final ModuleExclusions moduleExclusions;
     private final BuildOperationProcessor buildOperationProcessor;
+    private final ResolvedGraphCache graphCache;
+    private final PersistentResolutionResultsCache resultsCache;
 
     public DefaultConfigurationResolver(ArtifactDependencyResolver resolver, RepositoryHandler repositories,
                                         GlobalDependencyResolutionRules metadataHandler,
                                         ResolutionResultsStoreFactory storeFactory, boolean buildProjectDependencies,
                                         AttributesSchema attributesSchema, BuildOperationProcessor buildOperationProcessor, ArtifactTransforms artifactTransforms,
                                         ImmutableAttributesFactory attributesFactory, ImmutableModuleIdentifierFactory moduleIdentifierFactory,
-                                        ModuleExclusions moduleExclusions) {
+                                        ModuleExclusions moduleExclusions, ResolvedGraphCache graphCache, PersistentResolutionResultsCache resultsCache) {
         this.resolver = resolver;
         this.repositories = repositories;
         this.metadataHandler = metadataHandler;
@@ -99,6 +113,8 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         this.attributesFactory = attributesFactory;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         this.moduleExclusions = moduleExclusions;
+        this.graphCache = graphCache;
+        this.resultsCache = resultsCache;
     }
 
     @Override
@@ -111,9 +127,37 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
     }
 
     public void resolveGraph(ConfigurationInternal configuration, ResolverResults results) {
+        resolveGraph(configuration, results, true);
+    }
+
+    private void resolveGraph(ConfigurationInternal configuration, ResolverResults results, boolean usePersistentResult) {
         List<ResolutionAwareRepository> resolutionAwareRepositories = CollectionUtils.collect(repositories, Transformers.cast(ResolutionAwareRepository.class));
+        List<Object> graphKey = graphCache.keyFor(configuration, resolutionAwareRepositories, metadataHandler);
+        if (graphKey != null) {
+            ResolvedGraph graph = (ResolvedGraph) graphCache.get(graphKey);
+            if (graph != null) {
+                graph.attachTo(results);
+                return;
+            }
+        }
+
         StoreSet stores = storeFactory.createStoreSet();
 
+        String resultKey = null;
+        if (usePersistentResult && !results.isArtifactResolutionRequested()) {
+            // The persisted result does not include artifacts, so it is only used, and only recorded, when the artifacts are not required
+            resultKey = resultsCache.keyFor(configuration, resolutionAwareRepositories, metadataHandler);
+            if (resultKey != null) {
+                ResolutionResult resolutionResult = resultsCache.load(resultKey, stores);
+                if (resolutionResult != null) {
+                    // The graph has external dependencies only, so there are no local components or build dependencies
+                    results.graphResolved(resolutionResult, new ResolvedLocalComponentsResultGraphVisitor(), new UnresolvedArtifacts());
+                    results.retainState(null);
+                    return;
+                }
+            }
+        }
+
         BinaryStore oldModelStore = stores.nextBinaryStore();
         Store<TransientConfigurationResults> oldModelCache = stores.oldModelCache();
         TransientConfigurationResultsBuilder oldTransientModelBuilder = new TransientConfigurationResultsBuilder(oldModelStore, oldModelCache, moduleIdentifierFactory);
@@ -121,6 +165,11 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         ResolvedConfigurationDependencyGraphVisitor oldModelVisitor = new ResolvedConfigurationDependencyGraphVisitor(oldModelBuilder);
 
         BinaryStore newModelStore = stores.nextBinaryStore();
+        PersistentResolutionResultsCache.Recorder resultRecorder = null;
+        if (resultKey != null) {
+            resultRecorder = resultsCache.createRecorder(newModelStore);
+            newModelStore = resultRecorder;
+        }
         Store<ResolvedComponentResult> newModelCache = stores.newModelCache();
         StreamingResolutionResultBuilder newModelBuilder = new StreamingResolutionResultBuilder(newModelStore, newModelCache, moduleIdentifierFactory);
 
@@ -130,18 +179,34 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         FileDependencyCollectingGraphVisitor fileDependencyVisitor = new FileDependencyCollectingGraphVisitor(attributesFactory, buildOperationProcessor);
 
         DependencyGraphVisitor graphVisitor = new CompositeDependencyGraphVisitor(oldModelVisitor, newModelBuilder, localComponentsVisitor, fileDependencyVisitor);
+        if (resultRecorder != null) {
+            graphVisitor = new CompositeDependencyGraphVisitor(graphVisitor, resultRecorder);
+        }
         DependencyArtifactsVisitor artifactsVisitor = new CompositeDependencyArtifactsVisitor(oldModelVisitor, artifactsBuilder);
 
         resolver.resolve(configuration, resolutionAwareRepositories, metadataHandler, Specs.<DependencyMetadata>satisfyAll(), graphVisitor, artifactsVisitor, attributesSchema, moduleIdentifierFactory, moduleExclusions);
 
         VisitedArtifactsResults artifactsResults = artifactsBuilder.complete();
         VisitedFileDependencyResults fileDependencyResults = fileDependencyVisitor.complete();
-        results.graphResolved(newModelBuilder.complete(), localComponentsVisitor, new BuildDependenciesOnlyVisitedArtifactSet(artifactsResults, fileDependencyResults, artifactTransforms));
+        ResolvedGraphResults graphResults = oldModelBuilder.complete();
+        ResolvedGraph graph = new ResolvedGraph(newModelBuilder.complete(), localComponentsVisitor, new BuildDependenciesOnlyVisitedArtifactSet(artifactsResults, fileDependencyResults, artifactTransforms),
+            new ArtifactResolveState(graphResults, artifactsResults, fileDependencyResults, oldTransientModelBuilder));
+        graph.attachTo(results);
 
-        results.retainState(new ArtifactResolveState(oldModelBuilder.complete(), artifactsResults, fileDependencyResults, oldTransientModelBuilder));
+        if (graphKey != null && !graphResults.hasError()) {
+            // Failures are not shared, so that another configuration can attempt to resolve the graph again
+            graphCache.put(graphKey, graph);
+        }
+        if (resultRecorder != null && !graphResults.hasError()) {
+            resultsCache.store(resultKey, resultRecorder);
+        }
     }
 
     public void resolveArtifacts(ConfigurationInternal configuration, ResolverResults results) {
+        if (results.getArtifactResolveState() == null) {
+            // The resolution result was loaded from the persistent cache, which does not include artifacts
+            resolveGraph(configuration, results, false);
+        }
         ArtifactResolveState resolveState = (ArtifactResolveState) results.getArtifactResolveState();
         ResolvedGraphResults graphResults = resolveState.graphResults;
         VisitedArtifactsResults artifactResults = resolveState.artifactsResults;
@@ -153,6 +218,52 @@ public class DefaultConfigurationResolver implements ConfigurationResolver {
         results.artifactsResolved(new DefaultResolvedConfiguration(result, configuration.getAttributes()), result);
     }
 
+    private static class ResolvedGraph {
+        final ResolutionResult resolutionResult;
+        final ResolvedLocalComponentsResult localComponentsResult;
+        final VisitedArtifactSet visitedArtifacts;
+        final ArtifactResolveState artifactResolveState;
+
+        ResolvedGraph(ResolutionResult resolutionResult, ResolvedLocalComponentsResult localComponentsResult, VisitedArtifactSet visitedArtifacts, ArtifactResolveState artifactResolveState) {
+            this.resolutionResult = resolutionResult;
+            this.localComponentsResult = localComponentsResult;
+            this.visitedArtifacts = visitedArtifacts;
+            this.artifactResolveState = artifactResolveState;
+        }
+
+        void attachTo(ResolverResults results) {
+            results.graphResolved(resolutionResult, localComponentsResult, visitedArtifacts);
+            results.retainState(artifactResolveState);
+        }
+    }
+
+    private static class UnresolvedArtifacts implements VisitedArtifactSet, SelectedArtifactSet {
+        @Override
+        public SelectedArtifactSet select(Spec<? super Dependency> dependencySpec, AttributeContainerInternal requestedAttributes, Spec<? super ComponentIdentifier> componentSpec) {
+            return this;
+        }
+
+        @Override
+        public <T extends Collection<Object>> T collectBuildDependencies(T dest) {
+            return dest;
+        }
+
+        @Override
+        public void visitArtifacts(ArtifactVisitor visitor) {
+            throw new IllegalStateException("Artifacts have not been resolved.");
+        }
+
+        @Override
+        public <T extends Collection<? super File>> T collectFiles(T dest) {
+            throw new IllegalStateException("Artifacts have not been resolved.");
+        }
+
+        @Override
+        public <T extends Collection<? super ResolvedArtifactResult>> T collectArtifacts(T dest) {
+            throw new IllegalStateException("Artifacts have not been resolved.");
+        }
+    }
+
     private static class ArtifactResolveState {
         final ResolvedGraphResults graphResults;
         final VisitedArtifactsResults artifactsResults;
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.Module;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.memcache.InMemoryCachedRepositoryFactory;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.internal.concurrent.Stoppable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shares the result of resolving a dependency graph between the configurations of a build that declare the same dependencies, repositories, attributes and resolution strategy.
+ *
+ * <p>The root component is part of the result, so only configurations of the same project can share a graph. Only configurations whose graph is determined by their declarations are
+ * shared: those with external module dependencies only, and without dependency substitution or component selection rules, which can run arbitrary code.</p>
+ */
+public class ResolvedGraphCache implements Stoppable {
+
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.graphcache";
+
+    private final Map<List<Object>, Object> graphs = new MapMaker().makeMap();
+
+    /**
+     * Returns a key describing everything that affects the graph of the given configuration, or null when its graph cannot be shared.
+     */
+    @Nullable
+    public List<Object> keyFor(ConfigurationInternal configuration, List<ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        if (isDisabled(TOGGLE_PROPERTY) || isDisabled(InMemoryCachedRepositoryFactory.TOGGLE_PROPERTY)) {
+            // Without the in-memory repository caches, identical configurations may select different versions
+            return null;
+        }
+
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (resolutionStrategy.resolveGraphToDetermineTaskDependencies() || !resolutionStrategy.getComponentSelection().getRules().isEmpty()) {
+            return null;
+        }
+
+        List<Object> dependencies = new ArrayList<Object>();
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            if (!(dependency instanceof ExternalModuleDependency) || dependency instanceof ClientModule) {
+                return null;
+            }
+            dependencies.add(keyFor((ExternalModuleDependency) dependency));
+        }
+
+        ImmutableSet.Builder<ExcludeRule> excludeRules = ImmutableSet.builder();
+        for (Configuration c : configuration.getHierarchy()) {
+            excludeRules.addAll(c.getExcludeRules());
+        }
+
+        List<Object> repositoryIds = new ArrayList<Object>(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            repositoryIds.add(repository.createResolver().getId());
+        }
+
+        Module module = configuration.getModule();
+        return ImmutableList.<Object>of(
+            ImmutableList.of(String.valueOf(module.getProjectPath()), String.valueOf(module.getGroup()), module.getName(), String.valueOf(module.getVersion()), String.valueOf(module.getStatus())),
+            metadataHandler,
+            repositoryIds,
+            dependencies,
+            excludeRules.build(),
+            configuration.isTransitive(),
+            configuration.getAttributes().asImmutable(),
+            ImmutableSet.copyOf(resolutionStrategy.getForcedModules()),
+            resolutionStrategy.getConflictResolution().getClass(),
+            resolutionStrategy.getSortOrder());
+    }
+
+    private static List<Object> keyFor(ExternalModuleDependency dependency) {
+        List<Object> key = new ArrayList<Object>(9);
+        key.add(dependency.getGroup());
+        key.add(dependency.getName());
+        key.add(dependency.getVersion());
+        key.add(dependency.getTargetConfiguration());
+        key.add(dependency.isTransitive());
+        key.add(dependency.isForce());
+        key.add(dependency.isChanging());
+        key.add(ImmutableSet.copyOf(dependency.getArtifacts()));
+        key.add(ImmutableSet.copyOf(dependency.getExcludeRules()));
+        return key;
+    }
+
+    private static boolean isDisabled(String property) {
+        return "false".equalsIgnoreCase(System.getProperty(property));
+    }
+
+    @Nullable
+    public Object get(List<Object> key) {
+        return graphs.get(key);
+    }
+
+    public void put(List<Object> key, Object graph) {
+        graphs.put(key, graph);
+    }
+
+    @Override
+    public void stop() {
+        graphs.clear();
+    }
+}
@@ -16,29 +16,61 @@
 
 package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.internal.component.model.IvyArtifactName;
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 /**
  * A spec that excludes modules or artifacts that are excluded by _any_ of the supplied exclusions.
  * As such, this is an intersection of the separate exclude rule filters.
+ *
+ * <p>Modules are matched against an index of the excluded module ids, groups and module names, so that only the specs that cannot be indexed are evaluated one by one.</p>
  */
 class IntersectionExclusion extends AbstractCompositeExclusion {
     private final ImmutableModuleExclusionSet excludeSpecs;
     private final boolean mergeable;
+    private final boolean excludesAllModules;
+    private final Set<ModuleIdentifier> excludedModules;
+    private final Set<String> excludedGroups;
+    private final Set<String> excludedModuleNames;
+    private final AbstractModuleExclusion[] unindexedSpecs;
 
     public IntersectionExclusion(ImmutableModuleExclusionSet specs) {
         this.excludeSpecs = specs;
         boolean canMerge = true;
+        boolean excludesAll = false;
+        Set<ModuleIdentifier> modules = Sets.newHashSet();
+        Set<String> groups = Sets.newHashSet();
+        Set<String> moduleNames = Sets.newHashSet();
+        List<AbstractModuleExclusion> unindexed = Lists.newArrayList();
         for (AbstractModuleExclusion spec : specs.elements) {
             if (!canMerge(spec)) {
                 canMerge = false;
-                break;
+            }
+            if (spec instanceof ExcludeAllModulesSpec) {
+                excludesAll = true;
+            } else if (spec instanceof ModuleIdExcludeSpec) {
+                modules.add(((ModuleIdExcludeSpec) spec).moduleId);
+            } else if (spec instanceof GroupNameExcludeSpec) {
+                groups.add(((GroupNameExcludeSpec) spec).group);
+            } else if (spec instanceof ModuleNameExcludeSpec) {
+                moduleNames.add(((ModuleNameExcludeSpec) spec).module);
+            } else if (!(spec instanceof ArtifactExcludeSpec)) {
+                // Artifact excludes never exclude a module
+                unindexed.add(spec);
             }
         }
         mergeable = canMerge;
+        excludesAllModules = excludesAll;
+        excludedModules = modules;
+        excludedGroups = groups;
+        excludedModuleNames = moduleNames;
+        unindexedSpecs = unindexed.toArray(new AbstractModuleExclusion[0]);
     }
 
     boolean canMerge() {
@@ -60,7 +92,13 @@ class IntersectionExclusion extends AbstractCompositeExclusion {
     }
 
     public boolean excludeModule(ModuleIdentifier element) {
-        for (AbstractModuleExclusion excludeSpec : excludeSpecs) {
+        if (excludesAllModules
+            || excludedModules.contains(element)
+            || excludedGroups.contains(element.getGroup())
+            || excludedModuleNames.contains(element.getName())) {
+            return true;
+        }
+        for (AbstractModuleExclusion excludeSpec : unindexedSpecs) {
             if (excludeSpec.excludeModule(element)) {
                 return true;
             }
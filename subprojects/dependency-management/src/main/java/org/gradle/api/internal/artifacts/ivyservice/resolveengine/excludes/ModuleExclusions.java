@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.AbstractModuleExclusion.isWildcard;
 
@@ -48,6 +49,9 @@ import static org.gradle.api.internal.artifacts.ivyservice.resolveengine.exclude
  * <ul> <li>When a module dependency has multiple exclusions, then the resulting exclusion is the _intersection_ of those exclusions (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via a transitive path, then the resulting exclusion is the _intersection_ of the exclusions on each leg of the path (module is excluded if excluded by _any_).</li> <li>When a module
  * is depended on via multiple paths in the graph, then the resulting exclusion is the _union_ of the exclusions on each of those paths (module is excluded if excluded by _all_).</li> </ul>
+ *
+ * <p>Every spec created by this class is interned, so that structurally equal specs are the same instance. This allows the results of union and intersection operations to be
+ * memoized by the identity of their operands.</p>
  */
 public class ModuleExclusions {
     private static final ExcludeNone EXCLUDE_NONE = new ExcludeNone();
@@ -61,6 +65,9 @@ public class ModuleExclusions {
     private final Map<Set<AbstractModuleExclusion>, ImmutableModuleExclusionSet> exclusionSetCache = Maps.newConcurrentMap();
     private final Map<AbstractModuleExclusion[], Map<AbstractModuleExclusion[], MergeOperation>> mergeOperationCache = Maps.newIdentityHashMap();
     private final Object mergeOperationLock = new Object();
+    private final ConcurrentMap<AbstractModuleExclusion, AbstractModuleExclusion> internedExclusions = Maps.newConcurrentMap();
+    private final Map<ExclusionPair, ModuleExclusion> intersectCache = Maps.newConcurrentMap();
+    private final Map<ExclusionPair, ModuleExclusion> unionCache = Maps.newConcurrentMap();
 
     public ModuleExclusions(ImmutableModuleIdentifierFactory moduleIdentifierFactory) {
         this.moduleIdentifierFactory = moduleIdentifierFactory;
@@ -89,6 +96,14 @@ public class ModuleExclusions {
         return moduleExclusion;
     }
 
+    /**
+     * Returns the canonical instance of the given spec.
+     */
+    private AbstractModuleExclusion intern(AbstractModuleExclusion exclusion) {
+        AbstractModuleExclusion interned = internedExclusions.putIfAbsent(exclusion, exclusion);
+        return interned != null ? interned : exclusion;
+    }
+
     private ImmutableModuleExclusionSet asImmutable(Set<AbstractModuleExclusion> excludes) {
         ImmutableModuleExclusionSet cached = exclusionSetCache.get(excludes);
         if (cached == null) {
@@ -130,15 +145,15 @@ public class ModuleExclusions {
         for (Exclude exclude : excludes) {
             exclusions.add(forExclude(exclude));
         }
-        exclusion = new IntersectionExclusion(asImmutable(exclusions));
+        exclusion = intern(new IntersectionExclusion(asImmutable(exclusions)));
         excludeAnyCache.put(excludes, exclusion);
         return exclusion;
     }
 
-    private static AbstractModuleExclusion forExclude(Exclude rule) {
+    private AbstractModuleExclusion forExclude(Exclude rule) {
         // For custom ivy pattern matchers, don't inspect the rule any more deeply: this prevents us from doing smart merging later
         if (!PatternMatchers.isExactMatcher(rule.getMatcher())) {
-            return new IvyPatternMatcherExcludeRuleSpec(rule);
+            return intern(new IvyPatternMatcherExcludeRuleSpec(rule));
         }
 
         ModuleIdentifier moduleId = rule.getModuleId();
@@ -150,16 +165,16 @@ public class ModuleExclusions {
         // Build a strongly typed (mergeable) exclude spec for each supplied rule
         if (anyArtifact) {
             if (!anyOrganisation && !anyModule) {
-                return new ModuleIdExcludeSpec(moduleId);
+                return intern(new ModuleIdExcludeSpec(moduleId));
             } else if (!anyModule) {
-                return new ModuleNameExcludeSpec(moduleId.getName());
+                return intern(new ModuleNameExcludeSpec(moduleId.getName()));
             } else if (!anyOrganisation) {
-                return new GroupNameExcludeSpec(moduleId.getGroup());
+                return intern(new GroupNameExcludeSpec(moduleId.getGroup()));
             } else {
                 return EXCLUDE_ALL_MODULES_SPEC;
             }
         } else {
-            return new ArtifactExcludeSpec(moduleId, artifact);
+            return intern(new ArtifactExcludeSpec(moduleId, artifact));
         }
     }
 
@@ -176,6 +191,16 @@ public class ModuleExclusions {
         if (two == EXCLUDE_NONE) {
             return one;
         }
+        ExclusionPair operands = new ExclusionPair(one, two);
+        ModuleExclusion intersection = intersectCache.get(operands);
+        if (intersection == null) {
+            intersection = doIntersect(one, two);
+            intersectCache.put(operands, intersection);
+        }
+        return intersection;
+    }
+
+    private ModuleExclusion doIntersect(ModuleExclusion one, ModuleExclusion two) {
         if (one.equals(two)) {
             return one;
         }
@@ -191,7 +216,7 @@ public class ModuleExclusions {
         ((AbstractModuleExclusion) one).unpackIntersection(builder);
         ((AbstractModuleExclusion) two).unpackIntersection(builder);
 
-        return new IntersectionExclusion(asImmutable(builder));
+        return intern(new IntersectionExclusion(asImmutable(builder)));
     }
 
     /**
@@ -204,6 +229,16 @@ public class ModuleExclusions {
         if (one == EXCLUDE_NONE || two == EXCLUDE_NONE) {
             return EXCLUDE_NONE;
         }
+        ExclusionPair operands = new ExclusionPair(one, two);
+        ModuleExclusion union = unionCache.get(operands);
+        if (union == null) {
+            union = doUnion(one, two);
+            unionCache.put(operands, union);
+        }
+        return union;
+    }
+
+    private ModuleExclusion doUnion(ModuleExclusion one, ModuleExclusion two) {
         if (one.equals(two)) {
             return one;
         }
@@ -231,7 +266,7 @@ public class ModuleExclusions {
         if (specs.size() == 1) {
             return specs.get(0);
         }
-        return new UnionExclusion(specs);
+        return intern(new UnionExclusion(specs));
     }
 
     /**
@@ -299,7 +334,7 @@ public class ModuleExclusions {
         if (merged.isEmpty()) {
             exclusion = ModuleExclusions.EXCLUDE_NONE;
         } else {
-            exclusion = new IntersectionExclusion(asImmutable(merged));
+            exclusion = intern(new IntersectionExclusion(asImmutable(merged)));
         }
         mergeCache.put(merge, exclusion);
         return exclusion;
@@ -358,7 +393,7 @@ public class ModuleExclusions {
         } else if (spec2 instanceof ModuleNameExcludeSpec) {
             // Intersection of group & module name exclude only excludes module with matching group + name
             ModuleNameExcludeSpec moduleNameExcludeSpec = (ModuleNameExcludeSpec) spec2;
-            merged.add(new ModuleIdExcludeSpec(moduleIdentifierFactory.module(spec1.group, moduleNameExcludeSpec.module)));
+            merged.add(intern(new ModuleIdExcludeSpec(moduleIdentifierFactory.module(spec1.group, moduleNameExcludeSpec.module))));
         } else if (spec2 instanceof ModuleIdExcludeSpec) {
             // Intersection of group + module id exclude only excludes the module id if the excluded groups match
             ModuleIdExcludeSpec moduleIdExcludeSpec = (ModuleIdExcludeSpec) spec2;
@@ -388,6 +423,38 @@ public class ModuleExclusions {
         }
     }
 
+    /**
+     * The operands of a union or intersection, compared by identity. This is accurate because specs are interned.
+     */
+    private static final class ExclusionPair {
+        private final ModuleExclusion one;
+        private final ModuleExclusion two;
+        private final int hashCode;
+
+        private ExclusionPair(ModuleExclusion one, ModuleExclusion two) {
+            this.one = one;
+            this.two = two;
+            this.hashCode = 31 * System.identityHashCode(one) + System.identityHashCode(two);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ExclusionPair that = (ExclusionPair) o;
+            return one == that.one && two == that.two;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     private static final class MergeOperation {
         private final AbstractModuleExclusion[] one;
         private final AbstractModuleExclusion[] two;
@@ -75,6 +75,18 @@ public class StreamingResolutionResultBuilder implements DependencyGraphVisitor
         return new DefaultResolutionResult(rootSource);
     }
 
+    /**
+     * Completes the result from the events of a graph without failures that was visited by another builder, instead of visiting the graph.
+     */
+    public ResolutionResult complete(final byte[] events) {
+        store.write(new BinaryStore.WriteAction() {
+            public void write(Encoder encoder) throws IOException {
+                encoder.writeBytes(events);
+            }
+        });
+        return complete();
+    }
+
     @Override
     public void start(final DependencyGraphNode root) {
     }
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store;
+
+import org.gradle.api.Nullable;
+import org.gradle.api.artifacts.ClientModule;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.Dependency;
+import org.gradle.api.artifacts.DependencyArtifact;
+import org.gradle.api.artifacts.ExcludeRule;
+import org.gradle.api.artifacts.ExternalModuleDependency;
+import org.gradle.api.artifacts.ModuleVersionSelector;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ResolutionResult;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules;
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory;
+import org.gradle.api.internal.artifacts.Module;
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal;
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal;
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.StreamingResolutionResultBuilder;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
+import org.gradle.api.internal.cache.BinaryStore;
+import org.gradle.cache.PersistentIndexedCache;
+import org.gradle.internal.Factory;
+import org.gradle.internal.hash.HashUtil;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.GradleVersion;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Persists the resolution result of a configuration across builds, in the binary format written by {@link StreamingResolutionResultBuilder}.
+ *
+ * <p>A result is keyed by everything declared that affects the graph of the configuration. It is only persisted when the graph cannot change while these declarations stay the same:
+ * no dynamic versions or changing modules, no local repositories, whose contents are not cached, no rules that run arbitrary code and no failures.</p>
+ *
+ * <p>Only the resolution result is persisted, so it is only used and recorded when the artifacts of a configuration are not required. When they are required later, its graph is resolved again.</p>
+ */
+public class PersistentResolutionResultsCache {
+
+    public final static String TOGGLE_PROPERTY = "org.gradle.resolution.persistentresults";
+
+    private final CacheLockingManager cacheLockingManager;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
+    private final boolean refreshDependencies;
+    private PersistentIndexedCache<String, byte[]> cache;
+
+    public PersistentResolutionResultsCache(CacheLockingManager cacheLockingManager, VersionSelectorScheme versionSelectorScheme, ImmutableModuleIdentifierFactory moduleIdentifierFactory, boolean refreshDependencies) {
+        this.cacheLockingManager = cacheLockingManager;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.moduleIdentifierFactory = moduleIdentifierFactory;
+        this.refreshDependencies = refreshDependencies;
+    }
+
+    private synchronized PersistentIndexedCache<String, byte[]> getCache() {
+        if (cache == null) {
+            cache = cacheLockingManager.createCache("resolution-results", BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.BYTE_ARRAY_SERIALIZER);
+        }
+        return cache;
+    }
+
+    /**
+     * Returns the key of the resolution result of the given configuration, or null when its result cannot be persisted.
+     */
+    @Nullable
+    public String keyFor(ConfigurationInternal configuration, List<ResolutionAwareRepository> repositories, GlobalDependencyResolutionRules metadataHandler) {
+        if ("false".equalsIgnoreCase(System.getProperty(TOGGLE_PROPERTY))) {
+            return null;
+        }
+
+        ResolutionStrategyInternal resolutionStrategy = configuration.getResolutionStrategy();
+        if (resolutionStrategy.resolveGraphToDetermineTaskDependencies()
+            || !resolutionStrategy.getComponentSelection().getRules().isEmpty()
+            || metadataHandler.getComponentMetadataProcessor().hasRules()
+            || metadataHandler.getModuleMetadataProcessor().hasRules()) {
+            return null;
+        }
+
+        StringBuilder key = new StringBuilder(GradleVersion.current().getVersion());
+        Module module = configuration.getModule();
+        append(key, module.getProjectPath(), module.getGroup(), module.getName(), module.getVersion(), module.getStatus());
+
+        // Check the dependencies before the repositories, which are more expensive to inspect
+        for (Dependency dependency : configuration.getAllDependencies()) {
+            if (!(dependency instanceof ExternalModuleDependency) || dependency instanceof ClientModule) {
+                return null;
+            }
+            ExternalModuleDependency moduleDependency = (ExternalModuleDependency) dependency;
+            if (moduleDependency.isChanging() || moduleDependency.getVersion() == null || versionSelectorScheme.parseSelector(moduleDependency.getVersion()).isDynamic()) {
+                return null;
+            }
+            append(key, moduleDependency.getGroup(), moduleDependency.getName(), moduleDependency.getVersion(), moduleDependency.getTargetConfiguration(), moduleDependency.isTransitive(), moduleDependency.isForce());
+            List<String> artifacts = new ArrayList<String>();
+            for (DependencyArtifact artifact : moduleDependency.getArtifacts()) {
+                artifacts.add(artifact.getName() + ":" + artifact.getType() + ":" + artifact.getExtension() + ":" + artifact.getClassifier() + ":" + artifact.getUrl());
+            }
+            appendSorted(key, artifacts);
+            appendSorted(key, excludes(moduleDependency.getExcludeRules()));
+        }
+
+        for (ResolutionAwareRepository repository : repositories) {
+            ConfiguredModuleComponentRepository resolver = repository.createResolver();
+            if (resolver.isLocal() || resolver.isDynamicResolveMode()) {
+                return null;
+            }
+            append(key, resolver.getId());
+        }
+
+        List<ExcludeRule> excludeRules = new ArrayList<ExcludeRule>();
+        for (Configuration c : configuration.getHierarchy()) {
+            excludeRules.addAll(c.getExcludeRules());
+        }
+        appendSorted(key, excludes(excludeRules));
+
+        List<String> attributes = new ArrayList<String>();
+        AttributeContainerInternal attributeContainer = configuration.getAttributes();
+        for (Attribute<?> attribute : attributeContainer.keySet()) {
+            attributes.add(attribute.getName() + ":" + attribute.getType().getName() + "=" + attributeContainer.getAttribute(attribute));
+        }
+        appendSorted(key, attributes);
+
+        List<String> forcedModules = new ArrayList<String>();
+        for (ModuleVersionSelector forcedModule : resolutionStrategy.getForcedModules()) {
+            forcedModules.add(forcedModule.getGroup() + ":" + forcedModule.getName() + ":" + forcedModule.getVersion());
+        }
+        appendSorted(key, forcedModules);
+
+        append(key, configuration.isTransitive(), resolutionStrategy.getConflictResolution().getClass().getName(), resolutionStrategy.getSortOrder());
+        return HashUtil.createCompactMD5(key.toString());
+    }
+
+    private static List<String> excludes(Iterable<ExcludeRule> excludeRules) {
+        List<String> excludes = new ArrayList<String>();
+        for (ExcludeRule excludeRule : excludeRules) {
+            excludes.add(excludeRule.getGroup() + ":" + excludeRule.getModule());
+        }
+        return excludes;
+    }
+
+    private static void appendSorted(StringBuilder key, List<String> values) {
+        Collections.sort(values);
+        key.append('|').append(values.size());
+        for (String value : values) {
+            key.append('|').append(value);
+        }
+    }
+
+    private static void append(StringBuilder key, Object... values) {
+        for (Object value : values) {
+            key.append('|').append(value);
+        }
+    }
+
+    /**
+     * Loads the persisted resolution result with the given key, or returns null when there is none.
+     */
+    @Nullable
+    public ResolutionResult load(final String key, StoreSet stores) {
+        if (refreshDependencies) {
+            return null;
+        }
+        byte[] events = cacheLockingManager.useCache(new Factory<byte[]>() {
+            public byte[] create() {
+                return getCache().get(key);
+            }
+        });
+        if (events == null) {
+            return null;
+        }
+        return new StreamingResolutionResultBuilder(stores.nextBinaryStore(), stores.newModelCache(), moduleIdentifierFactory).complete(events);
+    }
+
+    /**
+     * Creates a recorder for the resolution result written to the given store. The recorder must also visit the graph.
+     */
+    public Recorder createRecorder(BinaryStore store) {
+        return new Recorder(store, versionSelectorScheme);
+    }
+
+    /**
+     * Persists the recorded resolution result, unless the graph contains dynamic versions or changing modules.
+     */
+    public void store(final String key, Recorder recorder) {
+        if (!recorder.persistable) {
+            return;
+        }
+        final byte[] events = recorder.getEvents();
+        cacheLockingManager.useCache(new Runnable() {
+            public void run() {
+                getCache().put(key, events);
+            }
+        });
+    }
+
+    public static class Recorder implements BinaryStore, DependencyGraphVisitor {
+        private final BinaryStore delegate;
+        private final VersionSelectorScheme versionSelectorScheme;
+        private final ByteArrayOutputStream events = new ByteArrayOutputStream();
+        private final KryoBackedEncoder encoder = new KryoBackedEncoder(events);
+        private boolean persistable = true;
+
+        private Recorder(BinaryStore delegate, VersionSelectorScheme versionSelectorScheme) {
+            this.delegate = delegate;
+            this.versionSelectorScheme = versionSelectorScheme;
+        }
+
+        @Override
+        public void write(WriteAction write) {
+            delegate.write(write);
+            try {
+                write.write(encoder);
+            } catch (IOException e) {
+                throw new RuntimeException("Problems recording resolution results.", e);
+            }
+        }
+
+        @Override
+        public BinaryData done() {
+            encoder.flush();
+            return delegate.done();
+        }
+
+        byte[] getEvents() {
+            encoder.flush();
+            return events.toByteArray();
+        }
+
+        @Override
+        public void start(DependencyGraphNode root) {
+        }
+
+        @Override
+        public void visitNode(DependencyGraphNode node) {
+            if (node.getOwner().getMetadata().isChanging()) {
+                persistable = false;
+            }
+        }
+
+        @Override
+        public void visitSelector(DependencyGraphSelector selector) {
+            ComponentSelector requested = selector.getRequested();
+            if (requested instanceof ModuleComponentSelector && versionSelectorScheme.parseSelector(((ModuleComponentSelector) requested).getVersion()).isDynamic()) {
+                persistable = false;
+            }
+        }
+
+        @Override
+        public void visitEdges(DependencyGraphNode node) {
+        }
+
+        @Override
+        public void finish(DependencyGraphNode root) {
+        }
+    }
+}
@@ -18,7 +18,9 @@ package org.gradle.api.internal.artifacts.transform;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.hash.HashCode;
-import org.gradle.api.Action;
+import org.apache.commons.io.FileUtils;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
 import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData;
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.CacheBuilder;
@@ -27,37 +29,79 @@ import org.gradle.cache.PersistentCache;
 import org.gradle.cache.PersistentIndexedCache;
 import org.gradle.cache.PersistentIndexedCacheParameters;
 import org.gradle.cache.internal.FileLockManager;
+import org.gradle.initialization.SessionLifecycleListener;
 import org.gradle.internal.Factory;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.resource.local.FileStore;
-import org.gradle.internal.resource.local.FileStoreAddActionException;
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.serialize.BaseSerializerFactory;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.ListSerializer;
 import org.gradle.internal.util.BiFunction;
+import org.gradle.util.GFileUtils;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static org.gradle.api.internal.artifacts.ivyservice.CacheLayout.TRANSFORMS_META_DATA;
 import static org.gradle.api.internal.artifacts.ivyservice.CacheLayout.TRANSFORMS_STORE;
 import static org.gradle.cache.internal.filelock.LockOptionsBuilder.mode;
 
-public class DefaultTransformedFileCache implements TransformedFileCache, Stoppable {
+/**
+ * Caches the results of artifact transforms in the Gradle user home.
+ *
+ * <p>Transforms run without holding the cache file lock, so that transforms of different inputs can run at the same time, in this process and in
+ * others sharing the cache. Each transform writes to its own staging directory, which is moved into the file store while holding the lock, along
+ * with recording the result.</p>
+ *
+ * <p>At the end of a build session, at most once a day, the file store is trimmed back to a maximum size while holding the lock, removing the least
+ * recently used results first. The time of the last cleanup is recorded by the modification time of a marker file, so that the store is only walked
+ * when a cleanup is due. Results used within the last day are never removed, as another build may still be using them.</p>
+ */
+public class DefaultTransformedFileCache implements TransformedFileCache, SessionLifecycleListener, Stoppable {
+    private static final Logger LOGGER = Logging.getLogger(DefaultTransformedFileCache.class);
+
+    /**
+     * The maximum size of the transformed files store, in megabytes.
+     */
+    public static final String MAX_STORE_SIZE_PROPERTY = "org.gradle.internal.transforms.store.max.size";
+    private static final long DEFAULT_MAX_STORE_SIZE_MB = 10 * 1024;
+    private static final long MIN_UNUSED_AGE = TimeUnit.DAYS.toMillis(1);
+    private static final long CLEANUP_INTERVAL = TimeUnit.DAYS.toMillis(1);
+    private static final String CLEANUP_MARKER = "gc.properties";
+
+    private final ListenerManager listenerManager;
     private final PersistentCache cache;
     private final PersistentIndexedCache<HashCode, List<File>> indexedCache;
     private final FileStore<String> fileStore;
+    private final File filesOutputDirectory;
+    private final File stagingDirectory;
+    private final File cleanupMarker;
+    private final long maxStoreSize;
     private final Object lock = new Object();
     private final Set<HashCode> transforming = new HashSet<HashCode>();
+    private final Set<HashCode> used = new HashSet<HashCode>();
+
+    public DefaultTransformedFileCache(ArtifactCacheMetaData artifactCacheMetaData, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory, ListenerManager listenerManager) {
+        this(artifactCacheMetaData, cacheRepository, cacheDecoratorFactory, listenerManager, Long.getLong(MAX_STORE_SIZE_PROPERTY, DEFAULT_MAX_STORE_SIZE_MB) * 1024 * 1024);
+    }
 
-    public DefaultTransformedFileCache(ArtifactCacheMetaData artifactCacheMetaData, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory) {
+    DefaultTransformedFileCache(ArtifactCacheMetaData artifactCacheMetaData, CacheRepository cacheRepository, InMemoryCacheDecoratorFactory cacheDecoratorFactory, ListenerManager listenerManager, long maxStoreSize) {
         File transformsStoreDirectory = artifactCacheMetaData.getTransformsStoreDirectory();
-        File filesOutputDirectory = new File(transformsStoreDirectory, TRANSFORMS_STORE.getKey());
+        filesOutputDirectory = new File(transformsStoreDirectory, TRANSFORMS_STORE.getKey());
+        stagingDirectory = new File(transformsStoreDirectory, TRANSFORMS_STORE.getKey() + "-staging");
+        cleanupMarker = new File(transformsStoreDirectory, CLEANUP_MARKER);
         fileStore = new PathKeyFileStore(filesOutputDirectory);
+        this.maxStoreSize = maxStoreSize;
         cache = cacheRepository
                 .cache(transformsStoreDirectory)
                 .withCrossVersionCache(CacheBuilder.LockTarget.DefaultTarget)
@@ -68,52 +112,184 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
         PersistentIndexedCacheParameters<HashCode, List<File>> cacheParameters = new PersistentIndexedCacheParameters<HashCode, List<File>>(cacheName, new HashCodeSerializer(), new ListSerializer<File>(BaseSerializerFactory.FILE_SERIALIZER))
                 .cacheDecorator(cacheDecoratorFactory.decorator(1000, true));
         indexedCache = cache.createCache(cacheParameters);
+        this.listenerManager = listenerManager;
+        listenerManager.addListener(this);
+    }
+
+    @Override
+    public void afterStart() {
+    }
+
+    @Override
+    public void beforeComplete() {
+        // Record the uses of the next session afresh
+        synchronized (lock) {
+            used.clear();
+        }
+        if (!isCleanupDue()) {
+            return;
+        }
+        cache.withFileLock(new Factory<Void>() {
+            @Override
+            public Void create() {
+                // Another process may have cleaned up the store while this one was waiting for the lock
+                if (isCleanupDue()) {
+                    evict();
+                    GFileUtils.touch(cleanupMarker);
+                }
+                return null;
+            }
+        });
+    }
+
+    private boolean isCleanupDue() {
+        return !cleanupMarker.exists() || cleanupMarker.lastModified() < System.currentTimeMillis() - CLEANUP_INTERVAL;
     }
 
     @Override
     public void stop() {
+        listenerManager.removeListener(this);
         cache.close();
     }
 
     @Override
     public List<File> getResult(final File inputFile, final HashCode inputsHash, final BiFunction<List<File>, File, File> transformer) {
-        // Apply locking so that only this process is writing to the file store and only a single thread is running this particular transform
+        // Only a single thread in this process runs a particular transform. Other processes may run it at the same time, in which case the first result to be published wins
         transforming(inputsHash);
         try {
-            return cache.withFileLock(new Factory<List<File>>() {
+            final String key = inputFile.getName() + "/" + inputsHash;
+            List<File> cached = cache.withFileLock(new Factory<List<File>>() {
                 @Override
                 public List<File> create() {
-                    List<File> files = indexedCache.get(inputsHash);
-                    if (files != null) {
-                        boolean allExist = true;
-                        for (File file : files) {
-                            if (!file.exists()) {
-                                allExist = false;
-                                break;
-                            }
-                        }
-                        if (allExist) {
-                            return files;
+                    return getPublishedResult(key, inputsHash);
+                }
+            });
+            if (cached != null) {
+                return cached;
+            }
+
+            final File stagingDir = new File(stagingDirectory, inputsHash + "-" + UUID.randomUUID());
+            try {
+                GFileUtils.mkdirs(stagingDir);
+                final List<File> stagedResult = ImmutableList.copyOf(transformer.apply(inputFile, stagingDir));
+                return cache.withFileLock(new Factory<List<File>>() {
+                    @Override
+                    public List<File> create() {
+                        List<File> published = getPublishedResult(key, inputsHash);
+                        if (published != null) {
+                            return published;
                         }
-                        // Else, recreate outputs
+                        // File store takes care of cleaning up on failure/crash
+                        File outputDir = fileStore.move(key, stagingDir).getFile();
+                        List<File> result = relocate(stagedResult, stagingDir, outputDir);
+                        indexedCache.put(inputsHash, result);
+                        return result;
                     }
+                });
+            } finally {
+                GFileUtils.deleteQuietly(stagingDir);
+            }
+        } finally {
+            notTransforming(inputsHash);
+        }
+    }
 
-                    // File store takes care of cleaning up on failure/crash
-                    String key = inputFile.getName() + "/" + inputsHash;
-                    TransformAction action = new TransformAction(transformer, inputFile);
-                    try {
-                        fileStore.add(key, action);
-                    } catch (FileStoreAddActionException e) {
-                        throw UncheckedException.throwAsUncheckedException(e.getCause());
-                    }
+    private List<File> getPublishedResult(String key, HashCode inputsHash) {
+        List<File> files = indexedCache.get(inputsHash);
+        if (files == null) {
+            return null;
+        }
+        for (File file : files) {
+            if (!file.exists()) {
+                // Recreate outputs
+                return null;
+            }
+        }
+        markUsed(key, inputsHash);
+        return files;
+    }
+
+    private void markUsed(String key, HashCode inputsHash) {
+        // Record each use once per session, so that eviction removes the least recently used results
+        synchronized (lock) {
+            if (!used.add(inputsHash)) {
+                return;
+            }
+        }
+        File outputDir = new File(filesOutputDirectory, key);
+        if (outputDir.isDirectory()) {
+            outputDir.setLastModified(System.currentTimeMillis());
+        }
+    }
+
+    private static List<File> relocate(List<File> files, File fromDir, File toDir) {
+        String fromPath = fromDir.getAbsolutePath();
+        ImmutableList.Builder<File> builder = ImmutableList.builder();
+        for (File file : files) {
+            String path = file.getAbsolutePath();
+            if (path.equals(fromPath)) {
+                builder.add(toDir);
+            } else if (path.startsWith(fromPath + File.separator)) {
+                builder.add(new File(toDir, path.substring(fromPath.length() + 1)));
+            } else {
+                builder.add(file);
+            }
+        }
+        return builder.build();
+    }
 
-                    indexedCache.put(inputsHash, action.result);
-                    return action.result;
+    private void evict() {
+        long staleBefore = System.currentTimeMillis() - MIN_UNUSED_AGE;
+        File[] stagingDirs = stagingDirectory.listFiles();
+        if (stagingDirs != null) {
+            for (File stagingDir : stagingDirs) {
+                if (stagingDir.lastModified() < staleBefore) {
+                    GFileUtils.deleteQuietly(stagingDir);
                 }
-            });
-        } finally {
-            notTransforming(inputsHash);
+            }
+        }
+
+        File[] inputDirs = filesOutputDirectory.listFiles();
+        if (inputDirs == null) {
+            return;
+        }
+        List<StoreEntry> entries = new ArrayList<StoreEntry>();
+        long totalSize = 0;
+        for (File inputDir : inputDirs) {
+            File[] outputDirs = inputDir.listFiles();
+            if (outputDirs == null) {
+                continue;
+            }
+            for (File outputDir : outputDirs) {
+                long size = FileUtils.sizeOf(outputDir);
+                long lastUsed = outputDir.lastModified();
+                totalSize += size;
+                if (lastUsed < staleBefore) {
+                    entries.add(new StoreEntry(outputDir, size, lastUsed));
+                }
+            }
         }
+        if (totalSize <= maxStoreSize) {
+            return;
+        }
+
+        Collections.sort(entries, new Comparator<StoreEntry>() {
+            @Override
+            public int compare(StoreEntry o1, StoreEntry o2) {
+                return o1.lastUsed < o2.lastUsed ? -1 : o1.lastUsed == o2.lastUsed ? 0 : 1;
+            }
+        });
+        int evicted = 0;
+        for (StoreEntry entry : entries) {
+            if (totalSize <= maxStoreSize) {
+                break;
+            }
+            // The result recorded for this entry is discarded when its files are found to be missing
+            GFileUtils.deleteQuietly(entry.dir);
+            totalSize -= entry.size;
+            evicted++;
+        }
+        LOGGER.info("Removed {} transformed artifacts from {} to reduce its size below {} MB.", evicted, filesOutputDirectory, maxStoreSize / (1024 * 1024));
     }
 
     private void transforming(HashCode inputsHash) {
@@ -135,20 +311,15 @@ public class DefaultTransformedFileCache implements TransformedFileCache, Stoppa
         }
     }
 
-    private static class TransformAction implements Action<File> {
-        private final BiFunction<List<File>, File, File> transformer;
-        private final File inputFile;
-        private ImmutableList<File> result;
-
-        TransformAction(BiFunction<List<File>, File, File> transformer, File inputFile) {
-            this.transformer = transformer;
-            this.inputFile = inputFile;
-        }
+    private static class StoreEntry {
+        private final File dir;
+        private final long size;
+        private final long lastUsed;
 
-        @Override
-        public void execute(File outputDir) {
-            outputDir.mkdirs();
-            result = ImmutableList.copyOf(transformer.apply(inputFile, outputDir));
+        StoreEntry(File dir, long size, long lastUsed) {
+            this.dir = dir;
+            this.size = size;
+            this.lastUsed = lastUsed;
         }
     }
 }
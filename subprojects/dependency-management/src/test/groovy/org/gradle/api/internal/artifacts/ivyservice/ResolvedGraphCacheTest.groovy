@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice
+
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.artifacts.ResolutionStrategy
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultExcludeRule
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.Module
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.internal.rules.SpecRuleAction
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class ResolvedGraphCacheTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def metadataHandler = Stub(GlobalDependencyResolutionRules)
+    def repositories = [repository("repo1"), repository("repo2")]
+    def cache = new ResolvedGraphCache()
+
+    def "configurations with the same declarations share a graph"() {
+        def first = configuration(dependencies: [dependency("org", "foo", "1.0"), dependency("org", "bar", "2.0")])
+        def second = configuration(dependencies: [dependency("org", "foo", "1.0"), dependency("org", "bar", "2.0")])
+        def graph = new Object()
+
+        when:
+        cache.put(cache.keyFor(first, repositories, metadataHandler), graph)
+
+        then:
+        cache.get(cache.keyFor(second, repositories, metadataHandler)) == graph
+    }
+
+    def "configurations with different declarations do not share a graph"() {
+        def key = cache.keyFor(configuration([:]), repositories, metadataHandler)
+
+        expect:
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.1")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.0").setTransitive(false)]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.0").exclude(group: "org")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(excludeRules: [new DefaultExcludeRule("org", "bar")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(transitive: false), repositories, metadataHandler) != key
+        cache.keyFor(configuration(projectPath: ":other"), repositories, metadataHandler) != key
+        cache.keyFor(configuration(sortOrder: ResolutionStrategy.SortOrder.DEPENDENCY_FIRST), repositories, metadataHandler) != key
+        cache.keyFor(configuration([:]), [repository("repo1")], metadataHandler) != key
+        cache.keyFor(configuration([:]), repositories, Stub(GlobalDependencyResolutionRules)) != key
+
+        and:
+        cache.keyFor(configuration([:]), repositories, metadataHandler) == key
+    }
+
+    def "does not share the graph of a configuration with project dependencies"() {
+        expect:
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.0"), Stub(ProjectDependency)]), repositories, metadataHandler) == null
+    }
+
+    def "does not share the graph of a configuration with dependency substitution rules"() {
+        expect:
+        cache.keyFor(configuration(substitutionRules: true), repositories, metadataHandler) == null
+    }
+
+    def "does not share the graph of a configuration with component selection rules"() {
+        expect:
+        cache.keyFor(configuration(selectionRules: [Stub(SpecRuleAction)]), repositories, metadataHandler) == null
+    }
+
+    def "does not share graphs when disabled"() {
+        given:
+        System.setProperty(ResolvedGraphCache.TOGGLE_PROPERTY, "false")
+
+        expect:
+        cache.keyFor(configuration([:]), repositories, metadataHandler) == null
+    }
+
+    def "discards graphs when stopped"() {
+        def key = cache.keyFor(configuration([:]), repositories, metadataHandler)
+        cache.put(key, new Object())
+
+        when:
+        cache.stop()
+
+        then:
+        cache.get(key) == null
+    }
+
+    private ConfigurationInternal configuration(Map<String, ?> args) {
+        List<Dependency> dependencies = args.dependencies != null ? args.dependencies : [dependency("org", "foo", "1.0")]
+        def strategy = Stub(ResolutionStrategyInternal) {
+            resolveGraphToDetermineTaskDependencies() >> (args.substitutionRules ?: false)
+            getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+                getRules() >> (args.selectionRules ?: [])
+            }
+            getForcedModules() >> ([] as Set)
+            getConflictResolution() >> new LatestConflictResolution()
+            getSortOrder() >> (args.sortOrder ?: ResolutionStrategy.SortOrder.DEFAULT)
+        }
+        def configuration = Stub(ConfigurationInternal)
+        configuration.resolutionStrategy >> strategy
+        configuration.allDependencies >> Stub(DependencySet) {
+            iterator() >> { dependencies.iterator() }
+        }
+        configuration.hierarchy >> ([configuration] as Set)
+        configuration.excludeRules >> ((args.excludeRules ?: []) as Set)
+        configuration.transitive >> (args.transitive != null ? args.transitive : true)
+        configuration.attributes >> ImmutableAttributes.EMPTY
+        configuration.module >> Stub(Module) {
+            getProjectPath() >> (args.projectPath ?: ":project")
+            getGroup() >> "group"
+            getName() >> "project"
+            getVersion() >> "1.0"
+            getStatus() >> "integration"
+        }
+        return configuration
+    }
+
+    private static DefaultExternalModuleDependency dependency(String group, String name, String version) {
+        new DefaultExternalModuleDependency(group, name, version)
+    }
+
+    private ResolutionAwareRepository repository(String id) {
+        def resolver = Stub(ConfiguredModuleComponentRepository) {
+            getId() >> id
+        }
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> resolver
+        }
+    }
+}
@@ -641,7 +641,6 @@ class DefaultModuleExclusionTest extends Specification {
         intersect(spec, spec2).is(spec)
     }
 
-    @NotYetImplemented
     def "intersection of two specs where one spec contains a superset of the rules of the other returns the spec containing the superset"() {
         def rule1 = excludeRule("org", "module")
         def rule2 = regexpExcludeRule("org", "module2")
@@ -758,6 +757,42 @@ class DefaultModuleExclusionTest extends Specification {
         union(intersection, simpleExclude)
     }
 
+    def "structurally equal specs are the same instance"() {
+        def rule1 = excludeRule("org", "module")
+        def rule2 = excludeGroupRule("other")
+        def rule3 = regexpExcludeRule("regexp-.*", "*")
+
+        expect:
+        excludeAny(rule1, rule2).is(excludeAny(rule2, rule1))
+        excludeAny(rule1, rule2, rule3).is(excludeAny(rule3, rule2, rule1))
+        intersect(excludeAny(rule1), excludeAny(rule2)).is(excludeAny(rule1, rule2))
+        union(excludeAny(rule1, rule3), excludeAny(rule2, rule3)).is(union(excludeAny(rule3, rule1), excludeAny(rule3, rule2)))
+    }
+
+    def "reuses the results of unions and intersections"() {
+        def spec = excludeAny(excludeRule("org", "module"), excludeGroupRule("other"))
+        def otherSpec = excludeAny(excludeModuleRule("module"), regexpExcludeRule("regexp-.*", "*"))
+
+        expect:
+        union(spec, otherSpec).is(union(spec, otherSpec))
+        intersect(spec, otherSpec).is(intersect(spec, otherSpec))
+    }
+
+    def "intersection matches modules against all kinds of exclude rules"() {
+        def spec = excludeAny(excludeRule("org", "module"), excludeGroupRule("group"), excludeModuleRule("name"), regexpExcludeRule("regexp-.*", "*"), excludeArtifactRule("a", "jar", "jar"))
+
+        expect:
+        spec.excludeModule(moduleId("org", "module"))
+        spec.excludeModule(moduleId("group", "any"))
+        spec.excludeModule(moduleId("any", "name"))
+        spec.excludeModule(moduleId("regexp-1", "any"))
+        !spec.excludeModule(moduleId("org", "other"))
+        !spec.excludeModule(moduleId("other", "module"))
+        !spec.excludeModule(moduleId("regexp", "any"))
+        spec.excludeArtifact(moduleId("other", "module"), artifactName("a", "jar", "jar"))
+        !spec.excludeArtifact(moduleId("other", "module"), artifactName("b", "jar", "jar"))
+    }
+
     ModuleExclusion union(ModuleExclusion spec, ModuleExclusion otherRule) {
         moduleExclusions.union(spec, otherRule)
     }
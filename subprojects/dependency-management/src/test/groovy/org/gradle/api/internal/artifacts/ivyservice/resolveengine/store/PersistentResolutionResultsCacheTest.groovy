@@ -0,0 +1,231 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.store
+
+import org.gradle.api.artifacts.Dependency
+import org.gradle.api.artifacts.DependencySet
+import org.gradle.api.artifacts.ProjectDependency
+import org.gradle.api.artifacts.ResolutionStrategy
+import org.gradle.api.internal.artifacts.ComponentMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentModuleMetadataProcessor
+import org.gradle.api.internal.artifacts.ComponentSelectionRulesInternal
+import org.gradle.api.internal.artifacts.DefaultModuleVersionSelector
+import org.gradle.api.internal.artifacts.GlobalDependencyResolutionRules
+import org.gradle.api.internal.artifacts.ImmutableModuleIdentifierFactory
+import org.gradle.api.internal.artifacts.Module
+import org.gradle.api.internal.artifacts.configurations.ConfigurationInternal
+import org.gradle.api.internal.artifacts.configurations.ResolutionStrategyInternal
+import org.gradle.api.internal.artifacts.dependencies.DefaultExternalModuleDependency
+import org.gradle.api.internal.artifacts.ivyservice.CacheLockingManager
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ConfiguredModuleComponentRepository
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.resolutionstrategy.LatestConflictResolution
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository
+import org.gradle.api.internal.attributes.ImmutableAttributes
+import org.gradle.api.internal.cache.BinaryStore
+import org.gradle.cache.PersistentIndexedCache
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentSelector
+import org.gradle.internal.serialize.Encoder
+import org.gradle.util.SetSystemProperties
+import org.junit.Rule
+import spock.lang.Specification
+
+class PersistentResolutionResultsCacheTest extends Specification {
+    @Rule
+    SetSystemProperties systemProperties = new SetSystemProperties()
+
+    def indexedCache = Mock(PersistentIndexedCache)
+    def cacheLockingManager = Stub(CacheLockingManager) {
+        createCache("resolution-results", _, _) >> indexedCache
+        useCache(_ as Runnable) >> { Runnable action -> action.run() }
+        useCache(_ as Factory) >> { Factory action -> action.create() }
+    }
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator())
+    def metadataHandler = rules(false, false)
+    def repositories = [repository("repo1", false)]
+    def cache = new PersistentResolutionResultsCache(cacheLockingManager, versionSelectorScheme, Stub(ImmutableModuleIdentifierFactory), false)
+
+    def "configurations with the same declarations have the same key"() {
+        expect:
+        cache.keyFor(configuration([:]), repositories, metadataHandler) == cache.keyFor(configuration([:]), repositories, metadataHandler)
+    }
+
+    def "configurations with different declarations have different keys"() {
+        def key = cache.keyFor(configuration([:]), repositories, metadataHandler)
+
+        expect:
+        key != null
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.1")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.0").setTransitive(false)]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(dependencies: [dependency("org", "foo", "1.0").exclude(group: "org")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(forcedModules: [DefaultModuleVersionSelector.newSelector("org", "bar", "2.0")]), repositories, metadataHandler) != key
+        cache.keyFor(configuration(transitive: false), repositories, metadataHandler) != key
+        cache.keyFor(configuration(sortOrder: ResolutionStrategy.SortOrder.DEPENDENCY_FIRST), repositories, metadataHandler) != key
+        cache.keyFor(configuration([:]), [repository("repo2", false)], metadataHandler) != key
+    }
+
+    def "does not persist the result of a configuration with #description"() {
+        expect:
+        cache.keyFor(configuration(dependencies: [dependency]), repositories, metadataHandler) == null
+
+        where:
+        description               | dependency
+        "a dynamic version"       | dependency("org", "foo", "1.+")
+        "a version range"         | dependency("org", "foo", "[1.0,2.0)")
+        "a changing module"       | dependency("org", "foo", "1.0").setChanging(true)
+        "no version"              | dependency("org", "foo", null)
+        "a project dependency"    | Stub(ProjectDependency)
+    }
+
+    def "does not persist the result of a configuration with rules"() {
+        expect:
+        cache.keyFor(configuration(substitutionRules: true), repositories, metadataHandler) == null
+        cache.keyFor(configuration([:]), repositories, rules(true, false)) == null
+        cache.keyFor(configuration([:]), repositories, rules(false, true)) == null
+    }
+
+    def "does not inspect the repositories of a configuration whose result cannot be persisted"() {
+        def repository = Mock(ResolutionAwareRepository)
+
+        when:
+        def key = cache.keyFor(configuration(dependencies: [Stub(ProjectDependency)]), [repository], metadataHandler)
+
+        then:
+        key == null
+        0 * repository.createResolver()
+    }
+
+    def "does not persist the result of a configuration resolved from a local repository"() {
+        expect:
+        cache.keyFor(configuration([:]), [repository("repo1", false), repository("local", true)], metadataHandler) == null
+    }
+
+    def "does not persist results when disabled"() {
+        given:
+        System.setProperty(PersistentResolutionResultsCache.TOGGLE_PROPERTY, "false")
+
+        expect:
+        cache.keyFor(configuration([:]), repositories, metadataHandler) == null
+    }
+
+    def "records the events written to the result store"() {
+        def delegate = Mock(BinaryStore)
+        def recorder = cache.createRecorder(delegate)
+        def write = new BinaryStore.WriteAction() {
+            void write(Encoder encoder) {
+                encoder.writeByte((byte) 5)
+                encoder.writeString("foo")
+            }
+        }
+
+        when:
+        recorder.write(write)
+        cache.store("key", recorder)
+
+        then:
+        1 * delegate.write(write)
+        1 * indexedCache.put("key", { it.length > 0 })
+    }
+
+    def "does not persist the result of a graph with dynamic versions"() {
+        def recorder = cache.createRecorder(Stub(BinaryStore))
+
+        when:
+        recorder.visitSelector(Stub(DependencyGraphSelector) {
+            getRequested() >> DefaultModuleComponentSelector.newSelector("org", "foo", "latest.release")
+        })
+        cache.store("key", recorder)
+
+        then:
+        0 * indexedCache._
+    }
+
+    def "does not load results when refreshing dependencies"() {
+        def refreshingCache = new PersistentResolutionResultsCache(cacheLockingManager, versionSelectorScheme, Stub(ImmutableModuleIdentifierFactory), true)
+
+        expect:
+        refreshingCache.load("key", Stub(StoreSet)) == null
+    }
+
+    def "does not load results that were not persisted"() {
+        when:
+        def result = cache.load("key", Stub(StoreSet))
+
+        then:
+        1 * indexedCache.get("key") >> null
+        result == null
+    }
+
+    private ConfigurationInternal configuration(Map<String, ?> args) {
+        List<Dependency> dependencies = args.dependencies != null ? args.dependencies : [dependency("org", "foo", "1.0")]
+        def strategy = Stub(ResolutionStrategyInternal) {
+            resolveGraphToDetermineTaskDependencies() >> (args.substitutionRules ?: false)
+            getComponentSelection() >> Stub(ComponentSelectionRulesInternal) {
+                getRules() >> []
+            }
+            getForcedModules() >> ((args.forcedModules ?: []) as Set)
+            getConflictResolution() >> new LatestConflictResolution()
+            getSortOrder() >> (args.sortOrder ?: ResolutionStrategy.SortOrder.DEFAULT)
+        }
+        def configuration = Stub(ConfigurationInternal)
+        configuration.resolutionStrategy >> strategy
+        configuration.allDependencies >> Stub(DependencySet) {
+            iterator() >> { dependencies.iterator() }
+        }
+        configuration.hierarchy >> ([configuration] as Set)
+        configuration.excludeRules >> ([] as Set)
+        configuration.transitive >> (args.transitive != null ? args.transitive : true)
+        configuration.attributes >> ImmutableAttributes.EMPTY
+        configuration.module >> Stub(Module) {
+            getProjectPath() >> ":project"
+            getGroup() >> "group"
+            getName() >> "project"
+            getVersion() >> "1.0"
+            getStatus() >> "integration"
+        }
+        return configuration
+    }
+
+    private static DefaultExternalModuleDependency dependency(String group, String name, String version) {
+        new DefaultExternalModuleDependency(group, name, version)
+    }
+
+    private GlobalDependencyResolutionRules rules(boolean metadataRules, boolean moduleReplacements) {
+        Stub(GlobalDependencyResolutionRules) {
+            getComponentMetadataProcessor() >> Stub(ComponentMetadataProcessor) {
+                hasRules() >> metadataRules
+            }
+            getModuleMetadataProcessor() >> Stub(ComponentModuleMetadataProcessor) {
+                hasRules() >> moduleReplacements
+            }
+        }
+    }
+
+    private ResolutionAwareRepository repository(String id, boolean local) {
+        def resolver = Stub(ConfiguredModuleComponentRepository) {
+            getId() >> id
+            isLocal() >> local
+        }
+        return Stub(ResolutionAwareRepository) {
+            createResolver() >> resolver
+        }
+    }
+}
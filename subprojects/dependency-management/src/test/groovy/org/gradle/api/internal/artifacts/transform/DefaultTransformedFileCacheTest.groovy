@@ -21,6 +21,7 @@ import org.gradle.api.internal.artifacts.ivyservice.ArtifactCacheMetaData
 import org.gradle.api.internal.changedetection.state.InMemoryCacheDecoratorFactory
 import org.gradle.cache.internal.CacheScopeMapping
 import org.gradle.cache.internal.DefaultCacheRepository
+import org.gradle.internal.event.ListenerManager
 import org.gradle.internal.util.BiFunction
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
@@ -28,6 +29,8 @@ import org.gradle.testfixtures.internal.InMemoryCacheFactory
 import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 
+import java.util.concurrent.TimeUnit
+
 @UsesNativeServices
 class DefaultTransformedFileCacheTest extends ConcurrentSpec {
     @Rule
@@ -36,13 +39,14 @@ class DefaultTransformedFileCacheTest extends ConcurrentSpec {
     def scopeMapping = Stub(CacheScopeMapping)
     def cacheRepo = new DefaultCacheRepository(scopeMapping, new InMemoryCacheFactory())
     def decorator = Stub(InMemoryCacheDecoratorFactory)
+    def listenerManager = Mock(ListenerManager)
     def cache
 
     def setup() {
         scopeMapping.getBaseDirectory(_, _, _) >> tmpDir.testDirectory
         scopeMapping.getRootDirectory(_) >> tmpDir.testDirectory
         artifactCacheMetaData.transformsStoreDirectory >> tmpDir.file("output")
-        cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator)
+        cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager)
     }
 
     def "reuses result for given file and transform"() {
@@ -250,4 +254,131 @@ class DefaultTransformedFileCacheTest extends ConcurrentSpec {
         1 * transform.apply(inputFile, _) >>  { File file, File dir -> def r = new File(dir, "a.1"); r.text = "result"; [r] }
         0 * transform._
     }
+
+    def "moves transform outputs into the file store"() {
+        def inputFile = tmpDir.file("a")
+
+        when:
+        def result = cache.getResult(inputFile, HashCode.fromInt(123)) { File file, File dir ->
+            def r = new File(dir, "a.1")
+            r.text = "result"
+            [r, dir, file]
+        }
+
+        then:
+        result[0] == tmpDir.file("output/files-1.1/a/${HashCode.fromInt(123)}/a.1")
+        result[0].text == "result"
+        result[1] == tmpDir.file("output/files-1.1/a/${HashCode.fromInt(123)}")
+        result[2] == inputFile
+        tmpDir.file("output/files-1.1-staging").list().length == 0
+    }
+
+    def "registers for the end of each build session and unregisters when stopped"() {
+        def added = null
+        def removed = null
+
+        when:
+        def cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager)
+
+        then:
+        1 * listenerManager.addListener(_) >> { args -> added = args[0] }
+        added.is(cache)
+
+        when:
+        cache.stop()
+
+        then:
+        1 * listenerManager.removeListener(_) >> { args -> removed = args[0] }
+        removed.is(cache)
+    }
+
+    def "removes least recently used results at the end of the build session when the store is larger than its maximum size"() {
+        def cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager, 25)
+        def transform = { File file, File dir -> def r = new File(dir, file.name + ".out"); r.text = "0123456789"; [r] } as BiFunction
+
+        given:
+        def a = cache.getResult(tmpDir.file("a"), HashCode.fromInt(1), transform)
+        def b = cache.getResult(tmpDir.file("b"), HashCode.fromInt(2), transform)
+        def c = cache.getResult(tmpDir.file("c"), HashCode.fromInt(3), transform)
+        a.first().parentFile.lastModified = daysAgo(3)
+        b.first().parentFile.lastModified = daysAgo(2)
+
+        when:
+        cache.beforeComplete()
+
+        then:
+        !a.first().exists()
+        b.first().exists()
+        c.first().exists()
+    }
+
+    def "does not remove results used within the last day"() {
+        def cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager, 15)
+        def transform = { File file, File dir -> def r = new File(dir, file.name + ".out"); r.text = "0123456789"; [r] } as BiFunction
+
+        given:
+        def a = cache.getResult(tmpDir.file("a"), HashCode.fromInt(1), transform)
+        def b = cache.getResult(tmpDir.file("b"), HashCode.fromInt(2), transform)
+        a.first().parentFile.lastModified = b.first().parentFile.lastModified() - 10000
+
+        when:
+        cache.beforeComplete()
+
+        then:
+        a.first().exists()
+        b.first().exists()
+    }
+
+    def "records use of a result again in the next build session"() {
+        def cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager, 25)
+        def transform = { File file, File dir -> def r = new File(dir, file.name + ".out"); r.text = "0123456789"; [r] } as BiFunction
+
+        given:
+        def a = cache.getResult(tmpDir.file("a"), HashCode.fromInt(1), transform)
+        cache.getResult(tmpDir.file("b"), HashCode.fromInt(2), transform)
+        cache.getResult(tmpDir.file("c"), HashCode.fromInt(3), transform)
+        cache.beforeComplete()
+        a.first().parentFile.lastModified = daysAgo(3)
+
+        when:
+        cache.getResult(tmpDir.file("a"), HashCode.fromInt(1), transform)
+        cache.beforeComplete()
+
+        then:
+        a.first().exists()
+        a.first().parentFile.lastModified() > daysAgo(1)
+    }
+
+    def "removes results at most once a day"() {
+        def cache = new DefaultTransformedFileCache(artifactCacheMetaData, cacheRepo, decorator, listenerManager, 15)
+        def transform = { File file, File dir -> def r = new File(dir, file.name + ".out"); r.text = "0123456789"; [r] } as BiFunction
+        def marker = tmpDir.file("output/gc.properties")
+
+        given:
+        def a = cache.getResult(tmpDir.file("a"), HashCode.fromInt(1), transform)
+        cache.beforeComplete()
+        def b = cache.getResult(tmpDir.file("b"), HashCode.fromInt(2), transform)
+        a.first().parentFile.lastModified = daysAgo(3)
+
+        when:
+        cache.beforeComplete()
+
+        then:
+        marker.exists()
+        a.first().exists()
+        b.first().exists()
+
+        when:
+        marker.lastModified = daysAgo(2)
+        cache.beforeComplete()
+
+        then:
+        !a.first().exists()
+        b.first().exists()
+        marker.lastModified() > daysAgo(1)
+    }
+
+    private static long daysAgo(int days) {
+        return System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)
+    }
 }
@@ -45,9 +45,9 @@ public class EclipseDependenciesCreator {
     private final ProjectDependencyBuilder projectDependencyBuilder;
 
     public EclipseDependenciesCreator(EclipseClasspath classpath) {
-        this.dependenciesExtractor = new IdeDependenciesExtractor();
-        this.classpath = classpath;
         ServiceRegistry serviceRegistry = ((ProjectInternal) classpath.getProject()).getServices();
+        this.dependenciesExtractor = IdeDependenciesExtractor.from(serviceRegistry);
+        this.classpath = classpath;
         this.projectDependencyBuilder = new ProjectDependencyBuilder(CompositeBuildIdeProjectResolver.from(serviceRegistry));
     }
 
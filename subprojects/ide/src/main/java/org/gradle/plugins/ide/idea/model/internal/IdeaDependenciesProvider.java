@@ -45,7 +45,7 @@ public class IdeaDependenciesProvider {
     private final ModuleDependencyBuilder moduleDependencyBuilder;
 
     public IdeaDependenciesProvider(ServiceRegistry serviceRegistry) {
-        this(new IdeDependenciesExtractor(), serviceRegistry);
+        this(IdeDependenciesExtractor.from(serviceRegistry), serviceRegistry);
     }
 
     IdeaDependenciesProvider(IdeDependenciesExtractor dependenciesExtractor, ServiceRegistry serviceRegistry) {
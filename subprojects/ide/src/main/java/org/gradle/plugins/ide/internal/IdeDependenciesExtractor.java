@@ -31,6 +31,7 @@ import org.gradle.api.artifacts.result.ComponentArtifactsResult;
 import org.gradle.api.artifacts.result.ResolvedArtifactResult;
 import org.gradle.api.component.Artifact;
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.jvm.JvmLibrary;
 import org.gradle.language.base.artifact.SourcesArtifact;
 import org.gradle.language.java.artifact.JavadocArtifact;
@@ -51,7 +52,23 @@ import java.util.Set;
 
 public class IdeDependenciesExtractor {
 
-    private final IdeDependencyResolver ideDependencyResolver = new DefaultIdeDependencyResolver();
+    private final IdeDependencyResolver ideDependencyResolver;
+
+    public IdeDependenciesExtractor() {
+        this(new DefaultIdeDependencyResolver());
+    }
+
+    public IdeDependenciesExtractor(IdeDependencyResolver ideDependencyResolver) {
+        this.ideDependencyResolver = ideDependencyResolver;
+    }
+
+    /**
+     * Creates an extractor that uses the build scoped {@link IdeDependencyResolver}, when available, so that resolution results are shared by all IDE models of the build.
+     */
+    public static IdeDependenciesExtractor from(ServiceRegistry services) {
+        List<IdeDependencyResolver> resolvers = services.getAll(IdeDependencyResolver.class);
+        return resolvers.isEmpty() ? new IdeDependenciesExtractor() : new IdeDependenciesExtractor(resolvers.get(0));
+    }
 
     public Collection<IdeProjectDependency> extractProjectDependencies(Project project, Collection<Configuration> plusConfigurations, Collection<Configuration> minusConfigurations) {
         Map<ProjectComponentIdentifier, IdeProjectDependency> deps = Maps.newLinkedHashMap();
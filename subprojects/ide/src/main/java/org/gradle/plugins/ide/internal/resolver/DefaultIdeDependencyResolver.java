@@ -16,6 +16,9 @@
 
 package org.gradle.plugins.ide.internal.resolver;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import org.gradle.api.Project;
 import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.artifacts.Dependency;
@@ -30,22 +33,31 @@ import org.gradle.api.artifacts.result.DependencyResult;
 import org.gradle.api.artifacts.result.ResolutionResult;
 import org.gradle.api.artifacts.result.ResolvedComponentResult;
 import org.gradle.api.artifacts.result.UnresolvedDependencyResult;
-import org.gradle.api.specs.Spec;
 import org.gradle.api.specs.Specs;
 import org.gradle.internal.component.local.model.DefaultProjectComponentIdentifier;
 import org.gradle.plugins.ide.internal.resolver.model.IdeExtendedRepoFileDependency;
 import org.gradle.plugins.ide.internal.resolver.model.IdeLocalFileDependency;
 import org.gradle.plugins.ide.internal.resolver.model.IdeProjectDependency;
 import org.gradle.plugins.ide.internal.resolver.model.UnresolvedIdeRepoFileDependency;
-import org.gradle.util.CollectionUtils;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Extracts IDE dependencies from resolved configurations.
+ *
+ * <p>The resolution results and external artifacts of each configuration are memoized, so that the Eclipse and IDEA models built from
+ * the same configurations share a single traversal of each dependency graph. Model objects are created afresh on each call, as callers
+ * mutate them. Instances are thread-safe.</p>
+ */
 public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
+    private final ConcurrentMap<Configuration, ResolvedComponents> resolvedComponents = Maps.newConcurrentMap();
+    private final ConcurrentMap<Configuration, Set<ResolvedArtifact>> externalArtifacts = Maps.newConcurrentMap();
+
     /**
      * Gets IDE project dependencies.
      *
@@ -54,18 +66,10 @@ public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
      * @return IDE project dependencies
      */
     public List<IdeProjectDependency> getIdeProjectDependencies(Configuration configuration, Project project) {
-        ResolutionResult result = getIncomingResolutionResult(configuration);
-        final Set<ResolvedComponentResult> projectComponents = CollectionUtils.filter(result.getAllComponents(), new Spec<ResolvedComponentResult>() {
-            @Override
-            public boolean isSatisfiedBy(ResolvedComponentResult element) {
-                return element.getId() instanceof ProjectComponentIdentifier;
-            }
-        });
         List<IdeProjectDependency> ideProjectDependencies = new ArrayList<IdeProjectDependency>();
 
         ProjectComponentIdentifier thisProjectId = DefaultProjectComponentIdentifier.newProjectId(project);
-        for (ResolvedComponentResult projectComponent : projectComponents) {
-            ProjectComponentIdentifier projectId = (ProjectComponentIdentifier) projectComponent.getId();
+        for (ProjectComponentIdentifier projectId : getResolvedComponents(configuration).projectIds) {
             if (thisProjectId.equals(projectId)) {
                 continue;
             }
@@ -87,8 +91,7 @@ public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
      * @return Unresolved IDE repositoru file dependencies
      */
     public List<UnresolvedIdeRepoFileDependency> getUnresolvedIdeRepoFileDependencies(Configuration configuration) {
-        ResolutionResult result = getIncomingResolutionResult(configuration);
-        List<UnresolvedDependencyResult> unresolvedDependencies = findAllUnresolvedDependencyResults(result.getRoot().getDependencies());
+        List<UnresolvedDependencyResult> unresolvedDependencies = getResolvedComponents(configuration).unresolvedDependencies;
         List<UnresolvedIdeRepoFileDependency> unresolvedIdeRepoFileDependencies = new ArrayList<UnresolvedIdeRepoFileDependency>();
 
         for (UnresolvedDependencyResult unresolvedDependencyResult : unresolvedDependencies) {
@@ -120,14 +123,7 @@ public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
      * @return IDE repository file dependencies
      */
     public List<IdeExtendedRepoFileDependency> getIdeRepoFileDependencies(Configuration configuration) {
-        ResolutionResult result = getIncomingResolutionResult(configuration);
-        final Set<ResolvedComponentResult> resolvedRepoFileComponents = CollectionUtils.filter(result.getAllComponents(), new Spec<ResolvedComponentResult>() {
-            @Override
-            public boolean isSatisfiedBy(ResolvedComponentResult element) {
-                return element.getId() instanceof ModuleComponentIdentifier;
-            }
-        });
-        Set<ModuleVersionIdentifier> mappedResolvedDependencies = mapResolvedDependencies(resolvedRepoFileComponents);
+        Set<ModuleVersionIdentifier> mappedResolvedDependencies = getResolvedComponents(configuration).moduleVersions;
         Set<ResolvedArtifact> artifacts = getExternalArtifacts(configuration);
         List<IdeExtendedRepoFileDependency> externalDependencies = new ArrayList<IdeExtendedRepoFileDependency>();
         for (ResolvedArtifact artifact : artifacts) {
@@ -206,6 +202,24 @@ public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
         return dependency.getDependencyProject().getConfigurations().getByName(targetConfiguration);
     }
 
+    /**
+     * Gets the resolved components of a given configuration, traversing its resolution result on first use.
+     *
+     * @param configuration Configuration
+     * @return Resolved components
+     */
+    private ResolvedComponents getResolvedComponents(Configuration configuration) {
+        ResolvedComponents components = resolvedComponents.get(configuration);
+        if (components == null) {
+            components = new ResolvedComponents(getIncomingResolutionResult(configuration));
+            ResolvedComponents previous = resolvedComponents.putIfAbsent(configuration, components);
+            if (previous != null) {
+                components = previous;
+            }
+        }
+        return components;
+    }
+
     /**
      * Gets incoming resolution result for a given configuration.
      *
@@ -241,6 +255,39 @@ public class DefaultIdeDependencyResolver implements IdeDependencyResolver {
      * @return External artifacts
      */
     private Set<ResolvedArtifact> getExternalArtifacts(Configuration configuration) {
-        return configuration.getResolvedConfiguration().getLenientConfiguration().getArtifacts(Specs.SATISFIES_ALL);
+        Set<ResolvedArtifact> artifacts = externalArtifacts.get(configuration);
+        if (artifacts == null) {
+            artifacts = ImmutableSet.copyOf(configuration.getResolvedConfiguration().getLenientConfiguration().getArtifacts(Specs.SATISFIES_ALL));
+            Set<ResolvedArtifact> previous = externalArtifacts.putIfAbsent(configuration, artifacts);
+            if (previous != null) {
+                artifacts = previous;
+            }
+        }
+        return artifacts;
+    }
+
+    /**
+     * The components of a resolution result that the IDE models are built from.
+     */
+    private class ResolvedComponents {
+        private final List<ProjectComponentIdentifier> projectIds;
+        private final Set<ModuleVersionIdentifier> moduleVersions;
+        private final List<UnresolvedDependencyResult> unresolvedDependencies;
+
+        ResolvedComponents(ResolutionResult result) {
+            Set<ResolvedComponentResult> allComponents = result.getAllComponents();
+            ImmutableList.Builder<ProjectComponentIdentifier> projectIds = ImmutableList.builder();
+            Set<ResolvedComponentResult> moduleComponents = new LinkedHashSet<ResolvedComponentResult>();
+            for (ResolvedComponentResult component : allComponents) {
+                if (component.getId() instanceof ProjectComponentIdentifier) {
+                    projectIds.add((ProjectComponentIdentifier) component.getId());
+                } else if (component.getId() instanceof ModuleComponentIdentifier) {
+                    moduleComponents.add(component);
+                }
+            }
+            this.projectIds = projectIds.build();
+            this.moduleVersions = ImmutableSet.copyOf(mapResolvedDependencies(moduleComponents));
+            this.unresolvedDependencies = ImmutableList.copyOf(findAllUnresolvedDependencyResults(result.getRoot().getDependencies()));
+        }
     }
 }
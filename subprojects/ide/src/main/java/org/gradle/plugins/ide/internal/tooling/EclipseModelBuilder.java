@@ -21,7 +21,7 @@ import com.google.common.collect.Maps;
 import org.apache.commons.lang.StringUtils;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
-import org.gradle.api.specs.Spec;
+import org.gradle.api.artifacts.Configuration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.plugins.ide.eclipse.EclipsePlugin;
 import org.gradle.plugins.ide.eclipse.model.AbstractClasspathEntry;
@@ -55,7 +55,6 @@ import org.gradle.plugins.ide.internal.tooling.eclipse.DefaultEclipseTask;
 import org.gradle.plugins.ide.internal.tooling.java.DefaultInstalledJdk;
 import org.gradle.tooling.internal.gradle.DefaultGradleProject;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
-import org.gradle.util.CollectionUtils;
 import org.gradle.util.GUtil;
 
 import java.io.File;
@@ -67,16 +66,23 @@ import java.util.Set;
 
 public class EclipseModelBuilder implements ToolingModelBuilder {
     private final GradleProjectBuilder gradleProjectBuilder;
+    private final IdeDependencyPrefetcher prefetcher;
 
     private boolean projectDependenciesOnly;
     private DefaultEclipseProject result;
-    private List<DefaultEclipseProject> eclipseProjects;
+    private Map<String, DefaultEclipseProject> eclipseProjectsByPath;
+    private Map<String, DefaultEclipseProject> eclipseProjectsByName;
     private TasksFactory tasksFactory;
     private DefaultGradleProject<?> rootGradleProject;
     private Project currentProject;
 
     public EclipseModelBuilder(GradleProjectBuilder gradleProjectBuilder, ServiceRegistry services) {
+        this(gradleProjectBuilder, null, services);
+    }
+
+    EclipseModelBuilder(GradleProjectBuilder gradleProjectBuilder, IdeDependencyPrefetcher prefetcher, ServiceRegistry services) {
         this.gradleProjectBuilder = gradleProjectBuilder;
+        this.prefetcher = prefetcher;
     }
 
     @Override
@@ -91,16 +97,31 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
         tasksFactory = new TasksFactory(includeTasks);
         projectDependenciesOnly = modelName.equals("org.gradle.tooling.model.eclipse.HierarchicalEclipseProject");
         currentProject = project;
-        eclipseProjects = Lists.newArrayList();
+        eclipseProjectsByPath = Maps.newHashMap();
+        eclipseProjectsByName = Maps.newHashMap();
         Project root = project.getRootProject();
         rootGradleProject = gradleProjectBuilder.buildAll(project);
         tasksFactory.collectTasks(root);
         applyEclipsePlugin(root);
         buildHierarchy(root);
+        prefetchDependencies(root);
         populate(root);
         return result;
     }
 
+    private void prefetchDependencies(Project root) {
+        if (prefetcher == null) {
+            return;
+        }
+        List<Configuration> configurations = Lists.newArrayList();
+        for (Project p : root.getAllprojects()) {
+            EclipseClasspath eclipseClasspath = p.getExtensions().getByType(EclipseModel.class).getClasspath();
+            configurations.addAll(eclipseClasspath.getPlusConfigurations());
+            configurations.addAll(eclipseClasspath.getMinusConfigurations());
+        }
+        prefetcher.prefetch(root, configurations, !projectDependenciesOnly);
+    }
+
     private void applyEclipsePlugin(Project root) {
         Set<Project> allProjects = root.getAllprojects();
         for (Project p : allProjects) {
@@ -134,7 +155,10 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
         if (project == currentProject) {
             result = eclipseProject;
         }
-        eclipseProjects.add(eclipseProject);
+        eclipseProjectsByPath.put(project.getPath(), eclipseProject);
+        if (!eclipseProjectsByName.containsKey(eclipseProject.getName())) {
+            eclipseProjectsByName.put(eclipseProject.getName(), eclipseProject);
+        }
     }
 
     private void populate(Project project) {
@@ -241,22 +265,12 @@ public class EclipseModelBuilder implements ToolingModelBuilder {
         }
     }
 
-    private DefaultEclipseProject findEclipseProject(final Project project) {
-        return CollectionUtils.findFirst(eclipseProjects, new Spec<DefaultEclipseProject>() {
-            @Override
-            public boolean isSatisfiedBy(DefaultEclipseProject element) {
-                return element.getGradleProject().getPath().equals(project.getPath());
-            }
-        });
+    private DefaultEclipseProject findEclipseProject(Project project) {
+        return eclipseProjectsByPath.get(project.getPath());
     }
 
-    private DefaultEclipseProject findEclipseProjectByName(final String eclipseProjectName) {
-        return CollectionUtils.findFirst(eclipseProjects, new Spec<DefaultEclipseProject>() {
-            @Override
-            public boolean isSatisfiedBy(DefaultEclipseProject element) {
-                return element.getName().equals(eclipseProjectName);
-            }
-        });
+    private DefaultEclipseProject findEclipseProjectByName(String eclipseProjectName) {
+        return eclipseProjectsByName.get(eclipseProjectName);
     }
 
     private static List<DefaultClasspathAttribute> createAttributes(AbstractClasspathEntry classpathEntry) {
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.plugins.ide.internal.tooling;
+
+import com.google.common.collect.Sets;
+import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.plugins.ide.internal.resolver.IdeDependencyResolver;
+
+import java.util.Set;
+
+/**
+ * Resolves the configurations of many IDE modules concurrently, ahead of the model builders visiting them one at a time.
+ *
+ * <p>Relies on the build scoped {@link IdeDependencyResolver} memoizing the results, so that the model builders only assemble models from results
+ * that are already in memory. Only used when parallel project execution is enabled, as this is the mode in which configurations of different
+ * projects are already resolved concurrently.</p>
+ *
+ * <p>The configurations are resolved using a dedicated executor rather than the build operation processor, as resolving a configuration may itself
+ * wait on build operations, such as downloading artifacts, which would never run when all the build operation workers are busy prefetching.</p>
+ */
+class IdeDependencyPrefetcher {
+    private final IdeDependencyResolver resolver;
+    private final ExecutorFactory executorFactory;
+
+    IdeDependencyPrefetcher(IdeDependencyResolver resolver, ExecutorFactory executorFactory) {
+        this.resolver = resolver;
+        this.executorFactory = executorFactory;
+    }
+
+    void prefetch(Project rootProject, Iterable<Configuration> configurations, final boolean includeArtifacts) {
+        if (!rootProject.getGradle().getStartParameter().isParallelProjectExecutionEnabled()) {
+            return;
+        }
+        final Set<Configuration> distinctConfigurations = Sets.newLinkedHashSet(configurations);
+        if (distinctConfigurations.size() < 2) {
+            return;
+        }
+        int maxWorkers = rootProject.getGradle().getStartParameter().getMaxWorkerCount();
+        StoppableExecutor executor = executorFactory.create("Resolve IDE dependencies", Math.min(maxWorkers, distinctConfigurations.size()));
+        try {
+            for (Configuration configuration : distinctConfigurations) {
+                executor.execute(new ResolveConfiguration(configuration, includeArtifacts));
+            }
+        } finally {
+            executor.stop();
+        }
+    }
+
+    private class ResolveConfiguration implements Runnable {
+        private final Configuration configuration;
+        private final boolean includeArtifacts;
+
+        ResolveConfiguration(Configuration configuration, boolean includeArtifacts) {
+            this.configuration = configuration;
+            this.includeArtifacts = includeArtifacts;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (includeArtifacts) {
+                    resolver.getIdeRepoFileDependencies(configuration);
+                } else {
+                    resolver.getUnresolvedIdeRepoFileDependencies(configuration);
+                }
+            } catch (RuntimeException e) {
+                // Failures are not memoized: the model builder hits the same failure when it visits this configuration, and reports it as usual
+            }
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.gradle.plugins.ide.internal.tooling;
 
 import org.gradle.api.JavaVersion;
 import org.gradle.api.Project;
+import org.gradle.api.artifacts.Configuration;
 import org.gradle.api.plugins.JavaPluginConvention;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.plugins.ide.idea.IdeaPlugin;
@@ -45,6 +46,7 @@ import org.gradle.tooling.internal.gradle.DefaultGradleProject;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -56,11 +58,17 @@ import java.util.Set;
 
 public class IdeaModelBuilder implements ToolingModelBuilder {
     private final GradleProjectBuilder gradleProjectBuilder;
+    private final IdeDependencyPrefetcher prefetcher;
 
     private boolean offlineDependencyResolution;
 
     public IdeaModelBuilder(GradleProjectBuilder gradleProjectBuilder, ServiceRegistry services) {
+        this(gradleProjectBuilder, null, services);
+    }
+
+    IdeaModelBuilder(GradleProjectBuilder gradleProjectBuilder, IdeDependencyPrefetcher prefetcher, ServiceRegistry services) {
         this.gradleProjectBuilder = gradleProjectBuilder;
+        this.prefetcher = prefetcher;
     }
 
     @Override
@@ -103,6 +111,7 @@ public class IdeaModelBuilder implements ToolingModelBuilder {
         for (IdeaModule module : projectModel.getModules()) {
             appendModule(modules, module, out, rootGradleProject);
         }
+        prefetchDependencies(project, projectModel.getModules());
         for (IdeaModule module : projectModel.getModules()) {
             buildDependencies(modules, module);
         }
@@ -111,6 +120,21 @@ public class IdeaModelBuilder implements ToolingModelBuilder {
         return out;
     }
 
+    private void prefetchDependencies(Project root, Collection<IdeaModule> ideaModules) {
+        if (prefetcher == null) {
+            return;
+        }
+        List<Configuration> configurations = new ArrayList<Configuration>();
+        for (IdeaModule module : ideaModules) {
+            for (Map<String, Collection<Configuration>> scope : module.getScopes().values()) {
+                for (Collection<Configuration> scopeConfigurations : scope.values()) {
+                    configurations.addAll(scopeConfigurations);
+                }
+            }
+        }
+        prefetcher.prefetch(root, configurations, true);
+    }
+
     private IdeaPlugin ideaPluginFor(Project project) {
         return project.getPlugins().getPlugin(IdeaPlugin.class);
     }
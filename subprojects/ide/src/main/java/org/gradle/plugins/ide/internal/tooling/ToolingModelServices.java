@@ -18,9 +18,12 @@ package org.gradle.plugins.ide.internal.tooling;
 
 import org.gradle.api.internal.artifacts.ivyservice.projectmodule.ProjectPublicationRegistry;
 import org.gradle.api.internal.project.ProjectTaskLister;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.service.ServiceRegistration;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.PluginServiceRegistry;
+import org.gradle.plugins.ide.internal.resolver.DefaultIdeDependencyResolver;
+import org.gradle.plugins.ide.internal.resolver.IdeDependencyResolver;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.internal.DefaultToolingModelBuilderRegistry;
 
@@ -48,11 +51,16 @@ public class ToolingModelServices implements PluginServiceRegistry {
 
     private static class BuildScopeToolingServices {
 
-        protected ToolingModelBuilderRegistry createBuildScopedToolingModelBuilders(ProjectTaskLister taskLister, ProjectPublicationRegistry projectPublicationRegistry, ServiceRegistry services) {
+        protected IdeDependencyResolver createIdeDependencyResolver() {
+            return new DefaultIdeDependencyResolver();
+        }
+
+        protected ToolingModelBuilderRegistry createBuildScopedToolingModelBuilders(ProjectTaskLister taskLister, ProjectPublicationRegistry projectPublicationRegistry, IdeDependencyResolver ideDependencyResolver, ExecutorFactory executorFactory, ServiceRegistry services) {
             DefaultToolingModelBuilderRegistry registry = new DefaultToolingModelBuilderRegistry();
             GradleProjectBuilder gradleProjectBuilder  = new GradleProjectBuilder();
-            IdeaModelBuilder ideaModelBuilder = new IdeaModelBuilder(gradleProjectBuilder, services);
-            registry.register(new EclipseModelBuilder(gradleProjectBuilder, services));
+            IdeDependencyPrefetcher prefetcher = new IdeDependencyPrefetcher(ideDependencyResolver, executorFactory);
+            IdeaModelBuilder ideaModelBuilder = new IdeaModelBuilder(gradleProjectBuilder, prefetcher, services);
+            registry.register(new EclipseModelBuilder(gradleProjectBuilder, prefetcher, services));
             registry.register(ideaModelBuilder);
             registry.register(gradleProjectBuilder);
             registry.register(new GradleBuildBuilder());
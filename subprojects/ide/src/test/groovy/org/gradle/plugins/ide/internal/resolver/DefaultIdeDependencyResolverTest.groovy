@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.plugins.ide.internal.resolver
+
+import org.gradle.api.artifacts.Configuration
+import org.gradle.api.artifacts.LenientConfiguration
+import org.gradle.api.artifacts.ModuleVersionIdentifier
+import org.gradle.api.artifacts.ResolvableDependencies
+import org.gradle.api.artifacts.ResolvedArtifact
+import org.gradle.api.artifacts.ResolvedConfiguration
+import org.gradle.api.artifacts.ResolvedModuleVersion
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.artifacts.result.ResolutionResult
+import org.gradle.api.artifacts.result.ResolvedComponentResult
+import spock.lang.Specification
+
+class DefaultIdeDependencyResolverTest extends Specification {
+    def resolver = new DefaultIdeDependencyResolver()
+    def configuration = Mock(Configuration)
+    def incoming = Mock(ResolvableDependencies)
+    def resolutionResult = Mock(ResolutionResult)
+    def resolvedConfiguration = Mock(ResolvedConfiguration)
+    def lenientConfiguration = Mock(LenientConfiguration)
+    def root = Mock(ResolvedComponentResult)
+    def moduleId = Mock(ModuleVersionIdentifier)
+    def module = Mock(ResolvedComponentResult)
+    def artifact = Mock(ResolvedArtifact)
+
+    def setup() {
+        _ * configuration.incoming >> incoming
+        _ * incoming.resolutionResult >> resolutionResult
+        _ * configuration.resolvedConfiguration >> resolvedConfiguration
+        _ * resolvedConfiguration.lenientConfiguration >> lenientConfiguration
+        _ * resolutionResult.root >> root
+        _ * root.dependencies >> ([] as Set)
+        _ * module.id >> Mock(ModuleComponentIdentifier)
+        _ * module.moduleVersion >> moduleId
+        _ * artifact.moduleVersion >> Stub(ResolvedModuleVersion) { getId() >> moduleId }
+        _ * artifact.file >> new File("lib.jar")
+    }
+
+    def "traverses the resolution result and artifacts of a configuration once"() {
+        when:
+        def first = resolver.getIdeRepoFileDependencies(configuration)
+        def second = resolver.getIdeRepoFileDependencies(configuration)
+        def unresolved = resolver.getUnresolvedIdeRepoFileDependencies(configuration)
+
+        then:
+        1 * resolutionResult.allComponents >> ([root, module] as Set)
+        1 * lenientConfiguration.getArtifacts(_) >> ([artifact] as Set)
+        first*.file == [new File("lib.jar")]
+        second*.file == [new File("lib.jar")]
+        first[0].id == moduleId
+        unresolved.empty
+    }
+
+    def "creates new dependency instances for each request"() {
+        given:
+        resolutionResult.allComponents >> ([root, module] as Set)
+        lenientConfiguration.getArtifacts(_) >> ([artifact] as Set)
+
+        when:
+        def first = resolver.getIdeRepoFileDependencies(configuration)
+        def second = resolver.getIdeRepoFileDependencies(configuration)
+        first[0].addSourceFile(new File("lib-sources.jar"))
+
+        then:
+        !first[0].is(second[0])
+        second[0].sourceFiles.empty
+    }
+}
@@ -16,10 +16,14 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
+import com.google.common.io.CharStreams;
+import org.apache.tools.zip.ZipEntry;
 import org.apache.tools.zip.ZipFile;
 import org.gradle.api.InvalidUserDataException;
+import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileCollection;
 import org.gradle.api.internal.cache.FileContentCache;
 import org.gradle.api.internal.cache.FileContentCacheFactory;
@@ -27,26 +31,62 @@ import org.gradle.api.internal.file.FileCollectionFactory;
 import org.gradle.api.internal.file.collections.MinimalFileSet;
 import org.gradle.api.internal.tasks.AbstractTaskDependency;
 import org.gradle.api.internal.tasks.TaskDependencyResolveContext;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
+import org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType;
 import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.internal.FileUtils;
 import org.gradle.internal.nativeintegration.filesystem.FileType;
 import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.ListSerializer;
 import org.gradle.util.DeprecationLogger;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 public class AnnotationProcessorDetector {
+    private static final String PROCESSOR_SERVICES_FILE = "META-INF/services/javax.annotation.processing.Processor";
+    private static final String INCREMENTAL_PROCESSORS_FILE = "META-INF/gradle/incremental.annotation.processors";
+
     private final FileCollectionFactory fileCollectionFactory;
     private final FileContentCache<Boolean> cache;
+    private final FileContentCache<List<AnnotationProcessorDeclaration>> declarationsCache;
 
     public AnnotationProcessorDetector(FileCollectionFactory fileCollectionFactory, FileContentCacheFactory cacheFactory) {
         this.fileCollectionFactory = fileCollectionFactory;
         cache = cacheFactory.newCache("annotation-processors", 20000, new AnnotationServiceLocator(), BaseSerializerFactory.BOOLEAN_SERIALIZER);
+        declarationsCache = cacheFactory.newCache("annotation-processor-declarations", 20000, new AnnotationProcessorDeclarationLocator(), new ListSerializer<AnnotationProcessorDeclaration>(new AnnotationProcessorDeclaration.Serializer()));
+    }
+
+    /**
+     * Determines the annotation processors declared on the given annotation processor path, along with whether they support incremental compilation.
+     *
+     * @return The processors in discovery order, or null when the processors to use cannot be determined from the path, for example because they are named using the {@code -processor} compiler argument.
+     */
+    public List<AnnotationProcessorDeclaration> getEffectiveAnnotationProcessors(CompileOptions compileOptions, Iterable<File> annotationProcessorPath) {
+        if (checkExplicitProcessorOption(compileOptions)) {
+            return null;
+        }
+        List<AnnotationProcessorDeclaration> processors = new ArrayList<AnnotationProcessorDeclaration>();
+        Set<String> seen = new HashSet<String>();
+        for (File file : annotationProcessorPath) {
+            for (AnnotationProcessorDeclaration declaration : declarationsCache.get(file)) {
+                if (seen.add(declaration.getClassName())) {
+                    processors.add(declaration);
+                }
+            }
+        }
+        return processors;
     }
 
     /**
@@ -115,14 +155,14 @@ public class AnnotationProcessorDetector {
         @Override
         public Boolean calculate(File file, FileType fileType) {
             if (fileType == FileType.Directory) {
-                return new File(file, "META-INF/services/javax.annotation.processing.Processor").isFile();
+                return new File(file, PROCESSOR_SERVICES_FILE).isFile();
             }
 
             if (fileType == FileType.RegularFile && FileUtils.isJar(file.getName())) {
                 try {
                     ZipFile zipFile = new ZipFile(file);
                     try {
-                        return zipFile.getEntry("META-INF/services/javax.annotation.processing.Processor") != null;
+                        return zipFile.getEntry(PROCESSOR_SERVICES_FILE) != null;
                     } finally {
                         zipFile.close();
                     }
@@ -134,4 +174,89 @@ public class AnnotationProcessorDetector {
             return false;
         }
     }
+
+    private static class AnnotationProcessorDeclarationLocator implements FileContentCacheFactory.Calculator<List<AnnotationProcessorDeclaration>> {
+        @Override
+        public List<AnnotationProcessorDeclaration> calculate(File file, FileType fileType) {
+            if (fileType == FileType.Directory) {
+                try {
+                    return toDeclarations(readLines(new File(file, PROCESSOR_SERVICES_FILE)), readLines(new File(file, INCREMENTAL_PROCESSORS_FILE)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            if (fileType == FileType.RegularFile && FileUtils.isJar(file.getName())) {
+                try {
+                    ZipFile zipFile = new ZipFile(file);
+                    try {
+                        return toDeclarations(readLines(zipFile, PROCESSOR_SERVICES_FILE), readLines(zipFile, INCREMENTAL_PROCESSORS_FILE));
+                    } finally {
+                        zipFile.close();
+                    }
+                } catch (IOException e) {
+                    DeprecationLogger.nagUserWith("Malformed jar [" + file.getName() + "] found on compile classpath. Gradle 5.0 will no longer allow malformed jars on compile classpath.");
+                }
+            }
+
+            return Collections.emptyList();
+        }
+
+        private static List<AnnotationProcessorDeclaration> toDeclarations(List<String> processorNames, List<String> incrementalProcessors) {
+            if (processorNames.isEmpty()) {
+                return Collections.emptyList();
+            }
+            Map<String, IncrementalAnnotationProcessorType> types = new LinkedHashMap<String, IncrementalAnnotationProcessorType>();
+            for (String line : incrementalProcessors) {
+                List<String> parts = Splitter.on(',').trimResults().splitToList(line);
+                IncrementalAnnotationProcessorType type = parts.size() == 2 ? parseType(parts.get(1)) : IncrementalAnnotationProcessorType.UNKNOWN;
+                types.put(parts.get(0), type);
+            }
+            List<AnnotationProcessorDeclaration> declarations = new ArrayList<AnnotationProcessorDeclaration>(processorNames.size());
+            for (String processorName : processorNames) {
+                IncrementalAnnotationProcessorType type = types.get(processorName);
+                declarations.add(new AnnotationProcessorDeclaration(processorName, type == null ? IncrementalAnnotationProcessorType.UNKNOWN : type));
+            }
+            return declarations;
+        }
+
+        private static IncrementalAnnotationProcessorType parseType(String type) {
+            try {
+                return IncrementalAnnotationProcessorType.valueOf(type.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return IncrementalAnnotationProcessorType.UNKNOWN;
+            }
+        }
+
+        private static List<String> readLines(ZipFile zipFile, String path) throws IOException {
+            ZipEntry entry = zipFile.getEntry(path);
+            if (entry == null) {
+                return Collections.emptyList();
+            }
+            return readLines(zipFile.getInputStream(entry));
+        }
+
+        private static List<String> readLines(File file) throws IOException {
+            if (!file.isFile()) {
+                return Collections.emptyList();
+            }
+            return readLines(new FileInputStream(file));
+        }
+
+        private static List<String> readLines(InputStream inputStream) throws IOException {
+            List<String> lines = new ArrayList<String>();
+            try {
+                for (String line : CharStreams.readLines(new InputStreamReader(inputStream, Charsets.UTF_8))) {
+                    int comment = line.indexOf('#');
+                    String content = (comment >= 0 ? line.substring(0, comment) : line).trim();
+                    if (!content.isEmpty()) {
+                        lines.add(content);
+                    }
+                }
+            } finally {
+                inputStream.close();
+            }
+            return lines;
+        }
+    }
 }
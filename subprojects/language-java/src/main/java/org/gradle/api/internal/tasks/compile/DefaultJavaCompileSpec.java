@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
 import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
@@ -25,6 +26,7 @@ public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implem
     private CompileOptions compileOptions;
     private File dependencyCacheDir;
     private List<File> annotationProcessorPath;
+    private List<AnnotationProcessorDeclaration> effectiveAnnotationProcessors;
 
     @Override
     public CompileOptions getCompileOptions() {
@@ -56,4 +58,14 @@ public class DefaultJavaCompileSpec extends DefaultJvmLanguageCompileSpec implem
     public void setAnnotationProcessorPath(List<File> annotationProcessorPath) {
         this.annotationProcessorPath = annotationProcessorPath;
     }
+
+    @Override
+    public List<AnnotationProcessorDeclaration> getEffectiveAnnotationProcessors() {
+        return effectiveAnnotationProcessors;
+    }
+
+    @Override
+    public void setEffectiveAnnotationProcessors(List<AnnotationProcessorDeclaration> effectiveAnnotationProcessors) {
+        this.effectiveAnnotationProcessors = effectiveAnnotationProcessors;
+    }
 }
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile;
 
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
 import org.gradle.api.tasks.compile.CompileOptions;
 
 import java.io.File;
@@ -39,4 +40,11 @@ public interface JavaCompileSpec extends JvmLanguageCompileSpec {
     List<File> getAnnotationProcessorPath();
 
     void setAnnotationProcessorPath(List<File> path);
+
+    /**
+     * The annotation processors declared on the annotation processor path, when the compiler should load them itself so it can track what they generate. Null when the compiler should discover processors on its own.
+     */
+    List<AnnotationProcessorDeclaration> getEffectiveAnnotationProcessors();
+
+    void setEffectiveAnnotationProcessors(List<AnnotationProcessorDeclaration> annotationProcessors);
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import org.gradle.api.internal.hash.FileHasher;
+import org.gradle.internal.concurrent.CompositeStoppable;
+import org.gradle.internal.concurrent.Stoppable;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps the compiler's standard file managers open between compilations in the same process. A standard file manager caches the archives it has
+ * opened, so reusing one saves javac from reopening and re-indexing the platform classes and the classpath jars for every compilation.
+ *
+ * <p>Each file manager is used by a single compilation at a time. The compiler options that configure a location, such as {@code -classpath}, are
+ * applied to the file manager and stay in effect until the option is given again, so file managers are only reused for compilations that
+ * configure the same locations. javac offers no way to evict a single archive from a file manager, so all cached file managers are discarded as
+ * soon as the content hash of a jar they may have opened has changed.</p>
+ *
+ * <p>The cache is scoped to a build session, so that the archives held open by the idle file managers are closed when the build finishes.</p>
+ */
+public class JavaFileManagerCache implements Stoppable {
+    public static final String REUSE_FILE_MANAGERS = "org.gradle.internal.java.compile.reuse.file.managers";
+
+    private static final int MAX_IDLE_FILE_MANAGERS = 8;
+    private static final Set<String> LOCATION_OPTIONS = ImmutableSet.of(
+        "-d", "-s", "-h", "-classpath", "-cp", "--class-path", "-sourcepath", "--source-path", "-processorpath", "--processor-path",
+        "-bootclasspath", "--boot-class-path", "-extdirs", "--extension-directories", "-endorseddirs", "--endorsed-dirs", "--release", "--system", "--module-path", "-p"
+    );
+    private static final String BOOT_CLASSPATH_OPTION_PREFIX = "-Xbootclasspath";
+
+    private final FileHasher fileHasher;
+    private final boolean reuseFileManagers;
+    private final Object lock = new Object();
+    private final Map<Key, Deque<StandardJavaFileManager>> idleFileManagers = new HashMap<Key, Deque<StandardJavaFileManager>>();
+    private final Map<StandardJavaFileManager, Lease> leases = new IdentityHashMap<StandardJavaFileManager, Lease>();
+    private final Map<File, HashCode> jarHashes = new HashMap<File, HashCode>();
+    private int generation;
+    private boolean stopped;
+
+    public JavaFileManagerCache(FileHasher fileHasher) {
+        this(fileHasher, !System.getProperty(REUSE_FILE_MANAGERS, "true").equals("false"));
+    }
+
+    public JavaFileManagerCache(FileHasher fileHasher, boolean reuseFileManagers) {
+        this.fileHasher = fileHasher;
+        this.reuseFileManagers = reuseFileManagers;
+    }
+
+    /**
+     * Returns a file manager for exclusive use by a single compilation with the given classpath. The file manager must be given back using {@link #release(StandardJavaFileManager)}.
+     */
+    public StandardJavaFileManager acquire(JavaCompiler compiler, Charset charset, List<String> options, Iterable<File> classpath) {
+        if (!reuseFileManagers) {
+            return compiler.getStandardFileManager(null, null, charset);
+        }
+        Key key = new Key(compiler.getClass(), charset, getLocationOptions(options));
+        Map<File, HashCode> classpathHashes = hashJars(classpath);
+        StandardJavaFileManager fileManager;
+        synchronized (lock) {
+            if (recordJarHashes(classpathHashes)) {
+                discardIdleFileManagers();
+            }
+            Deque<StandardJavaFileManager> idle = idleFileManagers.get(key);
+            fileManager = idle == null ? null : idle.pollFirst();
+            if (fileManager != null) {
+                leases.put(fileManager, new Lease(key, generation));
+            }
+        }
+        if (fileManager == null) {
+            fileManager = compiler.getStandardFileManager(null, null, charset);
+            synchronized (lock) {
+                leases.put(fileManager, new Lease(key, generation));
+            }
+        }
+        return fileManager;
+    }
+
+    /**
+     * Gives back a file manager obtained from {@link #acquire(JavaCompiler, Charset, List, Iterable)}, keeping it open for the next compilation when it is still up-to-date.
+     */
+    public void release(StandardJavaFileManager fileManager) {
+        if (reuseFileManagers) {
+            synchronized (lock) {
+                Lease lease = leases.remove(fileManager);
+                if (lease != null && lease.generation == generation && !stopped) {
+                    Deque<StandardJavaFileManager> idle = idleFileManagers.get(lease.key);
+                    if (idle == null) {
+                        idle = new ArrayDeque<StandardJavaFileManager>();
+                        idleFileManagers.put(lease.key, idle);
+                    }
+                    if (idle.size() < MAX_IDLE_FILE_MANAGERS) {
+                        idle.addFirst(fileManager);
+                        return;
+                    }
+                }
+            }
+        }
+        CompositeStoppable.stoppable(fileManager).stop();
+    }
+
+    /**
+     * Closes the idle file managers. File managers still in use are closed when they are given back.
+     */
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            stopped = true;
+            discardIdleFileManagers();
+            jarHashes.clear();
+        }
+    }
+
+    private Map<File, HashCode> hashJars(Iterable<File> classpath) {
+        Map<File, HashCode> hashes = new HashMap<File, HashCode>();
+        for (File file : classpath) {
+            if (file.isFile()) {
+                hashes.put(file, fileHasher.hash(file));
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * Records the given content hashes of the jars in a classpath.
+     *
+     * @return true when one of the jars has changed since it was last recorded.
+     */
+    private boolean recordJarHashes(Map<File, HashCode> classpathHashes) {
+        boolean changed = false;
+        for (Map.Entry<File, HashCode> entry : classpathHashes.entrySet()) {
+            HashCode previous = jarHashes.put(entry.getKey(), entry.getValue());
+            if (previous != null && !previous.equals(entry.getValue())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private void discardIdleFileManagers() {
+        generation++;
+        for (Deque<StandardJavaFileManager> idle : idleFileManagers.values()) {
+            CompositeStoppable.stoppable(idle).stop();
+        }
+        idleFileManagers.clear();
+    }
+
+    private static Set<String> getLocationOptions(List<String> options) {
+        Set<String> locationOptions = new TreeSet<String>();
+        for (String option : options) {
+            if (LOCATION_OPTIONS.contains(option)) {
+                locationOptions.add(option);
+            } else if (option.startsWith(BOOT_CLASSPATH_OPTION_PREFIX)) {
+                locationOptions.add(option.substring(0, Math.max(option.indexOf(':'), BOOT_CLASSPATH_OPTION_PREFIX.length())));
+            }
+        }
+        return locationOptions;
+    }
+
+    private static class Key {
+        private final Class<?> compilerType;
+        private final Charset charset;
+        private final Set<String> locationOptions;
+
+        Key(Class<?> compilerType, Charset charset, Set<String> locationOptions) {
+            this.compilerType = compilerType;
+            this.charset = charset;
+            this.locationOptions = locationOptions;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key other = (Key) o;
+            return compilerType.equals(other.compilerType) && Objects.equal(charset, other.charset) && locationOptions.equals(other.locationOptions);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(compilerType, charset, locationOptions);
+        }
+    }
+
+    private static class Lease {
+        private final Key key;
+        private final int generation;
+
+        Lease(Key key, int generation) {
+            this.key = key;
+            this.generation = generation;
+        }
+    }
+}
@@ -15,7 +15,13 @@
  */
 package org.gradle.api.internal.tasks.compile;
 
+import com.google.common.collect.Iterables;
+import org.gradle.api.internal.hash.DefaultFileHasher;
 import org.gradle.api.internal.tasks.SimpleWorkResult;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingCompileTask;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
+import org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType;
 import org.gradle.api.tasks.WorkResult;
 import org.gradle.api.tasks.compile.CompileOptions;
 import org.gradle.internal.Factory;
@@ -26,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import javax.tools.StandardJavaFileManager;
+import java.io.File;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.List;
@@ -33,30 +40,70 @@ import java.util.List;
 public class JdkJavaCompiler implements Compiler<JavaCompileSpec>, Serializable {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdkJavaCompiler.class);
     private final Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory;
+    // Not sent to compiler daemons, which create a new file manager for each compilation
+    private final transient JavaFileManagerCache fileManagerCache;
 
-    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory) {
+    public JdkJavaCompiler(Factory<JavaCompiler> javaHomeBasedJavaCompilerFactory, JavaFileManagerCache fileManagerCache) {
         this.javaHomeBasedJavaCompilerFactory = javaHomeBasedJavaCompilerFactory;
+        this.fileManagerCache = fileManagerCache;
     }
 
     @Override
     public WorkResult execute(JavaCompileSpec spec) {
         LOGGER.info("Compiling with JDK Java compiler API.");
 
-        JavaCompiler.CompilationTask task = createCompileTask(spec);
-        boolean success = task.call();
-        if (!success) {
-            throw new CompilationFailedException();
+        AnnotationProcessingResult processingResult = canRecordGeneratedTypes(spec.getEffectiveAnnotationProcessors()) ? new AnnotationProcessingResult() : null;
+        List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
+        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
+        JavaFileManagerCache fileManagerCache = this.fileManagerCache != null ? this.fileManagerCache : new JavaFileManagerCache(new DefaultFileHasher(), false);
+        StandardJavaFileManager fileManager = fileManagerCache.acquire(compiler, getCharset(spec.getCompileOptions()), options, getJarsUsedByCompiler(spec));
+        try {
+            JavaCompiler.CompilationTask task = createCompileTask(spec, options, compiler, fileManager, processingResult);
+            boolean success = task.call();
+            if (!success) {
+                throw new CompilationFailedException();
+            }
+        } finally {
+            fileManagerCache.release(fileManager);
         }
 
-        return new SimpleWorkResult(true);
+        return processingResult != null ? new JdkJavaCompilerResult(processingResult) : new SimpleWorkResult(true);
     }
 
-    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec) {
-        List<String> options = new JavaCompilerArgumentsBuilder(spec).build();
-        JavaCompiler compiler = javaHomeBasedJavaCompilerFactory.create();
-        CompileOptions compileOptions = spec.getCompileOptions();
-        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null);
+    /**
+     * The processors are only loaded by Gradle when all of them are incremental. Non-incremental processors may rely on
+     * the compiler's own processing environment, so they are left for the compiler to discover and run unwrapped.
+     */
+    private static boolean canRecordGeneratedTypes(List<AnnotationProcessorDeclaration> processors) {
+        if (processors == null) {
+            return false;
+        }
+        for (AnnotationProcessorDeclaration processor : processors) {
+            if (processor.getType() != IncrementalAnnotationProcessorType.ISOLATING && processor.getType() != IncrementalAnnotationProcessorType.AGGREGATING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private JavaCompiler.CompilationTask createCompileTask(JavaCompileSpec spec, List<String> options, JavaCompiler compiler, StandardJavaFileManager fileManager, AnnotationProcessingResult processingResult) {
         Iterable<? extends JavaFileObject> compilationUnits = fileManager.getJavaFileObjectsFromFiles(spec.getSource());
-        return compiler.getTask(null, null, null, options, null, compilationUnits);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null, compilationUnits);
+        List<AnnotationProcessorDeclaration> processors = spec.getEffectiveAnnotationProcessors();
+        if (processingResult != null && !processors.isEmpty()) {
+            task = new AnnotationProcessingCompileTask(task, processors, spec.getAnnotationProcessorPath(), processingResult);
+        }
+        return task;
+    }
+
+    private static Charset getCharset(CompileOptions compileOptions) {
+        return compileOptions.getEncoding() != null ? Charset.forName(compileOptions.getEncoding()) : null;
+    }
+
+    private static Iterable<File> getJarsUsedByCompiler(JavaCompileSpec spec) {
+        if (spec.getAnnotationProcessorPath() == null) {
+            return spec.getCompileClasspath();
+        }
+        return Iterables.concat(spec.getCompileClasspath(), spec.getAnnotationProcessorPath());
     }
 }
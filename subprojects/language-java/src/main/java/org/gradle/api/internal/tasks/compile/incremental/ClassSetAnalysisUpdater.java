@@ -23,11 +23,14 @@ import org.gradle.api.internal.cache.Stash;
 import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.hash.FileHasher;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.JdkJavaCompilerResult;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenciesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassFilesAnalyzer;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
+import org.gradle.api.tasks.WorkResult;
 import org.gradle.internal.time.Timer;
 import org.gradle.internal.time.Timers;
 
@@ -56,7 +59,7 @@ public class ClassSetAnalysisUpdater {
         this.fileHasher = fileHasher;
     }
 
-    public void updateAnalysis(JavaCompileSpec spec) {
+    public void updateAnalysis(JavaCompileSpec spec, WorkResult result) {
         Timer clock = Timers.startTimer();
         Set<File> baseDirs = Sets.newLinkedHashSet();
         baseDirs.add(spec.getDestinationDir());
@@ -65,8 +68,19 @@ public class ClassSetAnalysisUpdater {
         for (File baseDir : baseDirs) {
             fileOperations.fileTree(baseDir).visit(analyzer);
         }
-        ClassSetAnalysisData data = analyzer.getAnalysis();
+        ClassSetAnalysisData data = analyzer.getAnalysis().withAnnotationProcessingResult(getAnnotationProcessingResult(spec, result));
         stash.put(data);
         LOG.info("Class dependency analysis for incremental compilation took {}.", clock.getElapsed());
     }
+
+    private AnnotationProcessingResult getAnnotationProcessingResult(JavaCompileSpec spec, WorkResult result) {
+        if (result instanceof JdkJavaCompilerResult) {
+            return ((JdkJavaCompilerResult) result).getAnnotationProcessingResult();
+        }
+        AnnotationProcessingResult processingResult = new AnnotationProcessingResult();
+        if (spec.getAnnotationProcessorPath() != null && !spec.getAnnotationProcessorPath().isEmpty()) {
+            processingResult.setFullRebuildCause("the types generated by annotation processors were not recorded by the compiler");
+        }
+        return processingResult;
+    }
 }
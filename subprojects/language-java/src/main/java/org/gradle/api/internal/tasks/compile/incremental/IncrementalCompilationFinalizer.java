@@ -41,7 +41,7 @@ class IncrementalCompilationFinalizer implements Compiler<JavaCompileSpec> {
         if (!(out instanceof RecompilationNotNecessary)) {
             //if recompilation was skipped
             //there's no point in updating because we have exactly the same output classes)
-            updater.updateAnalysis(spec);
+            updater.updateAnalysis(spec, out);
         }
 
         writer.storeJarSnapshots(spec.getCompileClasspath());
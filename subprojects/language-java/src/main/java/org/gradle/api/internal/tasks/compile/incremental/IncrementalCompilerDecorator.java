@@ -24,11 +24,15 @@ import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassSetAnalysisData;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotMaker;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration;
+import org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType;
 import org.gradle.api.logging.Logger;
 import org.gradle.api.logging.Logging;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.language.base.internal.compile.Compiler;
 
+import java.util.List;
+
 public class IncrementalCompilerDecorator {
 
     private static final Logger LOG = Logging.getLogger(IncrementalCompilerDecorator.class);
@@ -40,12 +44,13 @@ public class IncrementalCompilerDecorator {
     private final ClassSetAnalysisUpdater classSetAnalysisUpdater;
     private final CompilationSourceDirs sourceDirs;
     private final FileCollection annotationProcessorPath;
+    private final List<AnnotationProcessorDeclaration> annotationProcessors;
     private final IncrementalCompilationInitializer compilationInitializer;
 
     public IncrementalCompilerDecorator(JarClasspathSnapshotMaker jarClasspathSnapshotMaker, CompileCaches compileCaches,
                                         IncrementalCompilationInitializer compilationInitializer, CleaningJavaCompiler cleaningCompiler, String displayName,
                                         RecompilationSpecProvider staleClassDetecter, ClassSetAnalysisUpdater classSetAnalysisUpdater,
-                                        CompilationSourceDirs sourceDirs, FileCollection annotationProcessorPath) {
+                                        CompilationSourceDirs sourceDirs, FileCollection annotationProcessorPath, List<AnnotationProcessorDeclaration> annotationProcessors) {
         this.jarClasspathSnapshotMaker = jarClasspathSnapshotMaker;
         this.compileCaches = compileCaches;
         this.compilationInitializer = compilationInitializer;
@@ -55,6 +60,7 @@ public class IncrementalCompilerDecorator {
         this.classSetAnalysisUpdater = classSetAnalysisUpdater;
         this.sourceDirs = sourceDirs;
         this.annotationProcessorPath = annotationProcessorPath;
+        this.annotationProcessors = annotationProcessors;
     }
 
     public Compiler<JavaCompileSpec> prepareCompiler(IncrementalTaskInputs inputs) {
@@ -72,8 +78,16 @@ public class IncrementalCompilerDecorator {
             return cleaningCompiler;
         }
         if (!annotationProcessorPath.isEmpty()) {
-            LOG.lifecycle("{} - is not incremental. Annotation processors are present.", displayName);
-            return cleaningCompiler;
+            if (annotationProcessors == null) {
+                LOG.lifecycle("{} - is not incremental. Annotation processors are present.", displayName);
+                return cleaningCompiler;
+            }
+            for (AnnotationProcessorDeclaration annotationProcessor : annotationProcessors) {
+                if (annotationProcessor.getType() == IncrementalAnnotationProcessorType.UNKNOWN) {
+                    LOG.lifecycle("{} - is not incremental. Annotation processor '{}' does not support incremental compilation.", displayName, annotationProcessor.getClassName());
+                    return cleaningCompiler;
+                }
+            }
         }
         ClassSetAnalysisData data = compileCaches.getLocalClassSetAnalysisStore().get();
         if (data == null) {
@@ -21,10 +21,17 @@ import org.gradle.api.internal.file.FileOperations;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarChangeProcessor;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependentsSet;
 import org.gradle.api.internal.tasks.compile.incremental.recomp.RecompilationSpec;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult;
 import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.api.tasks.incremental.InputFileDetails;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.gradle.internal.FileUtils.hasExtension;
 
 public class RecompilationSpecProvider {
@@ -52,9 +59,65 @@ public class RecompilationSpecProvider {
             return action.spec;
         }
         inputs.removed(action);
+        if (action.spec.getFullRebuildCause() == null) {
+            addStaleGeneratedTypes(action.spec, previousCompilation);
+        }
         return action.spec;
     }
 
+    /**
+     * Types generated by annotation processors are stale whenever the types they were generated from are recompiled,
+     * so they are recompiled too, along with their dependents.
+     */
+    private void addStaleGeneratedTypes(RecompilationSpec spec, PreviousCompilation previousCompilation) {
+        if (spec.getClassNames().isEmpty()) {
+            return;
+        }
+        AnnotationProcessingResult processingResult = previousCompilation.getAnnotationProcessingResult();
+        if (processingResult.getFullRebuildCause() != null) {
+            spec.setFullRebuildCause(processingResult.getFullRebuildCause(), null);
+            return;
+        }
+        //aggregating processors need to see all the types they processed previously to regenerate their output
+        spec.getClassNames().addAll(processingResult.getAggregatedTypes());
+        for (String generatedType : processingResult.getGeneratedTypesDependingOnAllOthers()) {
+            if (!addGeneratedType(spec, previousCompilation, generatedType)) {
+                return;
+            }
+        }
+        Set<String> visitedOrigins = new HashSet<String>();
+        boolean added = true;
+        while (added) {
+            added = false;
+            //generated types and their dependents can themselves be the origin of other generated types
+            for (String origin : new ArrayList<String>(spec.getClassNames())) {
+                if (!visitedOrigins.add(origin)) {
+                    continue;
+                }
+                for (String generatedType : processingResult.getGeneratedTypes(origin)) {
+                    if (spec.getClassNames().contains(generatedType)) {
+                        continue;
+                    }
+                    if (!addGeneratedType(spec, previousCompilation, generatedType)) {
+                        return;
+                    }
+                    added = true;
+                }
+            }
+        }
+    }
+
+    private boolean addGeneratedType(RecompilationSpec spec, PreviousCompilation previousCompilation, String generatedType) {
+        spec.getClassNames().add(generatedType);
+        DependentsSet dependents = previousCompilation.getDependents(generatedType, Collections.<Integer>emptySet());
+        if (dependents.isDependencyToAll()) {
+            spec.setFullRebuildCause(dependents.getDescription() != null ? dependents.getDescription() : "generated type '" + generatedType + "' is a dependency to all classes", null);
+            return false;
+        }
+        spec.getClassNames().addAll(dependents.getDependentClasses());
+        return true;
+    }
+
     private static class InputChangeAction implements Action<InputFileDetails> {
         private final RecompilationSpec spec;
         private final JavaChangeProcessor javaChangeProcessor;
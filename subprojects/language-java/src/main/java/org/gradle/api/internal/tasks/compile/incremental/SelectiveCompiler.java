@@ -18,6 +18,7 @@ package org.gradle.api.internal.tasks.compile.incremental;
 
 import org.gradle.api.internal.tasks.compile.CleaningJavaCompiler;
 import org.gradle.api.internal.tasks.compile.JavaCompileSpec;
+import org.gradle.api.internal.tasks.compile.JdkJavaCompilerResult;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot;
 import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshotProvider;
 import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation;
@@ -70,7 +71,12 @@ class SelectiveCompiler implements org.gradle.language.base.internal.compile.Com
 
         try {
             //use the original compiler to avoid cleaning up all the files
-            return cleaningCompiler.getCompiler().execute(spec);
+            WorkResult result = cleaningCompiler.getCompiler().execute(spec);
+            if (result instanceof JdkJavaCompilerResult) {
+                //only the recompiled classes were processed, keep what was generated for the other ones
+                ((JdkJavaCompilerResult) result).getAnnotationProcessingResult().retainUnaffected(previousCompilation.getAnnotationProcessingResult(), classNames);
+            }
+            return result;
         } finally {
             LOG.info("Incremental compilation of {} classes completed in {}.", classNames.size(), clock.getElapsed());
             LOG.debug("Recompiled classes {}", classNames);
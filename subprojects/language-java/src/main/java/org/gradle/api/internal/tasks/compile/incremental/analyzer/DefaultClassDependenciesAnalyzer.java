@@ -30,7 +30,11 @@ import java.io.InputStream;
 public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyzer {
 
     public ClassAnalysis getClassAnalysis(InputStream input) throws IOException {
-        ClassReader reader = new Java9ClassReader(ByteStreams.toByteArray(input));
+        return analyze(ByteStreams.toByteArray(input));
+    }
+
+    private ClassAnalysis analyze(byte[] classFileContent) {
+        ClassReader reader = new Java9ClassReader(classFileContent);
         String className = reader.getClassName().replace("/", ".");
         return ClassDependenciesVisitor.analyze(className, reader);
     }
@@ -48,4 +52,9 @@ public class DefaultClassDependenciesAnalyzer implements ClassDependenciesAnalyz
             throw new RuntimeException("Problems loading class analysis for " + classFile.toString());
         }
     }
+
+    @Override
+    public ClassAnalysis getClassAnalysis(HashCode classFileHash, byte[] classFileContent) {
+        return analyze(classFileContent);
+    }
 }
@@ -19,36 +19,117 @@ package org.gradle.api.internal.tasks.compile.incremental.deps;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
+import com.google.common.primitives.Ints;
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult;
+import org.gradle.internal.UncheckedException;
 import org.gradle.internal.serialize.AbstractSerializer;
 import org.gradle.internal.serialize.Decoder;
 import org.gradle.internal.serialize.Encoder;
-import org.gradle.internal.serialize.SetSerializer;
+import org.gradle.internal.serialize.InputStreamBackedDecoder;
+import org.gradle.internal.serialize.OutputStreamBackedEncoder;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
-import static org.gradle.internal.serialize.BaseSerializerFactory.INTEGER_SERIALIZER;
-
+/**
+ * The class dependency graph of a set of classes.
+ *
+ * <p>Every class is stored once, in a sorted array of class names, and is referred to by its index in this array everywhere else.
+ * The dependents of each class are kept as arrays of class indexes. The sections that are only needed for some kinds of changes,
+ * such as the constants, the subtypes or the class file locations, are kept in their serialized form until they are first used.</p>
+ */
 public class ClassSetAnalysisData {
-    final Map<String, String> filePathToClassName;
-    final Map<String, DependentsSet> dependents;
-    final Map<String, Set<Integer>> classesToConstants;
-    final Map<Integer, Set<String>> literalsToClasses;
-    final Map<String, Set<String>> classesToChildren;
+    private static final int[] NO_CLASSES = new int[0];
+
+    private final String[] classNames;
+    private final int[][] dependents;
+    private final int[] dependenciesToAll;
+    private final String[] dependencyToAllDescriptions;
+    private final Section<FileSection> files;
+    private final Section<int[][]> constants;
+    private final Section<LiteralSection> literals;
+    private final Section<int[][]> children;
+    private final AnnotationProcessingResult annotationProcessingResult;
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Multimap<String, Integer> classesToConstants, Multimap<Integer, String> literalsToClasses, Multimap<String, String> classesToChildren) {
         this(filePathToClassName, dependents, asMap(classesToConstants), asMap(literalsToClasses), asMap(classesToChildren));
     }
 
     public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren) {
-        this.filePathToClassName = filePathToClassName;
+        this(filePathToClassName, dependents, classesToConstants, literalsToClasses, classesToChildren, new AnnotationProcessingResult());
+    }
+
+    public ClassSetAnalysisData(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren, AnnotationProcessingResult annotationProcessingResult) {
+        ClassIds ids = new ClassIds(filePathToClassName, dependents, classesToConstants, literalsToClasses, classesToChildren);
+        this.classNames = ids.classNames;
+
+        this.dependents = new int[classNames.length][];
+        Map<Integer, String> dependenciesToAll = new TreeMap<Integer, String>();
+        for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+            int id = ids.get(entry.getKey());
+            DependentsSet dependentsSet = entry.getValue();
+            if (dependentsSet.isDependencyToAll()) {
+                dependenciesToAll.put(id, dependentsSet.getDescription());
+            } else {
+                this.dependents[id] = ids.get(dependentsSet.getDependentClasses());
+            }
+        }
+        this.dependenciesToAll = Ints.toArray(dependenciesToAll.keySet());
+        this.dependencyToAllDescriptions = dependenciesToAll.values().toArray(new String[0]);
+
+        String[] filePaths = filePathToClassName.keySet().toArray(new String[0]);
+        Arrays.sort(filePaths);
+        int[] fileClasses = new int[filePaths.length];
+        for (int i = 0; i < filePaths.length; i++) {
+            fileClasses[i] = ids.get(filePathToClassName.get(filePaths[i]));
+        }
+        this.files = new FilesSection(new FileSection(filePaths, fileClasses));
+
+        int[][] constantsByClass = new int[classNames.length][];
+        for (Map.Entry<String, Set<Integer>> entry : classesToConstants.entrySet()) {
+            constantsByClass[ids.get(entry.getKey())] = sorted(Ints.toArray(entry.getValue()));
+        }
+        this.constants = new ClassesToIntsSection(constantsByClass);
+
+        int[] literalValues = sorted(Ints.toArray(literalsToClasses.keySet()));
+        int[][] literalClasses = new int[literalValues.length][];
+        for (int i = 0; i < literalValues.length; i++) {
+            literalClasses[i] = ids.get(literalsToClasses.get(literalValues[i]));
+        }
+        this.literals = new LiteralsSection(new LiteralSection(literalValues, literalClasses));
+
+        int[][] childrenByClass = new int[classNames.length][];
+        for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+            childrenByClass[ids.get(entry.getKey())] = ids.get(entry.getValue());
+        }
+        this.children = new ClassesToIntsSection(childrenByClass);
+        this.annotationProcessingResult = annotationProcessingResult;
+    }
+
+    private ClassSetAnalysisData(String[] classNames, int[][] dependents, int[] dependenciesToAll, String[] dependencyToAllDescriptions,
+                                 Section<FileSection> files, Section<int[][]> constants, Section<LiteralSection> literals, Section<int[][]> children,
+                                 AnnotationProcessingResult annotationProcessingResult) {
+        this.classNames = classNames;
         this.dependents = dependents;
-        this.classesToConstants = classesToConstants;
-        this.literalsToClasses = literalsToClasses;
-        this.classesToChildren = classesToChildren;
+        this.dependenciesToAll = dependenciesToAll;
+        this.dependencyToAllDescriptions = dependencyToAllDescriptions;
+        this.files = files;
+        this.constants = constants;
+        this.literals = literals;
+        this.children = children;
+        this.annotationProcessingResult = annotationProcessingResult;
     }
 
     private static <K, V> Map<K, Set<V>> asMap(Multimap<K, V> multimap) {
@@ -59,175 +140,436 @@ public class ClassSetAnalysisData {
         return builder.build();
     }
 
+    private static int[] sorted(int[] values) {
+        Arrays.sort(values);
+        return values;
+    }
+
+    public ClassSetAnalysisData withAnnotationProcessingResult(AnnotationProcessingResult annotationProcessingResult) {
+        return new ClassSetAnalysisData(classNames, dependents, dependenciesToAll, dependencyToAllDescriptions, files, constants, literals, children, annotationProcessingResult);
+    }
+
     public String getClassNameForFile(String filePath) {
-        return filePathToClassName.get(filePath);
+        FileSection fileSection = files.get();
+        int index = Arrays.binarySearch(fileSection.filePaths, filePath);
+        return index < 0 ? null : classNames[fileSection.classes[index]];
     }
 
     public DependentsSet getDependents(String className) {
-        return dependents.get(className);
+        int id = classId(className);
+        if (id < 0) {
+            return null;
+        }
+        if (dependents[id] != null) {
+            return new DefaultDependentsSet(new ClassNameSet(classNames, dependents[id]));
+        }
+        int index = Arrays.binarySearch(dependenciesToAll, id);
+        return index < 0 ? null : new DependencyToAll(dependencyToAllDescriptions[index]);
     }
 
     public Set<Integer> getConstants(String className) {
-        Set<Integer> integers = classesToConstants.get(className);
-        if (integers == null) {
+        int id = classId(className);
+        int[] classConstants = id < 0 ? null : constants.get()[id];
+        if (classConstants == null) {
             return Collections.emptySet();
         }
-        return integers;
+        return ImmutableSet.copyOf(Ints.asList(classConstants));
     }
 
     public Set<String> getChildren(String className) {
-        Set<String> children = classesToChildren.get(className);
-        return children == null ? Collections.<String>emptySet() : children;
+        int id = classId(className);
+        int[] classChildren = id < 0 ? null : children.get()[id];
+        return classChildren == null ? Collections.<String>emptySet() : new ClassNameSet(classNames, classChildren);
     }
 
-    public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
-        private static final SetSerializer<Integer> INTEGER_SET_SERIALIZER = new SetSerializer<Integer>(INTEGER_SERIALIZER, false);
+    /**
+     * What the incremental annotation processors generated when the classes were last compiled.
+     */
+    public AnnotationProcessingResult getAnnotationProcessingResult() {
+        return annotationProcessingResult;
+    }
+
+    private int classId(String className) {
+        return Arrays.binarySearch(classNames, className);
+    }
+
+    /**
+     * Assigns ids to the classes mentioned by the maps the analysis is created from.
+     */
+    private static class ClassIds {
+        private final String[] classNames;
+        private final Map<String, Integer> ids = new HashMap<String, Integer>();
+
+        ClassIds(Map<String, String> filePathToClassName, Map<String, DependentsSet> dependents, Map<String, Set<Integer>> classesToConstants, Map<Integer, Set<String>> literalsToClasses, Map<String, Set<String>> classesToChildren) {
+            Set<String> names = new TreeSet<String>(filePathToClassName.values());
+            for (Map.Entry<String, DependentsSet> entry : dependents.entrySet()) {
+                names.add(entry.getKey());
+                if (!entry.getValue().isDependencyToAll()) {
+                    names.addAll(entry.getValue().getDependentClasses());
+                }
+            }
+            names.addAll(classesToConstants.keySet());
+            for (Set<String> classes : literalsToClasses.values()) {
+                names.addAll(classes);
+            }
+            for (Map.Entry<String, Set<String>> entry : classesToChildren.entrySet()) {
+                names.add(entry.getKey());
+                names.addAll(entry.getValue());
+            }
+            classNames = names.toArray(new String[0]);
+            for (int i = 0; i < classNames.length; i++) {
+                ids.put(classNames[i], i);
+            }
+        }
+
+        int get(String className) {
+            return ids.get(className);
+        }
+
+        int[] get(Collection<String> classNames) {
+            if (classNames.isEmpty()) {
+                return NO_CLASSES;
+            }
+            int[] result = new int[classNames.size()];
+            int i = 0;
+            for (String className : classNames) {
+                result[i++] = get(className);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A read-only view of a set of classes, given by their ids.
+     */
+    private static class ClassNameSet extends AbstractSet<String> {
+        private final String[] classNames;
+        private final int[] ids;
+
+        ClassNameSet(String[] classNames, int[] ids) {
+            this.classNames = classNames;
+            this.ids = ids;
+        }
 
         @Override
-        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
-            // Class names are de-duplicated when encoded
-            Map<Integer, String> classNameMap = new HashMap<Integer, String>();
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < ids.length;
+                }
+
+                @Override
+                public String next() {
+                    if (next >= ids.length) {
+                        throw new NoSuchElementException();
+                    }
+                    return classNames[ids[next++]];
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+    }
+
+    private static class FileSection {
+        private final String[] filePaths;
+        private final int[] classes;
+
+        FileSection(String[] filePaths, int[] classes) {
+            this.filePaths = filePaths;
+            this.classes = classes;
+        }
+    }
+
+    private static class LiteralSection {
+        private final int[] literals;
+        private final int[][] classes;
+
+        LiteralSection(int[] literals, int[][] classes) {
+            this.literals = literals;
+            this.classes = classes;
+        }
+    }
+
+    /**
+     * A part of the analysis that is decoded from its serialized form on first use.
+     */
+    private static abstract class Section<T> {
+        private byte[] encoded;
+        private T value;
+
+        Section(T value) {
+            this.value = value;
+        }
+
+        Section(byte[] encoded) {
+            this.encoded = encoded;
+        }
+
+        synchronized T get() {
+            if (value == null) {
+                try {
+                    value = read(new InputStreamBackedDecoder(new ByteArrayInputStream(encoded)));
+                } catch (Exception e) {
+                    throw UncheckedException.throwAsUncheckedException(e);
+                }
+                encoded = null;
+            }
+            return value;
+        }
+
+        synchronized byte[] getEncoded() throws Exception {
+            if (encoded != null) {
+                return encoded;
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            OutputStreamBackedEncoder encoder = new OutputStreamBackedEncoder(bytes);
+            write(encoder, value);
+            encoder.flush();
+            return bytes.toByteArray();
+        }
+
+        protected abstract T read(Decoder decoder) throws Exception;
+
+        protected abstract void write(Encoder encoder, T value) throws Exception;
+    }
 
+    private static class FilesSection extends Section<FileSection> {
+        FilesSection(FileSection value) {
+            super(value);
+        }
+
+        FilesSection(byte[] encoded) {
+            super(encoded);
+        }
+
+        @Override
+        protected FileSection read(Decoder decoder) throws Exception {
             int count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, String> filePathToClassNameBuilder = ImmutableMap.builder();
+            String[] filePaths = new String[count];
+            int[] classes = new int[count];
             for (int i = 0; i < count; i++) {
-                String filePath = decoder.readString();
-                String className = readClassName(decoder, classNameMap);
-                filePathToClassNameBuilder.put(filePath, className);
+                filePaths[i] = decoder.readString();
+                classes[i] = decoder.readSmallInt();
             }
+            return new FileSection(filePaths, classes);
+        }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, DependentsSet> dependentsBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                DependentsSet dependents = readDependentsSet(decoder, classNameMap);
-                dependentsBuilder.put(className, dependents);
+        @Override
+        protected void write(Encoder encoder, FileSection value) throws Exception {
+            encoder.writeSmallInt(value.filePaths.length);
+            for (int i = 0; i < value.filePaths.length; i++) {
+                encoder.writeString(value.filePaths[i]);
+                encoder.writeSmallInt(value.classes[i]);
             }
+        }
+    }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<Integer>> classesToConstantsBuilder = ImmutableMap.builder();
+    private static class LiteralsSection extends Section<LiteralSection> {
+        LiteralsSection(LiteralSection value) {
+            super(value);
+        }
+
+        LiteralsSection(byte[] encoded) {
+            super(encoded);
+        }
+
+        @Override
+        protected LiteralSection read(Decoder decoder) throws Exception {
+            int count = decoder.readSmallInt();
+            int[] literals = new int[count];
+            int[][] classes = new int[count][];
             for (int i = 0; i < count; i++) {
-                String className = readClassName(decoder, classNameMap);
-                Set<Integer> constants = INTEGER_SET_SERIALIZER.read(decoder);
-                classesToConstantsBuilder.put(className, constants);
+                literals[i] = decoder.readInt();
+                classes[i] = readInts(decoder);
             }
+            return new LiteralSection(literals, classes);
+        }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<Integer, Set<String>> literalsToClassesBuilder = ImmutableMap.builder();
-            for (int i = 0; i < count; i++) {
-                int literal = decoder.readInt();
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
-                }
-                literalsToClassesBuilder.put(literal, namesBuilder.build());
+        @Override
+        protected void write(Encoder encoder, LiteralSection value) throws Exception {
+            encoder.writeSmallInt(value.literals.length);
+            for (int i = 0; i < value.literals.length; i++) {
+                encoder.writeInt(value.literals[i]);
+                writeInts(encoder, value.classes[i]);
             }
+        }
+    }
 
-            count = decoder.readSmallInt();
-            ImmutableMap.Builder<String, Set<String>> classNameToChildren = ImmutableMap.builder();
+    /**
+     * Values for some of the classes, indexed by class id.
+     */
+    private static class ClassesToIntsSection extends Section<int[][]> {
+        private final int classCount;
+
+        ClassesToIntsSection(int[][] value) {
+            super(value);
+            this.classCount = value.length;
+        }
+
+        ClassesToIntsSection(byte[] encoded, int classCount) {
+            super(encoded);
+            this.classCount = classCount;
+        }
+
+        @Override
+        protected int[][] read(Decoder decoder) throws Exception {
+            int[][] values = new int[classCount][];
+            int count = decoder.readSmallInt();
             for (int i = 0; i < count; i++) {
-                String parent = readClassName(decoder, classNameMap);
-                int nameCount = decoder.readSmallInt();
-                ImmutableSet.Builder<String> namesBuilder = ImmutableSet.builder();
-                for (int j = 0; j < nameCount; j++) {
-                    namesBuilder.add(readClassName(decoder, classNameMap));
+                values[decoder.readSmallInt()] = readInts(decoder);
+            }
+            return values;
+        }
+
+        @Override
+        protected void write(Encoder encoder, int[][] value) throws Exception {
+            int count = 0;
+            for (int[] classValues : value) {
+                if (classValues != null) {
+                    count++;
                 }
-                classNameToChildren.put(parent, namesBuilder.build());
             }
+            encoder.writeSmallInt(count);
+            for (int i = 0; i < value.length; i++) {
+                if (value[i] != null) {
+                    encoder.writeSmallInt(i);
+                    writeInts(encoder, value[i]);
+                }
+            }
+        }
+    }
+
+    private static int[] readInts(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        if (count == 0) {
+            return NO_CLASSES;
+        }
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = decoder.readInt();
+        }
+        return values;
+    }
 
-            return new ClassSetAnalysisData(filePathToClassNameBuilder.build(), dependentsBuilder.build(), classesToConstantsBuilder.build(), literalsToClassesBuilder.build(), classNameToChildren.build());
+    private static void writeInts(Encoder encoder, int[] values) throws IOException {
+        encoder.writeSmallInt(values.length);
+        for (int value : values) {
+            encoder.writeInt(value);
         }
+    }
+
+    public static class Serializer extends AbstractSerializer<ClassSetAnalysisData> {
+        private static final AnnotationProcessingResult.Serializer ANNOTATION_PROCESSING_RESULT_SERIALIZER = new AnnotationProcessingResult.Serializer();
 
         @Override
-        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
-            // Deduplicate class names when encoding.
-            // This would be more efficient with a better data structure in ClassSetAnalysisData
-            Map<String, Integer> classNameMap = new HashMap<String, Integer>();
+        public ClassSetAnalysisData read(Decoder decoder) throws Exception {
+            // Class names are sorted, so each one is encoded as the length of the prefix it shares with the previous one plus the rest of the name
+            int classCount = decoder.readSmallInt();
+            String[] classNames = new String[classCount];
+            String previous = "";
+            for (int i = 0; i < classCount; i++) {
+                int prefixLength = decoder.readSmallInt();
+                previous = previous.substring(0, prefixLength).concat(decoder.readString());
+                classNames[i] = previous;
+            }
 
-            encoder.writeSmallInt(value.filePathToClassName.size());
-            for (Map.Entry<String, String> entry : value.filePathToClassName.entrySet()) {
-                encoder.writeString(entry.getKey());
-                writeClassName(entry.getValue(), classNameMap, encoder);
+            int[][] dependents = new int[classCount][];
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                dependents[decoder.readSmallInt()] = readClassIds(decoder);
             }
 
-            encoder.writeSmallInt(value.dependents.size());
-            for (Map.Entry<String, DependentsSet> entry : value.dependents.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                writeDependentSet(entry.getValue(), classNameMap, encoder);
+            count = decoder.readSmallInt();
+            int[] dependenciesToAll = new int[count];
+            String[] dependencyToAllDescriptions = new String[count];
+            for (int i = 0; i < count; i++) {
+                dependenciesToAll[i] = decoder.readSmallInt();
+                dependencyToAllDescriptions[i] = decoder.readNullableString();
             }
 
-            encoder.writeSmallInt(value.classesToConstants.size());
-            for (Map.Entry<String, Set<Integer>> entry : value.classesToConstants.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                INTEGER_SET_SERIALIZER.write(encoder, entry.getValue());
+            FilesSection files = new FilesSection(decoder.readBinary());
+            ClassesToIntsSection constants = new ClassesToIntsSection(decoder.readBinary(), classCount);
+            LiteralsSection literals = new LiteralsSection(decoder.readBinary());
+            ClassesToIntsSection children = new ClassesToIntsSection(decoder.readBinary(), classCount);
+            AnnotationProcessingResult annotationProcessingResult = ANNOTATION_PROCESSING_RESULT_SERIALIZER.read(decoder);
+
+            return new ClassSetAnalysisData(classNames, dependents, dependenciesToAll, dependencyToAllDescriptions, files, constants, literals, children, annotationProcessingResult);
+        }
+
+        @Override
+        public void write(Encoder encoder, ClassSetAnalysisData value) throws Exception {
+            encoder.writeSmallInt(value.classNames.length);
+            String previous = "";
+            for (String className : value.classNames) {
+                int prefixLength = commonPrefixLength(previous, className);
+                encoder.writeSmallInt(prefixLength);
+                encoder.writeString(className.substring(prefixLength));
+                previous = className;
             }
 
-            encoder.writeSmallInt(value.literalsToClasses.size());
-            for (Map.Entry<Integer, Set<String>> entry : value.literalsToClasses.entrySet()) {
-                encoder.writeInt(entry.getKey());
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
+            int count = 0;
+            for (int[] classDependents : value.dependents) {
+                if (classDependents != null) {
+                    count++;
                 }
             }
-
-            encoder.writeSmallInt(value.classesToChildren.size());
-            for (Map.Entry<String, Set<String>> entry : value.classesToChildren.entrySet()) {
-                writeClassName(entry.getKey(), classNameMap, encoder);
-                encoder.writeSmallInt(entry.getValue().size());
-                for (String className : entry.getValue()) {
-                    writeClassName(className, classNameMap, encoder);
+            encoder.writeSmallInt(count);
+            for (int i = 0; i < value.dependents.length; i++) {
+                if (value.dependents[i] != null) {
+                    encoder.writeSmallInt(i);
+                    writeClassIds(encoder, value.dependents[i]);
                 }
             }
-        }
 
-        private DependentsSet readDependentsSet(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            byte b = decoder.readByte();
-            if (b == 1) {
-                return new DependencyToAll(decoder.readNullableString());
-            }
-            int count = decoder.readSmallInt();
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-            for (int i = 0; i < count; i++) {
-                builder.add(readClassName(decoder, classNameMap));
+            encoder.writeSmallInt(value.dependenciesToAll.length);
+            for (int i = 0; i < value.dependenciesToAll.length; i++) {
+                encoder.writeSmallInt(value.dependenciesToAll[i]);
+                encoder.writeNullableString(value.dependencyToAllDescriptions[i]);
             }
-            return new DefaultDependentsSet(builder.build());
+
+            encoder.writeBinary(value.files.getEncoded());
+            encoder.writeBinary(value.constants.getEncoded());
+            encoder.writeBinary(value.literals.getEncoded());
+            encoder.writeBinary(value.children.getEncoded());
+            ANNOTATION_PROCESSING_RESULT_SERIALIZER.write(encoder, value.annotationProcessingResult);
         }
 
-        private void writeDependentSet(DependentsSet dependentsSet, Map<String, Integer> classNameMap, Encoder encoder) throws IOException {
-            if (dependentsSet.isDependencyToAll()) {
-                encoder.writeByte((byte) 1);
-                encoder.writeNullableString(dependentsSet.getDescription());
-            } else {
-                encoder.writeByte((byte) 2);
-                encoder.writeSmallInt(dependentsSet.getDependentClasses().size());
-                for (String className : dependentsSet.getDependentClasses()) {
-                    writeClassName(className, classNameMap, encoder);
-                }
+        private static int commonPrefixLength(String a, String b) {
+            int max = Math.min(a.length(), b.length());
+            int i = 0;
+            while (i < max && a.charAt(i) == b.charAt(i)) {
+                i++;
             }
+            return i;
         }
 
-        private String readClassName(Decoder decoder, Map<Integer, String> classNameMap) throws IOException {
-            int id = decoder.readSmallInt();
-            if (id == 0) {
-                id = decoder.readSmallInt();
-                String className = decoder.readString();
-                classNameMap.put(id, className);
-                return className;
+        private static int[] readClassIds(Decoder decoder) throws IOException {
+            int count = decoder.readSmallInt();
+            if (count == 0) {
+                return NO_CLASSES;
             }
-            return classNameMap.get(id);
+            int[] ids = new int[count];
+            for (int i = 0; i < count; i++) {
+                ids[i] = decoder.readSmallInt();
+            }
+            return ids;
         }
 
-        private void writeClassName(String className, Map<String, Integer> classIdMap, Encoder encoder) throws IOException {
-            Integer id = classIdMap.get(className);
-            if (id == null) {
-                id = classIdMap.size() + 1;
-                classIdMap.put(className, id);
-                encoder.writeSmallInt(0);
-                encoder.writeSmallInt(id);
-                encoder.writeString(className);
-            } else {
+        private static void writeClassIds(Encoder encoder, int[] ids) throws IOException {
+            encoder.writeSmallInt(ids.length);
+            for (int id : ids) {
                 encoder.writeSmallInt(id);
             }
         }
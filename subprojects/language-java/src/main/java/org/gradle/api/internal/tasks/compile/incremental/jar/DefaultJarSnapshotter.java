@@ -17,6 +17,7 @@ package org.gradle.api.internal.tasks.compile.incremental.jar;
 
 import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.file.FileVisitDetails;
 import org.gradle.api.file.FileVisitor;
@@ -25,6 +26,7 @@ import org.gradle.api.internal.tasks.compile.incremental.analyzer.ClassDependenc
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassAnalysis;
 import org.gradle.api.internal.tasks.compile.incremental.deps.ClassDependentsAccumulator;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
@@ -51,10 +53,13 @@ class DefaultJarSnapshotter {
                     return;
                 }
 
-                HashCode classFileHash;
+                // Read each class only once, for both hashing and analysis
+                byte[] content;
                 InputStream inputStream = fileDetails.open();
                 try {
-                    classFileHash = hasher.hash(inputStream);
+                    content = ByteStreams.toByteArray(inputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 } finally {
                     try {
                         inputStream.close();
@@ -62,8 +67,9 @@ class DefaultJarSnapshotter {
                         throw new UncheckedIOException(e);
                     }
                 }
+                HashCode classFileHash = hasher.hash(new ByteArrayInputStream(content));
 
-                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, fileDetails);
+                ClassAnalysis analysis = analyzer.getClassAnalysis(classFileHash, content);
                 accumulator.addClass(analysis);
 
                 hashes.put(analysis.getClassName(), classFileHash);
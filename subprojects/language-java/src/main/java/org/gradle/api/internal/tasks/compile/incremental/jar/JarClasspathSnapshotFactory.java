@@ -16,41 +16,83 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.jar;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
+import org.gradle.api.Action;
+import org.gradle.internal.operations.BuildOperationProcessor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
 
 import java.io.File;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class JarClasspathSnapshotFactory {
 
     private final JarSnapshotter jarSnapshotter;
+    private final BuildOperationProcessor buildOperationProcessor;
 
-    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter) {
+    public JarClasspathSnapshotFactory(JarSnapshotter jarSnapshotter, BuildOperationProcessor buildOperationProcessor) {
         this.jarSnapshotter = jarSnapshotter;
+        this.buildOperationProcessor = buildOperationProcessor;
     }
 
     JarClasspathSnapshot createSnapshot(Iterable<JarArchive> jarArchives) {
-        Map<File, JarSnapshot> jarSnapshots = Maps.newHashMap();
+        final List<JarArchive> existingJars = Lists.newArrayList();
+        for (JarArchive jar : jarArchives) {
+            if (jar.file.exists()) {
+                existingJars.add(jar);
+            }
+        }
+
+        // Snapshot the jars concurrently, then combine the results in classpath order
+        final Map<File, JarSnapshot> jarSnapshots = Maps.newConcurrentMap();
+        buildOperationProcessor.run(new Action<BuildOperationQueue<SnapshotJarOperation>>() {
+            @Override
+            public void execute(BuildOperationQueue<SnapshotJarOperation> queue) {
+                for (JarArchive jar : existingJars) {
+                    queue.add(new SnapshotJarOperation(jar, jarSnapshots));
+                }
+            }
+        });
+
         Map<File, HashCode> jarHashes = Maps.newHashMap();
         Set<String> allClasses = Sets.newHashSet();
         Set<String> duplicateClasses = Sets.newHashSet();
 
-        for (JarArchive jar : jarArchives) {
-            if (jar.file.exists()) {
-                JarSnapshot snapshot = jarSnapshotter.createSnapshot(jar);
-                jarSnapshots.put(jar.file, snapshot);
-                jarHashes.put(jar.file, snapshot.getHash());
-                for (String c : snapshot.getClasses()) {
-                    if (!allClasses.add(c)) {
-                        duplicateClasses.add(c);
-                    }
+        for (JarArchive jar : existingJars) {
+            JarSnapshot snapshot = jarSnapshots.get(jar.file);
+            jarHashes.put(jar.file, snapshot.getHash());
+            for (String c : snapshot.getClasses()) {
+                if (!allClasses.add(c)) {
+                    duplicateClasses.add(c);
                 }
             }
         }
         JarClasspathSnapshotData jarClasspathSnapshotData = new JarClasspathSnapshotData(jarHashes, duplicateClasses);
         return new JarClasspathSnapshot(jarSnapshots, jarClasspathSnapshotData);
     }
+
+    private class SnapshotJarOperation implements RunnableBuildOperation {
+        private final JarArchive jar;
+        private final Map<File, JarSnapshot> jarSnapshots;
+
+        SnapshotJarOperation(JarArchive jar, Map<File, JarSnapshot> jarSnapshots) {
+            this.jar = jar;
+            this.jarSnapshots = jarSnapshots;
+        }
+
+        @Override
+        public void run() {
+            jarSnapshots.put(jar.file, jarSnapshotter.createSnapshot(jar));
+        }
+
+        @Override
+        public String getDescription() {
+            return "Snapshot " + jar.file;
+        }
+    }
 }
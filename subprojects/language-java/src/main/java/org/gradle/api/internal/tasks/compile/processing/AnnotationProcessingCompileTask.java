@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classpath.DefaultClassPath;
+import org.gradle.internal.concurrent.CompositeStoppable;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import java.io.File;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Loads the declared annotation processors itself instead of letting the compiler discover them, so that the types
+ * generated by incremental processors can be recorded in an {@link AnnotationProcessingResult}.
+ */
+public class AnnotationProcessingCompileTask implements JavaCompiler.CompilationTask {
+    private final JavaCompiler.CompilationTask delegate;
+    private final List<AnnotationProcessorDeclaration> processorDeclarations;
+    private final List<File> annotationProcessorPath;
+    private final AnnotationProcessingResult result;
+    private final List<Processor> additionalProcessors = new ArrayList<Processor>();
+
+    public AnnotationProcessingCompileTask(JavaCompiler.CompilationTask delegate, List<AnnotationProcessorDeclaration> processorDeclarations, List<File> annotationProcessorPath, AnnotationProcessingResult result) {
+        this.delegate = delegate;
+        this.processorDeclarations = processorDeclarations;
+        this.annotationProcessorPath = annotationProcessorPath;
+        this.result = result;
+    }
+
+    /**
+     * Adds the given processors to the declared ones. Gradle cannot tell which types these processors generate, so the next compilation will be a full one.
+     */
+    @Override
+    public void setProcessors(Iterable<? extends Processor> processors) {
+        additionalProcessors.clear();
+        for (Processor processor : processors) {
+            additionalProcessors.add(processor);
+        }
+    }
+
+    @Override
+    public void setLocale(Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    // Declared by the Java 9 compiler API
+    public void addModules(Iterable<String> moduleNames) {
+        try {
+            delegate.getClass().getMethod("addModules", Iterable.class).invoke(delegate, moduleNames);
+        } catch (InvocationTargetException e) {
+            throw UncheckedException.throwAsUncheckedException(e.getCause());
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    @Override
+    public Boolean call() {
+        URLClassLoader processorClassLoader = new URLClassLoader(new DefaultClassPath(annotationProcessorPath).getAsURLArray(), delegate.getClass().getClassLoader());
+        try {
+            delegate.setProcessors(createProcessors(processorClassLoader));
+            return delegate.call();
+        } finally {
+            CompositeStoppable.stoppable(processorClassLoader).stop();
+        }
+    }
+
+    private List<Processor> createProcessors(ClassLoader processorClassLoader) {
+        List<Processor> processors = new ArrayList<Processor>(processorDeclarations.size() + additionalProcessors.size());
+        for (AnnotationProcessorDeclaration declaration : processorDeclarations) {
+            Processor processor;
+            try {
+                processor = (Processor) processorClassLoader.loadClass(declaration.getClassName()).newInstance();
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Annotation processor '" + declaration.getClassName() + "' not found", e);
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Could not instantiate annotation processor '" + declaration.getClassName() + "'", e);
+            }
+            processors.add(new IncrementalProcessor(processor, declaration, result));
+        }
+        if (!additionalProcessors.isEmpty()) {
+            processors.addAll(additionalProcessors);
+            result.setFullRebuildCause("annotation processors were added to the compilation task that do not declare whether they are incremental");
+        }
+        return processors;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Records which types were generated by incremental annotation processors during a compilation, so that the next
+ * incremental compilation knows which generated types become stale when a source type changes.
+ */
+public class AnnotationProcessingResult implements Serializable {
+    private final Map<String, Set<String>> generatedTypesByOrigin = new LinkedHashMap<String, Set<String>>();
+    private final Set<String> aggregatedTypes = new LinkedHashSet<String>();
+    private final Set<String> generatedTypesDependingOnAllOthers = new LinkedHashSet<String>();
+    private String fullRebuildCause;
+
+    /**
+     * The types generated by isolating processors, keyed by the top level type they were generated from.
+     */
+    public Map<String, Set<String>> getGeneratedTypesByOrigin() {
+        return generatedTypesByOrigin;
+    }
+
+    public Set<String> getGeneratedTypes(String originatingType) {
+        Set<String> generatedTypes = generatedTypesByOrigin.get(originatingType);
+        return generatedTypes == null ? Collections.<String>emptySet() : generatedTypes;
+    }
+
+    public void addGeneratedType(String originatingType, String generatedType) {
+        Set<String> generatedTypes = generatedTypesByOrigin.get(originatingType);
+        if (generatedTypes == null) {
+            generatedTypes = new LinkedHashSet<String>();
+            generatedTypesByOrigin.put(originatingType, generatedTypes);
+        }
+        generatedTypes.add(generatedType);
+    }
+
+    /**
+     * The top level types that were processed by aggregating processors.
+     */
+    public Set<String> getAggregatedTypes() {
+        return aggregatedTypes;
+    }
+
+    /**
+     * The types generated by aggregating processors.
+     */
+    public Set<String> getGeneratedTypesDependingOnAllOthers() {
+        return generatedTypesDependingOnAllOthers;
+    }
+
+    /**
+     * Returns a description of why incremental compilation is not possible with this result, or null if it is.
+     */
+    public String getFullRebuildCause() {
+        return fullRebuildCause;
+    }
+
+    public void setFullRebuildCause(String fullRebuildCause) {
+        if (this.fullRebuildCause == null) {
+            this.fullRebuildCause = fullRebuildCause;
+        }
+    }
+
+    /**
+     * Carries over the parts of the result of a previous compilation that were not affected by an incremental recompilation of the given classes.
+     */
+    public void retainUnaffected(AnnotationProcessingResult previous, Collection<String> recompiledClasses) {
+        for (Map.Entry<String, Set<String>> entry : previous.generatedTypesByOrigin.entrySet()) {
+            if (!recompiledClasses.contains(entry.getKey())) {
+                for (String generatedType : entry.getValue()) {
+                    addGeneratedType(entry.getKey(), generatedType);
+                }
+            }
+        }
+        for (String aggregatedType : previous.aggregatedTypes) {
+            if (!recompiledClasses.contains(aggregatedType)) {
+                aggregatedTypes.add(aggregatedType);
+            }
+        }
+        if (previous.fullRebuildCause != null) {
+            setFullRebuildCause(previous.fullRebuildCause);
+        }
+    }
+
+    public static class Serializer extends AbstractSerializer<AnnotationProcessingResult> {
+        @Override
+        public AnnotationProcessingResult read(Decoder decoder) throws Exception {
+            AnnotationProcessingResult result = new AnnotationProcessingResult();
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                String originatingType = decoder.readString();
+                int generatedCount = decoder.readSmallInt();
+                for (int j = 0; j < generatedCount; j++) {
+                    result.addGeneratedType(originatingType, decoder.readString());
+                }
+            }
+            readNames(decoder, result.aggregatedTypes);
+            readNames(decoder, result.generatedTypesDependingOnAllOthers);
+            result.fullRebuildCause = decoder.readNullableString();
+            return result;
+        }
+
+        @Override
+        public void write(Encoder encoder, AnnotationProcessingResult value) throws Exception {
+            encoder.writeSmallInt(value.generatedTypesByOrigin.size());
+            for (Map.Entry<String, Set<String>> entry : value.generatedTypesByOrigin.entrySet()) {
+                encoder.writeString(entry.getKey());
+                writeNames(encoder, entry.getValue());
+            }
+            writeNames(encoder, value.aggregatedTypes);
+            writeNames(encoder, value.generatedTypesDependingOnAllOthers);
+            encoder.writeNullableString(value.fullRebuildCause);
+        }
+
+        private static void readNames(Decoder decoder, Set<String> names) throws IOException {
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                names.add(decoder.readString());
+            }
+        }
+
+        private static void writeNames(Encoder encoder, Set<String> names) throws IOException {
+            encoder.writeSmallInt(names.size());
+            for (String name : names) {
+                encoder.writeString(name);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+/**
+ * The different kinds of annotation processors that the incremental compiler knows how to handle.
+ *
+ * <p>A processor declares its kind in the {@code META-INF/gradle/incremental.annotation.processors} resource of the jar or directory
+ * that registers it in {@code META-INF/services/javax.annotation.processing.Processor}. The resource is a UTF-8 text file with one
+ * line per processor, made of the fully qualified class name of the processor and its kind, separated by a comma:</p>
+ *
+ * <pre>
+ * # comments and blank lines are ignored
+ * com.example.BuilderProcessor,isolating
+ * com.example.RegistryProcessor,aggregating
+ * </pre>
+ *
+ * <p>The kind is case insensitive. Processors that are not listed, or whose kind is missing or not recognized, are {@link #UNKNOWN}.</p>
+ */
+public enum IncrementalAnnotationProcessorType {
+    /**
+     * Generates files from a single annotated type, which must be passed as the originating element to the {@link javax.annotation.processing.Filer}.
+     */
+    ISOLATING,
+
+    /**
+     * Generates files from all the types annotated with its supported annotations. The generated files are regenerated whenever any source changes.
+     */
+    AGGREGATING,
+
+    /**
+     * Does not declare how it generates files, so any change requires a full recompilation.
+     */
+    UNKNOWN
+}
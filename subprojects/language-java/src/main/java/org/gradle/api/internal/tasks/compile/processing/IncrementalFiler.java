@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A {@link Filer} that records the types generated by an incremental annotation processor in an {@link AnnotationProcessingResult}.
+ */
+class IncrementalFiler implements Filer {
+    private final Filer delegate;
+    private final AnnotationProcessorDeclaration processor;
+    private final AnnotationProcessingResult result;
+
+    IncrementalFiler(Filer delegate, AnnotationProcessorDeclaration processor, AnnotationProcessingResult result) {
+        this.delegate = delegate;
+        this.processor = processor;
+        this.result = result;
+    }
+
+    @Override
+    public JavaFileObject createSourceFile(CharSequence name, Element... originatingElements) throws IOException {
+        recordGeneratedType(name, originatingElements);
+        return delegate.createSourceFile(name, originatingElements);
+    }
+
+    @Override
+    public JavaFileObject createClassFile(CharSequence name, Element... originatingElements) throws IOException {
+        recordGeneratedType(name, originatingElements);
+        return delegate.createClassFile(name, originatingElements);
+    }
+
+    @Override
+    public FileObject createResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName, Element... originatingElements) throws IOException {
+        result.setFullRebuildCause("the annotation processor '" + processor.getClassName() + "' generated the resource '" + relativeName + "'");
+        return delegate.createResource(location, pkg, relativeName, originatingElements);
+    }
+
+    @Override
+    public FileObject getResource(JavaFileManager.Location location, CharSequence pkg, CharSequence relativeName) throws IOException {
+        return delegate.getResource(location, pkg, relativeName);
+    }
+
+    private void recordGeneratedType(CharSequence name, Element[] originatingElements) {
+        String generatedType = name.toString();
+        if (processor.getType() == IncrementalAnnotationProcessorType.AGGREGATING) {
+            result.getGeneratedTypesDependingOnAllOthers().add(generatedType);
+            return;
+        }
+        Set<String> originatingTypes = new LinkedHashSet<String>();
+        for (Element originatingElement : originatingElements) {
+            originatingTypes.add(getTopLevelTypeName(originatingElement));
+        }
+        if (originatingTypes.size() != 1 || originatingTypes.contains(null)) {
+            result.setFullRebuildCause("the isolating annotation processor '" + processor.getClassName() + "' generated '" + generatedType + "' without providing exactly one originating type");
+            return;
+        }
+        result.addGeneratedType(originatingTypes.iterator().next(), generatedType);
+    }
+
+    static String getTopLevelTypeName(Element element) {
+        TypeElement topLevelType = null;
+        for (Element current = element; current != null && current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+            if (current instanceof TypeElement) {
+                topLevelType = (TypeElement) current;
+            }
+        }
+        return topLevelType == null ? null : topLevelType.getQualifiedName().toString();
+    }
+}
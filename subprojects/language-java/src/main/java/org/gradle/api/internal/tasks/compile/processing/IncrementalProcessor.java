@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing;
+
+import javax.annotation.processing.Completion;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import java.util.Set;
+
+/**
+ * Wraps an incremental annotation processor, recording the types it generates and, for aggregating processors, the types it processes.
+ */
+class IncrementalProcessor implements Processor {
+    private final Processor delegate;
+    private final AnnotationProcessorDeclaration declaration;
+    private final AnnotationProcessingResult result;
+
+    IncrementalProcessor(Processor delegate, AnnotationProcessorDeclaration declaration, AnnotationProcessingResult result) {
+        this.delegate = delegate;
+        this.declaration = declaration;
+        this.result = result;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return delegate.getSupportedOptions();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return delegate.getSupportedAnnotationTypes();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return delegate.getSupportedSourceVersion();
+    }
+
+    @Override
+    public void init(ProcessingEnvironment processingEnv) {
+        IncrementalFiler filer = new IncrementalFiler(processingEnv.getFiler(), declaration, result);
+        delegate.init(new IncrementalProcessingEnvironment(processingEnv, filer));
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (declaration.getType() == IncrementalAnnotationProcessorType.AGGREGATING) {
+            for (TypeElement annotation : annotations) {
+                for (Element annotatedElement : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    String aggregatedType = IncrementalFiler.getTopLevelTypeName(annotatedElement);
+                    if (aggregatedType != null) {
+                        result.getAggregatedTypes().add(aggregatedType);
+                    } else {
+                        result.setFullRebuildCause("the aggregating annotation processor '" + declaration.getClassName() + "' processed '" + annotatedElement + "', which is not part of a type");
+                    }
+                }
+            }
+        }
+        return delegate.process(annotations, roundEnv);
+    }
+
+    @Override
+    public Iterable<? extends Completion> getCompletions(Element element, AnnotationMirror annotation, ExecutableElement member, String userText) {
+        return delegate.getCompletions(element, annotation, member, userText);
+    }
+}
@@ -56,6 +56,7 @@ import org.gradle.api.tasks.incremental.IncrementalTaskInputs;
 import org.gradle.cache.CacheRepository;
 import org.gradle.internal.Factory;
 import org.gradle.internal.jvm.inspection.JvmVersionDetector;
+import org.gradle.internal.operations.BuildOperationProcessor;
 import org.gradle.jvm.internal.toolchain.JavaToolChainInternal;
 import org.gradle.jvm.platform.JavaPlatform;
 import org.gradle.jvm.platform.internal.DefaultJavaPlatform;
@@ -153,9 +154,14 @@ public class JavaCompile extends AbstractCompile {
         }
 
         DefaultJavaCompileSpec spec = createSpec();
+        if (!compileOptions.isFork()) {
+            //only the in-process compiler can track what incremental annotation processors generate
+            spec.setEffectiveAnnotationProcessors(getAnnotationProcessorDetector().getEffectiveAnnotationProcessors(compileOptions, spec.getAnnotationProcessorPath()));
+        }
         CompileCaches compileCaches = createCompileCaches();
         IncrementalCompilerFactory factory = new IncrementalCompilerFactory(
-            getFileOperations(), getCachingFileHasher(), getPath(), createCompiler(spec), source, compileCaches, (IncrementalTaskInputsInternal) inputs, getEffectiveAnnotationProcessorPath());
+            getFileOperations(), getCachingFileHasher(), getPath(), createCompiler(spec), source, compileCaches, (IncrementalTaskInputsInternal) inputs, getEffectiveAnnotationProcessorPath(),
+            spec.getEffectiveAnnotationProcessors(), getBuildOperationProcessor());
         Compiler<JavaCompileSpec> compiler = factory.createCompiler();
         performCompilation(spec, compiler);
     }
@@ -193,6 +199,11 @@ public class JavaCompile extends AbstractCompile {
         throw new UnsupportedOperationException();
     }
 
+    @Inject
+    protected BuildOperationProcessor getBuildOperationProcessor() {
+        throw new UnsupportedOperationException();
+    }
+
     @Inject
     protected GeneralCompileCaches getGeneralCompileCaches() {
         throw new UnsupportedOperationException();
@@ -309,7 +320,10 @@ public class JavaCompile extends AbstractCompile {
     @Incubating
     @Classpath
     public FileCollection getEffectiveAnnotationProcessorPath() {
-        AnnotationProcessorDetector annotationProcessorDetector = getServices().get(AnnotationProcessorDetector.class);
-        return annotationProcessorDetector.getEffectiveAnnotationProcessorClasspath(compileOptions, getClasspath());
+        return getAnnotationProcessorDetector().getEffectiveAnnotationProcessorClasspath(compileOptions, getClasspath());
+    }
+
+    private AnnotationProcessorDetector getAnnotationProcessorDetector() {
+        return getServices().get(AnnotationProcessorDetector.class);
     }
 }
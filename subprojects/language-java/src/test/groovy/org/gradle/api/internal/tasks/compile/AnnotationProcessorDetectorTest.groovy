@@ -21,6 +21,7 @@ import org.gradle.api.file.FileCollection
 import org.gradle.api.internal.cache.TestFileContentCacheFactory
 import org.gradle.api.internal.file.TestFiles
 import org.gradle.api.internal.file.collections.SimpleFileCollection
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessorDeclaration
 import org.gradle.api.tasks.compile.CompileOptions
 import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
 import org.gradle.util.JarUtils
@@ -28,6 +29,10 @@ import org.junit.Rule
 import spock.lang.Issue
 import spock.lang.Specification
 
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.AGGREGATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.ISOLATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.UNKNOWN
+
 class AnnotationProcessorDetectorTest extends Specification {
     @Rule
     TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
@@ -160,6 +165,36 @@ class AnnotationProcessorDetectorTest extends Specification {
         detector.getEffectiveAnnotationProcessorClasspath(options, cp).empty
     }
 
+    def "determines declared processors and their incremental types"() {
+        given:
+        def dir = tmpDir.file("classes-dir")
+        dir.file("META-INF/services/javax.annotation.processing.Processor") << "com.foo.Isolating\n# comment\ncom.foo.Aggregating\n"
+        dir.file("META-INF/gradle/incremental.annotation.processors") << "com.foo.Isolating,isolating\ncom.foo.Aggregating,AGGREGATING\n"
+        def jar = tmpDir.file("classes.jar")
+        jar << JarUtils.jarWithContents(
+            "META-INF/services/javax.annotation.processing.Processor": "com.foo.Unknown\ncom.foo.Isolating",
+            "META-INF/gradle/incremental.annotation.processors": "com.foo.Unknown,something")
+
+        expect:
+        detector.getEffectiveAnnotationProcessors(options, [dir, jar]) == [
+            new AnnotationProcessorDeclaration("com.foo.Isolating", ISOLATING),
+            new AnnotationProcessorDeclaration("com.foo.Aggregating", AGGREGATING),
+            new AnnotationProcessorDeclaration("com.foo.Unknown", UNKNOWN)
+        ]
+    }
+
+    def "cannot determine processors when -processor is found in compile options"() {
+        given:
+        def dir = tmpDir.file("classes-dir")
+        dir.file("META-INF/services/javax.annotation.processing.Processor") << "com.foo.Processor"
+
+        when:
+        options.compilerArgs = ['-processor', 'com.foo.Processor']
+
+        then:
+        detector.getEffectiveAnnotationProcessors(options, [dir]) == null
+    }
+
     FileCollection files(String... paths) {
         new SimpleFileCollection(paths.collect { tmpDir.file(it).createFile() })
     }
@@ -15,6 +15,7 @@
  */
 package org.gradle.api.internal.tasks.compile
 
+import org.gradle.api.internal.hash.FileHasher
 import org.gradle.workers.internal.WorkerDaemonFactory
 import org.gradle.internal.Factory
 import spock.lang.Specification
@@ -23,7 +24,7 @@ import javax.tools.JavaCompiler
 
 class DefaultJavaCompilerFactoryTest extends Specification {
     Factory<JavaCompiler> javaCompilerFinder = Mock()
-    def factory = new DefaultJavaCompilerFactory(new File("daemon-work-dir"), Mock(WorkerDaemonFactory), javaCompilerFinder)
+    def factory = new DefaultJavaCompilerFactory(new File("daemon-work-dir"), Mock(WorkerDaemonFactory), javaCompilerFinder, new JavaFileManagerCache(Mock(FileHasher)))
 
     def "creates in-process compiler when JavaCompileSpec is provided"() {
         expect:
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile
+
+import org.gradle.api.internal.hash.DefaultFileHasher
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import javax.tools.JavaCompiler
+import javax.tools.StandardJavaFileManager
+import java.nio.charset.Charset
+
+class JavaFileManagerCacheTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+    def compiler = Mock(JavaCompiler)
+    def cache = new JavaFileManagerCache(new DefaultFileHasher(), true)
+    def options = ["-d", "classes", "-classpath", "lib.jar"]
+
+    def "reuses released file manager"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def jar = tmpDir.file("lib.jar").createFile()
+
+        when:
+        def first = cache.acquire(compiler, null, options, [jar])
+        cache.release(first)
+        def second = cache.acquire(compiler, null, options, [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        first == fileManager
+        second == fileManager
+        0 * fileManager.close()
+    }
+
+    def "does not share file manager between concurrent compilations"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def first = cache.acquire(compiler, null, options, [])
+        def second = cache.acquire(compiler, null, options, [])
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        first == fileManager1
+        second == fileManager2
+    }
+
+    def "does not share file manager between compilations with different encoding or location options"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def fileManager3 = Mock(StandardJavaFileManager)
+        def utf8 = Charset.forName("UTF-8")
+
+        when:
+        cache.release(cache.acquire(compiler, null, options, []))
+        def withEncoding = cache.acquire(compiler, utf8, options, [])
+        def withProcessorPath = cache.acquire(compiler, null, options + ["-processorpath", "processor.jar"], [])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, utf8) >> fileManager2
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager3
+        withEncoding == fileManager2
+        withProcessorPath == fileManager3
+    }
+
+    def "discards file managers when a jar on the classpath changes"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def jar = tmpDir.file("lib.jar")
+        jar.text = "content"
+
+        when:
+        cache.release(cache.acquire(compiler, null, options, [jar]))
+        def inUse = cache.acquire(compiler, null, options, [jar])
+        jar.text = "changed content"
+        def afterChange = cache.acquire(compiler, null, options, [jar])
+        cache.release(inUse)
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager2
+        inUse == fileManager1
+        afterChange == fileManager2
+        1 * fileManager1.close()
+    }
+
+    def "discards file managers when a jar on the classpath is rewritten with the same length and modification time"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+        def jar = tmpDir.file("lib.jar")
+        jar.text = "content 1"
+        def lastModified = jar.lastModified()
+
+        when:
+        cache.release(cache.acquire(compiler, null, options, [jar]))
+        jar.text = "content 2"
+        jar.setLastModified(lastModified)
+        def afterChange = cache.acquire(compiler, null, options, [jar])
+
+        then:
+        jar.length() == "content 1".length()
+        jar.lastModified() == lastModified
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager1
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager2
+        afterChange == fileManager2
+        1 * fileManager1.close()
+    }
+
+    def "keeps file managers when a jar on the classpath is touched without changing its content"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def jar = tmpDir.file("lib.jar")
+        jar.text = "content"
+
+        when:
+        cache.release(cache.acquire(compiler, null, options, [jar]))
+        jar.setLastModified(jar.lastModified() - 10000)
+        def afterTouch = cache.acquire(compiler, null, options, [jar])
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        afterTouch == fileManager
+        0 * fileManager.close()
+    }
+
+    def "closes idle file managers when stopped and in-use file managers when given back"() {
+        def fileManager1 = Mock(StandardJavaFileManager)
+        def fileManager2 = Mock(StandardJavaFileManager)
+
+        when:
+        def idle = cache.acquire(compiler, null, options, [])
+        def inUse = cache.acquire(compiler, null, options, [])
+        cache.release(idle)
+        cache.stop()
+
+        then:
+        2 * compiler.getStandardFileManager(null, null, null) >>> [fileManager1, fileManager2]
+        inUse == fileManager2
+        1 * fileManager1.close()
+        0 * fileManager2.close()
+
+        when:
+        cache.release(inUse)
+
+        then:
+        1 * fileManager2.close()
+    }
+
+    def "closes file managers when reuse is disabled"() {
+        def fileManager = Mock(StandardJavaFileManager)
+        def cache = new JavaFileManagerCache(new DefaultFileHasher(), false)
+
+        when:
+        cache.release(cache.acquire(compiler, null, options, []))
+
+        then:
+        1 * compiler.getStandardFileManager(null, null, null) >> fileManager
+        1 * fileManager.close()
+    }
+}
@@ -33,12 +33,14 @@ class IncrementalCompilationFinalizerTest extends Specification {
     @Subject finalizer = new IncrementalCompilationFinalizer(compiler, writer, infoUpdater)
 
     def "performs finalization"() {
+        def result = Mock(WorkResult)
+
         when:
         finalizer.execute(compileSpec)
 
         then:
-        1 * compiler.execute(compileSpec) >> Mock(WorkResult)
-        1 * infoUpdater.updateAnalysis(compileSpec)
+        1 * compiler.execute(compileSpec) >> result
+        1 * infoUpdater.updateAnalysis(compileSpec, result)
         1 * writer.storeJarSnapshots(_)
         0 * _
     }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.incremental
+
+import org.gradle.api.Action
+import org.gradle.api.internal.file.FileOperations
+import org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet
+import org.gradle.api.internal.tasks.compile.incremental.deps.DependencyToAll
+import org.gradle.api.internal.tasks.compile.incremental.jar.JarClasspathSnapshot
+import org.gradle.api.internal.tasks.compile.incremental.jar.PreviousCompilation
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult
+import org.gradle.api.tasks.incremental.IncrementalTaskInputs
+import org.gradle.api.tasks.incremental.InputFileDetails
+import spock.lang.Specification
+import spock.lang.Subject
+
+import static org.gradle.api.internal.tasks.compile.incremental.deps.DefaultDependentsSet.dependents
+
+class RecompilationSpecProviderTest extends Specification {
+    def sourceToNameConverter = Stub(SourceToNameConverter) {
+        getClassName(_) >> { File file -> file.name - ".java" }
+    }
+    def previousCompilation = Stub(PreviousCompilation)
+    def inputs = Stub(IncrementalTaskInputs)
+    def processingResult = new AnnotationProcessingResult()
+    def dependentsByClass = [:]
+
+    @Subject provider = new RecompilationSpecProvider(sourceToNameConverter, Stub(FileOperations))
+
+    def setup() {
+        previousCompilation.getAnnotationProcessingResult() >> processingResult
+        previousCompilation.getDependents(_ as String, _ as Set) >> { String className, Set constants -> dependentsByClass[className] ?: DefaultDependentsSet.EMPTY }
+    }
+
+    def "recompiles the types generated by isolating processors from a changed type, along with their dependents"() {
+        processingResult.addGeneratedType("A", "ABuilder")
+        processingResult.addGeneratedType("B", "BBuilder")
+        dependentsByClass["ABuilder"] = dependents("Client")
+
+        when:
+        def spec = recompilationSpec(changed: ["A.java"])
+
+        then:
+        spec.fullRebuildCause == null
+        spec.classNames == ["A", "ABuilder", "Client"] as Set
+    }
+
+    def "recompiles the types generated from generated types"() {
+        processingResult.addGeneratedType("A", "ABuilder")
+        processingResult.addGeneratedType("ABuilder", "ABuilderFactory")
+
+        when:
+        def spec = recompilationSpec(changed: ["A.java"])
+
+        then:
+        spec.classNames == ["A", "ABuilder", "ABuilderFactory"] as Set
+    }
+
+    def "reprocesses all types processed by aggregating processors when any type changes"() {
+        processingResult.aggregatedTypes.addAll(["A", "B"])
+        processingResult.generatedTypesDependingOnAllOthers.add("Registry")
+        dependentsByClass["Registry"] = dependents("Main")
+
+        when:
+        def spec = recompilationSpec(changed: ["C.java"])
+
+        then:
+        spec.fullRebuildCause == null
+        spec.classNames == ["C", "A", "B", "Registry", "Main"] as Set
+    }
+
+    def "deletes the types generated from a deleted type"() {
+        processingResult.addGeneratedType("A", "ABuilder")
+        processingResult.addGeneratedType("B", "BBuilder")
+
+        when:
+        def spec = recompilationSpec(removed: ["A.java"])
+
+        then:
+        spec.fullRebuildCause == null
+        spec.classNames == ["A", "ABuilder"] as Set
+    }
+
+    def "requires a full rebuild when the previous annotation processing could not be tracked"() {
+        processingResult.addGeneratedType("A", "ABuilder")
+        processingResult.fullRebuildCause = "the annotation processor 'Processor' generated the resource 'resource.txt'"
+
+        when:
+        def spec = recompilationSpec(changed: ["A.java"])
+
+        then:
+        spec.fullRebuildCause == "the annotation processor 'Processor' generated the resource 'resource.txt'"
+    }
+
+    def "requires a full rebuild when a stale generated type is a dependency to all classes"() {
+        processingResult.addGeneratedType("A", "AConstants")
+        dependentsByClass["AConstants"] = new DependencyToAll("it declares constants")
+
+        when:
+        def spec = recompilationSpec(changed: ["A.java"])
+
+        then:
+        spec.fullRebuildCause == "it declares constants"
+    }
+
+    def "does not consider the previous annotation processing when nothing changed"() {
+        processingResult.aggregatedTypes.add("A")
+        processingResult.fullRebuildCause = "cause"
+
+        when:
+        def spec = recompilationSpec([:])
+
+        then:
+        spec.fullRebuildCause == null
+        spec.classNames.isEmpty()
+    }
+
+    private recompilationSpec(Map<String, List<String>> changes) {
+        inputs.outOfDate(_) >> { Action<InputFileDetails> action -> (changes.changed ?: []).each { action.execute(input(it, false)) } }
+        inputs.removed(_) >> { Action<InputFileDetails> action -> (changes.removed ?: []).each { action.execute(input(it, true)) } }
+        provider.provideRecompilationSpec(inputs, previousCompilation, Stub(JarClasspathSnapshot))
+    }
+
+    private InputFileDetails input(String path, boolean removed) {
+        def file = new File(path)
+        Stub(InputFileDetails) {
+            getFile() >> file
+            isRemoved() >> removed
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package org.gradle.api.internal.tasks.compile.incremental.deps
 
+import org.gradle.api.internal.tasks.compile.processing.AnnotationProcessingResult
 import org.gradle.internal.serialize.InputStreamBackedDecoder
 import org.gradle.internal.serialize.OutputStreamBackedEncoder
 import spock.lang.Specification
@@ -28,12 +29,18 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
     @Subject serializer = new ClassSetAnalysisData.Serializer()
 
     def "serializes"() {
+        def processingResult = new AnnotationProcessingResult()
+        processingResult.addGeneratedType("A", "A_Generated")
+        processingResult.addGeneratedType("A", "A_Other")
+        processingResult.aggregatedTypes.addAll(["B", "C"])
+        processingResult.generatedTypesDependingOnAllOthers.add("Registry")
         def data = new ClassSetAnalysisData(
             ["A.class": "A", "B.class": "B"],
             ["A": dependents("B", "C"), "B": new DefaultDependentsSet(["C"] as Set), "C": dependents(), "D": new DependencyToAll(),],
             [C: [1, 2] as Set, D: [] as Set],
             [3: ['A', 'B'] as Set, 4: ['D'] as Set],
-            ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
+            ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set],
+            processingResult
         )
         def os = new ByteArrayOutputStream()
         def e = new OutputStreamBackedEncoder(os)
@@ -43,17 +50,63 @@ class ClassSetAnalysisDataSerializerTest extends Specification {
         ClassSetAnalysisData read = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
 
         then:
-        read.dependents.keySet() == data.dependents.keySet()
-
         ["A", "B", "C"].each {
-            assert read.dependents[it].dependentClasses == data.dependents[it].dependentClasses
-            assert read.dependents[it].dependencyToAll == data.dependents[it].dependencyToAll
+            assert read.getDependents(it).dependentClasses == data.getDependents(it).dependentClasses
+            assert read.getDependents(it).dependencyToAll == data.getDependents(it).dependencyToAll
         }
 
-        read.dependents["D"] instanceof DependencyToAll
-        read.filePathToClassName == ["A.class": "A", "B.class": "B"]
-        read.classesToConstants == [C: [1,2] as Set, D: [] as Set]
-        read.literalsToClasses == [3: ['A', 'B'] as Set, 4: ['D'] as Set]
-        read.classesToChildren == ['A': ['SA'] as Set, B: ['SB1', 'SB2'] as Set]
+        read.getDependents("D") instanceof DependencyToAll
+        read.getDependents("SA") == null
+        read.getClassNameForFile("A.class") == "A"
+        read.getClassNameForFile("B.class") == "B"
+        read.getClassNameForFile("C.class") == null
+        read.getConstants("C") == [1, 2] as Set
+        read.getConstants("D") == [] as Set
+        read.getConstants("unknown") == [] as Set
+        classesWithLiteral(read, 3) == ['A', 'B'] as Set
+        classesWithLiteral(read, 4) == ['D'] as Set
+        classesWithLiteral(read, 5) == [] as Set
+        read.getChildren("A") == ['SA'] as Set
+        read.getChildren("B") == ['SB1', 'SB2'] as Set
+        read.getChildren("SA") == [] as Set
+        read.annotationProcessingResult.generatedTypesByOrigin == [A: ['A_Generated', 'A_Other'] as Set]
+        read.annotationProcessingResult.aggregatedTypes == ['B', 'C'] as Set
+        read.annotationProcessingResult.generatedTypesDependingOnAllOthers == ['Registry'] as Set
+        read.annotationProcessingResult.fullRebuildCause == null
+    }
+
+    def "serializes sections that were never read without decoding them"() {
+        def data = new ClassSetAnalysisData(
+            ["org/a/A.class": "org.a.A", "org/a/AB.class": "org.a.AB"],
+            ["org.a.A": dependents("org.a.AB"), "org.a.AB": dependents()],
+            ["org.a.A": [7] as Set],
+            [7: ['org.a.AB'] as Set],
+            ['org.a.A': ['org.a.AB'] as Set]
+        )
+
+        when:
+        def first = roundTrip(data)
+        def second = roundTrip(first)
+
+        then:
+        second.getDependents("org.a.A").dependentClasses == ["org.a.AB"] as Set
+        second.getClassNameForFile("org/a/AB.class") == "org.a.AB"
+        second.getConstants("org.a.A") == [7] as Set
+        classesWithLiteral(second, 7) == ["org.a.AB"] as Set
+        second.getChildren("org.a.A") == ["org.a.AB"] as Set
+    }
+
+    private static Set<String> classesWithLiteral(ClassSetAnalysisData data, int literal) {
+        def section = data.literals.get()
+        int index = Arrays.binarySearch(section.literals, literal)
+        return index < 0 ? [] as Set : section.classes[index].collect { data.classNames[it] } as Set
+    }
+
+    private ClassSetAnalysisData roundTrip(ClassSetAnalysisData data) {
+        def os = new ByteArrayOutputStream()
+        def e = new OutputStreamBackedEncoder(os)
+        serializer.write(e, data)
+        e.flush()
+        serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
     }
 }
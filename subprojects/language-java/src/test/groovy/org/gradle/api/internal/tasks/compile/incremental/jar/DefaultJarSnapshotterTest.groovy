@@ -71,11 +71,11 @@ class DefaultJarSnapshotterTest extends Specification {
             visitor.visitFile(new DefaultFileVisitDetails(f3, null, null))
         }
         1 * hasher.hash(_) >> f1Hash
-        1 * classDependenciesAnalyzer.getClassAnalysis(f1Hash, f1Details) >> Stub(ClassAnalysis) {
+        1 * classDependenciesAnalyzer.getClassAnalysis(f1Hash, _ as byte[]) >> Stub(ClassAnalysis) {
             getClassName() >> "Foo"
         }
         1 * hasher.hash(_) >> f2Hash
-        1 * classDependenciesAnalyzer.getClassAnalysis(f2Hash, f2Details) >> Stub(ClassAnalysis) {
+        1 * classDependenciesAnalyzer.getClassAnalysis(f2Hash, _ as byte[]) >> Stub(ClassAnalysis) {
             getClassName() >> "com.Foo2"
         }
         0 * _._
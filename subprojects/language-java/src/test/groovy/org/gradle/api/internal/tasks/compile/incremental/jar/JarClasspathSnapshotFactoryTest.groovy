@@ -17,14 +17,25 @@
 package org.gradle.api.internal.tasks.compile.incremental.jar
 
 import com.google.common.hash.HashCode
+import org.gradle.api.Action
 import org.gradle.api.file.FileTree
+import org.gradle.internal.operations.BuildOperationProcessor
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
 import spock.lang.Specification
 import spock.lang.Subject
 
 class JarClasspathSnapshotFactoryTest extends Specification {
 
     def snapshotter = Mock(JarSnapshotter)
-    @Subject factory = new JarClasspathSnapshotFactory(snapshotter)
+    def buildOperationProcessor = Stub(BuildOperationProcessor) {
+        run(_) >> { Action<BuildOperationQueue<RunnableBuildOperation>> generator ->
+            generator.execute(Stub(BuildOperationQueue) {
+                add(_) >> { RunnableBuildOperation operation -> operation.run() }
+            })
+        }
+    }
+    @Subject factory = new JarClasspathSnapshotFactory(snapshotter, buildOperationProcessor)
 
     def "creates classpath snapshot with correct duplicate classes"() {
         def jar1 = stubArchive("f1"); def jar2 = stubArchive("f2"); def jar3 = stubArchive("f3")
@@ -78,6 +89,30 @@ class JarClasspathSnapshotFactoryTest extends Specification {
         0 * snapshotter.createSnapshot(jar2)
     }
 
+    def "snapshots jars using build operation processor"() {
+        def processor = Mock(BuildOperationProcessor)
+        def factory = new JarClasspathSnapshotFactory(snapshotter, processor)
+        def jar1 = stubArchive("f1")
+        def jar2 = stubArchive("f2")
+        def queue = Mock(BuildOperationQueue)
+        def operations = []
+
+        when:
+        def s = factory.createSnapshot([jar1, jar2])
+
+        then:
+        1 * processor.run(_) >> { Action<BuildOperationQueue<RunnableBuildOperation>> generator ->
+            generator.execute(queue)
+            operations*.run()
+        }
+        2 * queue.add(_) >> { RunnableBuildOperation operation -> operations << operation }
+        1 * snapshotter.createSnapshot(jar1) >> Stub(JarSnapshot) { getHash() >> HashCode.fromInt(1) }
+        1 * snapshotter.createSnapshot(jar2) >> Stub(JarSnapshot) { getHash() >> HashCode.fromInt(2) }
+        0 * _
+
+        s.data.jarHashes == [(new File("f1")): HashCode.fromInt(1), (new File("f2")): HashCode.fromInt(2)]
+    }
+
     private JarArchive stubArchive(String name, boolean exists = true) {
         new JarArchive(new File(name) {
             boolean exists() { exists }
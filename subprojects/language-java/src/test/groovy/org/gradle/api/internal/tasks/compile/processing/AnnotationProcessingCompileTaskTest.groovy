@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import spock.lang.Specification
+
+import javax.annotation.processing.AbstractProcessor
+import javax.annotation.processing.Processor
+import javax.annotation.processing.RoundEnvironment
+import javax.lang.model.element.TypeElement
+import javax.tools.JavaCompiler
+
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.ISOLATING
+
+class AnnotationProcessingCompileTaskTest extends Specification {
+    def delegate = Mock(JavaCompiler.CompilationTask)
+    def result = new AnnotationProcessingResult()
+
+    def "wraps the declared processors"() {
+        def task = new AnnotationProcessingCompileTask(delegate, [new AnnotationProcessorDeclaration(TestProcessor.name, ISOLATING)], [], result)
+
+        when:
+        def success = task.call()
+
+        then:
+        1 * delegate.setProcessors({ List<Processor> processors -> processors.size() == 1 && processors[0] instanceof IncrementalProcessor })
+        1 * delegate.call() >> true
+        success
+        result.fullRebuildCause == null
+    }
+
+    def "merges processors set on the task with the declared processors and requires a full rebuild"() {
+        def processor = Mock(Processor)
+        def task = new AnnotationProcessingCompileTask(delegate, [new AnnotationProcessorDeclaration(TestProcessor.name, ISOLATING)], [], result)
+
+        when:
+        task.setProcessors([processor])
+        task.call()
+
+        then:
+        1 * delegate.setProcessors({ List<Processor> processors -> processors.size() == 2 && processors[0] instanceof IncrementalProcessor && processors[1].is(processor) })
+        1 * delegate.call() >> true
+        result.fullRebuildCause == "annotation processors were added to the compilation task that do not declare whether they are incremental"
+    }
+
+    def "fails when a declared processor cannot be found"() {
+        def task = new AnnotationProcessingCompileTask(delegate, [new AnnotationProcessorDeclaration("com.Missing", ISOLATING)], [], result)
+
+        when:
+        task.call()
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Annotation processor 'com.Missing' not found"
+        0 * delegate.call()
+    }
+
+    static class TestProcessor extends AbstractProcessor {
+        @Override
+        boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+            return false
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import org.gradle.internal.serialize.InputStreamBackedDecoder
+import org.gradle.internal.serialize.OutputStreamBackedEncoder
+import spock.lang.Specification
+
+class AnnotationProcessingResultTest extends Specification {
+    def previous = new AnnotationProcessingResult()
+    def result = new AnnotationProcessingResult()
+
+    def setup() {
+        previous.addGeneratedType("com.A", "com.ABuilder")
+        previous.addGeneratedType("com.B", "com.BBuilder")
+        previous.aggregatedTypes.addAll(["com.A", "com.C"])
+        previous.generatedTypesDependingOnAllOthers.add("com.Registry")
+    }
+
+    def "retains the types generated from origins that were not recompiled"() {
+        when:
+        result.retainUnaffected(previous, ["com.A"])
+
+        then:
+        result.generatedTypesByOrigin == ["com.B": ["com.BBuilder"] as Set]
+        result.getGeneratedTypes("com.A").isEmpty()
+        result.fullRebuildCause == null
+    }
+
+    def "drops the types generated from a deleted origin"() {
+        when:
+        result.retainUnaffected(previous, ["com.B"])
+
+        then:
+        result.generatedTypesByOrigin == ["com.A": ["com.ABuilder"] as Set]
+        result.getGeneratedTypes("com.B").isEmpty()
+    }
+
+    def "retains the aggregated types that were not reprocessed"() {
+        when:
+        result.aggregatedTypes.add("com.A")
+        result.generatedTypesDependingOnAllOthers.add("com.OtherRegistry")
+        result.retainUnaffected(previous, ["com.A", "com.C"])
+
+        then:
+        result.aggregatedTypes == ["com.A"] as Set
+        result.generatedTypesDependingOnAllOthers == ["com.OtherRegistry"] as Set
+    }
+
+    def "retains the cause of a previous full rebuild"() {
+        previous.fullRebuildCause = "previous cause"
+
+        when:
+        result.retainUnaffected(previous, [])
+
+        then:
+        result.fullRebuildCause == "previous cause"
+    }
+
+    def "keeps the first full rebuild cause"() {
+        when:
+        result.fullRebuildCause = "first"
+        result.fullRebuildCause = "second"
+
+        then:
+        result.fullRebuildCause == "first"
+    }
+
+    def "serializes result"() {
+        previous.fullRebuildCause = "cause"
+
+        def serializer = new AnnotationProcessingResult.Serializer()
+        def os = new ByteArrayOutputStream()
+
+        when:
+        def e = new OutputStreamBackedEncoder(os)
+        serializer.write(e, previous)
+        e.flush()
+        def copy = serializer.read(new InputStreamBackedDecoder(new ByteArrayInputStream(os.toByteArray())))
+
+        then:
+        copy.generatedTypesByOrigin == previous.generatedTypesByOrigin
+        copy.aggregatedTypes == previous.aggregatedTypes
+        copy.generatedTypesDependingOnAllOthers == previous.generatedTypesDependingOnAllOthers
+        copy.fullRebuildCause == "cause"
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import spock.lang.Specification
+
+import javax.annotation.processing.Filer
+import javax.lang.model.element.Element
+import javax.lang.model.element.ElementKind
+import javax.lang.model.element.Name
+import javax.lang.model.element.PackageElement
+import javax.lang.model.element.TypeElement
+import javax.tools.StandardLocation
+
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.AGGREGATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.ISOLATING
+
+class IncrementalFilerTest extends Specification {
+    def delegate = Mock(Filer)
+    def result = new AnnotationProcessingResult()
+
+    def "records types generated by isolating processors against the top level type of their origin"() {
+        def filer = filer(ISOLATING)
+        def pkg = packageElement()
+        def outer = type("com.Outer", pkg)
+        def inner = type("com.Outer.Inner", outer)
+        def method = element(ElementKind.METHOD, inner)
+
+        when:
+        filer.createSourceFile("com.OuterBuilder", method)
+        filer.createClassFile("com.OuterHelper", inner, outer)
+
+        then:
+        1 * delegate.createSourceFile("com.OuterBuilder", method)
+        1 * delegate.createClassFile("com.OuterHelper", inner, outer)
+        result.generatedTypesByOrigin == ["com.Outer": ["com.OuterBuilder", "com.OuterHelper"] as Set]
+        result.fullRebuildCause == null
+    }
+
+    def "requires a full rebuild when an isolating processor does not provide exactly one originating type"() {
+        def filer = filer(ISOLATING)
+        def pkg = packageElement()
+        def originatingElements = [
+            none: [],
+            several: [type("com.A", pkg), type("com.B", pkg)],
+            notAType: [pkg]
+        ][origins]
+
+        when:
+        filer.createSourceFile("com.Generated", originatingElements as Element[])
+
+        then:
+        result.generatedTypesByOrigin.isEmpty()
+        result.fullRebuildCause == "the isolating annotation processor 'com.Processor' generated 'com.Generated' without providing exactly one originating type"
+
+        where:
+        origins << ["none", "several", "notAType"]
+    }
+
+    def "records types generated by aggregating processors as depending on all others"() {
+        def filer = filer(AGGREGATING)
+
+        when:
+        filer.createSourceFile("com.Registry")
+        filer.createClassFile("com.RegistryHelper", type("com.A", packageElement()))
+
+        then:
+        result.generatedTypesDependingOnAllOthers == ["com.Registry", "com.RegistryHelper"] as Set
+        result.generatedTypesByOrigin.isEmpty()
+        result.fullRebuildCause == null
+    }
+
+    def "requires a full rebuild when a processor generates a resource"() {
+        def filer = filer(type)
+
+        when:
+        filer.createResource(StandardLocation.CLASS_OUTPUT, "com", "resource.txt")
+
+        then:
+        1 * delegate.createResource(StandardLocation.CLASS_OUTPUT, "com", "resource.txt")
+        result.fullRebuildCause == "the annotation processor 'com.Processor' generated the resource 'resource.txt'"
+
+        where:
+        type << [ISOLATING, AGGREGATING]
+    }
+
+    def "reading a resource does not affect incremental compilation"() {
+        def filer = filer(ISOLATING)
+
+        when:
+        filer.getResource(StandardLocation.CLASS_OUTPUT, "com", "resource.txt")
+
+        then:
+        1 * delegate.getResource(StandardLocation.CLASS_OUTPUT, "com", "resource.txt")
+        result.fullRebuildCause == null
+    }
+
+    private IncrementalFiler filer(IncrementalAnnotationProcessorType type) {
+        new IncrementalFiler(delegate, new AnnotationProcessorDeclaration("com.Processor", type), result)
+    }
+
+    private PackageElement packageElement() {
+        Stub(PackageElement) {
+            getKind() >> ElementKind.PACKAGE
+        }
+    }
+
+    private TypeElement type(String name, Element enclosing) {
+        def qualifiedName = Stub(Name) {
+            toString() >> name
+        }
+        Stub(TypeElement) {
+            getKind() >> ElementKind.CLASS
+            getQualifiedName() >> qualifiedName
+            getEnclosingElement() >> enclosing
+        }
+    }
+
+    private Element element(ElementKind kind, Element enclosing) {
+        Stub(Element) {
+            getKind() >> kind
+            getEnclosingElement() >> enclosing
+        }
+    }
+}
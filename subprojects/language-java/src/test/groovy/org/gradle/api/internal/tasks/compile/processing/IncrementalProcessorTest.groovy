@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.api.internal.tasks.compile.processing
+
+import spock.lang.Specification
+
+import javax.annotation.processing.Filer
+import javax.annotation.processing.ProcessingEnvironment
+import javax.annotation.processing.Processor
+import javax.annotation.processing.RoundEnvironment
+import javax.lang.model.element.Element
+import javax.lang.model.element.ElementKind
+import javax.lang.model.element.Name
+import javax.lang.model.element.PackageElement
+import javax.lang.model.element.TypeElement
+
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.AGGREGATING
+import static org.gradle.api.internal.tasks.compile.processing.IncrementalAnnotationProcessorType.ISOLATING
+
+class IncrementalProcessorTest extends Specification {
+    def delegate = Mock(Processor)
+    def result = new AnnotationProcessingResult()
+    def roundEnv = Mock(RoundEnvironment)
+    def annotation = Stub(TypeElement)
+    def annotations = [annotation] as Set
+
+    def "gives the processor a filer that records the generated types"() {
+        def filer = Mock(Filer)
+        def processingEnv = Mock(ProcessingEnvironment)
+        def processor = processor(ISOLATING)
+        ProcessingEnvironment wrappedEnv = null
+
+        when:
+        processor.init(processingEnv)
+
+        then:
+        1 * processingEnv.getFiler() >> filer
+        1 * delegate.init(_) >> { ProcessingEnvironment env -> wrappedEnv = env }
+
+        when:
+        wrappedEnv.filer.createSourceFile("com.ABuilder", type("com.A"))
+
+        then:
+        1 * filer.createSourceFile("com.ABuilder", _)
+        result.generatedTypesByOrigin == ["com.A": ["com.ABuilder"] as Set]
+    }
+
+    def "records the types processed by aggregating processors"() {
+        def processor = processor(AGGREGATING)
+        def a = type("com.A")
+        def b = type("com.B")
+        def method = Stub(Element) {
+            getKind() >> ElementKind.METHOD
+            getEnclosingElement() >> b
+        }
+
+        when:
+        def claimed = processor.process(annotations, roundEnv)
+
+        then:
+        1 * roundEnv.getElementsAnnotatedWith(annotation) >> ([a, method] as Set)
+        1 * delegate.process(annotations, roundEnv) >> true
+        claimed
+        result.aggregatedTypes == ["com.A", "com.B"] as Set
+        result.fullRebuildCause == null
+    }
+
+    def "requires a full rebuild when an aggregating processor processes an element that is not part of a type"() {
+        def processor = processor(AGGREGATING)
+        def pkg = Stub(PackageElement) {
+            getKind() >> ElementKind.PACKAGE
+            toString() >> "com"
+        }
+
+        when:
+        processor.process(annotations, roundEnv)
+
+        then:
+        1 * roundEnv.getElementsAnnotatedWith(annotation) >> ([pkg] as Set)
+        result.aggregatedTypes.isEmpty()
+        result.fullRebuildCause == "the aggregating annotation processor 'com.Processor' processed 'com', which is not part of a type"
+    }
+
+    def "does not record the types processed by isolating processors"() {
+        def processor = processor(ISOLATING)
+
+        when:
+        processor.process(annotations, roundEnv)
+
+        then:
+        0 * roundEnv._
+        1 * delegate.process(annotations, roundEnv)
+        result.aggregatedTypes.isEmpty()
+    }
+
+    private IncrementalProcessor processor(IncrementalAnnotationProcessorType type) {
+        new IncrementalProcessor(delegate, new AnnotationProcessorDeclaration("com.Processor", type), result)
+    }
+
+    private TypeElement type(String name) {
+        def pkg = Stub(PackageElement) {
+            getKind() >> ElementKind.PACKAGE
+        }
+        def qualifiedName = Stub(Name) {
+            toString() >> name
+        }
+        Stub(TypeElement) {
+            getKind() >> ElementKind.CLASS
+            getQualifiedName() >> qualifiedName
+            getEnclosingElement() >> pkg
+        }
+    }
+}
@@ -78,6 +78,11 @@ public class PropertiesToDaemonParametersConverter {
             target.setEnabled(isTrue(daemonEnabledPropertyValue));
         }
 
+        String classDataSharingPropertyValue = properties.get(CLASS_DATA_SHARING_PROPERTY);
+        if (classDataSharingPropertyValue != null) {
+            target.setClassDataSharing(isTrue(classDataSharingPropertyValue));
+        }
+
         final String debugEnabledPropertyValue = properties.get(DEBUG_MODE_PROPERTY);
         if (debugEnabledPropertyValue != null) {
             target.setDebug(isTrue(debugEnabledPropertyValue));
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.client;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import org.gradle.api.logging.Logger;
+import org.gradle.api.logging.Logging;
+import org.gradle.internal.classpath.ClassPath;
+import org.gradle.internal.io.NullOutputStream;
+import org.gradle.internal.jvm.JavaInfo;
+import org.gradle.process.ExecResult;
+import org.gradle.process.internal.ExecHandleBuilder;
+import org.gradle.process.internal.ExecHandleFactory;
+import org.gradle.util.CollectionUtils;
+import org.gradle.util.GFileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Creates and locates class data sharing archives for the classes loaded from the daemon's bootstrap classpath, so that these classes do not need to be
+ * loaded and verified again by each new daemon.
+ *
+ * <p>An archive is created the first time a daemon is started for a given JVM and classpath, and stored in the versioned daemon directory. Not all JVMs
+ * support archiving application classes, and those that do require different options, so each candidate set of options is tried in turn when creating the
+ * archive. The options that worked are recorded along with the archive. When none of them work, this is recorded as well, so that the attempt is not made
+ * again.</p>
+ */
+public class DaemonClassDataSharing {
+    private static final Logger LOGGER = Logging.getLogger(DaemonClassDataSharing.class);
+    private static final List<List<String>> CANDIDATE_OPTIONS = ImmutableList.<List<String>>of(
+        // Oracle JDK 8u40 to 10
+        ImmutableList.of("-XX:+UnlockCommercialFeatures", "-XX:+UseAppCDS"),
+        // JDK 11 and later, which archive application classes by default
+        ImmutableList.<String>of(),
+        // OpenJDK 8, which can archive only the classes of the JVM itself
+        ImmutableList.of("-XX:+UnlockDiagnosticVMOptions")
+    );
+    private static final String UNSUPPORTED = "unsupported";
+
+    private final File archiveDir;
+    private final ExecHandleFactory execHandleFactory;
+
+    public DaemonClassDataSharing(File archiveDir, ExecHandleFactory execHandleFactory) {
+        this.archiveDir = archiveDir;
+        this.execHandleFactory = execHandleFactory;
+    }
+
+    /**
+     * Returns the JVM options to use to start a daemon with the given JVM and classpath, creating the archive if it does not exist. Returns an empty list
+     * when the JVM does not support class data sharing.
+     */
+    public List<String> getJvmArgs(JavaInfo jvm, ClassPath classpath) {
+        for (File file : classpath.getAsFiles()) {
+            if (!file.isFile()) {
+                // Classes can only be archived from jars
+                return Collections.emptyList();
+            }
+        }
+        try {
+            String key = archiveKey(jvm, classpath);
+            File archive = new File(archiveDir, key + ".jsa");
+            File optionsFile = new File(archiveDir, key + ".options");
+            if (!optionsFile.isFile()) {
+                createArchive(jvm, classpath, key, archive, optionsFile);
+            }
+            String options = Files.toString(optionsFile, Charsets.UTF_8);
+            if (options.equals(UNSUPPORTED) || !archive.isFile()) {
+                return Collections.emptyList();
+            }
+            List<String> jvmArgs = new ArrayList<String>();
+            if (!options.isEmpty()) {
+                Collections.addAll(jvmArgs, options.split(" "));
+            }
+            // Fall back to loading classes from the classpath when the archive cannot be used
+            jvmArgs.add("-Xshare:auto");
+            jvmArgs.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            return jvmArgs;
+        } catch (Exception e) {
+            LOGGER.info("Could not use a class data sharing archive for the daemon.", e);
+            return Collections.emptyList();
+        }
+    }
+
+    private void createArchive(JavaInfo jvm, ClassPath classpath, String key, File archive, File optionsFile) throws IOException {
+        GFileUtils.mkdirs(archiveDir);
+        File classList = File.createTempFile(key, ".classlist", archiveDir);
+        File tmpArchive = File.createTempFile(key, ".jsa", archiveDir);
+        try {
+            Files.write(Joiner.on('\n').join(classNames(jvm, classpath)), classList, Charsets.UTF_8);
+            for (List<String> options : CANDIDATE_OPTIONS) {
+                GFileUtils.deleteQuietly(tmpArchive);
+                if (dump(jvm, classpath, options, classList, tmpArchive)) {
+                    LOGGER.info("Created class data sharing archive {} for the daemon using JVM options {}.", archive, options);
+                    if (!tmpArchive.renameTo(archive) && !archive.isFile()) {
+                        throw new IOException(String.format("Could not move class data sharing archive to %s.", archive));
+                    }
+                    writeAtomically(optionsFile, Joiner.on(' ').join(options));
+                    return;
+                }
+            }
+            LOGGER.info("The JVM {} does not support class data sharing for the daemon's classes.", jvm.getJavaExecutable());
+            writeAtomically(optionsFile, UNSUPPORTED);
+        } finally {
+            GFileUtils.deleteQuietly(classList);
+            GFileUtils.deleteQuietly(tmpArchive);
+        }
+    }
+
+    private boolean dump(JavaInfo jvm, ClassPath classpath, List<String> options, File classList, File archive) {
+        List<String> commandLine = new ArrayList<String>();
+        commandLine.add(jvm.getJavaExecutable().getAbsolutePath());
+        commandLine.addAll(options);
+        commandLine.add("-Xshare:dump");
+        commandLine.add("-XX:SharedClassListFile=" + classList.getAbsolutePath());
+        commandLine.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+        commandLine.add("-cp");
+        commandLine.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
+
+        ExecHandleBuilder builder = execHandleFactory.newExec();
+        builder.setWorkingDir(archiveDir);
+        builder.setCommandLine(commandLine);
+        builder.setStandardOutput(NullOutputStream.INSTANCE);
+        builder.setErrorOutput(NullOutputStream.INSTANCE);
+        builder.setIgnoreExitValue(true);
+        ExecResult result = builder.build().start().waitForFinish();
+        LOGGER.debug("Class data sharing archive creation using {} finished with exit value {}.", commandLine, result.getExitValue());
+        return result.getExitValue() == 0 && archive.length() > 0;
+    }
+
+    private void writeAtomically(File file, String content) throws IOException {
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", archiveDir);
+        Files.write(content, tmpFile, Charsets.UTF_8);
+        if (!tmpFile.renameTo(file)) {
+            GFileUtils.deleteQuietly(tmpFile);
+        }
+    }
+
+    /**
+     * Lists the classes shipped with the JVM that it archives by default, followed by the classes of the daemon's bootstrap classpath.
+     */
+    private static Set<String> classNames(JavaInfo jvm, ClassPath classpath) throws IOException {
+        Set<String> classNames = new LinkedHashSet<String>();
+        for (File jvmClassList : ImmutableList.of(new File(jvm.getJavaHome(), "jre/lib/classlist"), new File(jvm.getJavaHome(), "lib/classlist"))) {
+            if (jvmClassList.isFile()) {
+                for (String line : Files.readLines(jvmClassList, Charsets.UTF_8)) {
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        classNames.add(line.trim());
+                    }
+                }
+            }
+        }
+        for (File file : classpath.getAsFiles()) {
+            ZipFile zipFile = new ZipFile(file);
+            try {
+                Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                while (entries.hasMoreElements()) {
+                    String path = entries.nextElement().getName();
+                    if (path.endsWith(".class") && !path.startsWith("META-INF/") && !path.endsWith("package-info.class") && !path.endsWith("module-info.class")) {
+                        classNames.add(path.substring(0, path.length() - ".class".length()));
+                    }
+                }
+            } finally {
+                zipFile.close();
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * The archive can only be used with the JVM and the exact classpath that it was created with.
+     */
+    private static String archiveKey(JavaInfo jvm, ClassPath classpath) {
+        Hasher hasher = Hashing.md5().newHasher();
+        hasher.putString(jvm.getJavaExecutable().getAbsolutePath(), Charsets.UTF_8);
+        hasher.putLong(jvm.getJavaExecutable().lastModified());
+        for (File file : classpath.getAsFiles()) {
+            hasher.putString(file.getAbsolutePath(), Charsets.UTF_8);
+            hasher.putLong(file.length());
+            hasher.putLong(file.lastModified());
+        }
+        return hasher.hash().toString();
+    }
+}
@@ -21,7 +21,9 @@ import org.gradle.launcher.daemon.configuration.DaemonParameters;
 import org.gradle.launcher.daemon.context.DaemonContextBuilder;
 import org.gradle.launcher.daemon.registry.DaemonDir;
 import org.gradle.launcher.daemon.registry.DaemonRegistryServices;
+import org.gradle.process.internal.ExecHandleFactory;
 
+import java.io.File;
 import java.io.InputStream;
 
 /**
@@ -36,8 +38,9 @@ public class DaemonClientServices extends DaemonClientServicesSupport {
         addProvider(new DaemonRegistryServices(daemonParameters.getBaseDir()));
     }
 
-    DaemonStarter createDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator jvmVersionValidator) {
-        return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, jvmVersionValidator);
+    DaemonStarter createDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator jvmVersionValidator, ExecHandleFactory execHandleFactory) {
+        DaemonClassDataSharing classDataSharing = new DaemonClassDataSharing(new File(daemonDir.getVersionedDir(), "cds"), execHandleFactory);
+        return new DefaultDaemonStarter(daemonDir, daemonParameters, daemonGreeter, jvmVersionValidator, classDataSharing);
     }
 
     protected void configureDaemonContextBuilder(DaemonContextBuilder builder) {
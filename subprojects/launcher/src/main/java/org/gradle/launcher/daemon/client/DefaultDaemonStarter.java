@@ -59,12 +59,14 @@ public class DefaultDaemonStarter implements DaemonStarter {
     private final DaemonParameters daemonParameters;
     private final DaemonGreeter daemonGreeter;
     private final JvmVersionValidator versionValidator;
+    private final DaemonClassDataSharing classDataSharing;
 
-    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator) {
+    public DefaultDaemonStarter(DaemonDir daemonDir, DaemonParameters daemonParameters, DaemonGreeter daemonGreeter, JvmVersionValidator versionValidator, DaemonClassDataSharing classDataSharing) {
         this.daemonDir = daemonDir;
         this.daemonParameters = daemonParameters;
         this.daemonGreeter = daemonGreeter;
         this.versionValidator = versionValidator;
+        this.classDataSharing = classDataSharing;
     }
 
     public DaemonStartupInfo startDaemon() {
@@ -97,6 +99,10 @@ public class DefaultDaemonStarter implements DaemonStarter {
 
         List<String> daemonOpts = daemonParameters.getEffectiveJvmArgs();
         daemonArgs.addAll(daemonOpts);
+        if (daemonParameters.isClassDataSharing()) {
+            // Not part of the daemon options, as these do not affect whether a daemon is compatible with a build
+            daemonArgs.addAll(classDataSharing.getJvmArgs(daemonParameters.getEffectiveJvm(), classpath));
+        }
         daemonArgs.add("-cp");
         daemonArgs.add(CollectionUtils.join(File.pathSeparator, classpath.getAsFiles()));
 
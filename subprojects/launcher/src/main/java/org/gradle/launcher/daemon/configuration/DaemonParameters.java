@@ -51,6 +51,7 @@ public class DaemonParameters {
     private boolean foreground;
     private boolean stop;
     private boolean status;
+    private boolean classDataSharing;
     private boolean interactive = System.console() != null || Boolean.getBoolean(INTERACTIVE_TOGGLE);
     private JavaInfo jvm = Jvm.current();
 
@@ -190,6 +191,17 @@ public class DaemonParameters {
         this.status = status;
     }
 
+    /**
+     * Whether new daemons should be started with a class data sharing archive of their bootstrap classes, when supported by the JVM.
+     */
+    public boolean isClassDataSharing() {
+        return classDataSharing;
+    }
+
+    public void setClassDataSharing(boolean classDataSharing) {
+        this.classDataSharing = classDataSharing;
+    }
+
     public Map<String, String> getEnvironmentVariables() {
         return envVariables;
     }
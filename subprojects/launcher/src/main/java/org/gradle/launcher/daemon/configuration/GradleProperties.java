@@ -24,6 +24,7 @@ public class GradleProperties {
 
     public static final String IDLE_TIMEOUT_PROPERTY = "org.gradle.daemon.idletimeout";
     public static final String HEALTH_CHECK_INTERVAL_PROPERTY = "org.gradle.daemon.healthcheckinterval";
+    public static final String CLASS_DATA_SHARING_PROPERTY = "org.gradle.daemon.classdatasharing";
     public static final String DAEMON_BASE_DIR_PROPERTY = "org.gradle.daemon.registry.base";
     public static final String JVM_ARGS_PROPERTY = "org.gradle.jvmargs";
     public static final String JAVA_HOME_PROPERTY = "org.gradle.java.home";
@@ -37,7 +38,7 @@ public class GradleProperties {
 
     public static final Set<String> ALL = newHashSet(IDLE_TIMEOUT_PROPERTY, HEALTH_CHECK_INTERVAL_PROPERTY, DAEMON_BASE_DIR_PROPERTY, JVM_ARGS_PROPERTY,
             JAVA_HOME_PROPERTY, DAEMON_ENABLED_PROPERTY, DEBUG_MODE_PROPERTY, CONFIGURE_ON_DEMAND_PROPERTY, PARALLEL_PROPERTY, WORKERS_PROPERTY, BUILD_CACHE_PROPERTY,
-            TASK_OUTPUT_CACHE_PROPERTY);
+            TASK_OUTPUT_CACHE_PROPERTY, CLASS_DATA_SHARING_PROPERTY);
 
     public static boolean isTrue(Object propertyValue) {
         return propertyValue != null && propertyValue.toString().trim().equalsIgnoreCase("true");
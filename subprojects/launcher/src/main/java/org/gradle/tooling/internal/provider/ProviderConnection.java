@@ -47,6 +47,7 @@ import org.gradle.tooling.internal.gradle.DefaultBuildIdentifier;
 import org.gradle.tooling.internal.protocol.InternalBuildAction;
 import org.gradle.tooling.internal.protocol.InternalBuildEnvironment;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.internal.protocol.events.InternalProgressEvent;
 import org.gradle.tooling.internal.provider.connection.ProviderConnectionParameters;
@@ -113,7 +114,7 @@ public class ProviderConnection {
         }
 
         StartParameter startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         BuildAction action = new BuildModelAction(startParameter, modelName, tasks != null, listenerConfig.clientSubscriptions);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
     }
@@ -123,7 +124,7 @@ public class ProviderConnection {
         SerializedPayload serializedAction = payloadSerializer.serialize(clientAction);
         Parameters params = initParams(providerParameters);
         StartParameter startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         BuildAction action = new ClientProvidedBuildAction(startParameter, serializedAction, tasks != null, listenerConfig.clientSubscriptions);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
     }
@@ -131,7 +132,7 @@ public class ProviderConnection {
     public Object runTests(ProviderInternalTestExecutionRequest testExecutionRequest, BuildCancellationToken cancellationToken, ProviderOperationParameters providerParameters) {
         Parameters params = initParams(providerParameters);
         StartParameter startParameter = new ProviderStartParameterConverter().toStartParameter(providerParameters, params.properties);
-        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters);
+        ProgressListenerConfiguration listenerConfig = ProgressListenerConfiguration.from(providerParameters, payloadSerializer);
         TestExecutionRequestAction action = TestExecutionRequestAction.create(listenerConfig.clientSubscriptions, startParameter, testExecutionRequest);
         return run(action, cancellationToken, listenerConfig, providerParameters, params);
     }
@@ -240,6 +241,27 @@ public class ProviderConnection {
         }
     }
 
+    private static final class StreamedValueForwardingBuildEventConsumer implements BuildEventConsumer {
+        private final InternalStreamedValueListener streamedValueListener;
+        private final PayloadSerializer payloadSerializer;
+        private final BuildEventConsumer delegate;
+
+        private StreamedValueForwardingBuildEventConsumer(InternalStreamedValueListener streamedValueListener, PayloadSerializer payloadSerializer, BuildEventConsumer delegate) {
+            this.streamedValueListener = streamedValueListener;
+            this.payloadSerializer = payloadSerializer;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void dispatch(Object event) {
+            if (event instanceof StreamedValue) {
+                streamedValueListener.onValue(payloadSerializer.deserialize(((StreamedValue) event).getValue()));
+            } else {
+                delegate.dispatch(event);
+            }
+        }
+    }
+
     private static final class ProgressListenerConfiguration {
         private final BuildClientSubscriptions clientSubscriptions;
         private final FailsafeBuildProgressListenerAdapter failsafeWrapper;
@@ -251,7 +273,7 @@ public class ProviderConnection {
             this.failsafeWrapper = failsafeWrapper;
         }
 
-        private static ProgressListenerConfiguration from(ProviderOperationParameters providerParameters) {
+        private static ProgressListenerConfiguration from(ProviderOperationParameters providerParameters, PayloadSerializer payloadSerializer) {
             InternalBuildProgressListener buildProgressListener = providerParameters.getBuildProgressListener(null);
             boolean listenToTestProgress = buildProgressListener != null && buildProgressListener.getSubscribedOperations().contains(InternalBuildProgressListener.TEST_EXECUTION);
             boolean listenToTaskProgress = buildProgressListener != null && buildProgressListener.getSubscribedOperations().contains(InternalBuildProgressListener.TASK_EXECUTION);
@@ -259,6 +281,10 @@ public class ProviderConnection {
             BuildClientSubscriptions clientSubscriptions = new BuildClientSubscriptions(listenToTestProgress, listenToTaskProgress, listenToBuildProgress);
             FailsafeBuildProgressListenerAdapter wrapper = new FailsafeBuildProgressListenerAdapter(buildProgressListener);
             BuildEventConsumer buildEventConsumer = clientSubscriptions.isSendAnyProgressEvents() ? new BuildProgressListenerInvokingBuildEventConsumer(wrapper) : new NoOpBuildEventConsumer();
+            InternalStreamedValueListener streamedValueListener = providerParameters.getStreamedValueListener(null);
+            if (streamedValueListener != null) {
+                buildEventConsumer = new StreamedValueForwardingBuildEventConsumer(streamedValueListener, payloadSerializer, buildEventConsumer);
+            }
             if (Boolean.TRUE.equals(providerParameters.isEmbedded())) {
                 // Contract requires build events are delivered by a single thread. This is taken care of by the daemon client when not in embedded mode
                 // Need to apply some synchronization when in embedded mode
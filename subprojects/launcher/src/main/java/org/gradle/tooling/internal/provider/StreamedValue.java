@@ -0,0 +1,36 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.provider;
+
+import org.gradle.tooling.internal.provider.serialization.SerializedPayload;
+
+import java.io.Serializable;
+
+/**
+ * A value sent by a client provided build action while it is executing. Travels to the client as a build event, ahead of the {@link BuildActionResult}.
+ */
+public class StreamedValue implements Serializable {
+    private final SerializedPayload value;
+
+    public StreamedValue(SerializedPayload value) {
+        this.value = value;
+    }
+
+    public SerializedPayload getValue() {
+        return value;
+    }
+}
@@ -19,6 +19,7 @@ import org.gradle.api.Nullable;
 import org.gradle.api.logging.LogLevel;
 import org.gradle.tooling.internal.protocol.InternalBuildProgressListener;
 import org.gradle.tooling.internal.protocol.InternalLaunchable;
+import org.gradle.tooling.internal.protocol.InternalStreamedValueListener;
 import org.gradle.tooling.internal.protocol.ProgressListenerVersion1;
 
 import java.io.File;
@@ -147,6 +148,13 @@ public interface ProviderOperationParameters {
     @Nullable
     InternalBuildProgressListener getBuildProgressListener(InternalBuildProgressListener defaultListener);
 
+    /**
+     * @return When null, do not forward any streamed values.
+     * @since 3.6
+     */
+    @Nullable
+    InternalStreamedValueListener getStreamedValueListener(InternalStreamedValueListener defaultListener);
+
     /**
      * @return When null, assume no arguments.
      */
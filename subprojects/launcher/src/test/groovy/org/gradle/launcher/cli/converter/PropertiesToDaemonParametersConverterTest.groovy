@@ -73,11 +73,13 @@ class PropertiesToDaemonParametersConverterTest extends Specification {
             (IDLE_TIMEOUT_PROPERTY)             : "115",
             (HEALTH_CHECK_INTERVAL_PROPERTY)  : "42",
             (DEBUG_MODE_PROPERTY)               : "true",
+            (CLASS_DATA_SHARING_PROPERTY)       : "true",
         ], params)
 
         then:
         params.effectiveJvmArgs.contains("-Xmx256m")
         params.debug
+        params.classDataSharing
         params.effectiveJvm == Jvm.current()
         !params.enabled
         params.baseDir == new File("baseDir").absoluteFile
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.launcher.daemon.client
+
+import org.gradle.internal.classpath.DefaultClassPath
+import org.gradle.internal.jvm.JavaInfo
+import org.gradle.process.ExecResult
+import org.gradle.process.internal.ExecHandle
+import org.gradle.process.internal.ExecHandleBuilder
+import org.gradle.process.internal.ExecHandleFactory
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.util.JarUtils
+import org.junit.Rule
+import spock.lang.Specification
+
+class DaemonClassDataSharingTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider()
+
+    def execHandleFactory = Mock(ExecHandleFactory)
+    def jvm = Stub(JavaInfo) {
+        getJavaExecutable() >> tmpDir.createFile("jdk/bin/java")
+        getJavaHome() >> tmpDir.file("jdk")
+    }
+    def jar = tmpDir.file("lib/launcher.jar")
+    def classpath
+    def archiveDir = tmpDir.file("cds")
+    def classDataSharing = new DaemonClassDataSharing(archiveDir, execHandleFactory)
+    def commandLines = []
+    def classLists = []
+
+    def setup() {
+        jar << JarUtils.jarWithContents("org/gradle/Main.class": "main", "org/gradle/package-info.class": "info", "META-INF/MANIFEST.MF": "manifest")
+        classpath = new DefaultClassPath(jar)
+    }
+
+    def "creates archive using the first options that the JVM accepts"() {
+        when:
+        def jvmArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        2 * execHandleFactory.newExec() >>> [dump(1), dump(0)]
+        commandLines.size() == 2
+        commandLines[0].subList(1, 3) == ["-XX:+UnlockCommercialFeatures", "-XX:+UseAppCDS"]
+        commandLines[1][1] == "-Xshare:dump"
+        commandLines[1].takeRight(2) == ["-cp", jar.absolutePath]
+        classLists[1] == "org/gradle/Main"
+
+        and:
+        jvmArgs.size() == 2
+        jvmArgs[0] == "-Xshare:auto"
+        jvmArgs[1].startsWith("-XX:SharedArchiveFile=")
+        new File(jvmArgs[1].substring("-XX:SharedArchiveFile=".length())).file
+
+        and:
+        archiveDir.list().findAll { !it.endsWith(".jsa") && !it.endsWith(".options") }.empty
+    }
+
+    def "reuses archive once created"() {
+        given:
+        execHandleFactory.newExec() >> dump(0)
+        def jvmArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        when:
+        def reused = classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        0 * execHandleFactory._
+        reused == jvmArgs
+    }
+
+    def "creates another archive when the classpath changes"() {
+        given:
+        execHandleFactory.newExec() >> dump(0)
+        def jvmArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        when:
+        jar.delete()
+        jar << JarUtils.jarWithContents("org/gradle/Other.class": "other")
+        def newArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        newArgs != jvmArgs
+        commandLines.size() == 2
+    }
+
+    def "does not use class data sharing when the JVM does not support it"() {
+        when:
+        def jvmArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        3 * execHandleFactory.newExec() >> dump(1)
+        jvmArgs.empty
+
+        when:
+        jvmArgs = classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        0 * execHandleFactory._
+        jvmArgs.empty
+    }
+
+    def "does not use class data sharing when classpath contains directories"() {
+        when:
+        def jvmArgs = classDataSharing.getJvmArgs(jvm, classpath + new DefaultClassPath(tmpDir.createDir("classes")))
+
+        then:
+        0 * execHandleFactory._
+        jvmArgs.empty
+    }
+
+    def "includes the classes archived by default by the JVM"() {
+        given:
+        tmpDir.file("jdk/lib/classlist") << "# comment\njava/lang/Object\njava/lang/String\n"
+
+        when:
+        classDataSharing.getJvmArgs(jvm, classpath)
+
+        then:
+        1 * execHandleFactory.newExec() >> dump(0)
+        classLists[0] == "java/lang/Object\njava/lang/String\norg/gradle/Main"
+    }
+
+    private ExecHandleBuilder dump(int exitValue) {
+        def builder = Mock(ExecHandleBuilder)
+        def handle = Mock(ExecHandle)
+        List<String> commandLine = null
+        builder.setCommandLine(_ as Iterable) >> { args ->
+            commandLine = args[0] as List
+            commandLines << commandLine
+            return builder
+        }
+        builder.build() >> handle
+        handle.start() >> handle
+        handle.waitForFinish() >> {
+            def classList = commandLine.find { it.startsWith("-XX:SharedClassListFile=") }
+            classLists << new File(classList.substring("-XX:SharedClassListFile=".length())).text
+            if (exitValue == 0) {
+                def archive = commandLine.find { it.startsWith("-XX:SharedArchiveFile=") }
+                new File(archive.substring("-XX:SharedArchiveFile=".length())).text = "archive"
+            }
+            return Stub(ExecResult) {
+                getExitValue() >> exitValue
+            }
+        }
+        return builder
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal;
+
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.Stoppable;
+import org.gradle.internal.concurrent.StoppableExecutor;
+import org.gradle.process.ExecResult;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Runs processes in parallel, with at most a given number of them running at the same time. A process that is submitted when this many processes are running is started when one of them finishes.
+ *
+ * <p>When created with a {@link SharedThreadsExecutorFactory}, the processes are run on the same threads that forward their streams, so that no threads are started per process.</p>
+ */
+public class BoundedExecHandleExecutor implements Stoppable {
+    private final StoppableExecutor executor;
+
+    public BoundedExecHandleExecutor(ExecutorFactory executorFactory, String displayName, int maxConcurrentProcesses) {
+        if (maxConcurrentProcesses < 1) {
+            throw new IllegalArgumentException("maxConcurrentProcesses must be at least 1.");
+        }
+        this.executor = executorFactory.create(displayName, maxConcurrentProcesses);
+    }
+
+    /**
+     * Submits the given process to be started once fewer than the maximum number of processes are running.
+     *
+     * @return The result of the process, available when it has finished.
+     */
+    public Future<ExecResult> submit(final ExecHandle execHandle) {
+        return executor.submit(new Callable<ExecResult>() {
+            public ExecResult call() {
+                return execHandle.start().waitForFinish();
+            }
+
+            @Override
+            public String toString() {
+                return execHandle.toString();
+            }
+        });
+    }
+
+    /**
+     * Stops accepting processes and blocks until all submitted processes have finished.
+     */
+    public void stop() {
+        executor.stop();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal;
+
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.concurrent.ThreadFactoryImpl;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An executor factory whose executors run their actions on a pool of threads that is shared by all processes, instead of starting threads for each of them.
+ *
+ * <p>Each executor only waits for its own actions when stopped. An executor created with a fixed size runs at most that many actions at the same time, and queues the others.</p>
+ */
+public class SharedThreadsExecutorFactory extends DefaultExecutorFactory {
+    private static final ExecutorService SHARED_THREADS = Executors.newCachedThreadPool(new DaemonThreadFactory(new ThreadFactoryImpl("Process threads")));
+
+    @Override
+    protected ExecutorService createExecutor(String displayName) {
+        return new SharedThreadsExecutor(displayName, Integer.MAX_VALUE);
+    }
+
+    @Override
+    protected ExecutorService createExecutor(String displayName, int fixedSize) {
+        return new SharedThreadsExecutor(displayName, fixedSize);
+    }
+
+    private static class SharedThreadsExecutor extends AbstractExecutorService {
+        private final String displayName;
+        private final int maxConcurrency;
+        private final Lock lock = new ReentrantLock();
+        private final Condition terminated = lock.newCondition();
+        private final Queue<Runnable> queue = new LinkedList<Runnable>();
+        private int running;
+        private boolean shutdown;
+
+        SharedThreadsExecutor(String displayName, int maxConcurrency) {
+            this.displayName = displayName;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public void execute(final Runnable command) {
+            lock.lock();
+            try {
+                if (shutdown) {
+                    throw new RejectedExecutionException(String.format("Cannot run %s, as %s has been stopped.", command, displayName));
+                }
+                if (running >= maxConcurrency) {
+                    queue.add(command);
+                    return;
+                }
+                running++;
+            } finally {
+                lock.unlock();
+            }
+            SHARED_THREADS.execute(new Runnable() {
+                public void run() {
+                    runAll(command);
+                }
+            });
+        }
+
+        /**
+         * Runs the given action, followed by any queued actions, on the current thread.
+         */
+        private void runAll(Runnable command) {
+            Thread thread = Thread.currentThread();
+            String threadName = thread.getName();
+            thread.setName(displayName);
+            try {
+                Runnable next = command;
+                while (next != null) {
+                    try {
+                        next.run();
+                    } finally {
+                        next = takeNext();
+                    }
+                }
+            } finally {
+                thread.setName(threadName);
+            }
+        }
+
+        private Runnable takeNext() {
+            lock.lock();
+            try {
+                Runnable next = queue.poll();
+                if (next == null) {
+                    running--;
+                    if (running == 0) {
+                        terminated.signalAll();
+                    }
+                }
+                return next;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public void shutdown() {
+            lock.lock();
+            try {
+                shutdown = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public List<Runnable> shutdownNow() {
+            lock.lock();
+            try {
+                shutdown = true;
+                List<Runnable> pending = new ArrayList<Runnable>(queue);
+                queue.clear();
+                return pending;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isShutdown() {
+            lock.lock();
+            try {
+                return shutdown;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean isTerminated() {
+            lock.lock();
+            try {
+                return shutdown && running == 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long remaining = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (!(shutdown && running == 0)) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = terminated.awaitNanos(remaining);
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+
+        DaemonThreadFactory(ThreadFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread thread = delegate.newThread(r);
+            // The pool outlives the processes that use it, so its idle threads must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal
+
+import org.gradle.process.ExecResult
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.ExecutionException
+
+class BoundedExecHandleExecutorTest extends ConcurrentSpec {
+    def factory = new SharedThreadsExecutorFactory()
+
+    def cleanup() {
+        factory.stop()
+    }
+
+    def "runs submitted processes and provides their results"() {
+        def executor = new BoundedExecHandleExecutor(factory, 'test', 2)
+        def result1 = Stub(ExecResult)
+        def result2 = Stub(ExecResult)
+
+        when:
+        def future1 = executor.submit(execHandle(result1))
+        def future2 = executor.submit(execHandle(result2))
+        executor.stop()
+
+        then:
+        future1.get() == result1
+        future2.get() == result2
+    }
+
+    def "starts a process when a running process finishes once the maximum number of processes are running"() {
+        def executor = new BoundedExecHandleExecutor(factory, 'test', 1)
+        def result = Stub(ExecResult)
+        def handle1 = Stub(ExecHandle)
+        handle1.start() >> handle1
+        handle1.waitForFinish() >> {
+            thread.block()
+            instant.finished1
+            result
+        }
+        def handle2 = Stub(ExecHandle)
+        handle2.start() >> {
+            instant.started2
+            handle2
+        }
+        handle2.waitForFinish() >> result
+
+        when:
+        executor.submit(handle1)
+        executor.submit(handle2)
+        executor.stop()
+
+        then:
+        instant.started2 > instant.finished1
+    }
+
+    def "provides the failure of a process that cannot be started"() {
+        def executor = new BoundedExecHandleExecutor(factory, 'test', 2)
+        def failure = new ExecException("broken")
+        def handle = Stub(ExecHandle) {
+            start() >> { throw failure }
+        }
+
+        when:
+        def future = executor.submit(handle)
+        executor.stop()
+        future.get()
+
+        then:
+        def e = thrown(ExecutionException)
+        e.cause == failure
+    }
+
+    def "cannot be created without allowing any process to run"() {
+        when:
+        new BoundedExecHandleExecutor(factory, 'test', 0)
+
+        then:
+        thrown(IllegalArgumentException)
+    }
+
+    private ExecHandle execHandle(ExecResult result) {
+        def handle = Stub(ExecHandle)
+        handle.start() >> handle
+        handle.waitForFinish() >> result
+        return handle
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.process.internal
+
+import org.gradle.test.fixtures.concurrent.ConcurrentSpec
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+class SharedThreadsExecutorFactoryTest extends ConcurrentSpec {
+    def factory = new SharedThreadsExecutorFactory()
+
+    def cleanup() {
+        factory.stop()
+    }
+
+    def "fixed size executor runs no more than requested number of actions concurrently"() {
+        given:
+        def action1 = {
+            instant.started1
+            thread.block()
+            instant.completed1
+        }
+        def action2 = {
+            instant.started2
+            thread.blockUntil.started3
+        }
+        def action3 = {
+            instant.started3
+        }
+
+        when:
+        def executor = factory.create('test', 2)
+        executor.execute(action1)
+        executor.execute(action2)
+        executor.execute(action3)
+        thread.blockUntil.started3
+
+        then:
+        instant.started3 > instant.completed1
+        instant.started3 > instant.started2
+
+        cleanup:
+        executor?.stop()
+    }
+
+    def "stop blocks until all actions of the executor are complete"() {
+        given:
+        def action1 = {
+            thread.block()
+            instant.completed1
+        }
+        def action2 = {
+            thread.block()
+            instant.completed2
+        }
+
+        when:
+        async {
+            def executor = factory.create('test')
+            executor.execute(action1)
+            executor.execute(action2)
+            executor.stop()
+            instant.stopped
+        }
+
+        then:
+        instant.stopped > instant.completed1
+        instant.stopped > instant.completed2
+    }
+
+    def "stop does not wait for actions of other executors"() {
+        def latch = new CountDownLatch(1)
+
+        when:
+        def other = factory.create('other')
+        other.execute { latch.await() }
+        def executor = factory.create('test')
+        executor.execute { instant.completed }
+        executor.stop()
+
+        then:
+        instant.completed
+        !other.isTerminated()
+
+        cleanup:
+        latch.countDown()
+        other?.stop()
+    }
+
+    def "runs actions on threads named after the executor"() {
+        def threadName
+
+        when:
+        def executor = factory.create('<display-name>')
+        executor.execute { threadName = Thread.currentThread().name }
+        executor.stop()
+
+        then:
+        threadName == '<display-name>'
+    }
+
+    def "rethrows failure of an action when stopped"() {
+        def failure = new RuntimeException()
+
+        when:
+        def executor = factory.create('test')
+        executor.execute { throw failure }
+        executor.stop()
+
+        then:
+        RuntimeException e = thrown()
+        e == failure
+    }
+
+    def "rejects actions once stopped"() {
+        when:
+        def executor = factory.create('test')
+        executor.stop()
+        executor.execute { }
+
+        then:
+        thrown(RejectedExecutionException)
+    }
+
+    def "stop throws exception on timeout"() {
+        def latch = new CountDownLatch(1)
+
+        when:
+        def executor = factory.create('test')
+        executor.execute { latch.await() }
+        executor.stop(100, TimeUnit.MILLISECONDS)
+
+        then:
+        IllegalStateException e = thrown()
+        e.message == 'Timeout waiting for concurrent jobs to complete.'
+
+        cleanup:
+        latch.countDown()
+    }
+}
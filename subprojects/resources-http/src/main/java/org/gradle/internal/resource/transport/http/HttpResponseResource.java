@@ -22,6 +22,7 @@ import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.utils.DateUtils;
 import org.apache.http.client.utils.HttpClientUtils;
+import org.gradle.api.Nullable;
 import org.gradle.internal.hash.HashValue;
 import org.gradle.internal.resource.metadata.DefaultExternalResourceMetaData;
 import org.gradle.internal.resource.metadata.ExternalResourceMetaData;
@@ -40,12 +41,21 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
     private final URI source;
     private final CloseableHttpResponse response;
     private final ExternalResourceMetaData metaData;
+    private final HttpClientHelper http;
     private boolean wasOpened;
 
     public HttpResponseResource(String method, URI source, CloseableHttpResponse response) {
+        this(method, source, response, null);
+    }
+
+    /**
+     * Creates a resource whose content is requested again from where it left off, using the given client, when the connection fails.
+     */
+    public HttpResponseResource(String method, URI source, CloseableHttpResponse response, @Nullable HttpClientHelper http) {
         this.method = method;
         this.source = source;
         this.response = response;
+        this.http = http;
 
         String etag = getEtag(response);
         this.metaData = new DefaultExternalResourceMetaData(source, getLastModified(), getContentLength(), getContentType(), etag, getSha1(response, etag));
@@ -122,7 +132,10 @@ public class HttpResponseResource implements ExternalResourceReadResponse {
         if (entity == null) {
             throw new IOException(String.format("Response %d: %s has no content!", getStatusCode(), response.getStatusLine().getReasonPhrase()));
         }
-        return entity.getContent();
+        if (http == null) {
+            return entity.getContent();
+        }
+        return new ResumableHttpInputStream(http, source, response, entity.getContent(), getContentLength(), metaData.getSha1());
     }
 
     @Override
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.entity.DecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.HttpClientUtils;
+import org.gradle.api.Nullable;
+import org.gradle.internal.hash.HashValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * The content of an HTTP GET response, which picks up where it left off when the connection fails part way through the content.
+ *
+ * <p>The remaining content is requested with a {@code Range} request, guarded by an {@code If-Range} validator so that content from a
+ * changed resource is never appended. When the server published a SHA-1 for the resource, the content is checked against it as it is read.</p>
+ *
+ * <p>Content that the HTTP client has decompressed is never resumed, as the client removes the {@code Content-Encoding} and {@code Content-Length}
+ * headers and positions in the decompressed content do not match positions in the content sent by the server.</p>
+ */
+class ResumableHttpInputStream extends InputStream {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResumableHttpInputStream.class);
+    static final int MAX_RESUME_ATTEMPTS = 3;
+
+    private final HttpClientHelper http;
+    private final URI source;
+    private final String validator;
+    private final long contentLength;
+    private final HashValue expectedSha1;
+    private final MessageDigest digest;
+    private CloseableHttpResponse response;
+    private InputStream content;
+    private long position;
+    private int resumeAttempts;
+    private boolean finished;
+
+    ResumableHttpInputStream(HttpClientHelper http, URI source, CloseableHttpResponse response, InputStream content, long contentLength, @Nullable HashValue expectedSha1) {
+        this.http = http;
+        this.source = source;
+        this.response = response;
+        this.content = content;
+        this.contentLength = contentLength;
+        this.expectedSha1 = expectedSha1;
+        this.validator = getValidator(response);
+        this.digest = expectedSha1 == null ? null : createDigest();
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] buffer = new byte[1];
+        int count = read(buffer, 0, 1);
+        return count < 0 ? -1 : buffer[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (finished) {
+            return -1;
+        }
+        while (true) {
+            int count;
+            try {
+                count = content.read(buffer, offset, length);
+            } catch (IOException e) {
+                resume(e);
+                continue;
+            }
+            if (count < 0) {
+                if (contentLength >= 0 && position < contentLength) {
+                    resume(new IOException(String.format("Connection closed after %d of %d bytes.", position, contentLength)));
+                    continue;
+                }
+                finished = true;
+                verifyChecksum();
+                return -1;
+            }
+            if (digest != null) {
+                digest.update(buffer, offset, count);
+            }
+            position += count;
+            return count;
+        }
+    }
+
+    private void resume(IOException failure) throws IOException {
+        if (validator == null || resumeAttempts >= MAX_RESUME_ATTEMPTS) {
+            throw failure;
+        }
+        resumeAttempts++;
+        LOGGER.info("Download of {} was interrupted after {} bytes, resuming. Failure: {}", source, position, failure.getMessage());
+        HttpClientUtils.closeQuietly(response);
+
+        HttpGet request = new HttpGet(source);
+        request.addHeader(HttpHeaders.RANGE, "bytes=" + position + "-");
+        request.addHeader(HttpHeaders.IF_RANGE, validator);
+        // The original content was not compressed, so neither must its remainder be
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        CloseableHttpResponse rangeResponse;
+        try {
+            rangeResponse = http.performHttpRequest(request);
+        } catch (IOException e) {
+            throw failure;
+        }
+        response = rangeResponse;
+        HttpEntity entity = rangeResponse.getEntity();
+        if (rangeResponse.getStatusLine().getStatusCode() != HttpStatus.SC_PARTIAL_CONTENT || entity == null || isDecompressed(rangeResponse) || !startsAt(rangeResponse, position)) {
+            // The server does not support ranges for this resource, or it has changed since the download started
+            throw failure;
+        }
+        content = entity.getContent();
+    }
+
+    private void verifyChecksum() throws IOException {
+        if (digest == null) {
+            return;
+        }
+        HashValue actualSha1 = new HashValue(digest.digest());
+        if (!actualSha1.equals(expectedSha1)) {
+            throw new IOException(String.format("Checksum of content downloaded from '%s' does not match. Expected SHA-1 %s but was %s.", source, expectedSha1.asHexString(), actualSha1.asHexString()));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            content.close();
+        } finally {
+            HttpClientUtils.closeQuietly(response);
+        }
+    }
+
+    private static boolean startsAt(CloseableHttpResponse response, long position) {
+        Header contentRange = response.getFirstHeader(HttpHeaders.CONTENT_RANGE);
+        return contentRange != null && contentRange.getValue().startsWith("bytes " + position + "-");
+    }
+
+    /**
+     * Returns the value to use for {@code If-Range}, or null when the content cannot be requested in parts.
+     */
+    @Nullable
+    private static String getValidator(CloseableHttpResponse response) {
+        Header acceptRanges = response.getFirstHeader(HttpHeaders.ACCEPT_RANGES);
+        if (acceptRanges == null || !"bytes".equalsIgnoreCase(acceptRanges.getValue())) {
+            return null;
+        }
+        if (isDecompressed(response)) {
+            // Positions in the decoded content do not match positions in the encoded content
+            return null;
+        }
+        Header etag = response.getFirstHeader(HttpHeaders.ETAG);
+        if (etag != null && !etag.getValue().startsWith("W/")) {
+            return etag.getValue();
+        }
+        Header lastModified = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        return lastModified == null ? null : lastModified.getValue();
+    }
+
+    private static boolean isDecompressed(CloseableHttpResponse response) {
+        return response.getEntity() instanceof DecompressingEntity || response.getFirstHeader(HttpHeaders.CONTENT_ENCODING) != null;
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.internal.resource.transport.http
+
+import org.apache.http.HttpEntity
+import org.apache.http.StatusLine
+import org.apache.http.client.entity.GzipDecompressingEntity
+import org.apache.http.client.methods.CloseableHttpResponse
+import org.apache.http.client.methods.HttpRequestBase
+import org.apache.http.message.BasicHeader
+import org.gradle.internal.hash.HashUtil
+import spock.lang.Specification
+
+class ResumableHttpInputStreamTest extends Specification {
+    def http = Mock(HttpClientHelper)
+    def source = new URI("http://somewhere/thing.jar")
+    def content = "0123456789".bytes
+
+    def "resumes download with a range request when the connection fails"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "ETag": '"abc"'])
+        def resumed = httpResponse(206, ["Content-Range": "bytes 4-9/10"], new ByteArrayInputStream(content, 4, 6))
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(4), 10, HashUtil.sha1(content))
+
+        when:
+        def result = stream.bytes
+
+        then:
+        result == content
+        1 * http.performHttpRequest({ HttpRequestBase request ->
+            request.getFirstHeader("Range").value == "bytes=4-" && request.getFirstHeader("If-Range").value == '"abc"' && request.getFirstHeader("Accept-Encoding").value == "identity"
+        }) >> resumed
+        1 * response.close()
+    }
+
+    def "resumes download when the connection is closed before all content is received"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "Last-Modified": "Wed, 21 Oct 2015 07:28:00 GMT"])
+        def resumed = httpResponse(206, ["Content-Range": "bytes 6-9/10"], new ByteArrayInputStream(content, 6, 4))
+        def stream = new ResumableHttpInputStream(http, source, response, new ByteArrayInputStream(content, 0, 6), 10, null)
+
+        when:
+        def result = stream.bytes
+
+        then:
+        result == content
+        1 * http.performHttpRequest({ HttpRequestBase request -> request.getFirstHeader("If-Range").value == "Wed, 21 Oct 2015 07:28:00 GMT" }) >> resumed
+    }
+
+    def "does not resume when the server does not accept range requests"() {
+        def response = httpResponse(200, ["ETag": '"abc"'])
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(4), 10, null)
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message == "broken"
+        0 * http._
+    }
+
+    def "does not resume content decompressed by the client"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "ETag": '"abc"'], null, new GzipDecompressingEntity(Stub(HttpEntity)))
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(4), -1, null)
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message == "broken"
+        0 * http._
+    }
+
+    def "fails with original failure when the remaining content is compressed"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "ETag": '"abc"'])
+        def compressed = httpResponse(206, ["Content-Range": "bytes 4-9/10", "Content-Encoding": "gzip"], new ByteArrayInputStream(content, 4, 6))
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(4), 10, null)
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message == "broken"
+        1 * http.performHttpRequest(_) >> compressed
+    }
+
+    def "fails with original failure when the server sends the whole resource again"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "ETag": '"abc"'])
+        def changed = httpResponse(200, [:], new ByteArrayInputStream(content))
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(4), 10, null)
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message == "broken"
+        1 * http.performHttpRequest(_) >> changed
+    }
+
+    def "gives up after a number of attempts"() {
+        def response = httpResponse(200, ["Accept-Ranges": "bytes", "ETag": '"abc"'])
+        def stream = new ResumableHttpInputStream(http, source, response, failingAfter(1), 10, null)
+
+        when:
+        stream.bytes
+
+        then:
+        thrown(IOException)
+        ResumableHttpInputStream.MAX_RESUME_ATTEMPTS * http.performHttpRequest(_) >> {
+            httpResponse(206, ["Content-Range": "bytes 1-9/10"], failingAfter(0))
+        }
+    }
+
+    def "fails when content does not match published checksum"() {
+        def response = httpResponse(200, [:])
+        def stream = new ResumableHttpInputStream(http, source, response, new ByteArrayInputStream(content), 10, HashUtil.sha1("other".bytes))
+
+        when:
+        stream.bytes
+
+        then:
+        def e = thrown(IOException)
+        e.message.startsWith("Checksum of content downloaded from 'http://somewhere/thing.jar' does not match.")
+    }
+
+    private CloseableHttpResponse httpResponse(int statusCode, Map<String, String> headers, InputStream body = null, HttpEntity entity = null) {
+        def response = Mock(CloseableHttpResponse)
+        _ * response.statusLine >> Stub(StatusLine) {
+            getStatusCode() >> statusCode
+        }
+        _ * response.getFirstHeader(_) >> { String name ->
+            def entry = headers.find { it.key.equalsIgnoreCase(name) }
+            entry ? new BasicHeader(entry.key, entry.value) : null
+        }
+        _ * response.entity >> (entity ?: Stub(HttpEntity) {
+            getContent() >> body
+        })
+        return response
+    }
+
+    private InputStream failingAfter(int count) {
+        def stream = new ByteArrayInputStream(content, 0, count)
+        return new InputStream() {
+            @Override
+            int read() throws IOException {
+                def b = stream.read()
+                if (b < 0) {
+                    throw new IOException("broken")
+                }
+                return b
+            }
+        }
+    }
+}
@@ -22,19 +22,22 @@ import org.gradle.api.internal.GradleInternal;
 import org.gradle.api.internal.project.ProjectInternal;
 import org.gradle.composite.internal.IncludedBuildInternal;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.initialization.BuildEventConsumer;
 import org.gradle.tooling.internal.gradle.GradleBuildIdentity;
 import org.gradle.tooling.internal.gradle.GradleProjectIdentity;
 import org.gradle.tooling.internal.protocol.BuildExceptionVersion1;
 import org.gradle.tooling.internal.protocol.BuildResult;
-import org.gradle.tooling.internal.protocol.InternalBuildController;
+import org.gradle.tooling.internal.protocol.InternalStreamingBuildController;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
+import org.gradle.tooling.internal.provider.StreamedValue;
 import org.gradle.tooling.internal.provider.connection.ProviderBuildResult;
+import org.gradle.tooling.internal.provider.serialization.PayloadSerializer;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.gradle.tooling.provider.model.ToolingModelBuilderRegistry;
 import org.gradle.tooling.provider.model.UnknownModelException;
 
-class DefaultBuildController implements InternalBuildController {
+class DefaultBuildController implements InternalStreamingBuildController {
     private final GradleInternal gradle;
 
     public DefaultBuildController(GradleInternal gradle) {
@@ -56,6 +59,14 @@ class DefaultBuildController implements InternalBuildController {
         return new ProviderBuildResult<Object>(model);
     }
 
+    @Override
+    public void send(Object value) {
+        // Serialize straight away, so that the action is free to discard or reuse the value once it has been handed over
+        PayloadSerializer payloadSerializer = gradle.getServices().get(PayloadSerializer.class);
+        BuildEventConsumer buildEventConsumer = gradle.getServices().get(BuildEventConsumer.class);
+        buildEventConsumer.dispatch(new StreamedValue(payloadSerializer.serialize(value)));
+    }
+
     private ProjectInternal getTargetProject(Object target) {
         ProjectInternal project;
         if (target == null) {
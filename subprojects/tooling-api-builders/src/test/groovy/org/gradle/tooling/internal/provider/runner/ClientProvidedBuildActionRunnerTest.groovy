@@ -28,6 +28,7 @@ import org.gradle.internal.service.ServiceRegistry
 import org.gradle.tooling.internal.protocol.InternalBuildAction
 import org.gradle.tooling.internal.protocol.InternalBuildActionFailureException
 import org.gradle.tooling.internal.protocol.InternalBuildCancelledException
+import org.gradle.tooling.internal.protocol.InternalStreamingBuildController
 import org.gradle.tooling.internal.provider.*
 import org.gradle.tooling.internal.provider.serialization.PayloadSerializer
 import org.gradle.tooling.internal.provider.serialization.SerializedPayload
@@ -131,6 +132,33 @@ class ClientProvidedBuildActionRunnerTest extends Specification {
         0 * buildController.run()
     }
 
+    def "values streamed by the action are sent to the client before the result"() {
+        given:
+        def value = new Object()
+        def model = new Object()
+        def serializedValue = Mock(SerializedPayload)
+        def output = Mock(SerializedPayload)
+        def internalAction = Mock(InternalBuildAction)
+
+        when:
+        runner.run(clientProvidedBuildAction, buildController)
+
+        then:
+        1 * payloadSerializer.deserialize(action) >> internalAction
+        1 * internalAction.execute(_) >> { InternalStreamingBuildController controller ->
+            controller.send(value)
+            return model
+        }
+        1 * payloadSerializer.serialize(value) >> serializedValue
+        1 * buildEventConsumer.dispatch({ it instanceof StreamedValue && it.value == serializedValue })
+
+        then:
+        1 * payloadSerializer.serialize(model) >> output
+        1 * buildController.setResult(_) >> { BuildActionResult result ->
+            assert result.result == output
+        }
+    }
+
     def "can run tasks before run action"() {
         given:
         def clientProvidedBuildActionRunTasks = new ClientProvidedBuildAction(startParameter, action, true /* isRunTasks */, clientSubscriptions)
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.tooling.r36
+
+import org.gradle.integtests.tooling.fixture.TargetGradleVersion
+import org.gradle.integtests.tooling.fixture.ToolingApiSpecification
+import org.gradle.integtests.tooling.fixture.ToolingApiVersion
+import org.gradle.tooling.BuildActionFailureException
+import org.gradle.tooling.StreamedValueListener
+import org.gradle.tooling.UnsupportedVersionException
+
+@ToolingApiVersion(">=3.6")
+class StreamedValuesCrossVersionSpec extends ToolingApiSpecification {
+    def setup() {
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'a', 'b', 'c'
+        """
+    }
+
+    @TargetGradleVersion(">=3.6")
+    def "client receives values sent by the action in order before the result"() {
+        def values = []
+        def listener = { value -> values << value } as StreamedValueListener
+
+        when:
+        def result = withConnection {
+            connection -> connection.action(new StreamProjectPathsAction()).setStreamedValueListener(listener).run()
+        }
+
+        then:
+        result == 4
+        values == [":", ":a", ":b", ":c"]
+    }
+
+    @TargetGradleVersion(">=3.6")
+    def "values sent by the action are discarded when no listener is registered"() {
+        when:
+        def result = withConnection {
+            connection -> connection.action(new StreamProjectPathsAction()).run()
+        }
+
+        then:
+        result == 4
+    }
+
+    @TargetGradleVersion(">=1.8 <3.6")
+    def "BuildActionExecuter.setStreamedValueListener() should fail when it is not supported by target"() {
+        def listener = Mock(StreamedValueListener)
+
+        when:
+        withConnection {
+            connection -> connection.action(new StreamProjectPathsAction()).setStreamedValueListener(listener).run()
+        }
+
+        then:
+        UnsupportedVersionException e = thrown()
+        e.message == "The version of Gradle you are using (${targetDist.version.version}) does not support the setStreamedValueListener() method on BuildActionExecuter. Support for this is available in Gradle 3.6 and all later versions."
+        0 * listener._
+    }
+
+    @TargetGradleVersion(">=1.8 <3.6")
+    def "BuildController.send() should fail when it is not supported by target"() {
+        when:
+        withConnection {
+            connection -> connection.action(new StreamProjectPathsAction()).run()
+        }
+
+        then:
+        BuildActionFailureException e = thrown()
+        e.message == /The supplied build action failed with an exception./
+        e.cause instanceof UnsupportedVersionException
+        e.cause.message == "The version of Gradle you are using (${targetDist.version.version}) does not support the send() method on BuildController. Support for this is available in Gradle 3.6 and all later versions."
+    }
+}
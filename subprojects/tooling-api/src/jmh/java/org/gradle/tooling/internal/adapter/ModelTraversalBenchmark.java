@@ -0,0 +1,190 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter;
+
+import org.gradle.tooling.model.DomainObjectSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the client side cost of walking a synthetic model of 1,000 projects through views created by {@link ProtocolToModelAdapter},
+ * using either proxies or generated view classes.
+ */
+@State(Scope.Benchmark)
+public class ModelTraversalBenchmark {
+    private static final int PROJECTS = 1000;
+    private static final int DEPENDENCIES_PER_PROJECT = 20;
+
+    @Param({"proxy", "generated"})
+    String views;
+
+    private ProtocolToModelAdapter adapter;
+    private BuildSource source;
+    private Build adapted;
+
+    @Setup
+    public void setup() {
+        adapter = new ProtocolToModelAdapter(new IdentityTypeProvider(), views.equals("generated"));
+        source = new BuildSource();
+        adapted = adapter.adapt(Build.class, source);
+    }
+
+    /**
+     * Adapts the model and walks it once, as an IDE does when it imports a build.
+     */
+    @Benchmark
+    public void adaptAndTraverse(Blackhole blackhole) {
+        traverse(adapter.adapt(Build.class, source), blackhole);
+    }
+
+    /**
+     * Walks a model whose views have already been created, measuring the cost of each call on a view.
+     */
+    @Benchmark
+    public void traverseAdapted(Blackhole blackhole) {
+        traverse(adapted, blackhole);
+    }
+
+    private static void traverse(Build build, Blackhole blackhole) {
+        for (Project project : build.getProjects()) {
+            blackhole.consume(project.getName());
+            blackhole.consume(project.getPath());
+            blackhole.consume(project.getProjectDirectory());
+            blackhole.consume(project.getParent());
+            for (Dependency dependency : project.getDependencies()) {
+                blackhole.consume(dependency.getFile());
+                blackhole.consume(dependency.getScope());
+                blackhole.consume(dependency.isExported());
+            }
+        }
+    }
+
+    public interface Build {
+        DomainObjectSet<? extends Project> getProjects();
+    }
+
+    public interface Project {
+        String getName();
+
+        String getPath();
+
+        File getProjectDirectory();
+
+        Project getParent();
+
+        List<? extends Dependency> getDependencies();
+    }
+
+    public interface Dependency {
+        File getFile();
+
+        String getScope();
+
+        boolean isExported();
+    }
+
+    public static class BuildSource implements Serializable {
+        private final List<ProjectSource> projects = new ArrayList<ProjectSource>();
+
+        BuildSource() {
+            ProjectSource root = new ProjectSource(":", null);
+            projects.add(root);
+            for (int i = 1; i < PROJECTS; i++) {
+                projects.add(new ProjectSource(":project" + i, root));
+            }
+        }
+
+        public List<ProjectSource> getProjects() {
+            return projects;
+        }
+    }
+
+    public static class ProjectSource implements Serializable {
+        private final String path;
+        private final ProjectSource parent;
+        private final List<DependencySource> dependencies = new ArrayList<DependencySource>();
+
+        ProjectSource(String path, ProjectSource parent) {
+            this.path = path;
+            this.parent = parent;
+            for (int i = 0; i < DEPENDENCIES_PER_PROJECT; i++) {
+                dependencies.add(new DependencySource(new File("lib" + i + ".jar"), i % 2 == 0 ? "COMPILE" : "RUNTIME", i % 3 == 0));
+            }
+        }
+
+        public String getName() {
+            return path.substring(path.lastIndexOf(':') + 1);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public File getProjectDirectory() {
+            return new File(path.replace(':', '/'));
+        }
+
+        public ProjectSource getParent() {
+            return parent;
+        }
+
+        public List<DependencySource> getDependencies() {
+            return dependencies;
+        }
+    }
+
+    public static class DependencySource implements Serializable {
+        private final File file;
+        private final String scope;
+        private final boolean exported;
+
+        DependencySource(File file, String scope, boolean exported) {
+            this.file = file;
+            this.scope = scope;
+            this.exported = exported;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public String getScope() {
+            return scope;
+        }
+
+        public boolean isExported() {
+            return exported;
+        }
+    }
+
+    private static class IdentityTypeProvider implements TargetTypeProvider, Serializable {
+        @Override
+        public <T> Class<? extends T> getTargetType(Class<T> initialTargetType, Object protocolObject) {
+            return initialTargetType;
+        }
+    }
+}
@@ -51,6 +51,19 @@ public interface BuildActionExecuter<T> extends ConfigurableLauncher<BuildAction
     @Incubating
     BuildActionExecuter<T> forTasks(Iterable<String> tasks);
 
+    /**
+     * Registers a listener to receive the values streamed by the action using {@link BuildController#send(Object)}. The listener is notified
+     * before the result of the action is made available.
+     *
+     * <p>Running the action fails with an {@link UnsupportedVersionException} when the target Gradle version does not support streaming values.</p>
+     *
+     * @param listener The listener.
+     * @return this
+     * @since 3.6
+     */
+    @Incubating
+    BuildActionExecuter<T> setStreamedValueListener(StreamedValueListener listener);
+
     /**
      * Runs the action, blocking until its result is available.
      *
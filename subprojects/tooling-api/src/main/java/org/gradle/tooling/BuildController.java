@@ -111,4 +111,20 @@ public interface BuildController {
      */
     @Nullable
     <T> T findModel(Model target, Class<T> modelType);
+
+    /**
+     * Sends a value to the client while this action is still executing. The value is serialized and transferred immediately and is passed to the
+     * {@link StreamedValueListener} registered using {@link BuildActionExecuter#setStreamedValueListener(StreamedValueListener)}.
+     *
+     * <p>An action can use this method to hand over large results in pieces, for example one model per project, rather than returning them all at once.
+     * This allows the client to process the pieces as they arrive and means neither the build process nor the client need to hold the complete result in memory.</p>
+     *
+     * <p>The value is discarded when no listener has been registered.</p>
+     *
+     * @param value The value to send. Must be serializable.
+     * @throws UnsupportedVersionException When the target Gradle version does not support streaming values.
+     * @since 3.6
+     */
+    @Incubating
+    void send(Object value) throws UnsupportedVersionException;
 }
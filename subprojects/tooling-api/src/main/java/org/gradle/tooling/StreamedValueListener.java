@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling;
+
+import org.gradle.api.Incubating;
+
+/**
+ * A listener that is notified of the values streamed by a {@link BuildAction} while it executes. Streaming allows a client to process large models,
+ * such as one model per project, as they are built instead of waiting for the whole result of the action.
+ *
+ * @since 3.6
+ * @see BuildController#send(Object)
+ * @see BuildActionExecuter#setStreamedValueListener(StreamedValueListener)
+ */
+@Incubating
+public interface StreamedValueListener {
+    /**
+     * Called when a value is sent by the build action. Values are delivered by a single thread, in the order they were sent, and before the result of the action is made available.
+     *
+     * @param value The value sent by the build action.
+     * @since 3.6
+     */
+    void onValue(Object value);
+}
@@ -30,6 +30,7 @@ import org.gradle.tooling.model.internal.Exceptions;
 import org.gradle.tooling.model.internal.ImmutableDomainObjectSet;
 
 import java.io.IOException;
+import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.lang.ref.SoftReference;
 import java.lang.reflect.InvocationHandler;
@@ -38,6 +39,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -52,8 +54,13 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Adapts some source object to some target view type.
+ *
+ * <p>By default, each view is a {@link Proxy} that locates the source method for each invocation. When view class generation is enabled, using the constructor
+ * or the {@value #GENERATED_VIEWS_PROPERTY} system property, each view is instead an instance of a class generated for its view and source types, which calls the
+ * source getters directly. Proxies are still used for types that a class cannot be generated for.</p>
  */
 public class ProtocolToModelAdapter implements ObjectGraphAdapter {
+    public static final String GENERATED_VIEWS_PROPERTY = "org.gradle.tooling.internal.adapter.generatedViews";
     private static final ViewDecoration NO_OP_MAPPER = new NoOpDecoration();
     private static final TargetTypeProvider IDENTITY_TYPE_PROVIDER = new TargetTypeProvider() {
         public <T> Class<? extends T> getTargetType(Class<T> initialTargetType, Object protocolObject) {
@@ -63,24 +70,30 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
     private static final ReflectionMethodInvoker REFLECTION_METHOD_INVOKER = new ReflectionMethodInvoker();
     private static final TypeInspector TYPE_INSPECTOR = new TypeInspector();
     private static final CollectionMapper COLLECTION_MAPPER = new CollectionMapper();
+    private static final ViewClassGenerator VIEW_CLASS_GENERATOR = new ViewClassGenerator();
     private static final Object[] EMPTY = new Object[0];
     private static final Class[] EMPTY_CLASS_ARRAY = new Class[0];
     private static final Method EQUALS_METHOD;
     private static final Method HASHCODE_METHOD;
+    private static final Method TO_STRING_METHOD;
 
     private final TargetTypeProvider targetTypeProvider;
+    private final boolean generateViewClasses;
 
     static {
         Method equalsMethod;
         Method hashCodeMethod;
+        Method toStringMethod;
         try {
             equalsMethod = Object.class.getMethod("equals", Object.class);
             hashCodeMethod = Object.class.getMethod("hashCode");
+            toStringMethod = Object.class.getMethod("toString");
         } catch (NoSuchMethodException e) {
             throw UncheckedException.throwAsUncheckedException(e);
         }
         EQUALS_METHOD = equalsMethod;
         HASHCODE_METHOD = hashCodeMethod;
+        TO_STRING_METHOD = toStringMethod;
     }
 
     public ProtocolToModelAdapter() {
@@ -88,14 +101,19 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
     }
 
     public ProtocolToModelAdapter(TargetTypeProvider targetTypeProvider) {
+        this(targetTypeProvider, Boolean.getBoolean(GENERATED_VIEWS_PROPERTY));
+    }
+
+    public ProtocolToModelAdapter(TargetTypeProvider targetTypeProvider, boolean generateViewClasses) {
         this.targetTypeProvider = targetTypeProvider;
+        this.generateViewClasses = generateViewClasses;
     }
 
     /**
      * Creates an adapter for a single object graph. Each object adapted by the returned adapter is treated as part of the same object graph, for the purposes of caching etc.
      */
     public ObjectGraphAdapter newGraph() {
-        final ViewGraphDetails graphDetails = new ViewGraphDetails(targetTypeProvider);
+        final ViewGraphDetails graphDetails = new ViewGraphDetails(targetTypeProvider, generateViewClasses);
         return new ObjectGraphAdapter() {
             @Override
             public <T> T adapt(Class<T> targetType, Object sourceObject) {
@@ -117,7 +135,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         if (sourceObject == null) {
             return null;
         }
-        return createView(targetType, sourceObject, NO_OP_MAPPER, new ViewGraphDetails(targetTypeProvider));
+        return createView(targetType, sourceObject, NO_OP_MAPPER, new ViewGraphDetails(targetTypeProvider, generateViewClasses));
     }
 
     /**
@@ -152,6 +170,15 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
             return targetType.cast(view);
         }
 
+        if (graphDetails.generateViewClasses) {
+            ViewClassGenerator.ViewClass viewClass = VIEW_CLASS_GENERATOR.get(viewType, sourceObject.getClass());
+            if (viewClass != null) {
+                Object generatedView = viewClass.newInstance(sourceObject, new GeneratedViewState(targetType, viewType, sourceObject, decorationsForThisType, graphDetails, viewClass));
+                graphDetails.views.put(viewKey, generatedView);
+                return viewType.cast(generatedView);
+            }
+        }
+
         // Create a proxy
         InvocationHandlerImpl handler = new InvocationHandlerImpl(targetType, sourceObject, decorationsForThisType, graphDetails);
         Object proxy = Proxy.newProxyInstance(viewType.getClassLoader(), new Class<?>[]{viewType}, handler);
@@ -240,6 +267,9 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
      * Unpacks the source object from a given view object.
      */
     public Object unpack(Object viewObject) {
+        if (viewObject instanceof GeneratedView) {
+            return ((GeneratedView) viewObject).source;
+        }
         if (!Proxy.isProxyClass(viewObject.getClass()) || !(Proxy.getInvocationHandler(viewObject) instanceof InvocationHandlerImpl)) {
             throw new IllegalArgumentException("The given object is not a view object");
         }
@@ -251,9 +281,11 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         // Transient, don't serialize all the views that happen to have been visited, recreate them when visited via the deserialized view
         private transient Map<ViewKey, Object> views = new HashMap<ViewKey, Object>();
         private final TargetTypeProvider typeProvider;
+        private final boolean generateViewClasses;
 
-        ViewGraphDetails(TargetTypeProvider typeProvider) {
+        ViewGraphDetails(TargetTypeProvider typeProvider, boolean generateViewClasses) {
             this.typeProvider = typeProvider;
+            this.generateViewClasses = generateViewClasses;
         }
 
         private void readObject(java.io.ObjectInputStream in) throws IOException, ClassNotFoundException {
@@ -309,17 +341,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         }
 
         private void setup() {
-            List<MethodInvoker> invokers = new ArrayList<MethodInvoker>();
-            invokers.add(REFLECTION_METHOD_INVOKER);
-            decoration.collectInvokers(sourceObject, targetType, invokers);
-
-            MethodInvoker mixInMethodInvoker = invokers.size() == 1 ? invokers.get(0) : new ChainedMethodInvoker(invokers);
-
-            invoker = new SupportedPropertyInvoker(
-                new SafeMethodInvoker(
-                    new PropertyCachingMethodInvoker(
-                        new AdaptingMethodInvoker(decoration, graphDetails,
-                            mixInMethodInvoker))));
+            invoker = createInvoker(targetType, sourceObject, decoration, graphDetails);
         }
 
         @Override
@@ -343,6 +365,9 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         public Object invoke(Object target, Method method, Object[] params) throws Throwable {
             if (EQUALS_METHOD.equals(method)) {
                 Object param = params[0];
+                if (param instanceof GeneratedView) {
+                    return sourceObject.equals(((GeneratedView) param).source);
+                }
                 if (param == null || !Proxy.isProxyClass(param.getClass())) {
                     return false;
                 }
@@ -352,13 +377,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
                 return hashCode();
             }
 
-            MethodInvocation invocation = new MethodInvocation(method.getName(), method.getReturnType(), method.getGenericReturnType(), method.getParameterTypes(), target, targetType, sourceObject, params);
-            invoker.invoke(invocation);
-            if (!invocation.found()) {
-                String methodName = method.getDeclaringClass().getSimpleName() + "." + method.getName() + "()";
-                throw Exceptions.unsupportedMethod(methodName);
-            }
-            return invocation.getResult();
+            return ProtocolToModelAdapter.invoke(invoker, target, targetType, sourceObject, method, params);
         }
 
         void attachProxy(Object proxy) {
@@ -367,6 +386,144 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
         }
     }
 
+    private static MethodInvoker createInvoker(Class<?> targetType, Object sourceObject, ViewDecoration decoration, ViewGraphDetails graphDetails) {
+        List<MethodInvoker> invokers = new ArrayList<MethodInvoker>();
+        invokers.add(REFLECTION_METHOD_INVOKER);
+        decoration.collectInvokers(sourceObject, targetType, invokers);
+
+        MethodInvoker mixInMethodInvoker = invokers.size() == 1 ? invokers.get(0) : new ChainedMethodInvoker(invokers);
+
+        return new SupportedPropertyInvoker(
+            new SafeMethodInvoker(
+                new PropertyCachingMethodInvoker(
+                    new AdaptingMethodInvoker(decoration, graphDetails,
+                        mixInMethodInvoker))));
+    }
+
+    private static Object invoke(MethodInvoker invoker, Object view, Class<?> targetType, Object sourceObject, Method method, Object[] params) throws Throwable {
+        MethodInvocation invocation = new MethodInvocation(method.getName(), method.getReturnType(), method.getGenericReturnType(), method.getParameterTypes(), view, targetType, sourceObject, params);
+        invoker.invoke(invocation);
+        if (!invocation.found()) {
+            String methodName = method.getDeclaringClass().getSimpleName() + "." + method.getName() + "()";
+            throw Exceptions.unsupportedMethod(methodName);
+        }
+        return invocation.getResult();
+    }
+
+    /**
+     * The base class for views generated by {@link ViewClassGenerator}. Public, as the generated classes are defined in a different class loader.
+     * Serialized as an equivalent proxy, as the generated class may not be available to the receiver.
+     */
+    public static abstract class GeneratedView implements Serializable {
+        protected final Object source;
+        private final transient GeneratedViewState state;
+
+        protected GeneratedView(Object source, Object state) {
+            this.source = source;
+            this.state = (GeneratedViewState) state;
+        }
+
+        /**
+         * Adapts the value of a property whose getter is called directly by the generated class.
+         */
+        protected final Object adaptProperty(int property, Object value) {
+            if (value == null) {
+                return null;
+            }
+            return convert(state.viewClass.propertyTypes[property], value, state.decoration, state.graphDetails);
+        }
+
+        /**
+         * Dispatches a method that the generated class does not call directly, applying the same rules as the proxy based views.
+         * Checked exceptions declared by the view method are rethrown as is.
+         */
+        protected final Object invokeMethod(int method, Object[] params) throws Throwable {
+            return state.invoke(this, state.viewClass.dispatchedMethods[method], params);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (obj instanceof GeneratedView) {
+                return source.equals(((GeneratedView) obj).source);
+            }
+            if (obj == null || !Proxy.isProxyClass(obj.getClass()) || !(Proxy.getInvocationHandler(obj) instanceof InvocationHandlerImpl)) {
+                return false;
+            }
+            return source.equals(((InvocationHandlerImpl) Proxy.getInvocationHandler(obj)).sourceObject);
+        }
+
+        @Override
+        public int hashCode() {
+            return source.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            try {
+                return (String) state.invoke(this, TO_STRING_METHOD, EMPTY);
+            } catch (Throwable e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        }
+
+        protected Object writeReplace() throws ObjectStreamException {
+            return state.toProxy();
+        }
+    }
+
+    private static class GeneratedViewState {
+        private final Class<?> targetType;
+        private final Class<?> viewType;
+        private final Object sourceObject;
+        private final ViewDecoration decoration;
+        private final ViewGraphDetails graphDetails;
+        private final ViewClassGenerator.ViewClass viewClass;
+        private MethodInvoker invoker;
+        private Object proxy;
+
+        GeneratedViewState(Class<?> targetType, Class<?> viewType, Object sourceObject, ViewDecoration decoration, ViewGraphDetails graphDetails, ViewClassGenerator.ViewClass viewClass) {
+            this.targetType = targetType;
+            this.viewType = viewType;
+            this.sourceObject = sourceObject;
+            this.decoration = decoration;
+            this.graphDetails = graphDetails;
+            this.viewClass = viewClass;
+        }
+
+        Object invoke(Object view, Method method, Object[] params) throws Throwable {
+            if (invoker == null) {
+                invoker = createInvoker(targetType, sourceObject, decoration, graphDetails);
+            }
+            try {
+                return ProtocolToModelAdapter.invoke(invoker, view, targetType, sourceObject, method, params);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                for (Class<?> exceptionType : method.getExceptionTypes()) {
+                    if (exceptionType.isInstance(e)) {
+                        throw e;
+                    }
+                }
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+
+        Object toProxy() {
+            if (proxy == null) {
+                // Not registered with the graph, which already holds the generated view for this key
+                InvocationHandlerImpl handler = new InvocationHandlerImpl(targetType, sourceObject, decoration, graphDetails);
+                proxy = Proxy.newProxyInstance(viewType.getClassLoader(), new Class<?>[]{viewType}, handler);
+                handler.proxy = proxy;
+            }
+            return proxy;
+        }
+    }
+
     private static class ChainedMethodInvoker implements MethodInvoker {
         private final MethodInvoker[] invokers;
 
@@ -980,7 +1137,7 @@ public class ProtocolToModelAdapter implements ObjectGraphAdapter {
             }
 
             ViewDecoration viewDecoration = MixInMappingAction.chain(viewDecorations);
-            return createView(viewType, sourceObject, viewDecoration, graphDetails != null ? graphDetails : new ViewGraphDetails(targetTypeProvider));
+            return createView(viewType, sourceObject, viewDecoration, graphDetails != null ? graphDetails : new ViewGraphDetails(targetTypeProvider, generateViewClasses));
         }
     }
 }
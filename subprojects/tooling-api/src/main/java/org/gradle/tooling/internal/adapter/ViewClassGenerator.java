@@ -0,0 +1,503 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter;
+
+import net.jcip.annotations.ThreadSafe;
+import org.gradle.internal.classloader.MultiParentClassLoader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates a concrete view class for each (view type, source type) pair, as an alternative to a {@link java.lang.reflect.Proxy} based view.
+ *
+ * <p>The source method for each getter of the view type is located once, when the class is generated. Where it is declared by a public type, the generated
+ * getter calls it directly and caches the adapted value in a field. All other methods, and getters that the source type does not provide, are dispatched
+ * through the same invoker chain that the proxy based views use, so mix-ins, safe getters and {@code isXSupported()} methods behave the same way.</p>
+ *
+ * <p>Returns {@code null} when no class can be generated, for example when some type referenced by the view cannot be seen from both the view and the source
+ * class loaders. The caller should fall back to a proxy in that case.</p>
+ */
+@ThreadSafe
+class ViewClassGenerator {
+    private static final Object UNSUPPORTED = new Object();
+    private static final String GENERATED_PACKAGE = "org/gradle/tooling/internal/adapter/generated/";
+    private static final String BASE_CLASS = Type.getInternalName(ProtocolToModelAdapter.GeneratedView.class);
+    private static final String OBJECT_TYPE = Type.getInternalName(Object.class);
+    private static final String CONSTRUCTOR_DESCRIPTOR = Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(Object.class), Type.getType(Object.class));
+    private static final String ADAPT_PROPERTY_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(Object.class), Type.INT_TYPE, Type.getType(Object.class));
+    private static final String INVOKE_METHOD_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(Object.class), Type.INT_TYPE, Type.getType(Object[].class));
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+
+    // Source type -> view type -> weak reference to the generated class, or UNSUPPORTED
+    private final Map<Class<?>, Map<Class<?>, Object>> viewClasses = new WeakHashMap<Class<?>, Map<Class<?>, Object>>();
+
+    /**
+     * Returns the view class for the given view and source types, or {@code null} when none can be generated.
+     */
+    @SuppressWarnings("unchecked")
+    public ViewClass get(Class<?> viewType, Class<?> sourceType) {
+        synchronized (viewClasses) {
+            Map<Class<?>, Object> forSource = viewClasses.get(sourceType);
+            if (forSource == null) {
+                forSource = new WeakHashMap<Class<?>, Object>();
+                viewClasses.put(sourceType, forSource);
+            }
+            Object cached = forSource.get(viewType);
+            if (cached == UNSUPPORTED) {
+                return null;
+            }
+            ViewClass viewClass = cached == null ? null : ((WeakReference<ViewClass>) cached).get();
+            if (viewClass == null) {
+                viewClass = generate(viewType, sourceType);
+                forSource.put(viewType, viewClass == null ? UNSUPPORTED : new WeakReference<ViewClass>(viewClass));
+            }
+            return viewClass;
+        }
+    }
+
+    private static ViewClass generate(Class<?> viewType, Class<?> sourceType) {
+        if (!viewType.isInterface() || !Modifier.isPublic(viewType.getModifiers())) {
+            return null;
+        }
+
+        ViewClassLoader classLoader = new ViewClassLoader(ProtocolToModelAdapter.class.getClassLoader(), viewType.getClassLoader(), sourceType.getClassLoader());
+        Set<Class<?>> referencedTypes = new LinkedHashSet<Class<?>>();
+        referencedTypes.add(ProtocolToModelAdapter.GeneratedView.class);
+        referencedTypes.add(viewType);
+
+        String className = GENERATED_PACKAGE + viewType.getSimpleName() + "$$View" + COUNTER.incrementAndGet();
+        ClassWriter visitor = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        visitor.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC, className, null, BASE_CLASS, new String[]{Type.getInternalName(viewType)});
+
+        MethodVisitor constructor = visitor.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitVarInsn(Opcodes.ALOAD, 1);
+        constructor.visitVarInsn(Opcodes.ALOAD, 2);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE_CLASS, "<init>", CONSTRUCTOR_DESCRIPTOR, false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        List<java.lang.reflect.Type> propertyTypes = new ArrayList<java.lang.reflect.Type>();
+        List<Method> dispatchedMethods = new ArrayList<Method>();
+        for (List<Method> overloads : groupBySignature(viewType).values()) {
+            for (Method method : overloads) {
+                referencedTypes.add(method.getReturnType());
+                referencedTypes.addAll(Arrays.asList(method.getParameterTypes()));
+            }
+            SourceGetter getter = overloads.get(0).getParameterTypes().length == 0 ? findSourceGetter(overloads, sourceType) : null;
+            if (getter != null) {
+                referencedTypes.add(getter.method.getDeclaringClass());
+                referencedTypes.add(getter.method.getReturnType());
+                if (getter.viewMethod.getReturnType().isPrimitive()) {
+                    generateDirectPrimitiveGetter(visitor, getter);
+                } else {
+                    int property = propertyTypes.size();
+                    propertyTypes.add(getter.viewMethod.getGenericReturnType());
+                    generateCachingGetter(visitor, className, property, getter, overloads);
+                }
+            } else {
+                for (Method method : overloads) {
+                    generateDispatchingMethod(visitor, dispatchedMethods.size(), method);
+                    dispatchedMethods.add(method);
+                }
+            }
+        }
+        visitor.visitEnd();
+
+        for (Class<?> type : referencedTypes) {
+            if (!classLoader.isVisible(type)) {
+                return null;
+            }
+        }
+
+        Class<?> generatedClass = classLoader.define(className.replace('/', '.'), visitor.toByteArray());
+        try {
+            Constructor<?> viewConstructor = generatedClass.getConstructor(Object.class, Object.class);
+            return new ViewClass(viewConstructor, propertyTypes.toArray(new java.lang.reflect.Type[0]), dispatchedMethods.toArray(new Method[0]));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Groups the abstract methods of the view type by name and parameter types. A group contains more than one method when an interface redeclares an inherited method with a covariant return type.
+     */
+    private static Map<String, List<Method>> groupBySignature(Class<?> viewType) {
+        Map<String, List<Method>> methods = new LinkedHashMap<String, List<Method>>();
+        Set<String> descriptors = new HashSet<String>();
+        for (Method method : viewType.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || !Modifier.isAbstract(method.getModifiers()) || isObjectMethod(method)) {
+                continue;
+            }
+            if (!descriptors.add(method.getName() + Type.getMethodDescriptor(method))) {
+                continue;
+            }
+            String signature = method.getName() + Type.getMethodDescriptor(Type.VOID_TYPE, Type.getArgumentTypes(method));
+            List<Method> overloads = methods.get(signature);
+            if (overloads == null) {
+                overloads = new ArrayList<Method>(1);
+                methods.put(signature, overloads);
+            }
+            overloads.add(method);
+        }
+        return methods;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Locates the source method for a group of view getters, returning {@code null} when the getters must be dispatched through the invoker chain.
+     */
+    private static SourceGetter findSourceGetter(List<Method> overloads, Class<?> sourceType) {
+        String name = overloads.get(0).getName();
+        if (!isGetterName(name)) {
+            return null;
+        }
+
+        // The view method with the most specific return type determines how the value is adapted
+        Method viewMethod = null;
+        for (Method candidate : overloads) {
+            if (viewMethod == null || viewMethod.getReturnType().isAssignableFrom(candidate.getReturnType())) {
+                viewMethod = candidate;
+            }
+        }
+        for (Method candidate : overloads) {
+            if (!candidate.getReturnType().isAssignableFrom(viewMethod.getReturnType())) {
+                return null;
+            }
+        }
+        Class<?> viewReturnType = viewMethod.getReturnType();
+        if (viewReturnType == void.class) {
+            return null;
+        }
+        java.lang.reflect.Type genericReturnType = viewMethod.getGenericReturnType();
+        if (!(genericReturnType instanceof Class) && !(genericReturnType instanceof ParameterizedType && ((ParameterizedType) genericReturnType).getRawType() instanceof Class)) {
+            return null;
+        }
+
+        Method sourceMethod = findPublicDeclaration(sourceType, name);
+        if (sourceMethod == null) {
+            return null;
+        }
+        Class<?> sourceReturnType = sourceMethod.getReturnType();
+        if (sourceReturnType == void.class || (viewReturnType.isPrimitive() && sourceReturnType != viewReturnType)) {
+            return null;
+        }
+        for (Class<?> exceptionType : sourceMethod.getExceptionTypes()) {
+            if (!isUnchecked(exceptionType) && !isDeclared(exceptionType, overloads)) {
+                return null;
+            }
+        }
+        return new SourceGetter(viewMethod, sourceMethod);
+    }
+
+    private static boolean isGetterName(String name) {
+        return (name.startsWith("get") && name.length() > 3) || (name.startsWith("is") && name.length() > 2);
+    }
+
+    private static boolean isUnchecked(Class<?> exceptionType) {
+        return RuntimeException.class.isAssignableFrom(exceptionType) || Error.class.isAssignableFrom(exceptionType);
+    }
+
+    private static boolean isDeclared(Class<?> exceptionType, List<Method> overloads) {
+        for (Method method : overloads) {
+            boolean declared = false;
+            for (Class<?> declaredType : method.getExceptionTypes()) {
+                declared |= declaredType.isAssignableFrom(exceptionType);
+            }
+            if (!declared) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the most general public declaration of the given getter in the hierarchy of the source type, so that the generated class refers to types that are
+     * as widely visible as possible.
+     */
+    private static Method findPublicDeclaration(Class<?> sourceType, String name) {
+        try {
+            sourceType.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+
+        Method match = null;
+        LinkedList<Class<?>> queue = new LinkedList<Class<?>>();
+        Set<Class<?>> seen = new HashSet<Class<?>>();
+        queue.add(sourceType);
+        while (!queue.isEmpty()) {
+            Class<?> type = queue.removeFirst();
+            if (!seen.add(type)) {
+                continue;
+            }
+            if (Modifier.isPublic(type.getModifiers())) {
+                try {
+                    Method method = type.getDeclaredMethod(name);
+                    if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+                        match = method;
+                    }
+                } catch (NoSuchMethodException e) {
+                    // Not declared by this type
+                }
+            }
+            if (type.getSuperclass() != null) {
+                queue.add(type.getSuperclass());
+            }
+            queue.addAll(Arrays.asList(type.getInterfaces()));
+        }
+        return match;
+    }
+
+    private static void generateDirectPrimitiveGetter(ClassWriter visitor, SourceGetter getter) {
+        Method viewMethod = getter.viewMethod;
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, viewMethod.getName(), Type.getMethodDescriptor(viewMethod), null, null);
+        methodVisitor.visitCode();
+        invokeSource(methodVisitor, getter.method);
+        methodVisitor.visitInsn(Type.getType(viewMethod.getReturnType()).getOpcode(Opcodes.IRETURN));
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private static void generateCachingGetter(ClassWriter visitor, String className, int property, SourceGetter getter, List<Method> overloads) {
+        String valueField = "value" + property;
+        String cachedField = "cached" + property;
+        visitor.visitField(Opcodes.ACC_PRIVATE, valueField, Type.getDescriptor(Object.class), null, null).visitEnd();
+        visitor.visitField(Opcodes.ACC_PRIVATE, cachedField, Type.BOOLEAN_TYPE.getDescriptor(), null, null).visitEnd();
+
+        for (Method method : overloads) {
+            MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method), null, null);
+            methodVisitor.visitCode();
+
+            // if (!cached) { value = adaptProperty(property, source.getX()); cached = true; }
+            Label cached = new Label();
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            methodVisitor.visitFieldInsn(Opcodes.GETFIELD, className, cachedField, Type.BOOLEAN_TYPE.getDescriptor());
+            methodVisitor.visitJumpInsn(Opcodes.IFNE, cached);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            pushInt(methodVisitor, property);
+            invokeSource(methodVisitor, getter.method);
+            box(methodVisitor, Type.getType(getter.method.getReturnType()));
+            methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "adaptProperty", ADAPT_PROPERTY_DESCRIPTOR, false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, className, valueField, Type.getDescriptor(Object.class));
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            methodVisitor.visitInsn(Opcodes.ICONST_1);
+            methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, className, cachedField, Type.BOOLEAN_TYPE.getDescriptor());
+
+            // return (T) value;
+            methodVisitor.visitLabel(cached);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            methodVisitor.visitFieldInsn(Opcodes.GETFIELD, className, valueField, Type.getDescriptor(Object.class));
+            methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(method.getReturnType()));
+            methodVisitor.visitInsn(Opcodes.ARETURN);
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+    }
+
+    private static void invokeSource(MethodVisitor methodVisitor, Method sourceMethod) {
+        Class<?> owner = sourceMethod.getDeclaringClass();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitFieldInsn(Opcodes.GETFIELD, BASE_CLASS, "source", Type.getDescriptor(Object.class));
+        methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(owner));
+        methodVisitor.visitMethodInsn(owner.isInterface() ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, Type.getInternalName(owner), sourceMethod.getName(), Type.getMethodDescriptor(sourceMethod), owner.isInterface());
+    }
+
+    private static void generateDispatchingMethod(ClassWriter visitor, int index, Method method) {
+        MethodVisitor methodVisitor = visitor.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method), null, null);
+        methodVisitor.visitCode();
+
+        // return (T) invokeMethod(index, new Object[]{params});
+        Type[] parameterTypes = Type.getArgumentTypes(method);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        pushInt(methodVisitor, index);
+        pushInt(methodVisitor, parameterTypes.length);
+        methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT_TYPE);
+        int slot = 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            methodVisitor.visitInsn(Opcodes.DUP);
+            pushInt(methodVisitor, i);
+            methodVisitor.visitVarInsn(parameterTypes[i].getOpcode(Opcodes.ILOAD), slot);
+            box(methodVisitor, parameterTypes[i]);
+            methodVisitor.visitInsn(Opcodes.AASTORE);
+            slot += parameterTypes[i].getSize();
+        }
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE_CLASS, "invokeMethod", INVOKE_METHOD_DESCRIPTOR, false);
+
+        Type returnType = Type.getReturnType(method);
+        if (returnType.getSort() == Type.VOID) {
+            methodVisitor.visitInsn(Opcodes.POP);
+            methodVisitor.visitInsn(Opcodes.RETURN);
+        } else if (returnType.getSort() == Type.OBJECT || returnType.getSort() == Type.ARRAY) {
+            methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, returnType.getInternalName());
+            methodVisitor.visitInsn(Opcodes.ARETURN);
+        } else {
+            Type boxedType = boxedType(returnType);
+            methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, boxedType.getInternalName());
+            methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, boxedType.getInternalName(), returnType.getClassName() + "Value", Type.getMethodDescriptor(returnType), false);
+            methodVisitor.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        }
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+
+    private static void pushInt(MethodVisitor methodVisitor, int value) {
+        if (value <= 5) {
+            methodVisitor.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Short.MAX_VALUE) {
+            methodVisitor.visitIntInsn(Opcodes.SIPUSH, value);
+        } else {
+            methodVisitor.visitLdcInsn(value);
+        }
+    }
+
+    private static void box(MethodVisitor methodVisitor, Type type) {
+        if (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY) {
+            return;
+        }
+        Type boxedType = boxedType(type);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, boxedType.getInternalName(), "valueOf", Type.getMethodDescriptor(boxedType, type), false);
+    }
+
+    private static Type boxedType(Type primitiveType) {
+        switch (primitiveType.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getType(Boolean.class);
+            case Type.CHAR:
+                return Type.getType(Character.class);
+            case Type.BYTE:
+                return Type.getType(Byte.class);
+            case Type.SHORT:
+                return Type.getType(Short.class);
+            case Type.INT:
+                return Type.getType(Integer.class);
+            case Type.FLOAT:
+                return Type.getType(Float.class);
+            case Type.LONG:
+                return Type.getType(Long.class);
+            case Type.DOUBLE:
+                return Type.getType(Double.class);
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + primitiveType);
+        }
+    }
+
+    private static class SourceGetter {
+        private final Method viewMethod;
+        private final Method method;
+
+        SourceGetter(Method viewMethod, Method method) {
+            this.viewMethod = viewMethod;
+            this.method = method;
+        }
+    }
+
+    /**
+     * A generated view class, along with the details required to adapt its property values and to dispatch its remaining methods.
+     */
+    static class ViewClass {
+        private final Constructor<?> constructor;
+        final java.lang.reflect.Type[] propertyTypes;
+        final Method[] dispatchedMethods;
+
+        ViewClass(Constructor<?> constructor, java.lang.reflect.Type[] propertyTypes, Method[] dispatchedMethods) {
+            this.constructor = constructor;
+            this.propertyTypes = propertyTypes;
+            this.dispatchedMethods = dispatchedMethods;
+        }
+
+        Object newInstance(Object sourceObject, Object state) {
+            try {
+                return constructor.newInstance(sourceObject, state);
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(e.getCause());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class ViewClassLoader extends MultiParentClassLoader {
+        ViewClassLoader(ClassLoader... parents) {
+            super(nonNull(parents));
+        }
+
+        private static List<ClassLoader> nonNull(ClassLoader[] classLoaders) {
+            Set<ClassLoader> result = new LinkedHashSet<ClassLoader>();
+            for (ClassLoader classLoader : classLoaders) {
+                if (classLoader != null) {
+                    result.add(classLoader);
+                }
+            }
+            return new ArrayList<ClassLoader>(result);
+        }
+
+        /**
+         * Checks that the given type resolves to the same class through this loader, so that the generated class links against the types of the view and source objects.
+         */
+        boolean isVisible(Class<?> type) {
+            while (type.isArray()) {
+                type = type.getComponentType();
+            }
+            if (type.isPrimitive()) {
+                return true;
+            }
+            try {
+                return loadClass(type.getName(), false) == type;
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -22,9 +22,11 @@ import org.gradle.tooling.internal.adapter.ObjectGraphAdapter;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
 import org.gradle.tooling.internal.adapter.ViewBuilder;
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping;
+import org.gradle.tooling.internal.consumer.versioning.VersionDetails;
 import org.gradle.tooling.internal.gradle.DefaultProjectIdentifier;
 import org.gradle.tooling.internal.protocol.BuildResult;
 import org.gradle.tooling.internal.protocol.InternalBuildController;
+import org.gradle.tooling.internal.protocol.InternalStreamingBuildController;
 import org.gradle.tooling.internal.protocol.InternalUnsupportedModelException;
 import org.gradle.tooling.internal.protocol.ModelIdentifier;
 import org.gradle.tooling.model.Model;
@@ -39,12 +41,16 @@ class BuildControllerAdapter extends AbstractBuildController implements BuildCon
     private final ObjectGraphAdapter resultAdapter;
     private final ModelMapping modelMapping;
     private final File rootDir;
+    private final VersionDetails versionDetails;
+    private final boolean streamValues;
 
-    public BuildControllerAdapter(ProtocolToModelAdapter adapter, InternalBuildController buildController, ModelMapping modelMapping, File rootDir) {
+    public BuildControllerAdapter(ProtocolToModelAdapter adapter, InternalBuildController buildController, ModelMapping modelMapping, File rootDir, VersionDetails versionDetails, boolean streamValues) {
         this.adapter = adapter;
         this.buildController = buildController;
         this.modelMapping = modelMapping;
         this.rootDir = rootDir;
+        this.versionDetails = versionDetails;
+        this.streamValues = streamValues;
         // Treat all models returned to the action as part of the same object graph
         resultAdapter = adapter.newGraph();
     }
@@ -65,6 +71,18 @@ class BuildControllerAdapter extends AbstractBuildController implements BuildCon
         return viewBuilder.build(result.getModel());
     }
 
+    @Override
+    public void send(Object value) {
+        if (!(buildController instanceof InternalStreamingBuildController)) {
+            throw Exceptions.unsupportedFeature("send() method on BuildController", versionDetails.getVersion(), "3.6");
+        }
+        if (!streamValues) {
+            // No listener registered, so there is nobody to send the value to
+            return;
+        }
+        ((InternalStreamingBuildController) buildController).send(value);
+    }
+
     private String getProjectPath(Model target) {
         if (target instanceof ProjectModel) {
             return ((ProjectModel) target).getProjectIdentifier().getProjectPath();
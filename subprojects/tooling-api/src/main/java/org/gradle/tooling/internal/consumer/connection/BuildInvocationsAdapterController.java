@@ -42,4 +42,9 @@ public class BuildInvocationsAdapterController extends AbstractBuildController {
         }
         return delegate.getModel(target, modelType);
     }
+
+    @Override
+    public void send(Object value) {
+        delegate.send(value);
+    }
 }
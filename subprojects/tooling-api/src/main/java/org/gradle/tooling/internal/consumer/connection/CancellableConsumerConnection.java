@@ -96,7 +96,7 @@ public class CancellableConsumerConnection extends AbstractPost12ConsumerConnect
             BuildResult<T> result;
             try {
                 try {
-                    result = executor.run(new InternalBuildActionAdapter<T>(action, rootDir, versionDetails), new BuildCancellationTokenAdapter(operationParameters.getCancellationToken()), operationParameters);
+                    result = executor.run(new InternalBuildActionAdapter<T>(action, rootDir, versionDetails, operationParameters.getStreamedValueListener() != null), new BuildCancellationTokenAdapter(operationParameters.getCancellationToken()), operationParameters);
                 } catch (RuntimeException e) {
                     throw exceptionTransformer.transform(e);
                 }
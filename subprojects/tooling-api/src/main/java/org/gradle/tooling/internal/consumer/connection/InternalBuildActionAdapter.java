@@ -37,16 +37,22 @@ public class InternalBuildActionAdapter<T> implements InternalBuildAction<T> {
     private final BuildAction<T> action;
     private final File rootDir;
     private final VersionDetails versionDetails;
+    private final boolean streamValues;
 
     public InternalBuildActionAdapter(BuildAction<T> action, File rootDir, VersionDetails versionDetails) {
+        this(action, rootDir, versionDetails, false);
+    }
+
+    public InternalBuildActionAdapter(BuildAction<T> action, File rootDir, VersionDetails versionDetails, boolean streamValues) {
         this.action = action;
         this.rootDir = rootDir;
         this.versionDetails = versionDetails;
+        this.streamValues = streamValues;
     }
 
     public T execute(final InternalBuildController buildController) {
         ProtocolToModelAdapter protocolToModelAdapter = new ProtocolToModelAdapter(new ConsumerTargetTypeProvider());
-        BuildController buildControllerAdapter = new BuildControllerAdapter(protocolToModelAdapter, buildController, new ModelMapping(), rootDir);
+        BuildController buildControllerAdapter = new BuildControllerAdapter(protocolToModelAdapter, buildController, new ModelMapping(), rootDir, versionDetails, streamValues);
         if (!versionDetails.maySupportModel(BuildInvocations.class)) {
             buildControllerAdapter= new BuildInvocationsAdapterController(protocolToModelAdapter, buildControllerAdapter);
         }
@@ -73,5 +73,10 @@ public class ParameterValidatingConsumerConnection implements ConsumerConnection
                 throw Exceptions.unsupportedFeature("forTasks() method on BuildActionExecuter", targetVersionDetails.getVersion(), "3.5");
             }
         }
+        if (!targetVersionDetails.supportsStreamedValues()) {
+            if (operationParameters.getStreamedValueListener() != null) {
+                throw Exceptions.unsupportedFeature("setStreamedValueListener() method on BuildActionExecuter", targetVersionDetails.getVersion(), "3.6");
+            }
+        }
     }
 }
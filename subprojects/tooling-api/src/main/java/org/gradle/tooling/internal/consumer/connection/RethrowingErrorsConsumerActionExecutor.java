@@ -16,6 +16,8 @@
 
 package org.gradle.tooling.internal.consumer.connection;
 
+import org.gradle.tooling.internal.consumer.parameters.FailsafeStreamedValueListenerAdapter;
+
 public class RethrowingErrorsConsumerActionExecutor implements ConsumerActionExecutor {
     private ConsumerActionExecutor delegate;
 
@@ -37,6 +39,10 @@ public class RethrowingErrorsConsumerActionExecutor implements ConsumerActionExe
     public <T> T run(ConsumerAction<T> action) throws UnsupportedOperationException, IllegalStateException {
         T result = delegate.run(action);
         action.getParameters().getBuildProgressListener().rethrowErrors();
+        FailsafeStreamedValueListenerAdapter streamedValueListener = action.getParameters().getStreamedValueListener();
+        if (streamedValueListener != null) {
+            streamedValueListener.rethrowErrors();
+        }
         return result;
     }
 }
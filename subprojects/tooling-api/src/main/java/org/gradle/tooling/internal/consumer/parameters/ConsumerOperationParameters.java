@@ -20,6 +20,7 @@ import org.gradle.api.GradleException;
 import org.gradle.initialization.BuildCancellationToken;
 import org.gradle.internal.classpath.ClassPath;
 import org.gradle.tooling.CancellationToken;
+import org.gradle.tooling.StreamedValueListener;
 import org.gradle.tooling.events.ProgressListener;
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter;
 import org.gradle.tooling.internal.consumer.CancellationTokenInternal;
@@ -56,6 +57,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         private final List<ProgressListener> buildOperationProgressListeners = new ArrayList<ProgressListener>();
         private String entryPoint;
         private CancellationToken cancellationToken;
+        private StreamedValueListener streamedValueListener;
         private ConnectionParameters parameters;
         private OutputStream stdout;
         private OutputStream stderr;
@@ -178,19 +180,24 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
             this.cancellationToken = cancellationToken;
         }
 
+        public void setStreamedValueListener(StreamedValueListener streamedValueListener) {
+            this.streamedValueListener = streamedValueListener;
+        }
+
         public ConsumerOperationParameters build() {
             if (entryPoint == null) {
                 throw new IllegalStateException("No entry point specified.");
             }
 
             return new ConsumerOperationParameters(entryPoint, parameters, stdout, stderr, colorOutput, stdin, javaHome, jvmArguments, envVariables, arguments, tasks, launchables, injectedPluginClasspath,
-                legacyProgressListeners, testProgressListeners, taskProgressListeners, buildOperationProgressListeners, cancellationToken);
+                legacyProgressListeners, testProgressListeners, taskProgressListeners, buildOperationProgressListeners, cancellationToken, streamedValueListener);
         }
 
         public void copyFrom(ConsumerOperationParameters operationParameters) {
             tasks = operationParameters.tasks;
             launchables = operationParameters.launchables;
             cancellationToken = operationParameters.cancellationToken;
+            streamedValueListener = operationParameters.streamedValueListener;
             legacyProgressListeners.addAll(operationParameters.legacyProgressListeners);
             taskProgressListeners.addAll(operationParameters.taskProgressListeners);
             testProgressListeners.addAll(operationParameters.testProgressListeners);
@@ -210,7 +217,9 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
     private final String entryPointName;
     private final ProgressListenerAdapter progressListener;
     private final FailsafeBuildProgressListenerAdapter buildProgressListener;
+    private final FailsafeStreamedValueListenerAdapter streamedValueListenerAdapter;
     private final CancellationToken cancellationToken;
+    private final StreamedValueListener streamedValueListener;
     private final ConnectionParameters parameters;
     private final long startTime = System.currentTimeMillis();
 
@@ -235,7 +244,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
     private ConsumerOperationParameters(String entryPointName, ConnectionParameters parameters, OutputStream stdout, OutputStream stderr, Boolean colorOutput, InputStream stdin,
                                         File javaHome, List<String> jvmArguments,  Map<String, String> envVariables, List<String> arguments, List<String> tasks, List<InternalLaunchable> launchables, ClassPath injectedPluginClasspath,
                                         List<org.gradle.tooling.ProgressListener> legacyProgressListeners, List<ProgressListener> testProgressListeners, List<ProgressListener> taskProgressListeners,
-                                        List<ProgressListener> buildOperationProgressListeners, CancellationToken cancellationToken) {
+                                        List<ProgressListener> buildOperationProgressListeners, CancellationToken cancellationToken, StreamedValueListener streamedValueListener) {
         this.entryPointName = entryPointName;
         this.parameters = parameters;
         this.stdout = stdout;
@@ -250,6 +259,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         this.launchables = launchables;
         this.injectedPluginClasspath = injectedPluginClasspath;
         this.cancellationToken = cancellationToken;
+        this.streamedValueListener = streamedValueListener;
         this.legacyProgressListeners = legacyProgressListeners;
         this.testProgressListeners = testProgressListeners;
         this.taskProgressListeners = taskProgressListeners;
@@ -261,6 +271,7 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         this.progressListener = new ProgressListenerAdapter(this.legacyProgressListeners);
         this.buildProgressListener = new FailsafeBuildProgressListenerAdapter(
             new BuildProgressListenerAdapter(this.testProgressListeners, this.taskProgressListeners, this.buildOperationProgressListeners));
+        this.streamedValueListenerAdapter = streamedValueListener == null ? null : new FailsafeStreamedValueListenerAdapter(streamedValueListener);
     }
 
     private static void validateJavaHome(File javaHome) {
@@ -409,6 +420,14 @@ public class ConsumerOperationParameters implements BuildOperationParametersVers
         return buildProgressListener;
     }
 
+    /**
+     * @return When null, no listener has been registered and streamed values are discarded.
+     * @since 3.6
+     */
+    public FailsafeStreamedValueListenerAdapter getStreamedValueListener() {
+        return streamedValueListenerAdapter;
+    }
+
     public BuildCancellationToken getCancellationToken() {
         return ((CancellationTokenInternal) cancellationToken).getToken();
     }
@@ -36,6 +36,9 @@ public abstract class VersionDetails implements Serializable {
     }
 
     public static VersionDetails from(GradleVersion version) {
+        if (version.getBaseVersion().compareTo(GradleVersion.version("3.6")) >= 0) {
+            return new R36VersionDetails(version.getVersion());
+        }
         if (version.getBaseVersion().compareTo(GradleVersion.version("3.5")) >= 0) {
             return new R35VersionDetails(version.getVersion());
         }
@@ -86,6 +89,10 @@ public abstract class VersionDetails implements Serializable {
         return false;
     }
 
+    public boolean supportsStreamedValues() {
+        return false;
+    }
+
     private static class R12VersionDetails extends VersionDetails {
         public R12VersionDetails(String version) {
             super(version);
@@ -170,4 +177,15 @@ public abstract class VersionDetails implements Serializable {
             return true;
         }
     }
+
+    private static class R36VersionDetails extends R35VersionDetails {
+        public R36VersionDetails(String version) {
+            super(version);
+        }
+
+        @Override
+        public boolean supportsStreamedValues() {
+            return true;
+        }
+    }
 }
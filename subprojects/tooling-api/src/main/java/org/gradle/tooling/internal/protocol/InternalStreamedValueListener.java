@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.protocol;
+
+/**
+ * <p>DO NOT CHANGE THIS INTERFACE - it is part of the cross-version protocol.
+ *
+ * <p>Receives the values streamed by a build action while it is executing.</p>
+ *
+ * <p>Consumer compatibility: This interface is implemented by all consumer versions from 3.6.</p>
+ * <p>Provider compatibility: This interface is used by all provider versions from 3.6.</p>
+ *
+ * @since 3.6
+ */
+public interface InternalStreamedValueListener {
+    /**
+     * Invoked when a value is streamed by the build action. Values are delivered in the order they were sent and before the result of the action.
+     *
+     * @param value The streamed value, deserialized using the class loader of the build action.
+     * @since 3.6
+     */
+    void onValue(Object value);
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.tooling.internal.protocol;
+
+/**
+ * <p>DO NOT CHANGE THIS INTERFACE - it is part of the cross-version protocol.
+ *
+ * <p>Consumer compatibility: This interface is used by all consumer versions from 3.6.</p>
+ * <p>Provider compatibility: This interface is implemented by all provider versions from 3.6.</p>
+ *
+ * @since 3.6
+ */
+public interface InternalStreamingBuildController extends InternalBuildController {
+    /**
+     * Sends the given value to the client while the build action is still executing. The value is serialized immediately, so the action is free to discard it once this method returns.
+     *
+     * <p>Consumer compatibility: This method is used by all consumer versions from 3.6.</p>
+     * <p>Provider compatibility: This method is implemented by all provider versions from 3.6.</p>
+     *
+     * @param value The value to send. Must be serializable.
+     * @since 3.6
+     */
+    void send(Object value);
+}
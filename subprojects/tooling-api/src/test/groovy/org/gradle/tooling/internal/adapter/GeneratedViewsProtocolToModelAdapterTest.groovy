@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.gradle.tooling.internal.adapter
+
+import groovy.transform.PackageScope
+
+import java.lang.reflect.Proxy
+
+class GeneratedViewsProtocolToModelAdapterTest extends ProtocolToModelAdapterTest {
+    @Override
+    ProtocolToModelAdapter createAdapter() {
+        return new ProtocolToModelAdapter(new IdentityTargetTypeProvider(), true)
+    }
+
+    def "uses generated class for view"() {
+        def protocolModel = new TestModelImpl()
+
+        when:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+
+        then:
+        !Proxy.isProxyClass(model.getClass())
+        model instanceof ProtocolToModelAdapter.GeneratedView
+        !Proxy.isProxyClass(model.project.getClass())
+        model.name == "model"
+        model.project.name == "name"
+        model.toString() == protocolModel.toString()
+    }
+
+    def "reuses generated class for views of same type"() {
+        expect:
+        adapter.adapt(TestProject.class, new TestProtocolProjectImpl()).getClass() == adapter.adapt(TestProject.class, new TestProtocolProjectImpl()).getClass()
+    }
+
+    def "calls source getter once"() {
+        TestProtocolModel protocolModel = Mock()
+
+        when:
+        def model = adapter.adapt(TestModel.class, protocolModel)
+        model.name
+        model.name
+
+        then:
+        1 * protocolModel.name >> "name"
+        model.name == "name"
+    }
+
+    def "generated view and proxy for same source are equal"() {
+        def protocolModel = new TestModelImpl()
+
+        given:
+        def generated = adapter.adapt(TestModel.class, protocolModel)
+        def proxy = new ProtocolToModelAdapter(new IdentityTargetTypeProvider(), false).adapt(TestModel.class, protocolModel)
+
+        expect:
+        Proxy.isProxyClass(proxy.getClass())
+        generated == proxy
+        proxy == generated
+        generated.hashCode() == proxy.hashCode()
+    }
+
+    def "uses proxy when view type is not public"() {
+        def source = new TestProtocolProjectImpl()
+
+        when:
+        def view = adapter.adapt(PackagePrivateProject.class, source)
+
+        then:
+        Proxy.isProxyClass(view.getClass())
+        view.name == "name"
+    }
+}
+
+class IdentityTargetTypeProvider implements TargetTypeProvider, Serializable {
+    @Override
+    def <T> Class<? extends T> getTargetType(Class<T> initialTargetType, Object protocolObject) {
+        return initialTargetType
+    }
+}
+
+@PackageScope
+interface PackagePrivateProject {
+    String getName()
+}
@@ -27,7 +27,11 @@ import java.nio.channels.ByteChannel
 import java.nio.channels.Channel
 
 class ProtocolToModelAdapterTest extends Specification {
-    final ProtocolToModelAdapter adapter = new ProtocolToModelAdapter()
+    final ProtocolToModelAdapter adapter = createAdapter()
+
+    ProtocolToModelAdapter createAdapter() {
+        return new ProtocolToModelAdapter()
+    }
 
     def mapsNullToNull() {
         expect:
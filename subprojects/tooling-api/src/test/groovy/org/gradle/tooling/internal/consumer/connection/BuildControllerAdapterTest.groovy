@@ -17,10 +17,12 @@
 package org.gradle.tooling.internal.consumer.connection
 
 import org.gradle.tooling.UnknownModelException
+import org.gradle.tooling.UnsupportedVersionException
 import org.gradle.tooling.internal.adapter.ObjectGraphAdapter
 import org.gradle.tooling.internal.adapter.ProtocolToModelAdapter
 import org.gradle.tooling.internal.adapter.ViewBuilder
 import org.gradle.tooling.internal.consumer.versioning.ModelMapping
+import org.gradle.tooling.internal.consumer.versioning.VersionDetails
 import org.gradle.tooling.internal.protocol.*
 import org.gradle.tooling.model.Element
 import org.gradle.tooling.model.gradle.GradleBuild
@@ -39,7 +41,7 @@ class BuildControllerAdapterTest extends Specification {
             }
         }
     }
-    def controller = new BuildControllerAdapter(adapter, internalController, mapping, new File("root"))
+    def controller = new BuildControllerAdapter(adapter, internalController, mapping, new File("root"), VersionDetails.from("3.5"), true)
 
     def "unpacks unsupported model exception"() {
         def failure = new RuntimeException()
@@ -128,4 +130,37 @@ class BuildControllerAdapterTest extends Specification {
         and:
         1 * internalController.getModel(null, _) >> { throw new InternalUnsupportedModelException() }
     }
+
+    def "sends streamed value to the provider"() {
+        def streamingController = Mock(InternalStreamingBuildController)
+        def controller = new BuildControllerAdapter(adapter, streamingController, mapping, new File("root"), VersionDetails.from("3.6"), true)
+        def value = "value"
+
+        when:
+        controller.send(value)
+
+        then:
+        1 * streamingController.send(value)
+        0 * streamingController._
+    }
+
+    def "discards streamed value when no listener is registered"() {
+        def streamingController = Mock(InternalStreamingBuildController)
+        def controller = new BuildControllerAdapter(adapter, streamingController, mapping, new File("root"), VersionDetails.from("3.6"), false)
+
+        when:
+        controller.send("value")
+
+        then:
+        0 * streamingController._
+    }
+
+    def "fails to send streamed value when provider does not support streaming"() {
+        when:
+        controller.send("value")
+
+        then:
+        UnsupportedVersionException e = thrown()
+        e.message == "The version of Gradle you are using (3.5) does not support the send() method on BuildController. Support for this is available in Gradle 3.6 and all later versions."
+    }
 }